@@ -0,0 +1,49 @@
+/*
+ * Copyright 2019 The Vitess Authors.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vitess.benchmarks;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.runner.RunnerException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Entry point of {@code target/benchmarks.jar}.
+ *
+ * <p>It takes the usual JMH command line, but unless {@code -rf} says otherwise the results are
+ * also written as JSON, to {@code jmh-result.json} or the file given with {@code -rff}, so that
+ * runs of different versions can be compared. For example:
+ *
+ * <pre>
+ * java -jar target/benchmarks.jar RowBenchmark -rff row-19.0.0.json
+ * </pre>
+ */
+public class BenchmarkMain {
+
+  public static void main(String[] args) throws IOException, RunnerException {
+    List<String> jmhArgs = new ArrayList<>(Arrays.asList(args));
+    if (!jmhArgs.contains("-rf")) {
+      jmhArgs.add(0, "-rf");
+      jmhArgs.add(1, "json");
+    }
+    Main.main(jmhArgs.toArray(new String[0]));
+  }
+}
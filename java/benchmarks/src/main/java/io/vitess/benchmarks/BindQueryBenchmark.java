@@ -0,0 +1,89 @@
+/*
+ * Copyright 2019 The Vitess Authors.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vitess.benchmarks;
+
+import com.google.common.collect.ImmutableMap;
+
+import io.vitess.client.Proto;
+import io.vitess.proto.Query.BoundQuery;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converts bind variables of the common Java types to protos, one at a time with {@link
+ * Proto#buildBindVariable(Object)} and as a whole query with {@link Proto#bindQuery}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BindQueryBenchmark {
+
+  private static final String SQL =
+      "insert into test_table (id, count, name, price, payload, tags) values (?, ?, ?, ?, ?, ?)";
+
+  private Map<String, Object> bindVariables;
+  private BoundQuery template;
+
+  @Setup
+  public void setUp() {
+    bindVariables = ImmutableMap.<String, Object>builder()
+        .put("v1", 1234567890123L)
+        .put("v2", 42)
+        .put("v3", "a product name")
+        .put("v4", new BigDecimal("1234.56"))
+        .put("v5", new byte[64])
+        .put("v6", Arrays.asList("red", "green", "blue"))
+        .build();
+    template = BoundQuery.newBuilder().setSql(SQL).build();
+  }
+
+  @Benchmark
+  public void buildBindVariable(Blackhole blackhole) {
+    for (Object value : bindVariables.values()) {
+      blackhole.consume(Proto.buildBindVariable(value));
+    }
+  }
+
+  @Benchmark
+  public BoundQuery bindQuery() {
+    return Proto.bindQuery(SQL, bindVariables);
+  }
+
+  @Benchmark
+  public BoundQuery bindQueryTemplate() {
+    return Proto.bindQuery(template, bindVariables);
+  }
+}
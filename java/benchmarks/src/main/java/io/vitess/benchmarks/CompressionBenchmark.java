@@ -0,0 +1,136 @@
+/*
+ * Copyright 2019 The Vitess Authors.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vitess.benchmarks;
+
+import com.google.protobuf.ByteString;
+
+import io.grpc.Codec;
+import io.vitess.proto.Query;
+import io.vitess.proto.Vtgate;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compresses and decompresses a streamed result of text columns with the gRPC codecs, as a
+ * client with {@code grpcCompression} set and VTGate do for each message.
+ *
+ * <p>The {@code rawBytes} and {@code compressedBytes} counters add up the sizes of the messages
+ * before and after compression, so their ratio is what the codec saves on the network for the
+ * CPU time measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CompressionBenchmark {
+
+  @Param({"identity", "gzip"})
+  public String codec;
+
+  @Param({"100", "1000"})
+  public int rows;
+
+  private Codec compressor;
+  private byte[] message;
+  private byte[] compressedMessage;
+
+  /**
+   * The sizes of the messages, reported by JMH next to the time.
+   */
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class Sizes {
+
+    public long rawBytes;
+    public long compressedBytes;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      rawBytes = 0;
+      compressedBytes = 0;
+    }
+  }
+
+  @Setup
+  public void setUp() throws IOException {
+    compressor = codec.equals("gzip") ? new Codec.Gzip() : Codec.Identity.NONE;
+    Query.QueryResult.Builder result = Query.QueryResult.newBuilder();
+    for (int i = 0; i < rows; i++) {
+      String[] cells = {Integer.toString(i), "user" + i + "@example.com",
+          "a product name of some length " + (i % 50), "2019-01-02 03:04:05",
+          "status-" + (i % 4)};
+      Query.Row.Builder row = Query.Row.newBuilder();
+      StringBuilder values = new StringBuilder();
+      for (String cell : cells) {
+        row.addLengths(cell.length());
+        values.append(cell);
+      }
+      result.addRows(row.setValues(ByteString.copyFromUtf8(values.toString())));
+    }
+    message = Vtgate.StreamExecuteResponse.newBuilder().setResult(result).build().toByteArray();
+    compressedMessage = compress();
+  }
+
+  @Benchmark
+  public byte[] compress(Sizes sizes) throws IOException {
+    byte[] compressed = compress();
+    sizes.rawBytes += message.length;
+    sizes.compressedBytes += compressed.length;
+    return compressed;
+  }
+
+  @Benchmark
+  public int decompress() throws IOException {
+    byte[] buffer = new byte[8192];
+    int total = 0;
+    try (InputStream in = compressor.decompress(new ByteArrayInputStream(compressedMessage))) {
+      for (int n = in.read(buffer); n != -1; n = in.read(buffer)) {
+        total += n;
+      }
+    }
+    return total;
+  }
+
+  private byte[] compress() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(message.length);
+    try (OutputStream out = compressor.compress(bytes)) {
+      out.write(message);
+    }
+    return bytes.toByteArray();
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2019 The Vitess Authors.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vitess.benchmarks;
+
+import io.vitess.mysql.DateTime;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Timestamp;
+import java.text.ParseException;
+import java.util.Calendar;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses MySQL DATETIME values with {@link DateTime#parseTimestamp}, in the default time zone and
+ * with an explicit {@link Calendar}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DateTimeBenchmark {
+
+  @Param({"2019-01-02 03:04:05", "2019-01-02 03:04:05.123456"})
+  public String value;
+
+  private Calendar calendar;
+
+  @Setup
+  public void setUp() {
+    calendar = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+  }
+
+  @Benchmark
+  public Timestamp parseTimestamp() throws ParseException {
+    return DateTime.parseTimestamp(value);
+  }
+
+  @Benchmark
+  public Timestamp parseTimestampWithCalendar() throws ParseException {
+    return DateTime.parseTimestamp(value, calendar);
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2019 The Vitess Authors.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vitess.benchmarks;
+
+import io.vitess.client.cursor.FieldMap;
+import io.vitess.proto.Query;
+import io.vitess.proto.Query.Field;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Looks up columns in a {@link FieldMap} by label, with the label's case matching the field name
+ * and not matching it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FieldMapBenchmark {
+
+  @Param({"4", "32"})
+  public int columns;
+
+  private List<Field> fields;
+  private FieldMap fieldMap;
+  private String exactLabel;
+  private String qualifiedLabel;
+  private String otherCaseLabel;
+
+  @Setup
+  public void setUp() {
+    fields = new ArrayList<>();
+    for (int i = 0; i < columns; i++) {
+      fields.add(Field.newBuilder().setName("column_" + i).setTable("test_table")
+          .setType(Query.Type.VARCHAR).build());
+    }
+    fieldMap = new FieldMap(fields);
+    exactLabel = "column_" + (columns - 1);
+    qualifiedLabel = "test_table.column_" + (columns - 1);
+    otherCaseLabel = "COLUMN_" + (columns - 1);
+  }
+
+  @Benchmark
+  public FieldMap construct() {
+    return new FieldMap(fields);
+  }
+
+  @Benchmark
+  public Integer getIndexExact() {
+    return fieldMap.getIndex(exactLabel);
+  }
+
+  @Benchmark
+  public Integer getIndexQualified() {
+    return fieldMap.getIndex(qualifiedLabel);
+  }
+
+  @Benchmark
+  public Integer getIndexOtherCase() {
+    return fieldMap.getIndex(otherCaseLabel);
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2019 The Vitess Authors.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vitess.benchmarks;
+
+import com.google.protobuf.ByteString;
+
+import io.vitess.client.cursor.SimpleCursor;
+import io.vitess.jdbc.VitessConnection;
+import io.vitess.jdbc.VitessResultSet;
+import io.vitess.jdbc.VitessStatement;
+import io.vitess.proto.Query;
+import io.vitess.proto.Query.ExecuteOptions.IncludedFields;
+import io.vitess.proto.Query.Field;
+import io.vitess.proto.Query.QueryResult;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.SQLException;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads every cell of a result through {@link VitessResultSet}, as {@code getString} and {@code
+ * getObject}.
+ *
+ * <p>With {@code includedFields} set to {@code ALL}, the driver uses the full field metadata
+ * (charsets, flags, lengths) to pick the Java type of each column, which is the expensive path.
+ * No VTGate is needed: the connection is created but never connected.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResultSetBenchmark {
+
+  private static final int UTF8 = 33;
+  private static final int BINARY = 63;
+
+  @Param({"ALL", "TYPE_AND_NAME"})
+  public String includedFields;
+
+  @Param("1000")
+  public int rows;
+
+  private VitessStatement statement;
+  private QueryResult result;
+
+  @Setup
+  public void setUp() throws SQLException {
+    VitessConnection connection =
+        new VitessConnection("jdbc:vitess://localhost:15991/keyspace", new Properties());
+    connection.setIncludedFields(IncludedFields.valueOf(includedFields));
+    statement = new VitessStatement(connection);
+
+    QueryResult.Builder builder = QueryResult.newBuilder()
+        .addFields(field("id", Query.Type.INT64, BINARY, 20,
+            Query.MySqlFlag.NOT_NULL_FLAG_VALUE | Query.MySqlFlag.PRI_KEY_FLAG_VALUE))
+        .addFields(field("name", Query.Type.VARCHAR, UTF8, 255, 0))
+        .addFields(field("price", Query.Type.DECIMAL, BINARY, 12, 0))
+        .addFields(field("created", Query.Type.DATETIME, BINARY, 19, 0))
+        .addFields(field("payload", Query.Type.BLOB, BINARY, 65535,
+            Query.MySqlFlag.BLOB_FLAG_VALUE | Query.MySqlFlag.BINARY_FLAG_VALUE));
+    for (int i = 0; i < rows; i++) {
+      String[] cells = {
+          Integer.toString(i),
+          "name " + i,
+          (i / 100) + "." + String.format("%02d", i % 100),
+          "2019-01-02 03:04:05",
+          "payload " + i,
+      };
+      Query.Row.Builder row = Query.Row.newBuilder();
+      StringBuilder values = new StringBuilder();
+      for (String cell : cells) {
+        row.addLengths(cell.length());
+        values.append(cell);
+      }
+      builder.addRows(row.setValues(ByteString.copyFromUtf8(values.toString())));
+    }
+    result = builder.build();
+  }
+
+  private static Field field(String name, Query.Type type, int charset, int length, int flags) {
+    return Field.newBuilder().setName(name).setOrgName(name).setTable("test_table")
+        .setOrgTable("test_table").setDatabase("keyspace").setType(type).setCharset(charset)
+        .setColumnLength(length).setFlags(flags).build();
+  }
+
+  @Benchmark
+  public void getString(Blackhole blackhole) throws SQLException {
+    VitessResultSet resultSet = new VitessResultSet(new SimpleCursor(result), statement);
+    int columns = resultSet.getMetaData().getColumnCount();
+    while (resultSet.next()) {
+      for (int i = 1; i <= columns; i++) {
+        blackhole.consume(resultSet.getString(i));
+      }
+    }
+  }
+
+  @Benchmark
+  public void getObject(Blackhole blackhole) throws SQLException {
+    VitessResultSet resultSet = new VitessResultSet(new SimpleCursor(result), statement);
+    int columns = resultSet.getMetaData().getColumnCount();
+    while (resultSet.next()) {
+      for (int i = 1; i <= columns; i++) {
+        blackhole.consume(resultSet.getObject(i));
+      }
+    }
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2019 The Vitess Authors.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vitess.benchmarks;
+
+import com.google.protobuf.ByteString;
+
+import io.vitess.client.cursor.FieldMap;
+import io.vitess.client.cursor.Row;
+import io.vitess.proto.Query;
+import io.vitess.proto.Query.Field;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds a {@link Row} from a raw row and reads every cell, by index and by label.
+ *
+ * <p>{@code construct} only measures building the row, which is what a cursor pays for rows the
+ * application skips.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RowBenchmark {
+
+  private FieldMap fieldMap;
+  private Query.Row rawRow;
+
+  @Setup
+  public void setUp() {
+    fieldMap = new FieldMap(Arrays.asList(
+        Field.newBuilder().setName("id").setType(Query.Type.INT64).build(),
+        Field.newBuilder().setName("count").setType(Query.Type.INT32).build(),
+        Field.newBuilder().setName("name").setType(Query.Type.VARCHAR).build(),
+        Field.newBuilder().setName("price").setType(Query.Type.DECIMAL).build(),
+        Field.newBuilder().setName("created").setType(Query.Type.DATETIME).build(),
+        Field.newBuilder().setName("note").setType(Query.Type.VARCHAR).build()));
+    String[] cells = {"1234567890123", "42", "a product name", "1234.56", "2019-01-02 03:04:05"};
+    Query.Row.Builder row = Query.Row.newBuilder();
+    StringBuilder values = new StringBuilder();
+    for (String cell : cells) {
+      row.addLengths(cell.length());
+      values.append(cell);
+    }
+    // The last cell is NULL.
+    row.addLengths(-1);
+    rawRow = row.setValues(ByteString.copyFromUtf8(values.toString())).build();
+  }
+
+  @Benchmark
+  public Row construct() {
+    return new Row(fieldMap, rawRow);
+  }
+
+  @Benchmark
+  public void gettersByIndex(Blackhole blackhole) throws SQLException {
+    Row row = new Row(fieldMap, rawRow);
+    blackhole.consume(row.getLong(1));
+    blackhole.consume(row.getInt(2));
+    blackhole.consume(row.getBytes(3));
+    blackhole.consume(row.getBigDecimal(4));
+    blackhole.consume(row.getTimestamp(5));
+    blackhole.consume(row.getBytes(6));
+  }
+
+  @Benchmark
+  public void gettersByLabel(Blackhole blackhole) throws SQLException {
+    Row row = new Row(fieldMap, rawRow);
+    blackhole.consume(row.getLong("id"));
+    blackhole.consume(row.getInt("count"));
+    blackhole.consume(row.getBytes("name"));
+    blackhole.consume(row.getBigDecimal("price"));
+    blackhole.consume(row.getTimestamp("created"));
+    blackhole.consume(row.getBytes("note"));
+  }
+
+  @Benchmark
+  public void getObject(Blackhole blackhole) throws SQLException {
+    Row row = new Row(fieldMap, rawRow);
+    for (int i = 1; i <= row.size(); i++) {
+      blackhole.consume(row.getObject(i));
+    }
+  }
+}
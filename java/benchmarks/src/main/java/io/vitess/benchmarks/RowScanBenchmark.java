@@ -0,0 +1,114 @@
+/*
+ * Copyright 2019 The Vitess Authors.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vitess.benchmarks;
+
+import com.google.protobuf.ByteString;
+
+import io.vitess.client.cursor.Cursor;
+import io.vitess.client.cursor.Row;
+import io.vitess.client.cursor.SimpleCursor;
+import io.vitess.proto.Query;
+import io.vitess.proto.Query.Field;
+import io.vitess.proto.Query.QueryResult;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scans a result of numeric columns and reads every cell.
+ *
+ * <p>{@code primitiveGetters} uses the {@link Row} getters, which parse the packed row buffer in
+ * place. {@code stringDecoding} reproduces the previous approach of decoding each cell to a
+ * {@link String} and parsing that, as the baseline to compare against. Run with {@code -prof gc}
+ * to see the allocation rate of each.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class RowScanBenchmark {
+
+  @Param("1000000")
+  public int rows;
+
+  private QueryResult result;
+
+  @Setup
+  public void setUp() {
+    QueryResult.Builder builder = QueryResult.newBuilder()
+        .addFields(Field.newBuilder().setName("i32").setType(Query.Type.INT32))
+        .addFields(Field.newBuilder().setName("i64").setType(Query.Type.INT64))
+        .addFields(Field.newBuilder().setName("f64").setType(Query.Type.FLOAT64))
+        .addFields(Field.newBuilder().setName("dec").setType(Query.Type.DECIMAL));
+    for (int i = 0; i < rows; i++) {
+      String[] cells = {
+          Integer.toString(i - rows / 2),
+          Long.toString(1_000_000_007L * i),
+          Double.toString(i / 8.0),
+          (i / 100) + "." + String.format("%02d", i % 100),
+      };
+      Query.Row.Builder row = Query.Row.newBuilder();
+      StringBuilder values = new StringBuilder();
+      for (String cell : cells) {
+        row.addLengths(cell.length());
+        values.append(cell);
+      }
+      builder.addRows(row.setValues(ByteString.copyFromUtf8(values.toString())));
+    }
+    result = builder.build();
+  }
+
+  @Benchmark
+  public void primitiveGetters(Blackhole blackhole) throws SQLException {
+    Cursor cursor = new SimpleCursor(result);
+    Row row;
+    while ((row = cursor.next()) != null) {
+      blackhole.consume(row.getInt(1));
+      blackhole.consume(row.getLong(2));
+      blackhole.consume(row.getDouble(3));
+      blackhole.consume(row.getBigDecimal(4));
+    }
+  }
+
+  @Benchmark
+  public void stringDecoding(Blackhole blackhole) throws SQLException {
+    Cursor cursor = new SimpleCursor(result);
+    Row row;
+    while ((row = cursor.next()) != null) {
+      blackhole.consume(Integer.valueOf(row.getRawValue(1).toStringUtf8()));
+      blackhole.consume(Long.valueOf(row.getRawValue(2).toStringUtf8()));
+      blackhole.consume(Double.valueOf(row.getRawValue(3).toStringUtf8()));
+      blackhole.consume(new BigDecimal(row.getRawValue(4).toStringUtf8()));
+    }
+  }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2019 The Vitess Authors.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vitess.benchmarks;
+
+import com.google.protobuf.ByteString;
+
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import io.vitess.client.Context;
+import io.vitess.client.StreamIterator;
+import io.vitess.client.grpc.GrpcClient;
+import io.vitess.proto.Query;
+import io.vitess.proto.Query.Field;
+import io.vitess.proto.Query.QueryResult;
+import io.vitess.proto.Vtgate.StreamExecuteRequest;
+import io.vitess.proto.Vtgate.StreamExecuteResponse;
+import io.vitess.proto.grpc.VitessGrpc;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streams results from an in-process gRPC server through {@link GrpcClient#streamExecute}, to
+ * measure the overhead of the streaming adapter and its flow control without a network.
+ *
+ * <p>The server only sends while the call is ready, so the client's read-ahead limits apply as
+ * they would against a real VTGate.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StreamExecuteBenchmark {
+
+  @Param("1000")
+  public int results;
+
+  @Param({"1", "100"})
+  public int rowsPerResult;
+
+  private Server server;
+  private GrpcClient client;
+  private StreamExecuteRequest request;
+
+  @Setup
+  public void setUp() throws IOException {
+    QueryResult.Builder result = QueryResult.newBuilder()
+        .addFields(Field.newBuilder().setName("id").setType(Query.Type.INT64))
+        .addFields(Field.newBuilder().setName("name").setType(Query.Type.VARCHAR));
+    for (int i = 0; i < rowsPerResult; i++) {
+      String id = Integer.toString(i);
+      String name = "name " + i;
+      result.addRows(Query.Row.newBuilder().addLengths(id.length()).addLengths(name.length())
+          .setValues(ByteString.copyFromUtf8(id + name)));
+    }
+    StreamExecuteResponse response =
+        StreamExecuteResponse.newBuilder().setResult(result).build();
+
+    String name = InProcessServerBuilder.generateName();
+    server = InProcessServerBuilder.forName(name)
+        .addService(new StreamingService(response, results)).build().start();
+    client = new GrpcClient(InProcessChannelBuilder.forName(name).build());
+    request = StreamExecuteRequest.newBuilder()
+        .setQuery(Query.BoundQuery.newBuilder().setSql("select id, name from test_table"))
+        .build();
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    client.close();
+    server.shutdownNow();
+  }
+
+  @Benchmark
+  public void streamExecute(Blackhole blackhole) throws Exception {
+    try (StreamIterator<QueryResult> iterator =
+        client.streamExecute(Context.getDefault(), request)) {
+      while (iterator.hasNext()) {
+        blackhole.consume(iterator.next());
+      }
+    }
+  }
+
+  /**
+   * Answers every StreamExecute with the same response, repeated.
+   */
+  private static class StreamingService extends VitessGrpc.VitessImplBase {
+
+    private final StreamExecuteResponse response;
+    private final int count;
+
+    StreamingService(StreamExecuteResponse response, int count) {
+      this.response = response;
+      this.count = count;
+    }
+
+    @Override
+    public void streamExecute(StreamExecuteRequest request,
+        StreamObserver<StreamExecuteResponse> responseObserver) {
+      final ServerCallStreamObserver<StreamExecuteResponse> observer =
+          (ServerCallStreamObserver<StreamExecuteResponse>) responseObserver;
+      observer.setOnReadyHandler(new Runnable() {
+        private int sent;
+
+        @Override
+        public void run() {
+          while (sent < count && observer.isReady()) {
+            observer.onNext(response);
+            sent++;
+          }
+          if (sent == count) {
+            // Don't complete twice if the call becomes ready again.
+            sent++;
+            observer.onCompleted();
+          }
+        }
+      });
+    }
+  }
+}
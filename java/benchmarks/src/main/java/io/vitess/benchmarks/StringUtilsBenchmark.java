@@ -0,0 +1,73 @@
+/*
+ * Copyright 2019 The Vitess Authors.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vitess.benchmarks;
+
+import io.vitess.util.StringUtils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the {@link StringUtils#indexOfIgnoreCase} searches the JDBC driver does on every batched
+ * statement: looking for {@code ON DUPLICATE KEY UPDATE} while skipping quoted text and comments.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StringUtilsBenchmark {
+
+  private static final String[] ON_DUPLICATE_KEY_UPDATE =
+      new String[]{"ON", "DUPLICATE", "KEY", "UPDATE"};
+  private static final String MARKERS = "\"'`";
+
+  private static final String UPSERT = "insert into test_table (id, name, note) values (?, ?, "
+      + "'on duplicate key update is not here') /* nor here */ on duplicate key update name = "
+      + "values(name)";
+  private static final String INSERT = "insert into test_table (id, name, note) values (?, ?, "
+      + "'on duplicate key update is not here') /* nor here */";
+
+  @Benchmark
+  public int sequenceFound() {
+    return StringUtils.indexOfIgnoreCase(0, UPSERT, ON_DUPLICATE_KEY_UPDATE, MARKERS, MARKERS,
+        StringUtils.SEARCH_MODE__ALL);
+  }
+
+  @Benchmark
+  public int sequenceNotFound() {
+    return StringUtils.indexOfIgnoreCase(0, INSERT, ON_DUPLICATE_KEY_UPDATE, MARKERS, MARKERS,
+        StringUtils.SEARCH_MODE__ALL);
+  }
+
+  @Benchmark
+  public int stringFound() {
+    return StringUtils.indexOfIgnoreCase(0, UPSERT, "duplicate", MARKERS, MARKERS,
+        StringUtils.SEARCH_MODE__ALL);
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2019 The Vitess Authors.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vitess.client;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.Ticker;
+
+import java.sql.SQLTransientException;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Load and health of one {@link VTGateConnection}, as seen from the calls made on it.
+ *
+ * <p>It keeps the number of calls in flight, a peak-EWMA of their latency, and the transport
+ * failures, so that a client with several VTGates can send work to the one that answers fastest.
+ * The latency average follows increases immediately and decreases gradually, with a decay time
+ * of {@link #DEFAULT_DECAY_NANOS} by default. It also decays towards 0 while no calls complete,
+ * so a VTGate that was slow eventually gets traffic again and can show it recovered.
+ *
+ * <p>Only failures that say something about the VTGate itself count: {@link
+ * SQLTransientException}s, which is how the gRPC client reports {@code UNAVAILABLE} and {@code
+ * DEADLINE_EXCEEDED}. Query errors returned by a healthy VTGate don't.
+ */
+@ThreadSafe
+public class CallStats {
+
+  public static final long DEFAULT_DECAY_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+  private final Ticker ticker;
+  private final double decayNanos;
+
+  private int inFlight;
+  private double latencyNanos;
+  private long lastUpdateNanos;
+  private int consecutiveFailures;
+  private long lastFailureNanos;
+
+  public CallStats() {
+    this(Ticker.systemTicker(), DEFAULT_DECAY_NANOS, TimeUnit.NANOSECONDS);
+  }
+
+  public CallStats(Ticker ticker, long decayTime, TimeUnit unit) {
+    checkArgument(decayTime > 0, "decayTime must be positive");
+    this.ticker = checkNotNull(ticker);
+    this.decayNanos = unit.toNanos(decayTime);
+    this.lastUpdateNanos = ticker.read();
+  }
+
+  /**
+   * Records the start of a call, and returns the value to pass to {@link #finish(long,
+   * Throwable)} when it completes.
+   */
+  public synchronized long start() {
+    inFlight++;
+    return ticker.read();
+  }
+
+  /**
+   * Records the completion of a call.
+   *
+   * @param startNanos The value returned by {@link #start()} for the call.
+   * @param failure Why the call failed, or null if it succeeded.
+   */
+  public synchronized void finish(long startNanos, @Nullable Throwable failure) {
+    long now = ticker.read();
+    inFlight--;
+    double rtt = Math.max(now - startNanos, 0);
+    if (rtt > latencyNanos) {
+      latencyNanos = rtt;
+    } else {
+      double weight = Math.exp(-(now - lastUpdateNanos) / decayNanos);
+      latencyNanos = latencyNanos * weight + rtt * (1 - weight);
+    }
+    lastUpdateNanos = now;
+
+    if (failure instanceof SQLTransientException) {
+      consecutiveFailures++;
+      lastFailureNanos = now;
+    } else {
+      consecutiveFailures = 0;
+    }
+  }
+
+  public synchronized int getInFlight() {
+    return inFlight;
+  }
+
+  /**
+   * Returns the peak-EWMA of the call latency in nanoseconds, or 0 if no call completed yet.
+   */
+  public synchronized double getLatencyNanos() {
+    return decayedLatency(ticker.read());
+  }
+
+  /**
+   * Returns how many calls in a row failed, as of the last one that completed.
+   */
+  public synchronized int getConsecutiveFailures() {
+    return consecutiveFailures;
+  }
+
+  /**
+   * Returns how long ago the last failure was, or {@link Long#MAX_VALUE} if there was none.
+   */
+  public synchronized long getNanosSinceLastFailure() {
+    return consecutiveFailures == 0 ? Long.MAX_VALUE : ticker.read() - lastFailureNanos;
+  }
+
+  private double decayedLatency(long now) {
+    return latencyNanos * Math.exp(-Math.max(now - lastUpdateNanos, 0) / decayNanos);
+  }
+
+  @Override
+  public synchronized String toString() {
+    return String.format("CallStats{inFlight=%d, latencyMillis=%.3f, consecutiveFailures=%d}",
+        inFlight, decayedLatency(ticker.read()) / 1e6, consecutiveFailures);
+  }
+}
@@ -43,13 +43,20 @@ public class Context {
   private static final Context DEFAULT_CONTEXT = new Context();
   private Instant deadline;
   private CallerID callerId;
+  private int streamPrefetchResults;
+  private long streamPrefetchBytes;
+  private String compression;
 
   private Context() {
   }
 
-  private Context(Instant deadline, CallerID callerId) {
+  private Context(Instant deadline, CallerID callerId, int streamPrefetchResults,
+      long streamPrefetchBytes, String compression) {
     this.deadline = deadline;
     this.callerId = callerId;
+    this.streamPrefetchResults = streamPrefetchResults;
+    this.streamPrefetchBytes = streamPrefetchBytes;
+    this.compression = compression;
   }
 
   // getDefault returns an empty context.
@@ -63,7 +70,8 @@ public class Context {
       // You can't make a derived context with a later deadline than the parent.
       return this;
     }
-    return new Context(deadline, callerId);
+    return new Context(deadline, callerId, streamPrefetchResults, streamPrefetchBytes,
+        compression);
   }
 
   /**
@@ -80,7 +88,37 @@ public class Context {
       // Nothing changed.
       return this;
     }
-    return new Context(deadline, callerId);
+    return new Context(deadline, callerId, streamPrefetchResults, streamPrefetchBytes,
+        compression);
+  }
+
+  /**
+   * withStreamPrefetch returns a derived context that bounds how far streaming calls read ahead
+   * of the consumer.
+   *
+   * <p>Up to {@code maxResults} results are requested from the server before the consumer asks
+   * for them. No more are requested while the buffered results add up to {@code maxBytes} or
+   * more. A value of 0 keeps the RPC implementation's default for {@code maxResults}, and means
+   * no byte limit for {@code maxBytes}.
+   */
+  public Context withStreamPrefetch(int maxResults, long maxBytes) {
+    if (maxResults < 0 || maxBytes < 0) {
+      throw new IllegalArgumentException(
+          "stream prefetch limits must not be negative: " + maxResults + ", " + maxBytes);
+    }
+    return new Context(deadline, callerId, maxResults, maxBytes, compression);
+  }
+
+  /**
+   * withCompression returns a derived context whose calls use the named compressor, such as
+   * {@code "gzip"}, or {@code "identity"} for none, instead of the client's default.
+   *
+   * <p>The compressor must be known to the client, and it only applies to the RPC implementations
+   * which support compression.
+   */
+  public Context withCompression(String compression) {
+    return new Context(deadline, callerId, streamPrefetchResults, streamPrefetchBytes,
+        compression);
   }
 
   @Nullable
@@ -100,4 +138,26 @@ public class Context {
   public CallerID getCallerId() {
     return callerId;
   }
+
+  /**
+   * Returns the maximum number of streamed results to read ahead, or 0 for the default.
+   */
+  public int getStreamPrefetchResults() {
+    return streamPrefetchResults;
+  }
+
+  /**
+   * Returns the size in bytes at which streamed results stop being read ahead, or 0 for no limit.
+   */
+  public long getStreamPrefetchBytes() {
+    return streamPrefetchBytes;
+  }
+
+  /**
+   * Returns the name of the compressor to use, or null for the client's default.
+   */
+  @Nullable
+  public String getCompression() {
+    return compression;
+  }
 }
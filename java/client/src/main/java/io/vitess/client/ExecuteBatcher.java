@@ -0,0 +1,334 @@
+/*
+ * Copyright 2019 The Vitess Authors.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vitess.client;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import io.vitess.proto.Query;
+import io.vitess.proto.Vtgate.ExecuteBatchRequest;
+import io.vitess.proto.Vtgate.ExecuteBatchResponse;
+import io.vitess.proto.Vtgate.ExecuteRequest;
+import io.vitess.proto.Vtgate.ExecuteResponse;
+import io.vitess.proto.Vtgate.Session;
+import io.vitess.proto.Vtrpc.CallerID;
+
+import org.joda.time.Instant;
+
+import java.io.Closeable;
+import java.sql.SQLDataException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces concurrent single-query executes into {@code ExecuteBatch} calls.
+ *
+ * <p>Executes that arrive within {@code window} of each other, with the same session and caller
+ * ID, are sent to VTGate together as one {@link ExecuteBatchRequest}. The batch is sent once the
+ * window has passed since its first query, or as soon as it holds {@code maxBatchSize} queries.
+ * Each caller then gets an {@link ExecuteResponse} built from its own entry of the batch results
+ * and the batch's returned session, so callers can't tell the difference apart from the added
+ * latency of at most one window.
+ *
+ * <p>This trades a small, bounded delay for far fewer RPCs when many tiny queries are issued
+ * concurrently, e.g. point lookups from many threads sharing one {@link VTGateConnection}. Only
+ * autocommit calls outside a transaction should be batched; {@link VTGateConnection} takes care of
+ * that. A batch is sent with the earliest deadline of the queries in it.
+ */
+public class ExecuteBatcher implements Closeable {
+
+  private final RpcClient client;
+  private final long windowNanos;
+  private final int maxBatchSize;
+  private final ScheduledExecutorService scheduler;
+  private final boolean ownsScheduler;
+
+  /**
+   * Batches still collecting queries. Guarded by {@code this}.
+   */
+  private final Map<BatchKey, Batch> openBatches = new HashMap<>();
+  private boolean closed = false;
+
+  /**
+   * Creates a batcher with its own timer thread.
+   *
+   * @param client RPC connection to send the batches on
+   * @param window how long a batch waits for more queries after its first one
+   * @param unit unit of {@code window}
+   * @param maxBatchSize a batch is sent as soon as it holds this many queries
+   */
+  public ExecuteBatcher(RpcClient client, long window, TimeUnit unit, int maxBatchSize) {
+    this(client, window, unit, maxBatchSize, Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder().setDaemon(true).setNameFormat("vitess-execute-batcher-%d")
+            .build()), true);
+  }
+
+  /**
+   * Creates a batcher that uses {@code scheduler} to send batches when their window ends.
+   *
+   * @param client RPC connection to send the batches on
+   * @param window how long a batch waits for more queries after its first one
+   * @param unit unit of {@code window}
+   * @param maxBatchSize a batch is sent as soon as it holds this many queries
+   * @param scheduler timer for the windows, which is not shut down by {@link #close()}
+   */
+  public ExecuteBatcher(RpcClient client, long window, TimeUnit unit, int maxBatchSize,
+      ScheduledExecutorService scheduler) {
+    this(client, window, unit, maxBatchSize, scheduler, false);
+  }
+
+  private ExecuteBatcher(RpcClient client, long window, TimeUnit unit, int maxBatchSize,
+      ScheduledExecutorService scheduler, boolean ownsScheduler) {
+    checkArgument(window >= 0, "window must not be negative: %s", window);
+    checkArgument(maxBatchSize > 0, "maxBatchSize must be positive: %s", maxBatchSize);
+    this.client = checkNotNull(client);
+    this.windowNanos = unit.toNanos(window);
+    this.maxBatchSize = maxBatchSize;
+    this.scheduler = checkNotNull(scheduler);
+    this.ownsScheduler = ownsScheduler;
+  }
+
+  /**
+   * Queues a query to be sent with others arriving within the window.
+   *
+   * @return the response VTGate would have given to the query on its own
+   */
+  public ListenableFuture<ExecuteResponse> execute(Context ctx, ExecuteRequest request) {
+    SettableFuture<ExecuteResponse> response = SettableFuture.create();
+    Batch full = null;
+    synchronized (this) {
+      if (closed) {
+        response.setException(new SQLDataException("ExecuteBatcher is closed"));
+        return response;
+      }
+      BatchKey key = new BatchKey(request);
+      Batch batch = openBatches.get(key);
+      if (batch == null) {
+        batch = new Batch(key);
+        openBatches.put(key, batch);
+        batch.timer = scheduler.schedule(new FlushTask(batch), windowNanos, TimeUnit.NANOSECONDS);
+      }
+      batch.add(ctx, request, response);
+      if (batch.size() >= maxBatchSize) {
+        openBatches.remove(key);
+        batch.timer.cancel(false);
+        full = batch;
+      }
+    }
+    if (full != null) {
+      send(full);
+    }
+    return response;
+  }
+
+  /**
+   * Sends any queued queries, then stops accepting new ones.
+   */
+  @Override
+  public void close() {
+    List<Batch> pending;
+    synchronized (this) {
+      closed = true;
+      pending = new ArrayList<>(openBatches.values());
+      openBatches.clear();
+    }
+    for (Batch batch : pending) {
+      batch.timer.cancel(false);
+      send(batch);
+    }
+    if (ownsScheduler) {
+      scheduler.shutdown();
+    }
+  }
+
+  private void flush(Batch batch) {
+    synchronized (this) {
+      // The batch may have filled up and been sent already.
+      if (openBatches.get(batch.key) != batch) {
+        return;
+      }
+      openBatches.remove(batch.key);
+    }
+    send(batch);
+  }
+
+  private void send(final Batch batch) {
+    if (batch.size() == 1) {
+      // Nothing to coalesce with.
+      try {
+        batch.responses.get(0).setFuture(client.execute(batch.contexts.get(0),
+            batch.requests.get(0)));
+      } catch (SQLException exc) {
+        batch.responses.get(0).setException(exc);
+      }
+      return;
+    }
+
+    ExecuteBatchRequest.Builder requestBuilder =
+        ExecuteBatchRequest.newBuilder().setSession(batch.key.session);
+    if (batch.key.callerId != null) {
+      requestBuilder.setCallerId(batch.key.callerId);
+    }
+    for (ExecuteRequest request : batch.requests) {
+      requestBuilder.addQueries(request.getQuery());
+    }
+
+    ListenableFuture<ExecuteBatchResponse> call;
+    try {
+      call = client.executeBatch(batch.getContext(), requestBuilder.build());
+    } catch (SQLException exc) {
+      batch.fail(exc);
+      return;
+    }
+    Futures.addCallback(call, new FutureCallback<ExecuteBatchResponse>() {
+      @Override
+      public void onSuccess(ExecuteBatchResponse response) {
+        batch.complete(response);
+      }
+
+      @Override
+      public void onFailure(Throwable error) {
+        batch.fail(error);
+      }
+    }, directExecutor());
+  }
+
+  private class FlushTask implements Runnable {
+
+    private final Batch batch;
+
+    private FlushTask(Batch batch) {
+      this.batch = batch;
+    }
+
+    @Override
+    public void run() {
+      flush(batch);
+    }
+  }
+
+  /**
+   * Queries can only share a batch if they'd be executed in the same session, by the same caller.
+   */
+  private static class BatchKey {
+
+    private final Session session;
+    private final CallerID callerId;
+
+    private BatchKey(ExecuteRequest request) {
+      this.session = request.getSession();
+      this.callerId = request.hasCallerId() ? request.getCallerId() : null;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof BatchKey)) {
+        return false;
+      }
+      BatchKey that = (BatchKey) other;
+      return session.equals(that.session) && Objects.equals(callerId, that.callerId);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(session, callerId);
+    }
+  }
+
+  private static class Batch {
+
+    private final BatchKey key;
+    private final List<Context> contexts = new ArrayList<>();
+    private final List<ExecuteRequest> requests = new ArrayList<>();
+    private final List<SettableFuture<ExecuteResponse>> responses = new ArrayList<>();
+    private ScheduledFuture<?> timer;
+
+    private Batch(BatchKey key) {
+      this.key = key;
+    }
+
+    private void add(Context ctx, ExecuteRequest request,
+        SettableFuture<ExecuteResponse> response) {
+      contexts.add(ctx);
+      requests.add(request);
+      responses.add(response);
+    }
+
+    private int size() {
+      return requests.size();
+    }
+
+    /**
+     * Returns the context of the query with the earliest deadline.
+     */
+    private Context getContext() {
+      Context earliest = contexts.get(0);
+      for (Context ctx : contexts) {
+        Instant deadline = ctx.getDeadline();
+        if (deadline != null
+            && (earliest.getDeadline() == null || deadline.isBefore(earliest.getDeadline()))) {
+          earliest = ctx;
+        }
+      }
+      return earliest;
+    }
+
+    private void complete(ExecuteBatchResponse response) {
+      if (!response.hasError() && response.getResultsCount() != size()) {
+        fail(new SQLDataException("ExecuteBatch returned " + response.getResultsCount()
+            + " results for " + size() + " queries"));
+        return;
+      }
+      for (int i = 0; i < size(); i++) {
+        ExecuteResponse.Builder builder = ExecuteResponse.newBuilder()
+            .setSession(response.getSession());
+        if (response.hasError()) {
+          builder.setError(response.getError());
+        } else {
+          Query.ResultWithError result = response.getResults(i);
+          if (result.hasError()) {
+            builder.setError(result.getError());
+          }
+          builder.setResult(result.getResult());
+        }
+        responses.get(i).set(builder.build());
+      }
+    }
+
+    private void fail(Throwable error) {
+      for (SettableFuture<ExecuteResponse> response : responses) {
+        response.setException(error);
+      }
+    }
+  }
+}
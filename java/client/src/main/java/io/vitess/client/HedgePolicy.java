@@ -0,0 +1,130 @@
+/*
+ * Copyright 2019 The Vitess Authors.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vitess.client;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * When to send a hedged copy of a read, see {@link VTGateConnection#execute(Context,
+ * io.vitess.proto.Query.BoundQuery, VTSession, VTGateConnection, HedgePolicy)}.
+ *
+ * <p>The copy is sent once the first request has been outstanding for longer than the given
+ * percentile of recent response times, but never sooner than {@code minDelay}. With the 95th
+ * percentile, about 5% of reads are sent twice. Until {@link #MIN_SAMPLES} response times have
+ * been seen, nothing is hedged.
+ *
+ * <p>A policy is meant to be shared by all the connections to the same set of VTGates, so that
+ * it learns their response times quickly.
+ */
+@ThreadSafe
+public class HedgePolicy {
+
+  static final int MIN_SAMPLES = 32;
+  private static final int MAX_SAMPLES = 1024;
+  /**
+   * How many response times to record between two updates of the delay.
+   */
+  private static final int UPDATE_INTERVAL = 32;
+
+  private static volatile ScheduledExecutorService defaultScheduler;
+
+  private final double percentile;
+  private final long minDelayNanos;
+  private final ScheduledExecutorService scheduler;
+
+  private final long[] samples = new long[MAX_SAMPLES];
+  private long recorded;
+  private volatile long delayNanos = Long.MAX_VALUE;
+
+  /**
+   * Creates a policy that shares a timer thread with the other policies.
+   *
+   * @param percentile percentile of the response times after which to hedge, e.g. 95
+   * @param minDelay shortest delay before hedging
+   * @param unit unit of {@code minDelay}
+   */
+  public HedgePolicy(double percentile, long minDelay, TimeUnit unit) {
+    this(percentile, minDelay, unit, getDefaultScheduler());
+  }
+
+  public HedgePolicy(double percentile, long minDelay, TimeUnit unit,
+      ScheduledExecutorService scheduler) {
+    checkArgument(percentile > 0 && percentile < 100, "percentile must be in (0, 100)");
+    this.percentile = percentile;
+    this.minDelayNanos = unit.toNanos(minDelay);
+    this.scheduler = checkNotNull(scheduler);
+  }
+
+  /**
+   * Returns how long to wait before hedging, or {@link Long#MAX_VALUE} not to hedge yet.
+   */
+  public long getDelayNanos() {
+    return delayNanos;
+  }
+
+  /**
+   * Records the response time of a successful call.
+   */
+  public void recordLatency(long nanos) {
+    long[] snapshot = null;
+    synchronized (this) {
+      samples[(int) (recorded % MAX_SAMPLES)] = nanos;
+      recorded++;
+      if (recorded >= MIN_SAMPLES && recorded % UPDATE_INTERVAL == 0) {
+        snapshot = Arrays.copyOf(samples, (int) Math.min(recorded, MAX_SAMPLES));
+      }
+    }
+    if (snapshot != null) {
+      Arrays.sort(snapshot);
+      int index = (int) Math.ceil(percentile / 100 * snapshot.length) - 1;
+      delayNanos = Math.max(minDelayNanos, snapshot[Math.max(index, 0)]);
+    }
+  }
+
+  ScheduledExecutorService getScheduler() {
+    return scheduler;
+  }
+
+  private static ScheduledExecutorService getDefaultScheduler() {
+    if (defaultScheduler == null) {
+      synchronized (HedgePolicy.class) {
+        if (defaultScheduler == null) {
+          defaultScheduler = Executors.newSingleThreadScheduledExecutor(
+              new ThreadFactoryBuilder().setDaemon(true).setNameFormat("vitess-hedge-%d")
+                  .build());
+        }
+      }
+    }
+    return defaultScheduler;
+  }
+
+  @Override
+  public String toString() {
+    return "HedgePolicy{percentile=" + percentile + ", delayNanos=" + delayNanos + "}";
+  }
+}
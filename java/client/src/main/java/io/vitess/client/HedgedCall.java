@@ -0,0 +1,142 @@
+/*
+ * Copyright 2019 The Vitess Authors.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vitess.client;
+
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+
+import com.google.common.util.concurrent.AsyncCallable;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+
+/**
+ * Runs a call, and a second copy of it if the first hasn't completed after the delay given by a
+ * {@link HedgePolicy}.
+ *
+ * <p>The first attempt to succeed provides the result, and the other one is cancelled. The call
+ * only fails once every attempt that was started has failed, with the last failure. Cancelling
+ * the returned future cancels all attempts.
+ */
+class HedgedCall<V> {
+
+  private final SettableFuture<V> result = SettableFuture.create();
+  private final HedgePolicy policy;
+  private final long startNanos = System.nanoTime();
+
+  private final List<Future<?>> attempts = new ArrayList<>(2);
+  private int running;
+  private boolean failed;
+  @Nullable
+  private Future<?> timer;
+
+  private HedgedCall(HedgePolicy policy) {
+    this.policy = policy;
+  }
+
+  /**
+   * Starts {@code primary} now, and {@code hedge} once the policy's delay has passed.
+   */
+  static <V> ListenableFuture<V> start(AsyncCallable<V> primary, final AsyncCallable<V> hedge,
+      HedgePolicy policy) {
+    final HedgedCall<V> call = new HedgedCall<>(policy);
+    call.result.addListener(new Runnable() {
+      @Override
+      public void run() {
+        call.cancelAll();
+      }
+    }, directExecutor());
+
+    call.launch(primary);
+    long delayNanos = policy.getDelayNanos();
+    if (delayNanos != Long.MAX_VALUE) {
+      Future<?> timer = policy.getScheduler().schedule(new Runnable() {
+        @Override
+        public void run() {
+          call.launch(hedge);
+        }
+      }, delayNanos, TimeUnit.NANOSECONDS);
+      synchronized (call) {
+        call.timer = timer;
+      }
+      if (call.result.isDone()) {
+        timer.cancel(false);
+      }
+    }
+    return call.result;
+  }
+
+  private void launch(AsyncCallable<V> callable) {
+    synchronized (this) {
+      if (failed || result.isDone()) {
+        return;
+      }
+      running++;
+    }
+
+    ListenableFuture<V> attempt;
+    try {
+      attempt = callable.call();
+    } catch (Throwable exc) {
+      attempt = Futures.immediateFailedFuture(exc);
+    }
+    synchronized (this) {
+      attempts.add(attempt);
+    }
+    if (result.isDone()) {
+      attempt.cancel(true);
+    }
+
+    Futures.addCallback(attempt, new FutureCallback<V>() {
+      @Override
+      public void onSuccess(@Nullable V value) {
+        if (result.set(value)) {
+          policy.recordLatency(System.nanoTime() - startNanos);
+        }
+      }
+
+      @Override
+      public void onFailure(Throwable failure) {
+        synchronized (HedgedCall.this) {
+          running--;
+          if (running > 0 || result.isDone()) {
+            return;
+          }
+          failed = true;
+        }
+        result.setException(failure);
+      }
+    }, directExecutor());
+  }
+
+  private synchronized void cancelAll() {
+    if (timer != null) {
+      timer.cancel(false);
+    }
+    for (Future<?> attempt : attempts) {
+      attempt.cancel(true);
+    }
+  }
+}
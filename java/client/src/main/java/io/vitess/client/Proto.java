@@ -183,7 +183,17 @@ public class Proto {
    * bindQuery creates a BoundQuery from query and vars.
    */
   public static BoundQuery bindQuery(String query, Map<String, ?> vars) {
-    BoundQuery.Builder boundQueryBuilder = BoundQuery.newBuilder().setSql(query);
+    return bindQuery(BoundQuery.newBuilder().setSql(query).build(), vars);
+  }
+
+  /**
+   * Binds variables to a pre-built query, such as one kept by a prepared statement cache.
+   *
+   * <p>{@code template} is normally just the SQL, without bind variables. Reusing it saves
+   * encoding the SQL text again for every execution.
+   */
+  public static BoundQuery bindQuery(BoundQuery template, Map<String, ?> vars) {
+    BoundQuery.Builder boundQueryBuilder = template.toBuilder();
     if (vars != null) {
       for (Map.Entry<String, ?> entry : vars.entrySet()) {
         boundQueryBuilder.putBindVariables(entry.getKey(), buildBindVariable(entry.getValue()));
@@ -0,0 +1,230 @@
+/*
+ * Copyright 2019 The Vitess Authors.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vitess.client;
+
+import com.google.protobuf.MessageLite;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.sql.SQLDataException;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.NoSuchElementException;
+
+/**
+ * A {@link StreamIterator} that returns the results published by a {@link Publisher}.
+ *
+ * <p>This is how the blocking streaming API is layered on top of the non-blocking one: the
+ * iterator subscribes to the publisher and uses the subscription's demand to read ahead of the
+ * consumer. It requests up to {@code maxResults} values and buffers them until the {@code
+ * StreamIterator} side takes them. Once the buffer is full (or holds {@code maxBytes}, if set), no
+ * more values are requested until the consumer catches up. The publishing thread never blocks, so
+ * network transfer and decoding overlap with the consumer's processing.
+ *
+ * <p>The {@link #close()} method must be called when done, so that the rest of the stream is
+ * drained instead of being held back by flow control.
+ *
+ * @param <E> the type of result returned by the iterator, e.g. {@link
+ *     io.vitess.proto.Query.QueryResult QueryResult}
+ */
+public class PublisherStreamIterator<E extends MessageLite>
+    implements Subscriber<E>, StreamIterator<E> {
+
+  /**
+   * Number of values to read ahead if the {@link Context} doesn't say.
+   */
+  public static final int DEFAULT_PREFETCH_RESULTS = 2;
+
+  private final int maxResults;
+  private final long maxBytes;
+
+  private final ArrayDeque<Buffered<E>> buffer = new ArrayDeque<>();
+  private long bufferedBytes;
+  /**
+   * Number of values requested from the subscription that haven't arrived in {@link #onNext} yet.
+   */
+  private long outstanding;
+  private Subscription subscription;
+  private Throwable error;
+  private boolean completed = false;
+  private boolean closed = false;
+  private boolean draining = false;
+
+  /**
+   * @param maxResults maximum number of values to read ahead, or 0 for the default
+   * @param maxBytes stop reading ahead once the buffered values add up to this many serialized
+   *     bytes, or 0 for no limit
+   */
+  public PublisherStreamIterator(int maxResults, long maxBytes) {
+    this.maxResults = maxResults > 0 ? maxResults : DEFAULT_PREFETCH_RESULTS;
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * Subscribes a new iterator to {@code publisher}, with the read-ahead limits set in {@code ctx}.
+   */
+  public static <E extends MessageLite> PublisherStreamIterator<E> subscribe(
+      Publisher<E> publisher, Context ctx) {
+    PublisherStreamIterator<E> iterator =
+        new PublisherStreamIterator<>(ctx.getStreamPrefetchResults(), ctx.getStreamPrefetchBytes());
+    publisher.subscribe(iterator);
+    return iterator;
+  }
+
+  @Override
+  public void onSubscribe(Subscription subscription) {
+    synchronized (this) {
+      if (this.subscription != null) {
+        // A Subscriber may only be subscribed once.
+        subscription.cancel();
+        return;
+      }
+      this.subscription = subscription;
+      requestMore();
+    }
+  }
+
+  @Override
+  public void onNext(E value) {
+    synchronized (this) {
+      outstanding--;
+      // If there's been an error, or the iterator was closed, just drain the rest of the stream.
+      if (!closed && error == null) {
+        Buffered<E> buffered =
+            new Buffered<>(value, maxBytes > 0 ? value.getSerializedSize() : 0);
+        buffer.add(buffered);
+        bufferedBytes += buffered.size;
+        notifyAll();
+      }
+      requestMore();
+    }
+  }
+
+  @Override
+  public void onComplete() {
+    synchronized (this) {
+      completed = true;
+      notifyAll();
+    }
+  }
+
+  @Override
+  public void onError(Throwable error) {
+    synchronized (this) {
+      setError(error);
+    }
+  }
+
+  private void setError(Throwable error) {
+    if (this.error == null) {
+      this.error = error;
+    }
+    notifyAll();
+  }
+
+  @Override
+  public boolean hasNext() throws SQLException {
+    synchronized (this) {
+      try {
+        // Wait for a new value to show up.
+        while (buffer.isEmpty()) {
+          if (completed) {
+            return false;
+          }
+          if (error instanceof SQLException) {
+            throw (SQLException) error;
+          }
+          if (error != null) {
+            throw new SQLDataException("stream failed: " + error, error);
+          }
+
+          wait();
+        }
+
+        return true;
+      } catch (InterruptedException exc) {
+        setError(exc);
+        requestMore();
+        throw new SQLDataException("StreamIterator interrupted while waiting for value", exc);
+      }
+    }
+  }
+
+  @Override
+  public E next() throws NoSuchElementException, SQLException {
+    synchronized (this) {
+      if (hasNext()) {
+        Buffered<E> head = buffer.poll();
+        bufferedBytes -= head.size;
+        requestMore();
+        return head.value;
+      } else {
+        throw new NoSuchElementException("stream completed");
+      }
+    }
+  }
+
+  @Override
+  public void close() throws Exception {
+    synchronized (this) {
+      closed = true;
+      buffer.clear();
+      bufferedBytes = 0;
+      requestMore();
+    }
+  }
+
+  /**
+   * Requests as many values as the read-ahead limits allow. Must be called with the lock held.
+   *
+   * <p>The counters are updated before calling {@link Subscription#request(long)}, since the
+   * publisher may deliver values from within that call.
+   */
+  private void requestMore() {
+    if (subscription == null || completed || draining) {
+      return;
+    }
+    if (closed || error != null) {
+      // Nobody is going to consume the rest of the stream, so let it drain.
+      draining = true;
+      subscription.request(Long.MAX_VALUE);
+      return;
+    }
+    if (maxBytes > 0 && bufferedBytes >= maxBytes) {
+      return;
+    }
+    long count = maxResults - buffer.size() - outstanding;
+    if (count > 0) {
+      outstanding += count;
+      subscription.request(count);
+    }
+  }
+
+  private static class Buffered<E> {
+
+    private final E value;
+    private final int size;
+
+    private Buffered(E value, int size) {
+      this.value = value;
+      this.size = size;
+    }
+  }
+}
@@ -22,12 +22,18 @@ import io.vitess.proto.Query.QueryResult;
 import io.vitess.proto.Vtgate;
 import io.vitess.proto.Vtgate.ExecuteRequest;
 import io.vitess.proto.Vtgate.ExecuteResponse;
+import io.vitess.proto.Vtgate.PrepareRequest;
+import io.vitess.proto.Vtgate.PrepareResponse;
 import io.vitess.proto.Vtgate.StreamExecuteRequest;
 import io.vitess.proto.Vtgate.VStreamRequest;
 import io.vitess.proto.Vtgate.VStreamResponse;
 
+import org.reactivestreams.Publisher;
+
 import java.io.Closeable;
 import java.sql.SQLException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 
 /**
  * RpcClient defines a set of methods to communicate with VTGates.
@@ -55,6 +61,20 @@ public interface RpcClient extends Closeable {
       Vtgate.ExecuteBatchRequest request)
       throws SQLException;
 
+  /**
+   * Prepares a query, returning the fields of the result it would produce without executing it.
+   *
+   * <p>See the
+   * <a href="https://github.com/vitessio/vitess/blob/main/proto/vtgateservice.proto">proto</a>
+   * definition for canonical documentation on this VTGate API.
+   *
+   * <p>The default throws {@link UnsupportedOperationException}.
+   */
+  default ListenableFuture<PrepareResponse> prepare(Context ctx, PrepareRequest request)
+      throws SQLException {
+    throw new UnsupportedOperationException("prepare isn't supported by " + this);
+  }
+
   /**
    * Starts stream queries with the VTGate V3 API.
    *
@@ -70,6 +90,26 @@ public interface RpcClient extends Closeable {
   StreamIterator<QueryResult> streamExecute(Context ctx, StreamExecuteRequest request)
       throws SQLException;
 
+  /**
+   * Non-blocking variant of {@link #streamExecute(Context, StreamExecuteRequest)}.
+   *
+   * <p>The query is sent when a {@link org.reactivestreams.Subscriber Subscriber} subscribes, and
+   * results are only read from the server as fast as the subscriber requests them. Cancelling
+   * the subscription cancels the query. The returned publisher accepts a single subscriber.
+   *
+   * <p>The default reads the results of {@link #streamExecute(Context, StreamExecuteRequest)} on
+   * a thread of its own, see {@link StreamIteratorPublisher}.
+   */
+  default Publisher<QueryResult> streamExecuteAsync(final Context ctx,
+      final StreamExecuteRequest request) throws SQLException {
+    return new StreamIteratorPublisher<>(new Callable<StreamIterator<QueryResult>>() {
+      @Override
+      public StreamIterator<QueryResult> call() throws SQLException {
+        return streamExecute(ctx, request);
+      }
+    });
+  }
+
   /**
    * Starts streaming the vstream binlog events.
    *
@@ -81,4 +121,33 @@ public interface RpcClient extends Closeable {
    */
   StreamIterator<VStreamResponse> getVStream(
       Context ctx, VStreamRequest vstreamRequest) throws SQLException;
+
+  /**
+   * Non-blocking variant of {@link #getVStream(Context, VStreamRequest)}, with the same flow
+   * control as {@link #streamExecuteAsync(Context, StreamExecuteRequest)}.
+   *
+   * <p>The default reads the events of {@link #getVStream(Context, VStreamRequest)} on a thread
+   * of its own, see {@link StreamIteratorPublisher}.
+   */
+  default Publisher<VStreamResponse> getVStreamAsync(
+      final Context ctx, final VStreamRequest vstreamRequest) throws SQLException {
+    return new StreamIteratorPublisher<>(new Callable<StreamIterator<VStreamResponse>>() {
+      @Override
+      public StreamIterator<VStreamResponse> call() throws SQLException {
+        return getVStream(ctx, vstreamRequest);
+      }
+    });
+  }
+
+  /**
+   * Connects to the server, if it isn't yet, and waits until calls can be sent without paying for
+   * the connection setup, or {@code timeout} has elapsed.
+   *
+   * <p>Implementations which connect lazily should override this; the default returns right away.
+   *
+   * @return whether the client is ready
+   */
+  default boolean awaitReady(long timeout, TimeUnit unit) throws InterruptedException {
+    return true;
+  }
 }
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2019 The Vitess Authors.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vitess.client;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link Publisher} of the results of a {@link StreamIterator}.
+ *
+ * <p>This is the reverse of {@link PublisherStreamIterator}: it lets an {@link RpcClient} which
+ * only implements the blocking streaming API offer the non-blocking one. The stream is opened when
+ * a subscriber subscribes, and its results are read on a thread of {@code executor}, one at a time
+ * as the subscriber requests them. Cancelling the subscription closes the stream. It accepts a
+ * single subscriber.
+ *
+ * @param <E> the type of result published, e.g. {@link io.vitess.proto.Query.QueryResult
+ *     QueryResult}
+ */
+public class StreamIteratorPublisher<E> implements Publisher<E> {
+
+  private static volatile ExecutorService defaultExecutor;
+
+  private final Callable<? extends StreamIterator<E>> opener;
+  private final Executor executor;
+  private final AtomicBoolean subscribed = new AtomicBoolean();
+
+  /**
+   * Creates a publisher which reads on a shared pool of daemon threads.
+   *
+   * @param opener opens the stream, e.g. by calling {@link RpcClient#streamExecute}
+   */
+  public StreamIteratorPublisher(Callable<? extends StreamIterator<E>> opener) {
+    this(opener, getDefaultExecutor());
+  }
+
+  /**
+   * @param opener opens the stream, e.g. by calling {@link RpcClient#streamExecute}
+   * @param executor runs the blocking reads of the stream
+   */
+  public StreamIteratorPublisher(Callable<? extends StreamIterator<E>> opener,
+      Executor executor) {
+    this.opener = opener;
+    this.executor = executor;
+  }
+
+  @Override
+  public void subscribe(Subscriber<? super E> subscriber) {
+    if (subscriber == null) {
+      throw new NullPointerException("subscriber");
+    }
+    if (!subscribed.compareAndSet(false, true)) {
+      subscriber.onSubscribe(new Subscription() {
+        @Override
+        public void request(long count) {
+        }
+
+        @Override
+        public void cancel() {
+        }
+      });
+      subscriber.onError(new IllegalStateException("stream already has a subscriber"));
+      return;
+    }
+    StreamSubscription<E> subscription = new StreamSubscription<>(subscriber, opener, executor);
+    subscriber.onSubscribe(subscription);
+    // Open the stream right away, even before the subscriber requests anything.
+    subscription.schedule();
+  }
+
+  private static Executor getDefaultExecutor() {
+    if (defaultExecutor == null) {
+      synchronized (StreamIteratorPublisher.class) {
+        if (defaultExecutor == null) {
+          defaultExecutor = Executors.newCachedThreadPool(
+              new ThreadFactoryBuilder().setDaemon(true).setNameFormat("vitess-stream-%d")
+                  .build());
+        }
+      }
+    }
+    return defaultExecutor;
+  }
+
+  /**
+   * Reads the stream on the executor while there is demand. The reads and the signals to the
+   * subscriber only happen in {@link #run()}, which {@link #schedule()} never runs twice at once.
+   */
+  private static final class StreamSubscription<E> implements Subscription, Runnable {
+
+    private final Subscriber<? super E> subscriber;
+    private final Callable<? extends StreamIterator<E>> opener;
+    private final Executor executor;
+    private final AtomicLong demand = new AtomicLong();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private volatile StreamIterator<E> iterator;
+    private volatile boolean cancelled = false;
+    private volatile IllegalArgumentException invalidRequest;
+    private boolean done = false;
+
+    StreamSubscription(Subscriber<? super E> subscriber,
+        Callable<? extends StreamIterator<E>> opener, Executor executor) {
+      this.subscriber = subscriber;
+      this.opener = opener;
+      this.executor = executor;
+    }
+
+    @Override
+    public void request(long count) {
+      if (count <= 0) {
+        // Rule 3.9 of the Reactive Streams specification.
+        invalidRequest = new IllegalArgumentException("non-positive request: " + count);
+      } else {
+        long current;
+        long next;
+        do {
+          current = demand.get();
+          next = current + count < 0 ? Long.MAX_VALUE : current + count;
+        } while (!demand.compareAndSet(current, next));
+      }
+      schedule();
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+      // Unblocks a read in progress.
+      closeIterator();
+      schedule();
+    }
+
+    void schedule() {
+      if (pending.getAndIncrement() == 0) {
+        executor.execute(this);
+      }
+    }
+
+    @Override
+    public void run() {
+      int missed = 1;
+      while (drain()) {
+        missed = pending.addAndGet(-missed);
+        if (missed == 0) {
+          return;
+        }
+      }
+    }
+
+    /**
+     * Publishes as many results as were requested. Returns false once the subscription ended.
+     */
+    private boolean drain() {
+      if (done) {
+        return false;
+      }
+      try {
+        if (!cancelled && invalidRequest != null) {
+          cancelled = true;
+          closeIterator();
+          done = true;
+          subscriber.onError(invalidRequest);
+          return false;
+        }
+        if (iterator == null && !cancelled) {
+          iterator = opener.call();
+        }
+        while (!cancelled && demand.get() > 0) {
+          if (!iterator.hasNext()) {
+            done = true;
+            closeIterator();
+            subscriber.onComplete();
+            return false;
+          }
+          E value = iterator.next();
+          if (demand.get() != Long.MAX_VALUE) {
+            demand.decrementAndGet();
+          }
+          subscriber.onNext(value);
+        }
+      } catch (Exception exc) {
+        done = true;
+        closeIterator();
+        if (!cancelled) {
+          subscriber.onError(exc);
+        }
+        return false;
+      }
+      if (cancelled) {
+        // The stream may have been opened after cancel() looked for it.
+        done = true;
+        closeIterator();
+        return false;
+      }
+      return true;
+    }
+
+    private void closeIterator() {
+      StreamIterator<E> current = iterator;
+      if (current != null && closed.compareAndSet(false, true)) {
+        try {
+          current.close();
+        } catch (Exception exc) {
+          // Nobody is left to report it to: the stream was either done or cancelled.
+        }
+      }
+    }
+  }
+}
@@ -18,6 +18,7 @@ package io.vitess.client;
 
 import io.vitess.client.cursor.Cursor;
 import io.vitess.client.cursor.CursorWithError;
+import io.vitess.proto.Query;
 
 import java.io.Closeable;
 import java.io.IOException;
@@ -76,6 +77,23 @@ public final class VTGateBlockingConnection implements Closeable {
     return vtGateConnection.execute(ctx, query, bindVars, vtSession).checkedGet();
   }
 
+  /**
+   * This method calls the VTGate to prepare the query, without executing it.
+   *
+   * @param ctx Context on user and execution deadline if any.
+   * @param query Sql Query to be prepared.
+   * @param bindVars Parameters to bind with sql, if already known.
+   * @param vtSession Session to be used with the call.
+   * @return Fields of the result that the query would return
+   * @throws SQLException If anything fails on query preparation.
+   */
+  public List<Query.Field> prepare(Context ctx,
+      String query,
+      @Nullable Map<String, ?> bindVars,
+      final VTSession vtSession) throws SQLException {
+    return vtGateConnection.prepare(ctx, query, bindVars, vtSession).checkedGet();
+  }
+
   /**
    * This method calls the VTGate to execute list of queries as a batch.
    *
@@ -20,7 +20,9 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.util.concurrent.Futures.transformAsync;
 import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 
+import com.google.common.util.concurrent.AsyncCallable;
 import com.google.common.util.concurrent.AsyncFunction;
+import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 
@@ -32,10 +34,14 @@ import io.vitess.proto.Query;
 import io.vitess.proto.Vtgate;
 import io.vitess.proto.Vtgate.ExecuteRequest;
 import io.vitess.proto.Vtgate.ExecuteResponse;
+import io.vitess.proto.Vtgate.PrepareRequest;
+import io.vitess.proto.Vtgate.PrepareResponse;
 import io.vitess.proto.Vtgate.StreamExecuteRequest;
 import io.vitess.proto.Vtgate.VStreamRequest;
 import io.vitess.proto.Vtgate.VStreamResponse;
 
+import org.reactivestreams.Publisher;
+
 import java.io.Closeable;
 import java.io.IOException;
 import java.sql.SQLDataException;
@@ -43,6 +49,7 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Nullable;
 
@@ -56,7 +63,8 @@ import javax.annotation.Nullable;
  * <p>
  * <p>After calling any method that returns a {@link SQLFuture}, you must wait for that future to
  * complete before calling any other methods on that {@code VTGateConnection} instance. An {@link
- * IllegalStateException} will be thrown if this constraint is violated.</p>
+ * IllegalStateException} will be thrown if this constraint is violated. The exception is a
+ * {@link VTSession} in pipelined mode, see {@link VTSession#setPipelined(boolean)}.</p>
  * <p>
  * <p>All non-streaming calls on {@code VTGateConnection} are asynchronous. Use {@link
  * VTGateBlockingConnection} if you want synchronous calls.</p>
@@ -64,6 +72,9 @@ import javax.annotation.Nullable;
 public class VTGateConnection implements Closeable {
 
   private final RpcClient client;
+  @Nullable
+  private final ExecuteBatcher batcher;
+  private final CallStats callStats = new CallStats();
 
   /**
    * Creates a VTGate connection with no specific parameters.
@@ -74,7 +85,22 @@ public class VTGateConnection implements Closeable {
    * @param client RPC connection
    */
   public VTGateConnection(RpcClient client) {
+    this(client, null);
+  }
+
+  /**
+   * Creates a VTGate connection that coalesces concurrent executes into batches.
+   * <p>
+   * <p>Autocommit executes outside a transaction go through {@code batcher}, which sends the
+   * ones arriving close together as a single ExecuteBatch call. The batcher is closed along with
+   * this connection.</p>
+   *
+   * @param client RPC connection
+   * @param batcher Batcher for executes, or null to send each execute on its own
+   */
+  public VTGateConnection(RpcClient client, @Nullable ExecuteBatcher batcher) {
     this.client = checkNotNull(client);
+    this.batcher = batcher;
   }
 
   /**
@@ -89,21 +115,105 @@ public class VTGateConnection implements Closeable {
    */
   public SQLFuture<Cursor> execute(Context ctx, String query, @Nullable Map<String, ?> bindVars,
       final VTSession vtSession) throws SQLException {
-    vtSession.checkCallIsAllowed("execute");
+    return execute(ctx, Proto.bindQuery(checkNotNull(query), bindVars), vtSession);
+  }
+
+  /**
+   * This method calls the VTGate to execute a query that already has its variables bound.
+   *
+   * @param ctx Context on user and execution deadline if any.
+   * @param query Query to be executed, usually built with {@link Proto#bindQuery}.
+   * @param vtSession Session to be used with the call.
+   * @return SQL Future Cursor
+   * @throws SQLException If anything fails on query execution.
+   */
+  public SQLFuture<Cursor> execute(Context ctx, Query.BoundQuery query,
+      final VTSession vtSession) throws SQLException {
+    final long callSequence = vtSession.startCall("execute");
+    ExecuteRequest request = buildExecuteRequest(ctx, query, vtSession);
+    ListenableFuture<ExecuteResponse> response =
+        batcher != null && request.getSession().getAutocommit()
+            && request.getSession().getShardSessionsCount() == 0
+            ? batcher.execute(ctx, request)
+            : client.execute(ctx, request);
+    track(response);
+    return toCursor(response, vtSession, callSequence);
+  }
+
+  /**
+   * Executes a read, hedging it on a second VTGate if the first one is slow to answer.
+   *
+   * <p>If the session targets {@code replica} or {@code rdonly} tablets, is in autocommit mode
+   * and isn't in a transaction, the same request is sent to {@code hedgeConnection} once this
+   * connection has taken longer than {@link HedgePolicy#getDelayNanos()} to answer. The first
+   * response is used and the other call is cancelled. Otherwise this is the same as {@link
+   * #execute(Context, Query.BoundQuery, VTSession)}.
+   *
+   * <p>Only hedge queries that are safe to run twice, i.e. that don't modify any rows.
+   *
+   * @param ctx Context on user and execution deadline if any.
+   * @param query Query to be executed, usually built with {@link Proto#bindQuery}.
+   * @param vtSession Session to be used with the call.
+   * @param hedgeConnection Connection to another VTGate, to send the hedged request to.
+   * @param policy When to hedge, shared by the connections to the same set of VTGates.
+   * @return SQL Future Cursor
+   * @throws SQLException If anything fails on query execution.
+   */
+  public SQLFuture<Cursor> execute(final Context ctx, Query.BoundQuery query,
+      final VTSession vtSession, final VTGateConnection hedgeConnection, HedgePolicy policy)
+      throws SQLException {
+    if (hedgeConnection == this || !isHedgeable(vtSession)) {
+      return execute(ctx, query, vtSession);
+    }
+
+    final long callSequence = vtSession.startCall("execute");
+    final ExecuteRequest request = buildExecuteRequest(ctx, query, vtSession);
+    ListenableFuture<ExecuteResponse> response = HedgedCall.start(
+        new AsyncCallable<ExecuteResponse>() {
+          @Override
+          public ListenableFuture<ExecuteResponse> call() throws Exception {
+            return track(client.execute(ctx, request));
+          }
+        },
+        new AsyncCallable<ExecuteResponse>() {
+          @Override
+          public ListenableFuture<ExecuteResponse> call() throws Exception {
+            return hedgeConnection.track(hedgeConnection.client.execute(ctx, request));
+          }
+        }, policy);
+    return toCursor(response, vtSession, callSequence);
+  }
+
+  private static boolean isHedgeable(VTSession vtSession) {
+    // Outside autocommit, the first query starts a transaction before the session shows it.
+    if (!vtSession.isAutoCommit() || vtSession.isInTransaction()) {
+      return false;
+    }
+    String target = vtSession.getSession().getTargetString();
+    String tabletType = target.substring(target.lastIndexOf('@') + 1);
+    return tabletType.equalsIgnoreCase("replica") || tabletType.equalsIgnoreCase("rdonly");
+  }
+
+  private static ExecuteRequest buildExecuteRequest(Context ctx, Query.BoundQuery query,
+      VTSession vtSession) {
     ExecuteRequest.Builder requestBuilder = ExecuteRequest.newBuilder()
-        .setQuery(Proto.bindQuery(checkNotNull(query), bindVars))
+        .setQuery(checkNotNull(query))
         .setSession(vtSession.getSession());
 
     if (ctx.getCallerId() != null) {
       requestBuilder.setCallerId(ctx.getCallerId());
     }
+    return requestBuilder.build();
+  }
 
+  private static SQLFuture<Cursor> toCursor(ListenableFuture<ExecuteResponse> response,
+      final VTSession vtSession, final long callSequence) {
     SQLFuture<Cursor> call = new SQLFuture<>(
-        transformAsync(client.execute(ctx, requestBuilder.build()),
+        transformAsync(response,
             new AsyncFunction<ExecuteResponse, Cursor>() {
               @Override
               public ListenableFuture<Cursor> apply(ExecuteResponse response) throws Exception {
-                vtSession.setSession(response.getSession());
+                vtSession.setSession(response.getSession(), callSequence);
                 Proto.checkError(response.getError());
                 return Futures.<Cursor>immediateFuture(new SimpleCursor(response.getResult()));
               }
@@ -112,6 +222,43 @@ public class VTGateConnection implements Closeable {
     return call;
   }
 
+  /**
+   * This method calls the VTGate to prepare the query, without executing it.
+   *
+   * @param ctx Context on user and execution deadline if any.
+   * @param query Sql Query to be prepared.
+   * @param bindVars Parameters to bind with sql, if already known.
+   * @param vtSession Session to be used with the call.
+   * @return SQL Future with the fields of the result that the query would return, which is empty
+   *     if the query doesn't return a result set.
+   * @throws SQLException If anything fails on query preparation.
+   */
+  public SQLFuture<List<Query.Field>> prepare(Context ctx, String query,
+      @Nullable Map<String, ?> bindVars, final VTSession vtSession) throws SQLException {
+    final long callSequence = vtSession.startCall("prepare");
+    PrepareRequest.Builder requestBuilder = PrepareRequest.newBuilder()
+        .setQuery(Proto.bindQuery(checkNotNull(query), bindVars))
+        .setSession(vtSession.getSession());
+
+    if (ctx.getCallerId() != null) {
+      requestBuilder.setCallerId(ctx.getCallerId());
+    }
+
+    SQLFuture<List<Query.Field>> call = new SQLFuture<>(
+        transformAsync(track(client.prepare(ctx, requestBuilder.build())),
+            new AsyncFunction<PrepareResponse, List<Query.Field>>() {
+              @Override
+              public ListenableFuture<List<Query.Field>> apply(PrepareResponse response)
+                  throws Exception {
+                vtSession.setSession(response.getSession(), callSequence);
+                Proto.checkError(response.getError());
+                return Futures.immediateFuture(response.getFieldsList());
+              }
+            }, directExecutor()));
+    vtSession.setLastCall(call);
+    return call;
+  }
+
   /**
    * This method calls the VTGate to execute list of queries as a batch.
    * <p>
@@ -127,7 +274,7 @@ public class VTGateConnection implements Closeable {
   public SQLFuture<List<CursorWithError>> executeBatch(Context ctx, List<String> queryList,
       @Nullable List<Map<String, ?>> bindVarsList, final VTSession vtSession)
       throws SQLException {
-    vtSession.checkCallIsAllowed("executeBatch");
+    final long callSequence = vtSession.startCall("executeBatch");
     List<Query.BoundQuery> queries = new ArrayList<>();
 
     if (null != bindVarsList && bindVarsList.size() != queryList.size()) {
@@ -150,12 +297,12 @@ public class VTGateConnection implements Closeable {
     }
 
     SQLFuture<List<CursorWithError>> call = new SQLFuture<>(
-        transformAsync(client.executeBatch(ctx, requestBuilder.build()),
+        transformAsync(track(client.executeBatch(ctx, requestBuilder.build())),
             new AsyncFunction<Vtgate.ExecuteBatchResponse, List<CursorWithError>>() {
               @Override
               public ListenableFuture<List<CursorWithError>> apply(
                   Vtgate.ExecuteBatchResponse response) throws Exception {
-                vtSession.setSession(response.getSession());
+                vtSession.setSession(response.getSession(), callSequence);
                 Proto.checkError(response.getError());
                 return Futures.immediateFuture(
                     Proto.fromQueryResponsesToCursorList(response.getResultsList()));
@@ -173,16 +320,52 @@ public class VTGateConnection implements Closeable {
    */
   public Cursor streamExecute(Context ctx, String query, @Nullable Map<String, ?> bindVars,
       VTSession vtSession) throws SQLException {
+    return streamExecute(ctx, Proto.bindQuery(checkNotNull(query), bindVars), vtSession);
+  }
+
+  /**
+   * Streams the results of a query that already has its variables bound.
+   *
+   * @param ctx Context on user and execution deadline if any.
+   * @param query Query to be executed, usually built with {@link Proto#bindQuery}.
+   * @param vtSession Session to be used with the call.
+   */
+  public Cursor streamExecute(Context ctx, Query.BoundQuery query, VTSession vtSession)
+      throws SQLException {
+    return new StreamCursor(
+        client.streamExecute(ctx, buildStreamExecuteRequest(ctx, query, vtSession)));
+  }
+
+  /**
+   * Non-blocking variant of {@link #streamExecute(Context, String, Map, VTSession)}.
+   *
+   * <p>The query is sent when a subscriber subscribes to the returned publisher, and each {@link
+   * Query.QueryResult} chunk is only read from the server once the subscriber has requested it.
+   * Cancelling the subscription cancels the query. To read the results with a {@link Cursor},
+   * subscribe a {@link PublisherStreamIterator} and wrap it in a {@link StreamCursor}.
+   *
+   * @param ctx Context on user and execution deadline if any.
+   * @param query Sql Query to be executed.
+   * @param bindVars Parameters to bind with sql.
+   * @param vtSession Session to be used with the call.
+   */
+  public Publisher<Query.QueryResult> streamExecuteAsync(Context ctx, String query,
+      @Nullable Map<String, ?> bindVars, VTSession vtSession) throws SQLException {
+    return client.streamExecuteAsync(ctx, buildStreamExecuteRequest(ctx,
+        Proto.bindQuery(checkNotNull(query), bindVars), vtSession));
+  }
+
+  private static StreamExecuteRequest buildStreamExecuteRequest(Context ctx,
+      Query.BoundQuery query, VTSession vtSession) {
     StreamExecuteRequest.Builder requestBuilder =
         StreamExecuteRequest.newBuilder()
-            .setQuery(Proto.bindQuery(checkNotNull(query), bindVars))
+            .setQuery(checkNotNull(query))
             .setSession(vtSession.getSession());
 
     if (ctx.getCallerId() != null) {
       requestBuilder.setCallerId(ctx.getCallerId());
     }
-
-    return new StreamCursor(client.streamExecute(ctx, requestBuilder.build()));
+    return requestBuilder.build();
   }
 
   /**
@@ -196,13 +379,62 @@ public class VTGateConnection implements Closeable {
    */
   StreamIterator<VStreamResponse> getVStream(Context ctx, VStreamRequest vstreamRequest)
     throws SQLException {
-    VStreamRequest request = vstreamRequest;
+    return client.getVStream(ctx, withCallerId(ctx, vstreamRequest));
+  }
+
+  /**
+   * Non-blocking variant of {@link #getVStream(Context, VStreamRequest)}.
+   *
+   * @param ctx Context on user and execution deadline if any.
+   * @param vstreamRequest VStreamRequest containing starting VGtid positions
+   *                       in binlog and optional Filters
+   * @return Publisher of VStream events, which starts streaming once subscribed to
+   * @throws SQLException If anything fails on query execution.
+   */
+  Publisher<VStreamResponse> getVStreamAsync(Context ctx, VStreamRequest vstreamRequest)
+    throws SQLException {
+    return client.getVStreamAsync(ctx, withCallerId(ctx, vstreamRequest));
+  }
 
+  private static VStreamRequest withCallerId(Context ctx, VStreamRequest request) {
     if (ctx.getCallerId() != null) {
-      request = request.toBuilder().setCallerId(ctx.getCallerId()).build();
+      return request.toBuilder().setCallerId(ctx.getCallerId()).build();
     }
+    return request;
+  }
+
+  /**
+   * Returns the load and health of this connection's VTGate, as seen from the non-streaming
+   * calls made on it.
+   */
+  public CallStats getCallStats() {
+    return callStats;
+  }
+
+  private <V> ListenableFuture<V> track(ListenableFuture<V> rpc) {
+    final long startNanos = callStats.start();
+    Futures.addCallback(rpc, new FutureCallback<V>() {
+      @Override
+      public void onSuccess(@Nullable V result) {
+        callStats.finish(startNanos, null);
+      }
 
-    return client.getVStream(ctx, request);
+      @Override
+      public void onFailure(Throwable failure) {
+        callStats.finish(startNanos, failure);
+      }
+    }, directExecutor());
+    return rpc;
+  }
+
+  /**
+   * Connects to VTGate now, instead of on the first call, and waits until it's ready or {@code
+   * timeout} has elapsed. See {@link RpcClient#awaitReady(long, TimeUnit)}.
+   *
+   * @return whether the connection is ready
+   */
+  public boolean awaitReady(long timeout, TimeUnit unit) throws InterruptedException {
+    return client.awaitReady(timeout, unit);
   }
 
   /**
@@ -210,6 +442,9 @@ public class VTGateConnection implements Closeable {
    */
   @Override
   public void close() throws IOException {
+    if (batcher != null) {
+      batcher.close();
+    }
     client.close();
   }
 
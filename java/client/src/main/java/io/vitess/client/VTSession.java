@@ -19,13 +19,38 @@ package io.vitess.client;
 import io.vitess.proto.Query;
 import io.vitess.proto.Vtgate;
 
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
 /**
  * A persistence session state for each connection.
+ *
+ * <p>By default only one call may be in flight on a session at a time. In pipelined mode (see
+ * {@link #setPipelined(boolean)}), calls on an autocommit session that isn't in a transaction may
+ * overlap instead. Each call is sent with the session as it was when the call started, and the
+ * session returned by the most recently started call wins, whatever order the responses come
+ * back in.
  */
 public class VTSession {
 
-  private Vtgate.Session session;
-  private SQLFuture<?> lastCall;
+  private volatile Vtgate.Session session;
+  /**
+   * The session as it was created, to go back to on {@link #reset()}.
+   */
+  private final Vtgate.Session initialSession;
+  /**
+   * Calls that may still be in flight, oldest first. Completed calls are pruned lazily.
+   */
+  private final ArrayDeque<SQLFuture<?>> pendingCalls = new ArrayDeque<>();
+  private boolean pipelined = false;
+  /**
+   * Sequence number of the most recently started call.
+   */
+  private long lastStartedCall;
+  /**
+   * Sequence number of the call whose response the session currently reflects.
+   */
+  private long lastAppliedCall;
 
   /**
    * Create session cookie.
@@ -42,6 +67,7 @@ public class VTSession {
         .setAutocommit(true)
         .setInTransaction(false)
         .build();
+    this.initialSession = this.session;
   }
 
   /**
@@ -55,15 +81,48 @@ public class VTSession {
 
   /**
    * This method set the session cookie returned from VTGate.
-   * <p>
-   * <p>This method is not synchronized as the callee function is synchronized.</p>
    *
    * @param session Updated globalSession to be set.
    */
-  public void setSession(Vtgate.Session session) {
+  public synchronized void setSession(Vtgate.Session session) {
     this.session = session;
   }
 
+  /**
+   * Sets the session cookie returned from VTGate by the call with the given sequence number,
+   * unless the response to a call started later has already been applied.
+   *
+   * @param session Updated session to be set.
+   * @param callSequence Value returned by {@link #startCall(String)} for the call.
+   */
+  public synchronized void setSession(Vtgate.Session session, long callSequence) {
+    if (callSequence > lastAppliedCall) {
+      this.session = session;
+      this.lastAppliedCall = callSequence;
+    }
+  }
+
+  /**
+   * Returns whether overlapping calls are allowed while the session is in autocommit mode and
+   * not in a transaction.
+   */
+  public synchronized boolean isPipelined() {
+    return pipelined;
+  }
+
+  /**
+   * Allows or disallows overlapping calls while the session is in autocommit mode and not in a
+   * transaction.
+   *
+   * <p>Session state changed by overlapping calls, such as system variables, is merged by keeping
+   * the session returned by the most recently started call, so it is best suited to stateless
+   * queries, e.g. reads from replicas. Once the session leaves autocommit mode, calls are
+   * serialized again.
+   */
+  public synchronized void setPipelined(boolean pipelined) {
+    this.pipelined = pipelined;
+  }
+
   /**
    * Returns the current state of commit mode.
    *
@@ -78,7 +137,7 @@ public class VTSession {
    *
    * @param autoCommit true or false
    */
-  public void setAutoCommit(boolean autoCommit) {
+  public synchronized void setAutoCommit(boolean autoCommit) {
     this.session = this.session.toBuilder().setAutocommit(autoCommit).build();
   }
 
@@ -105,7 +164,8 @@ public class VTSession {
    *
    * @param Transaction Isolation Level of the Session
    */
-  public void setTransactionIsolation(Query.ExecuteOptions.TransactionIsolation isolation) {
+  public synchronized void setTransactionIsolation(
+      Query.ExecuteOptions.TransactionIsolation isolation) {
     this.session = this.session.toBuilder()
         .setOptions(this.session.getOptions().toBuilder()
             .setTransactionIsolation(isolation)).build();
@@ -116,8 +176,9 @@ public class VTSession {
    *
    * @param call - SQLFuture
    */
-  public void setLastCall(SQLFuture call) {
-    this.lastCall = call;
+  public synchronized void setLastCall(SQLFuture call) {
+    pruneCompletedCalls();
+    pendingCalls.add(call);
   }
 
   /**
@@ -131,12 +192,51 @@ public class VTSession {
    * @throws IllegalStateException - Throws IllegalStateException if lastCall has not
    *     completed.
    */
-  public void checkCallIsAllowed(String call) throws IllegalStateException {
-    // Calls are not allowed to overlap.
-    if (lastCall != null && !lastCall.isDone()) {
+  public synchronized void checkCallIsAllowed(String call) throws IllegalStateException {
+    pruneCompletedCalls();
+    // Calls are not allowed to overlap, unless pipelining applies.
+    if (!pendingCalls.isEmpty() && !canPipeline()) {
       throw new IllegalStateException("Can't call " + call
           + "() until the last asynchronous call is done on this transaction.");
     }
   }
 
+  /**
+   * Checks that a call may start, like {@link #checkCallIsAllowed(String)}, and assigns it a
+   * sequence number to pass to {@link #setSession(Vtgate.Session, long)} with the response.
+   *
+   * @param call - The represents the callee function name.
+   * @throws IllegalStateException - Throws IllegalStateException if the call would overlap
+   *     another one and pipelining doesn't apply.
+   */
+  public synchronized long startCall(String call) throws IllegalStateException {
+    checkCallIsAllowed(call);
+    return ++lastStartedCall;
+  }
+
+  /**
+   * Puts the session back the way it was created, so that it can be reused by another user of the
+   * same connection. Any transaction must have been ended already. Responses to calls started
+   * before the reset no longer change the session.
+   */
+  public synchronized void reset() {
+    this.session = initialSession;
+    this.pipelined = false;
+    this.pendingCalls.clear();
+    this.lastAppliedCall = lastStartedCall;
+  }
+
+  private boolean canPipeline() {
+    return pipelined && session.getAutocommit() && !isInTransaction();
+  }
+
+  private void pruneCompletedCalls() {
+    Iterator<SQLFuture<?>> iterator = pendingCalls.iterator();
+    while (iterator.hasNext()) {
+      if (iterator.next().isDone()) {
+        iterator.remove();
+      }
+    }
+  }
+
 }
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2019 The Vitess Authors.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vitess.client.cursor;
+
+import java.sql.SQLException;
+
+import javax.annotation.Nullable;
+
+/**
+ * A {@link Cursor} that can also hand out its rows as column-oriented {@link ColumnBatch}es.
+ *
+ * <p>{@link #nextBatch()} and {@link Cursor#next()} advance the same position, so they can be
+ * mixed: {@code nextBatch()} returns the rows that {@code next()} has not returned yet, up to the
+ * end of the current underlying {@link io.vitess.proto.Query.QueryResult}.
+ */
+public interface BatchCursor extends AutoCloseable {
+
+  /**
+   * Returns the next non-empty {@link ColumnBatch}, or {@code null} if there are no more rows.
+   *
+   * @throws SQLException if the server returns an error.
+   */
+  @Nullable
+  ColumnBatch nextBatch() throws SQLException;
+}
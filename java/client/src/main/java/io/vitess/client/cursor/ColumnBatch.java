@@ -0,0 +1,306 @@
+/*
+ * Copyright 2019 The Vitess Authors.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vitess.client.cursor;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.protobuf.ByteString;
+
+import io.vitess.mysql.Numbers;
+import io.vitess.proto.Query;
+import io.vitess.proto.Query.Field;
+import io.vitess.proto.Query.Type;
+
+import java.sql.SQLDataException;
+import java.sql.SQLException;
+import java.util.BitSet;
+import java.util.List;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Column-oriented view of a batch of rows, usually one {@link io.vitess.proto.Query.QueryResult}.
+ *
+ * <p>
+ * Usually you get ColumnBatch objects from a {@link BatchCursor}. Instead of building a {@link Row}
+ * per record, each column is decoded on request into a primitive array covering the whole batch,
+ * plus a {@link BitSet} marking the MySQL {@code NULL}s. This suits bulk consumers such as
+ * exports and aggregations, which touch every row but only a few columns.
+ *
+ * <p>
+ * As with {@link Row}, {@code columnIndex} values start at 1 for the first column. Row positions
+ * within the batch, which index the returned arrays, start at 0. Each call decodes the column
+ * again, so callers should hold on to the result rather than calling it per row.
+ */
+@NotThreadSafe
+public class ColumnBatch {
+
+  private final FieldMap fieldMap;
+  private final List<Query.Row> rawRows;
+  /**
+   * Cell offsets of every row, laid out row by row with {@code stride} entries each, using the
+   * encoding of {@link Row#computeOffsets(Query.Row, int[], int)}.
+   */
+  private final int[] offsets;
+  private final int stride;
+
+  /**
+   * Construct a ColumnBatch from {@link io.vitess.proto.Query.Row} protos with a pre-built {@link
+   * FieldMap}.
+   */
+  public ColumnBatch(FieldMap fieldMap, List<Query.Row> rawRows) {
+    this.fieldMap = fieldMap;
+    this.rawRows = rawRows;
+    this.stride = fieldMap.getList().size() + 1;
+    this.offsets = new int[rawRows.size() * stride];
+    for (int i = 0; i < rawRows.size(); i++) {
+      Query.Row rawRow = rawRows.get(i);
+      checkArgument(rawRow.getLengthsCount() == stride - 1,
+          "row %s has %s values, expected %s", i, rawRow.getLengthsCount(), stride - 1);
+      Row.computeOffsets(rawRow, offsets, i * stride);
+    }
+  }
+
+  /**
+   * Construct a ColumnBatch from {@link io.vitess.proto.Query.Row} protos.
+   */
+  public ColumnBatch(List<Field> fields, List<Query.Row> rawRows) {
+    this(new FieldMap(fields), rawRows);
+  }
+
+  /**
+   * Returns the number of rows in the batch.
+   */
+  public int getRowCount() {
+    return rawRows.size();
+  }
+
+  /**
+   * Returns the number of columns.
+   */
+  public int getColumnCount() {
+    return stride - 1;
+  }
+
+  public List<Field> getFields() {
+    return fieldMap.getList();
+  }
+
+  public FieldMap getFieldMap() {
+    return fieldMap;
+  }
+
+  /**
+   * Returns 1-based column number.
+   *
+   * @param columnLabel case-insensitive column label
+   */
+  public int findColumn(String columnLabel) throws SQLException {
+    Integer columnIndex = fieldMap.getIndex(columnLabel);
+    if (columnIndex == null) {
+      throw new SQLDataException("column not found:" + columnLabel);
+    }
+    return columnIndex;
+  }
+
+  /**
+   * Returns a single row of the batch, for code that still needs the row-oriented API.
+   *
+   * @param rowIndex 0-based row position within the batch
+   */
+  public Row getRow(int rowIndex) {
+    return new Row(fieldMap, rawRows.get(rowIndex));
+  }
+
+  /**
+   * Returns the rows whose value in the given column is MySQL {@code NULL}.
+   *
+   * <p>
+   * Bit {@code i} is set if the value in row {@code i} is {@code NULL}.
+   *
+   * @param columnIndex 1-based column number (0 is invalid)
+   */
+  public BitSet getNulls(int columnIndex) throws SQLException {
+    checkColumnIndex(columnIndex);
+    BitSet nulls = new BitSet(rawRows.size());
+    for (int i = 0; i < rawRows.size(); i++) {
+      if (offsets[i * stride + columnIndex - 1] < 0) {
+        nulls.set(i);
+      }
+    }
+    return nulls;
+  }
+
+  /**
+   * Returns the values of an integer column, with 0 for MySQL {@code NULL}.
+   *
+   * <p>
+   * Any integer type is accepted. {@code UINT64} values are returned as the bits of the unsigned
+   * value; use {@link com.google.common.primitives.UnsignedLong#fromLongBits(long)} or the {@link
+   * Long} unsigned helpers to interpret them. Use {@link #getNulls(int)} to tell 0 from {@code
+   * NULL}.
+   *
+   * @param columnIndex 1-based column number (0 is invalid)
+   * @throws SQLDataException if the column isn't an integer type.
+   */
+  public long[] getLongs(int columnIndex) throws SQLException {
+    checkColumnIndex(columnIndex);
+    Type type = fieldMap.get(columnIndex).getType();
+    boolean unsigned;
+    switch (type) {
+      case INT8: // fall through
+      case UINT8: // fall through
+      case INT16: // fall through
+      case UINT16: // fall through
+      case INT24: // fall through
+      case UINT24: // fall through
+      case INT32: // fall through
+      case UINT32: // fall through
+      case INT64: // fall through
+      case YEAR:
+        unsigned = false;
+        break;
+      case UINT64:
+        unsigned = true;
+        break;
+      default:
+        throw new SQLDataException("type mismatch, expected an integer type, actual: " + type);
+    }
+
+    long[] values = new long[rawRows.size()];
+    for (int i = 0; i < rawRows.size(); i++) {
+      int start = offsets[i * stride + columnIndex - 1];
+      if (start < 0) {
+        continue;
+      }
+      ByteString buffer = rawRows.get(i).getValues();
+      int end = Row.startOffset(offsets[i * stride + columnIndex]);
+      values[i] = unsigned
+          ? Numbers.parseUnsignedLong(buffer, start, end)
+          : Numbers.parseLong(buffer, start, end);
+    }
+    return values;
+  }
+
+  /**
+   * Returns the values of a floating-point or DECIMAL column, with 0 for MySQL {@code NULL}.
+   *
+   * <p>
+   * DECIMAL values are rounded to the nearest double. Use {@link #getNulls(int)} to tell 0 from
+   * {@code NULL}.
+   *
+   * @param columnIndex 1-based column number (0 is invalid)
+   * @throws SQLDataException if the column isn't a FLOAT32, FLOAT64 or DECIMAL.
+   */
+  public double[] getDoubles(int columnIndex) throws SQLException {
+    checkColumnIndex(columnIndex);
+    Type type = fieldMap.get(columnIndex).getType();
+    if (type != Type.FLOAT32 && type != Type.FLOAT64 && type != Type.DECIMAL) {
+      throw new SQLDataException("type mismatch, expected: " + Type.FLOAT32 + ", " + Type.FLOAT64
+          + " or " + Type.DECIMAL + ", actual: " + type);
+    }
+
+    double[] values = new double[rawRows.size()];
+    for (int i = 0; i < rawRows.size(); i++) {
+      int start = offsets[i * stride + columnIndex - 1];
+      if (start < 0) {
+        continue;
+      }
+      values[i] = Numbers.parseDouble(rawRows.get(i).getValues(), start,
+          Row.startOffset(offsets[i * stride + columnIndex]));
+    }
+    return values;
+  }
+
+  /**
+   * Returns the raw bytes of a column, copied into one contiguous array.
+   *
+   * <p>
+   * This works for any column type. MySQL {@code NULL} values are stored as zero-length cells;
+   * use {@link #getNulls(int)} to tell them apart from empty values.
+   *
+   * @param columnIndex 1-based column number (0 is invalid)
+   */
+  public BinaryColumn getBinary(int columnIndex) throws SQLException {
+    checkColumnIndex(columnIndex);
+    int[] cellOffsets = new int[rawRows.size() + 1];
+    int total = 0;
+    for (int i = 0; i < rawRows.size(); i++) {
+      cellOffsets[i] = total;
+      int start = offsets[i * stride + columnIndex - 1];
+      if (start >= 0) {
+        total += Row.startOffset(offsets[i * stride + columnIndex]) - start;
+      }
+    }
+    cellOffsets[rawRows.size()] = total;
+
+    byte[] data = new byte[total];
+    for (int i = 0; i < rawRows.size(); i++) {
+      int start = offsets[i * stride + columnIndex - 1];
+      if (start >= 0) {
+        rawRows.get(i).getValues().copyTo(data, start, cellOffsets[i],
+            cellOffsets[i + 1] - cellOffsets[i]);
+      }
+    }
+    return new BinaryColumn(data, cellOffsets);
+  }
+
+  private void checkColumnIndex(int columnIndex) throws SQLException {
+    checkArgument(columnIndex >= 1, "columnIndex out of range: %s", columnIndex);
+    if (columnIndex > getColumnCount()) {
+      throw new SQLDataException("invalid columnIndex: " + columnIndex);
+    }
+  }
+
+  /**
+   * The cells of one column, packed into a single byte array.
+   *
+   * <p>
+   * The cell for row {@code i} spans {@code [getOffsets()[i], getOffsets()[i + 1])} within {@link
+   * #getData()}.
+   */
+  public static class BinaryColumn {
+
+    private final byte[] data;
+    private final int[] offsets;
+
+    BinaryColumn(byte[] data, int[] offsets) {
+      this.data = data;
+      this.offsets = offsets;
+    }
+
+    public byte[] getData() {
+      return data;
+    }
+
+    /**
+     * Returns the start offset of each cell, plus a trailing entry for the end of the data.
+     */
+    public int[] getOffsets() {
+      return offsets;
+    }
+
+    /**
+     * Returns the length in bytes of the cell for a row.
+     *
+     * @param rowIndex 0-based row position within the batch
+     */
+    public int getLength(int rowIndex) {
+      return offsets[rowIndex + 1] - offsets[rowIndex];
+    }
+  }
+}
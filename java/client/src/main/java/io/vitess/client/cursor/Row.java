@@ -23,6 +23,7 @@ import com.google.common.primitives.UnsignedLong;
 import com.google.protobuf.ByteString;
 
 import io.vitess.mysql.DateTime;
+import io.vitess.mysql.Numbers;
 import io.vitess.proto.Query;
 import io.vitess.proto.Query.Field;
 import io.vitess.proto.Query.Type;
@@ -36,7 +37,6 @@ import java.sql.SQLException;
 import java.sql.Time;
 import java.sql.Timestamp;
 import java.text.ParseException;
-import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.List;
 
@@ -60,8 +60,21 @@ import javax.annotation.concurrent.NotThreadSafe;
 public class Row {
 
   private final FieldMap fieldMap;
+  /**
+   * Unpacked cell values, only set when the Row was constructed manually (not from proto).
+   */
   private final List<ByteString> values;
   private final Query.Row rawRow;
+  /**
+   * Start offsets of each cell within the packed {@code rawRow} buffer.
+   *
+   * <p>
+   * The array has one entry per column plus a trailing entry for the end of the buffer, so the
+   * cell for 0-based column {@code i} spans {@code [start(i), start(i + 1))}. A MySQL NULL is
+   * encoded as the bitwise complement of its start offset, which keeps it distinguishable from a
+   * zero-length value without a second array. See {@link #computeOffsets(Query.Row)}.
+   */
+  private final int[] offsets;
   /**
    * Remembers whether the column referenced by the last {@code get*()} was MySQL {@code NULL}.
    *
@@ -82,16 +95,15 @@ public class Row {
   public Row(FieldMap fieldMap, Query.Row rawRow) {
     this.fieldMap = fieldMap;
     this.rawRow = rawRow;
-    this.values = extractValues(rawRow.getLengthsList(), rawRow.getValues());
+    this.values = null;
+    this.offsets = computeOffsets(rawRow);
   }
 
   /**
    * Construct a Row from {@link io.vitess.proto.Query.Row} proto.
    */
   public Row(List<Field> fields, Query.Row rawRow) {
-    this.fieldMap = new FieldMap(fields);
-    this.rawRow = rawRow;
-    this.values = extractValues(rawRow.getLengthsList(), rawRow.getValues());
+    this(new FieldMap(fields), rawRow);
   }
 
   /**
@@ -111,6 +123,7 @@ public class Row {
     this.fieldMap = new FieldMap(fields);
     this.rawRow = null;
     this.values = values;
+    this.offsets = null;
   }
 
   private static Object convertFieldValue(Field field, ByteString value) throws SQLException {
@@ -120,7 +133,7 @@ public class Row {
     // For strings, we return byte[] and the application is responsible for using the right charset.
     switch (field.getType()) {
       case DECIMAL:
-        return new BigDecimal(value.toStringUtf8());
+        return Numbers.parseBigDecimal(value, 0, value.size());
       case INT8: // fall through
       case UINT8: // fall through
       case INT16: // fall through
@@ -128,16 +141,16 @@ public class Row {
       case INT24: // fall through
       case UINT24: // fall through
       case INT32:
-        return Integer.valueOf(value.toStringUtf8());
+        return Numbers.parseInt(value, 0, value.size());
       case UINT32: // fall through
       case INT64:
-        return Long.valueOf(value.toStringUtf8());
+        return Numbers.parseLong(value, 0, value.size());
       case UINT64:
         return new BigInteger(value.toStringUtf8());
       case FLOAT32:
-        return Float.valueOf(value.toStringUtf8());
+        return Numbers.parseFloat(value, 0, value.size());
       case FLOAT64:
-        return Double.valueOf(value.toStringUtf8());
+        return Numbers.parseDouble(value, 0, value.size());
       case NULL_TYPE:
         return null;
       case DATE:
@@ -166,7 +179,7 @@ public class Row {
           throw new SQLDataException("Can't parse TIMESTAMP: " + value.toStringUtf8(), exc);
         }
       case YEAR:
-        return Short.valueOf(value.toStringUtf8());
+        return Numbers.parseShort(value, 0, value.size());
       case ENUM: // fall through
       case SET:
         return value.toStringUtf8();
@@ -186,34 +199,53 @@ public class Row {
   }
 
   /**
-   * Extract cell values from the single-buffer wire format.
+   * Computes the cell offsets for the single-buffer wire format.
    *
    * <p>
-   * See the docs for the {@code Row} message in {@code query.proto}.
+   * See the docs for the {@code Row} message in {@code query.proto}. Unlike slicing every cell
+   * into its own {@link ByteString} up front, this only allocates a single {@code int[]} per row;
+   * cells are sliced from the shared buffer when they are actually read.
    */
-  private static List<ByteString> extractValues(List<Long> lengths, ByteString buf) {
-    List<ByteString> list = new ArrayList<ByteString>(lengths.size());
+  private static int[] computeOffsets(Query.Row rawRow) {
+    int[] offsets = new int[rawRow.getLengthsCount() + 1];
+    computeOffsets(rawRow, offsets, 0);
+    return offsets;
+  }
+
+  /**
+   * Writes the cell offsets of {@code rawRow} into {@code offsets}, starting at {@code pos}.
+   *
+   * <p>
+   * This fills {@code rawRow.getLengthsCount() + 1} entries. {@link ColumnBatch} uses it to lay
+   * out the offsets of a whole batch of rows in a single array.
+   */
+  static void computeOffsets(Query.Row rawRow, int[] offsets, int pos) {
+    int count = rawRow.getLengthsCount();
 
     int start = 0;
-    for (long len : lengths) {
+    for (int i = 0; i < count; i++) {
+      // Lengths are returned as long, but ByteString only supports int offsets.
+      long len = rawRow.getLengths(i);
       if (len < 0) {
         // This indicates a MySQL NULL value, to distinguish it from a zero-length string.
-        list.add((ByteString) null);
+        offsets[pos + i] = ~start;
       } else {
-        // Lengths are returned as long, but ByteString.substring() only supports int.
-        list.add(buf.substring(start, start + (int) len));
-        start += len;
+        offsets[pos + i] = start;
+        start += (int) len;
       }
     }
+    offsets[pos + count] = start;
+  }
 
-    return list;
+  static int startOffset(int offset) {
+    return offset < 0 ? ~offset : offset;
   }
 
   /**
    * Returns the number of columns.
    */
   public int size() {
-    return values.size();
+    return values != null ? values.size() : offsets.length - 1;
   }
 
   public List<Field> getFields() {
@@ -276,15 +308,77 @@ public class Row {
    * @param columnIndex 1-based column number (0 is invalid)
    */
   public ByteString getRawValue(int columnIndex) throws SQLException {
-    checkArgument(columnIndex >= 1, "columnIndex out of range: %s", columnIndex);
-    if (columnIndex > values.size()) {
-      throw new SQLDataException("invalid columnIndex: " + columnIndex);
+    checkColumnIndex(columnIndex);
+    ByteString value;
+    if (values != null) {
+      value = values.get(columnIndex - 1);
+    } else if (offsets[columnIndex - 1] < 0) {
+      value = null;
+    } else {
+      value = rawRow.getValues().substring(offsets[columnIndex - 1],
+          startOffset(offsets[columnIndex]));
     }
-    ByteString value = values.get(columnIndex - 1);
     lastGetWasNull = (value == null);
     return value;
   }
 
+  /**
+   * Reports whether a column is MySQL {@code NULL}, without decoding its value.
+   *
+   * <p>
+   * Like the {@code get*()} methods, this also updates the result of {@link #wasNull()}.
+   *
+   * @param columnIndex 1-based column number (0 is invalid)
+   */
+  public boolean isNull(int columnIndex) throws SQLException {
+    checkColumnIndex(columnIndex);
+    boolean isNull;
+    if (values != null) {
+      isNull = values.get(columnIndex - 1) == null;
+    } else {
+      isNull = offsets[columnIndex - 1] < 0;
+    }
+    lastGetWasNull = isNull;
+    return isNull;
+  }
+
+  private void checkColumnIndex(int columnIndex) throws SQLException {
+    checkArgument(columnIndex >= 1, "columnIndex out of range: %s", columnIndex);
+    if (columnIndex > size()) {
+      throw new SQLDataException("invalid columnIndex: " + columnIndex);
+    }
+  }
+
+  /**
+   * Returns the buffer that holds a column's cell, or null if the value is MySQL {@code NULL}.
+   *
+   * <p>
+   * The cell spans {@code [cellStart(columnIndex), cellEnd(columnIndex))} within the returned
+   * buffer. The numeric getters use this to parse values in place instead of slicing a new
+   * {@link ByteString} and decoding it to a {@link String} first.
+   */
+  private ByteString cellBuffer(int columnIndex) throws SQLException {
+    checkColumnIndex(columnIndex);
+    ByteString buffer;
+    if (values != null) {
+      buffer = values.get(columnIndex - 1);
+    } else if (offsets[columnIndex - 1] < 0) {
+      buffer = null;
+    } else {
+      buffer = rawRow.getValues();
+    }
+    lastGetWasNull = (buffer == null);
+    return buffer;
+  }
+
+  private int cellStart(int columnIndex) {
+    return values != null ? 0 : offsets[columnIndex - 1];
+  }
+
+  private int cellEnd(int columnIndex) {
+    return values != null ? values.get(columnIndex - 1).size() : startOffset(offsets[columnIndex]);
+  }
+
   /**
    * Returns the data at a given index as an InputStream.
    *
@@ -330,8 +424,24 @@ public class Row {
    * @param columnIndex 1-based column number (0 is invalid)
    */
   public int getInt(int columnIndex) throws SQLException {
-    Integer value = getObject(columnIndex, Integer.class);
-    return value == null ? 0 : value;
+    ByteString buffer = cellBuffer(columnIndex);
+    if (buffer == null) {
+      return 0;
+    }
+    switch (fieldMap.get(columnIndex).getType()) {
+      case INT8: // fall through
+      case UINT8: // fall through
+      case INT16: // fall through
+      case UINT16: // fall through
+      case INT24: // fall through
+      case UINT24: // fall through
+      case INT32: // fall through
+      case YEAR:
+        return Numbers.parseInt(buffer, cellStart(columnIndex), cellEnd(columnIndex));
+      default:
+        // Let getObject() report the type mismatch.
+        return getObject(columnIndex, Integer.class);
+    }
   }
 
   /**
@@ -345,8 +455,17 @@ public class Row {
    * @param columnIndex 1-based column number (0 is invalid)
    */
   public UnsignedLong getULong(int columnIndex) throws SQLException {
+    ByteString buffer = cellBuffer(columnIndex);
+    if (buffer == null) {
+      return null;
+    }
+    if (fieldMap.get(columnIndex).getType() == Type.UINT64) {
+      return UnsignedLong.fromLongBits(
+          Numbers.parseUnsignedLong(buffer, cellStart(columnIndex), cellEnd(columnIndex)));
+    }
+    // Let getObject() report the type mismatch.
     BigInteger longValue = getObject(columnIndex, BigInteger.class);
-    return longValue == null ? null : UnsignedLong.fromLongBits(longValue.longValue());
+    return UnsignedLong.fromLongBits(longValue.longValue());
   }
 
   /**
@@ -386,8 +505,26 @@ public class Row {
    * @param columnIndex 1-based column number (0 is invalid)
    */
   public long getLong(int columnIndex) throws SQLException {
-    Long value = getObject(columnIndex, Long.class);
-    return value == null ? 0 : value;
+    ByteString buffer = cellBuffer(columnIndex);
+    if (buffer == null) {
+      return 0;
+    }
+    switch (fieldMap.get(columnIndex).getType()) {
+      case INT8: // fall through
+      case UINT8: // fall through
+      case INT16: // fall through
+      case UINT16: // fall through
+      case INT24: // fall through
+      case UINT24: // fall through
+      case INT32: // fall through
+      case UINT32: // fall through
+      case INT64: // fall through
+      case YEAR:
+        return Numbers.parseLong(buffer, cellStart(columnIndex), cellEnd(columnIndex));
+      default:
+        // Let getObject() report the type mismatch.
+        return getObject(columnIndex, Long.class);
+    }
   }
 
   /**
@@ -413,8 +550,18 @@ public class Row {
    * @param columnIndex 1-based column number (0 is invalid)
    */
   public double getDouble(int columnIndex) throws SQLException {
-    Double value = getObject(columnIndex, Double.class);
-    return value == null ? 0 : value;
+    ByteString buffer = cellBuffer(columnIndex);
+    if (buffer == null) {
+      return 0;
+    }
+    switch (fieldMap.get(columnIndex).getType()) {
+      case FLOAT32: // fall through
+      case FLOAT64:
+        return Numbers.parseDouble(buffer, cellStart(columnIndex), cellEnd(columnIndex));
+      default:
+        // Let getObject() report the type mismatch.
+        return getObject(columnIndex, Double.class);
+    }
   }
 
   /**
@@ -440,8 +587,15 @@ public class Row {
    * @param columnIndex 1-based column number (0 is invalid)
    */
   public float getFloat(int columnIndex) throws SQLException {
-    Float value = getObject(columnIndex, Float.class);
-    return value == null ? 0 : value;
+    ByteString buffer = cellBuffer(columnIndex);
+    if (buffer == null) {
+      return 0;
+    }
+    if (fieldMap.get(columnIndex).getType() == Type.FLOAT32) {
+      return Numbers.parseFloat(buffer, cellStart(columnIndex), cellEnd(columnIndex));
+    }
+    // Let getObject() report the type mismatch.
+    return getObject(columnIndex, Float.class);
   }
 
   /**
@@ -616,6 +770,14 @@ public class Row {
    * @param columnIndex 1-based column number (0 is invalid)
    */
   public BigDecimal getBigDecimal(int columnIndex) throws SQLException {
+    ByteString buffer = cellBuffer(columnIndex);
+    if (buffer == null) {
+      return null;
+    }
+    if (fieldMap.get(columnIndex).getType() == Type.DECIMAL) {
+      return Numbers.parseBigDecimal(buffer, cellStart(columnIndex), cellEnd(columnIndex));
+    }
+    // Let getObject() report the type mismatch.
     return getObject(columnIndex, BigDecimal.class);
   }
 
@@ -642,8 +804,20 @@ public class Row {
    * @param columnIndex 1-based column number (0 is invalid)
    */
   public short getShort(int columnIndex) throws SQLException {
-    Short value = getObject(columnIndex, Short.class);
-    return value == null ? 0 : value;
+    ByteString buffer = cellBuffer(columnIndex);
+    if (buffer == null) {
+      return 0;
+    }
+    switch (fieldMap.get(columnIndex).getType()) {
+      case INT8: // fall through
+      case UINT8: // fall through
+      case INT16: // fall through
+      case YEAR:
+        return Numbers.parseShort(buffer, cellStart(columnIndex), cellEnd(columnIndex));
+      default:
+        // Let getObject() report the type mismatch.
+        return getObject(columnIndex, Short.class);
+    }
   }
 
   /**
@@ -724,9 +898,9 @@ public class Row {
    * that will be {@code null} if the column value was SQL NULL.
    */
   public boolean wasNull() throws SQLException {
-    // Note: lastGetWasNull is currently set only in getRawValue(),
+    // Note: lastGetWasNull is currently set only in getRawValue(), isNull() and cellBuffer(),
     // which means this relies on the fact that all other get*() methods
-    // eventually call into that. The unit tests help to ensure this by
+    // eventually call into one of those. The unit tests help to ensure this by
     // checking wasNull() after each get*().
     return lastGetWasNull;
   }
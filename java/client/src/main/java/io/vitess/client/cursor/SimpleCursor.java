@@ -21,7 +21,6 @@ import io.vitess.proto.Query.Field;
 import io.vitess.proto.Query.QueryResult;
 
 import java.sql.SQLException;
-import java.util.Iterator;
 import java.util.List;
 
 import javax.annotation.concurrent.NotThreadSafe;
@@ -30,14 +29,15 @@ import javax.annotation.concurrent.NotThreadSafe;
  * A {@link Cursor} that serves records from a single {@link QueryResult} object.
  */
 @NotThreadSafe
-public class SimpleCursor extends Cursor {
+public class SimpleCursor extends Cursor implements BatchCursor {
 
   private final QueryResult queryResult;
-  private final Iterator<Query.Row> rowIterator;
+  private final List<Query.Row> rows;
+  private int position;
 
   public SimpleCursor(QueryResult queryResult) {
     this.queryResult = queryResult;
-    rowIterator = queryResult.getRowsList().iterator();
+    rows = queryResult.getRowsList();
   }
 
   @Override
@@ -62,8 +62,21 @@ public class SimpleCursor extends Cursor {
 
   @Override
   public Row next() throws SQLException {
-    if (rowIterator.hasNext()) {
-      return new Row(getFieldMap(), rowIterator.next());
+    if (position < rows.size()) {
+      return new Row(getFieldMap(), rows.get(position++));
+    }
+    return null;
+  }
+
+  /**
+   * Returns all remaining rows as a single batch.
+   */
+  @Override
+  public ColumnBatch nextBatch() throws SQLException {
+    if (position < rows.size()) {
+      ColumnBatch batch = new ColumnBatch(getFieldMap(), rows.subList(position, rows.size()));
+      position = rows.size();
+      return batch;
     }
     return null;
   }
@@ -24,7 +24,6 @@ import io.vitess.proto.Query.QueryResult;
 import java.sql.SQLDataException;
 import java.sql.SQLException;
 import java.sql.SQLFeatureNotSupportedException;
-import java.util.Iterator;
 import java.util.List;
 
 import javax.annotation.concurrent.NotThreadSafe;
@@ -34,10 +33,11 @@ import javax.annotation.concurrent.NotThreadSafe;
  * by a {@link StreamIterator}.
  */
 @NotThreadSafe
-public class StreamCursor extends Cursor {
+public class StreamCursor extends Cursor implements BatchCursor {
 
   private StreamIterator<QueryResult> streamIterator;
-  private Iterator<Query.Row> rowIterator;
+  private List<Query.Row> rows;
+  private int position;
 
   private List<Field> fields;
 
@@ -83,21 +83,50 @@ public class StreamCursor extends Cursor {
       throw new SQLDataException("next() called on closed Cursor");
     }
 
-    // Get the next Row from the current QueryResult.
-    if (rowIterator != null && rowIterator.hasNext()) {
-      return new Row(getFieldMap(), rowIterator.next());
+    if (!hasRemainingRows()) {
+      // No more Rows and no more QueryResults.
+      return null;
+    }
+    return new Row(getFieldMap(), rows.get(position++));
+  }
+
+  /**
+   * Returns the rest of the current {@link QueryResult}, or the next one from the stream, as a
+   * single batch.
+   */
+  @Override
+  public ColumnBatch nextBatch() throws SQLException {
+    if (streamIterator == null) {
+      throw new SQLDataException("nextBatch() called on closed Cursor");
+    }
+
+    if (!hasRemainingRows()) {
+      return null;
+    }
+    ColumnBatch batch = new ColumnBatch(getFieldMap(), rows.subList(position, rows.size()));
+    position = rows.size();
+    return batch;
+  }
+
+  /**
+   * Makes sure {@link #rows} has at least one row after {@link #position}, fetching further
+   * {@link QueryResult}s from the stream if necessary.
+   *
+   * @return false if there are no more rows in the stream.
+   */
+  private boolean hasRemainingRows() throws SQLException {
+    // Check the current QueryResult first.
+    if (rows != null && position < rows.size()) {
+      return true;
     }
 
     // Get the next QueryResult. Loop in case we get a QueryResult with no Rows (e.g. only Fields).
     while (nextQueryResult()) {
-      // Get the first Row from the new QueryResult.
-      if (rowIterator.hasNext()) {
-        return new Row(getFieldMap(), rowIterator.next());
+      if (!rows.isEmpty()) {
+        return true;
       }
     }
-
-    // No more Rows and no more QueryResults.
-    return null;
+    return false;
   }
 
   /**
@@ -106,7 +135,7 @@ public class StreamCursor extends Cursor {
    * <p>Whereas the public {@link #next()} method advances the {@link Cursor} state to the next
    * {@link Row}, this method advances the internal state to the next {@link QueryResult}, which
    * contains a batch of rows. Specifically, we get the next {@link QueryResult} from {@link
-   * #streamIterator}, and then set {@link #rowIterator} accordingly.
+   * #streamIterator}, and then set {@link #rows} and {@link #position} accordingly.
    *
    * <p>If {@link #fields} is null, we assume the next {@link QueryResult} must contain the fields,
    * and set {@link #fields} from it.
@@ -120,10 +149,11 @@ public class StreamCursor extends Cursor {
         // The first QueryResult should have the fields.
         fields = queryResult.getFieldsList();
       }
-      rowIterator = queryResult.getRowsList().iterator();
+      rows = queryResult.getRowsList();
+      position = 0;
       return true;
     } else {
-      rowIterator = null;
+      rows = null;
       return false;
     }
   }
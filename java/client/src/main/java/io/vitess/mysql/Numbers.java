@@ -0,0 +1,312 @@
+/*
+ * Copyright 2019 The Vitess Authors.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vitess.mysql;
+
+import com.google.protobuf.ByteString;
+
+import java.math.BigDecimal;
+
+/**
+ * Utility methods for parsing MySQL numeric values directly from their ASCII encoding.
+ *
+ * <p>MySQL sends integer, floating-point and DECIMAL values as text. These parse a range of bytes
+ * in place, so reading a numeric column doesn't need an intermediate {@link String} or boxed
+ * value. Like {@link Long#parseLong(String)} et al., malformed input raises {@link
+ * NumberFormatException}.
+ */
+public class Numbers {
+
+  /**
+   * Largest value that can be multiplied by 10 without overflowing an unsigned 64-bit integer.
+   */
+  private static final long UNSIGNED_MULTMIN = Long.divideUnsigned(-1L, 10);
+
+  /**
+   * Longest digit string whose value is guaranteed to be exactly representable as a double.
+   */
+  private static final int MAX_EXACT_DOUBLE_DIGITS = 15;
+  /**
+   * Longest digit string whose value is guaranteed to be exactly representable as a float.
+   */
+  private static final int MAX_EXACT_FLOAT_DIGITS = 7;
+  /**
+   * Longest digit string whose value is guaranteed to fit in a long.
+   */
+  private static final int MAX_LONG_DIGITS = 18;
+
+  /**
+   * Powers of ten that are exactly representable as a double.
+   */
+  private static final double[] DOUBLE_POWERS_OF_TEN = {
+      1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+      1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22,
+  };
+  /**
+   * Powers of ten that are exactly representable as a float.
+   */
+  private static final float[] FLOAT_POWERS_OF_TEN = {
+      1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f,
+  };
+
+  private Numbers() {
+  }
+
+  /**
+   * Parse a signed decimal integer from {@code buf[start, end)}.
+   *
+   * <p>This should match {@link Long#parseLong(String)}.
+   */
+  public static long parseLong(ByteString buf, int start, int end) {
+    if (start >= end) {
+      throw numberFormatException(buf, start, end);
+    }
+    int pos = start;
+    boolean negative = false;
+    byte first = buf.byteAt(pos);
+    if (first == '-') {
+      negative = true;
+      pos++;
+    } else if (first == '+') {
+      pos++;
+    }
+    if (pos == end) {
+      throw numberFormatException(buf, start, end);
+    }
+
+    // Accumulate negatively, like Long.parseLong(), so Long.MIN_VALUE doesn't overflow.
+    long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+    long multmin = limit / 10;
+    long result = 0;
+    for (; pos < end; pos++) {
+      int digit = buf.byteAt(pos) - '0';
+      if (digit < 0 || digit > 9 || result < multmin) {
+        throw numberFormatException(buf, start, end);
+      }
+      result *= 10;
+      if (result < limit + digit) {
+        throw numberFormatException(buf, start, end);
+      }
+      result -= digit;
+    }
+    return negative ? result : -result;
+  }
+
+  /**
+   * Parse a signed decimal integer from {@code buf[start, end)}.
+   *
+   * <p>This should match {@link Integer#parseInt(String)}.
+   */
+  public static int parseInt(ByteString buf, int start, int end) {
+    long value = parseLong(buf, start, end);
+    if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+      throw numberFormatException(buf, start, end);
+    }
+    return (int) value;
+  }
+
+  /**
+   * Parse a signed decimal integer from {@code buf[start, end)}.
+   *
+   * <p>This should match {@link Short#parseShort(String)}.
+   */
+  public static short parseShort(ByteString buf, int start, int end) {
+    long value = parseLong(buf, start, end);
+    if (value < Short.MIN_VALUE || value > Short.MAX_VALUE) {
+      throw numberFormatException(buf, start, end);
+    }
+    return (short) value;
+  }
+
+  /**
+   * Parse an unsigned 64-bit decimal integer from {@code buf[start, end)}.
+   *
+   * <p>The result holds the unsigned value's bits, as with {@link
+   * Long#parseUnsignedLong(String)}. Use {@link com.google.common.primitives.UnsignedLong} to
+   * interpret it.
+   */
+  public static long parseUnsignedLong(ByteString buf, int start, int end) {
+    int pos = start;
+    if (pos < end && buf.byteAt(pos) == '+') {
+      pos++;
+    }
+    if (pos >= end) {
+      throw numberFormatException(buf, start, end);
+    }
+
+    long result = 0;
+    for (; pos < end; pos++) {
+      int digit = buf.byteAt(pos) - '0';
+      if (digit < 0 || digit > 9 || Long.compareUnsigned(result, UNSIGNED_MULTMIN) > 0) {
+        throw numberFormatException(buf, start, end);
+      }
+      long shifted = result * 10;
+      result = shifted + digit;
+      if (Long.compareUnsigned(result, shifted) < 0) {
+        throw numberFormatException(buf, start, end);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Parse a floating-point value from {@code buf[start, end)}.
+   *
+   * <p>Short plain decimals such as {@code 123.45} are computed exactly from their digits. Any
+   * other form (exponents, {@code NaN}, very long mantissas) is handed to {@link
+   * Double#parseDouble(String)}, so the result always matches it.
+   */
+  public static double parseDouble(ByteString buf, int start, int end) {
+    int pos = start;
+    boolean negative = false;
+    if (pos < end) {
+      byte first = buf.byteAt(pos);
+      if (first == '-') {
+        negative = true;
+        pos++;
+      } else if (first == '+') {
+        pos++;
+      }
+    }
+
+    long mantissa = 0;
+    int digits = 0;
+    int fractionDigits = 0;
+    boolean sawPoint = false;
+    for (; pos < end; pos++) {
+      byte ch = buf.byteAt(pos);
+      if (ch >= '0' && ch <= '9') {
+        if (++digits > MAX_EXACT_DOUBLE_DIGITS) {
+          return Double.parseDouble(buf.substring(start, end).toStringUtf8());
+        }
+        mantissa = mantissa * 10 + (ch - '0');
+        if (sawPoint) {
+          fractionDigits++;
+        }
+      } else if (ch == '.' && !sawPoint) {
+        sawPoint = true;
+      } else {
+        return Double.parseDouble(buf.substring(start, end).toStringUtf8());
+      }
+    }
+    if (digits == 0) {
+      return Double.parseDouble(buf.substring(start, end).toStringUtf8());
+    }
+
+    // Both operands are exact, so a single division is correctly rounded.
+    double value = mantissa / DOUBLE_POWERS_OF_TEN[fractionDigits];
+    return negative ? -value : value;
+  }
+
+  /**
+   * Parse a floating-point value from {@code buf[start, end)}.
+   *
+   * <p>Short plain decimals are computed exactly from their digits. Any other form is handed to
+   * {@link Float#parseFloat(String)}, so the result always matches it.
+   */
+  public static float parseFloat(ByteString buf, int start, int end) {
+    int pos = start;
+    boolean negative = false;
+    if (pos < end) {
+      byte first = buf.byteAt(pos);
+      if (first == '-') {
+        negative = true;
+        pos++;
+      } else if (first == '+') {
+        pos++;
+      }
+    }
+
+    int mantissa = 0;
+    int digits = 0;
+    int fractionDigits = 0;
+    boolean sawPoint = false;
+    for (; pos < end; pos++) {
+      byte ch = buf.byteAt(pos);
+      if (ch >= '0' && ch <= '9') {
+        if (++digits > MAX_EXACT_FLOAT_DIGITS) {
+          return Float.parseFloat(buf.substring(start, end).toStringUtf8());
+        }
+        mantissa = mantissa * 10 + (ch - '0');
+        if (sawPoint) {
+          fractionDigits++;
+        }
+      } else if (ch == '.' && !sawPoint) {
+        sawPoint = true;
+      } else {
+        return Float.parseFloat(buf.substring(start, end).toStringUtf8());
+      }
+    }
+    if (digits == 0) {
+      return Float.parseFloat(buf.substring(start, end).toStringUtf8());
+    }
+
+    // Both operands are exact, so a single division is correctly rounded.
+    float value = mantissa / FLOAT_POWERS_OF_TEN[fractionDigits];
+    return negative ? -value : value;
+  }
+
+  /**
+   * Parse a MySQL DECIMAL from {@code buf[start, end)}.
+   *
+   * <p>Values with up to 18 digits are built from an unscaled long, avoiding the intermediate
+   * {@link String} and {@link java.math.BigInteger}. The result always equals (including scale)
+   * what {@link BigDecimal#BigDecimal(String)} would return.
+   */
+  public static BigDecimal parseBigDecimal(ByteString buf, int start, int end) {
+    int pos = start;
+    boolean negative = false;
+    if (pos < end) {
+      byte first = buf.byteAt(pos);
+      if (first == '-') {
+        negative = true;
+        pos++;
+      } else if (first == '+') {
+        pos++;
+      }
+    }
+
+    long unscaled = 0;
+    int digits = 0;
+    int scale = 0;
+    boolean sawPoint = false;
+    for (; pos < end; pos++) {
+      byte ch = buf.byteAt(pos);
+      if (ch >= '0' && ch <= '9') {
+        if (++digits > MAX_LONG_DIGITS) {
+          return new BigDecimal(buf.substring(start, end).toStringUtf8());
+        }
+        unscaled = unscaled * 10 + (ch - '0');
+        if (sawPoint) {
+          scale++;
+        }
+      } else if (ch == '.' && !sawPoint) {
+        sawPoint = true;
+      } else {
+        return new BigDecimal(buf.substring(start, end).toStringUtf8());
+      }
+    }
+    if (digits == 0) {
+      return new BigDecimal(buf.substring(start, end).toStringUtf8());
+    }
+    return BigDecimal.valueOf(negative ? -unscaled : unscaled, scale);
+  }
+
+  private static NumberFormatException numberFormatException(ByteString buf, int start, int end) {
+    return new NumberFormatException(
+        "For input string: \"" + buf.substring(start, end).toStringUtf8() + "\"");
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2019 The Vitess Authors.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vitess.client;
+
+import com.google.common.base.Ticker;
+
+import java.sql.SQLNonTransientException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class CallStatsTest {
+
+  private static final long MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+  private final FakeTicker ticker = new FakeTicker();
+  private final CallStats stats = new CallStats(ticker, 10, TimeUnit.SECONDS);
+
+  @Test
+  public void testCountsCallsInFlight() {
+    long first = stats.start();
+    long second = stats.start();
+    Assert.assertEquals(2, stats.getInFlight());
+    stats.finish(first, null);
+    stats.finish(second, new SQLNonTransientException());
+    Assert.assertEquals(0, stats.getInFlight());
+  }
+
+  @Test
+  public void testLatencyFollowsPeaksAndDecays() {
+    Assert.assertEquals(0, stats.getLatencyNanos(), 0);
+    call(100 * MILLI);
+    Assert.assertEquals(100 * MILLI, stats.getLatencyNanos(), 1);
+
+    // A faster call right away barely moves the average...
+    call(MILLI);
+    Assert.assertEquals(100 * MILLI, stats.getLatencyNanos(), MILLI);
+    // ...but a slower one takes over at once.
+    call(500 * MILLI);
+    Assert.assertEquals(500 * MILLI, stats.getLatencyNanos(), 1);
+
+    // Without calls, it decays towards 0, by e after one decay time.
+    ticker.advance(10, TimeUnit.SECONDS);
+    Assert.assertEquals(500 * MILLI / Math.E, stats.getLatencyNanos(), MILLI);
+  }
+
+  @Test
+  public void testCountsTransientFailures() {
+    Assert.assertEquals(Long.MAX_VALUE, stats.getNanosSinceLastFailure());
+    stats.finish(stats.start(), new SQLTimeoutException());
+    stats.finish(stats.start(), new SQLTransientException());
+    Assert.assertEquals(2, stats.getConsecutiveFailures());
+    ticker.advance(3, TimeUnit.SECONDS);
+    Assert.assertEquals(TimeUnit.SECONDS.toNanos(3), stats.getNanosSinceLastFailure());
+
+    // Query errors say nothing about the VTGate's health.
+    stats.finish(stats.start(), new SQLNonTransientException());
+    Assert.assertEquals(0, stats.getConsecutiveFailures());
+    Assert.assertEquals(Long.MAX_VALUE, stats.getNanosSinceLastFailure());
+  }
+
+  private void call(long nanos) {
+    long start = stats.start();
+    ticker.advance(nanos, TimeUnit.NANOSECONDS);
+    stats.finish(start, null);
+  }
+
+  private static class FakeTicker extends Ticker {
+
+    private long nanos;
+
+    @Override
+    public long read() {
+      return nanos;
+    }
+
+    void advance(long time, TimeUnit unit) {
+      nanos += unit.toNanos(time);
+    }
+  }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2019 The Vitess Authors.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vitess.client;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+import io.vitess.client.cursor.Cursor;
+import io.vitess.proto.Query;
+import io.vitess.proto.Query.QueryResult;
+import io.vitess.proto.Vtgate;
+import io.vitess.proto.Vtgate.ExecuteBatchRequest;
+import io.vitess.proto.Vtgate.ExecuteBatchResponse;
+import io.vitess.proto.Vtgate.ExecuteRequest;
+import io.vitess.proto.Vtgate.ExecuteResponse;
+import io.vitess.proto.Vtgate.StreamExecuteRequest;
+import io.vitess.proto.Vtgate.VStreamRequest;
+import io.vitess.proto.Vtgate.VStreamResponse;
+import io.vitess.proto.Vtrpc;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(JUnit4.class)
+public class ExecuteBatcherTest {
+
+  @Test
+  public void testFullBatchIsSentAtOnce() throws Exception {
+    FakeRpcClient client = new FakeRpcClient();
+    ExecuteBatcher batcher = new ExecuteBatcher(client, 1, TimeUnit.HOURS, 3);
+    Context ctx = Context.getDefault();
+    List<ListenableFuture<ExecuteResponse>> responses = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      responses.add(batcher.execute(ctx, request("select " + i, "")));
+    }
+
+    Assert.assertEquals(0, client.executes);
+    Assert.assertEquals(1, client.batches.size());
+    Assert.assertEquals(3, client.batches.get(0).getQueriesCount());
+    client.batchResponse.set(ExecuteBatchResponse.newBuilder()
+        .setSession(Vtgate.Session.newBuilder().setTargetString("after"))
+        .addResults(result(0))
+        .addResults(Query.ResultWithError.newBuilder()
+            .setError(Vtrpc.RPCError.newBuilder().setCode(Vtrpc.Code.INVALID_ARGUMENT)))
+        .addResults(result(2))
+        .build());
+
+    // Each caller gets its own entry, with the session returned for the batch.
+    ExecuteResponse first = responses.get(0).get();
+    Assert.assertEquals(0, first.getResult().getRowsAffected());
+    Assert.assertEquals("after", first.getSession().getTargetString());
+    Assert.assertEquals(Vtrpc.Code.INVALID_ARGUMENT, responses.get(1).get().getError().getCode());
+    Assert.assertEquals(2, responses.get(2).get().getResult().getRowsAffected());
+    batcher.close();
+  }
+
+  @Test
+  public void testWindowEndSendsBatch() throws Exception {
+    FakeRpcClient client = new FakeRpcClient();
+    ExecuteBatcher batcher = new ExecuteBatcher(client, 1, TimeUnit.MILLISECONDS, 100);
+    Context ctx = Context.getDefault();
+    batcher.execute(ctx, request("select 1", ""));
+    batcher.execute(ctx, request("select 2", ""));
+    // Different session state can't share a batch.
+    batcher.execute(ctx, request("select 3", "other"));
+
+    ExecuteBatchRequest batch = client.nextBatch.get(10, TimeUnit.SECONDS);
+    Assert.assertEquals(2, batch.getQueriesCount());
+    batcher.close();
+    // A query on its own is sent as a plain execute.
+    Assert.assertEquals(1, client.executes);
+  }
+
+  @Test
+  public void testConnectionBatchesAutocommitExecutes() throws Exception {
+    FakeRpcClient client = new FakeRpcClient();
+    VTGateConnection conn =
+        new VTGateConnection(client, new ExecuteBatcher(client, 1, TimeUnit.HOURS, 2));
+    VTSession session = new VTSession("@replica", Query.ExecuteOptions.getDefaultInstance());
+    session.setPipelined(true);
+    Context ctx = Context.getDefault();
+    SQLFuture<Cursor> first = conn.execute(ctx, "select 1", null, session);
+    SQLFuture<Cursor> second = conn.execute(ctx, "select 2", null, session);
+    client.batchResponse.set(ExecuteBatchResponse.newBuilder()
+        .setSession(session.getSession())
+        .addResults(result(1))
+        .addResults(result(2))
+        .build());
+    Assert.assertEquals(1, first.checkedGet().getRowsAffected());
+    Assert.assertEquals(2, second.checkedGet().getRowsAffected());
+
+    // Executes in a transaction are never batched.
+    session.setAutoCommit(false);
+    conn.execute(ctx, "select 3", null, session);
+    Assert.assertEquals(1, client.executes);
+    Assert.assertEquals(1, client.batches.size());
+    conn.close();
+  }
+
+  private static ExecuteRequest request(String sql, String target) {
+    return ExecuteRequest.newBuilder()
+        .setQuery(Query.BoundQuery.newBuilder().setSql(sql))
+        .setSession(Vtgate.Session.newBuilder().setTargetString(target).setAutocommit(true))
+        .build();
+  }
+
+  private static Query.ResultWithError result(long rowsAffected) {
+    return Query.ResultWithError.newBuilder()
+        .setResult(QueryResult.newBuilder().setRowsAffected(rowsAffected))
+        .build();
+  }
+
+  /**
+   * Records the calls made, and answers batches with {@link #batchResponse}.
+   */
+  private static class FakeRpcClient implements RpcClient {
+
+    private final List<ExecuteBatchRequest> batches = new ArrayList<>();
+    private final SettableFuture<ExecuteBatchRequest> nextBatch = SettableFuture.create();
+    private final SettableFuture<ExecuteBatchResponse> batchResponse = SettableFuture.create();
+    private int executes;
+
+    @Override
+    public synchronized ListenableFuture<ExecuteResponse> execute(Context ctx,
+        ExecuteRequest request) {
+      executes++;
+      return Futures.immediateFuture(ExecuteResponse.getDefaultInstance());
+    }
+
+    @Override
+    public synchronized ListenableFuture<ExecuteBatchResponse> executeBatch(Context ctx,
+        ExecuteBatchRequest request) {
+      batches.add(request);
+      nextBatch.set(request);
+      return batchResponse;
+    }
+
+    @Override
+    public StreamIterator<QueryResult> streamExecute(Context ctx, StreamExecuteRequest request) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public StreamIterator<VStreamResponse> getVStream(Context ctx, VStreamRequest request) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2019 The Vitess Authors.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vitess.client;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class HedgePolicyTest {
+
+  private static final long MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+  @Test
+  public void testNoHedgingWithoutEnoughSamples() {
+    HedgePolicy policy = new HedgePolicy(95, 1, TimeUnit.MILLISECONDS);
+    for (int i = 1; i < HedgePolicy.MIN_SAMPLES; i++) {
+      policy.recordLatency(i * MILLI);
+    }
+    Assert.assertEquals(Long.MAX_VALUE, policy.getDelayNanos());
+    policy.recordLatency(HedgePolicy.MIN_SAMPLES * MILLI);
+    Assert.assertEquals(31 * MILLI, policy.getDelayNanos());
+  }
+
+  @Test
+  public void testDelayIsPercentileOfRecentLatencies() {
+    HedgePolicy policy = new HedgePolicy(95, 1, TimeUnit.MILLISECONDS);
+    for (int i = 1; i <= 100; i++) {
+      policy.recordLatency(i * MILLI);
+    }
+    // The delay is only updated every 32 samples, i.e. after the 96th here.
+    Assert.assertEquals(92 * MILLI, policy.getDelayNanos());
+
+    // Old samples drop out once enough new ones are recorded.
+    for (int i = 0; i < 2048; i++) {
+      policy.recordLatency(3 * MILLI);
+    }
+    Assert.assertEquals(3 * MILLI, policy.getDelayNanos());
+  }
+
+  @Test
+  public void testMinDelay() {
+    HedgePolicy policy = new HedgePolicy(50, 10, TimeUnit.MILLISECONDS);
+    for (int i = 0; i < HedgePolicy.MIN_SAMPLES; i++) {
+      policy.recordLatency(MILLI);
+    }
+    Assert.assertEquals(10 * MILLI, policy.getDelayNanos());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidPercentile() {
+    new HedgePolicy(100, 1, TimeUnit.MILLISECONDS);
+  }
+}
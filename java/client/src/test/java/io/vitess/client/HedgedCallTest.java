@@ -0,0 +1,172 @@
+/*
+ * Copyright 2019 The Vitess Authors.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vitess.client;
+
+import com.google.common.util.concurrent.AsyncCallable;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+import java.sql.SQLTransientException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class HedgedCallTest {
+
+  private final ScheduledExecutorService scheduler =
+      Executors.newSingleThreadScheduledExecutor();
+
+  @After
+  public void tearDown() {
+    scheduler.shutdownNow();
+  }
+
+  @Test
+  public void testNoHedgeWhenPrimaryIsFast() throws Exception {
+    HedgePolicy policy = policy(TimeUnit.HOURS.toNanos(1));
+    Attempt primary = new Attempt();
+    Attempt hedge = new Attempt();
+    ListenableFuture<String> result = HedgedCall.start(primary, hedge, policy);
+
+    Assert.assertEquals(1, primary.calls.get());
+    primary.future.set("primary");
+    Assert.assertEquals("primary", result.get());
+    Assert.assertEquals(0, hedge.calls.get());
+  }
+
+  @Test
+  public void testNoHedgeWithoutSamples() throws Exception {
+    HedgePolicy policy = new HedgePolicy(95, 0, TimeUnit.MILLISECONDS, scheduler);
+    Attempt primary = new Attempt();
+    Attempt hedge = new Attempt();
+    ListenableFuture<String> result = HedgedCall.start(primary, hedge, policy);
+
+    Thread.sleep(20);
+    Assert.assertEquals(0, hedge.calls.get());
+    primary.future.set("primary");
+    Assert.assertEquals("primary", result.get());
+  }
+
+  @Test
+  public void testHedgeWinsAndCancelsPrimary() throws Exception {
+    HedgePolicy policy = policy(TimeUnit.MILLISECONDS.toNanos(1));
+    Attempt primary = new Attempt();
+    Attempt hedge = new Attempt();
+    ListenableFuture<String> result = HedgedCall.start(primary, hedge, policy);
+
+    hedge.awaitCall();
+    hedge.future.set("hedge");
+    Assert.assertEquals("hedge", result.get());
+    assertCancelled(primary.future);
+  }
+
+  @Test
+  public void testFailsOnceAllAttemptsFailed() throws Exception {
+    HedgePolicy policy = policy(TimeUnit.MILLISECONDS.toNanos(1));
+    Attempt primary = new Attempt();
+    Attempt hedge = new Attempt();
+    ListenableFuture<String> result = HedgedCall.start(primary, hedge, policy);
+
+    hedge.awaitCall();
+    primary.future.setException(new SQLTransientException("primary"));
+    Assert.assertFalse(result.isDone());
+    hedge.future.setException(new SQLTransientException("hedge"));
+    try {
+      result.get();
+      Assert.fail("no exception thrown");
+    } catch (ExecutionException exc) {
+      Assert.assertEquals("hedge", exc.getCause().getMessage());
+    }
+  }
+
+  @Test
+  public void testPrimaryFailureBeforeHedge() throws Exception {
+    HedgePolicy policy = policy(TimeUnit.HOURS.toNanos(1));
+    Attempt primary = new Attempt();
+    Attempt hedge = new Attempt();
+    ListenableFuture<String> result = HedgedCall.start(primary, hedge, policy);
+
+    primary.future.setException(new SQLTransientException("primary"));
+    Assert.assertTrue(result.isDone());
+    Assert.assertEquals(0, hedge.calls.get());
+  }
+
+  @Test
+  public void testCancelCancelsAttempts() throws Exception {
+    HedgePolicy policy = policy(TimeUnit.MILLISECONDS.toNanos(1));
+    Attempt primary = new Attempt();
+    Attempt hedge = new Attempt();
+    ListenableFuture<String> result = HedgedCall.start(primary, hedge, policy);
+
+    hedge.awaitCall();
+    result.cancel(true);
+    Assert.assertTrue(primary.future.isCancelled());
+    assertCancelled(hedge.future);
+  }
+
+  /**
+   * Waits for a future to be cancelled. The hedge is started on the scheduler thread, which may
+   * still be registering or cancelling it when the test thread checks.
+   */
+  private static void assertCancelled(Future<?> future) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 5000;
+    while (!future.isCancelled() && System.currentTimeMillis() < deadline) {
+      Thread.sleep(1);
+    }
+    Assert.assertTrue(future.isCancelled());
+  }
+
+  private HedgePolicy policy(long latencyNanos) {
+    HedgePolicy policy = new HedgePolicy(95, 0, TimeUnit.MILLISECONDS, scheduler);
+    for (int i = 0; i < HedgePolicy.MIN_SAMPLES; i++) {
+      policy.recordLatency(latencyNanos);
+    }
+    return policy;
+  }
+
+  private static class Attempt implements AsyncCallable<String> {
+
+    final SettableFuture<String> future = SettableFuture.create();
+    final AtomicInteger calls = new AtomicInteger();
+
+    @Override
+    public synchronized ListenableFuture<String> call() {
+      calls.incrementAndGet();
+      notifyAll();
+      return future;
+    }
+
+    synchronized void awaitCall() throws InterruptedException {
+      long deadline = System.currentTimeMillis() + 5000;
+      while (calls.get() == 0 && System.currentTimeMillis() < deadline) {
+        wait(100);
+      }
+      Assert.assertEquals(1, calls.get());
+    }
+  }
+}
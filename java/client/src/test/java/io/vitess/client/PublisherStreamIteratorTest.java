@@ -0,0 +1,148 @@
+/*
+ * Copyright 2019 The Vitess Authors.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vitess.client;
+
+import io.vitess.proto.Query.QueryResult;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.reactivestreams.Subscription;
+
+import java.sql.SQLException;
+import java.sql.SQLTransientException;
+
+@RunWith(JUnit4.class)
+public class PublisherStreamIteratorTest {
+
+  @Test
+  public void testReadsAheadUpToMaxResults() throws Exception {
+    FakeSubscription subscription = new FakeSubscription();
+    PublisherStreamIterator<QueryResult> iterator = new PublisherStreamIterator<>(3, 0);
+    iterator.onSubscribe(subscription);
+    Assert.assertEquals(3, subscription.requested);
+
+    // The publishing side never blocks, even with a full buffer.
+    iterator.onNext(result(1));
+    iterator.onNext(result(2));
+    iterator.onNext(result(3));
+    Assert.assertEquals(3, subscription.requested);
+
+    // Each value taken by the consumer makes room for one more.
+    Assert.assertEquals(1, iterator.next().getRowsAffected());
+    Assert.assertEquals(4, subscription.requested);
+    iterator.onNext(result(4));
+    iterator.onComplete();
+    for (int i = 2; i <= 4; i++) {
+      Assert.assertTrue(iterator.hasNext());
+      Assert.assertEquals(i, iterator.next().getRowsAffected());
+    }
+    Assert.assertFalse(iterator.hasNext());
+  }
+
+  @Test
+  public void testStopsReadingAheadAtMaxBytes() throws Exception {
+    FakeSubscription subscription = new FakeSubscription();
+    int size = result(1).getSerializedSize();
+    PublisherStreamIterator<QueryResult> iterator = new PublisherStreamIterator<>(10, 2 * size);
+    iterator.onSubscribe(subscription);
+    Assert.assertEquals(10, subscription.requested);
+
+    for (int i = 1; i <= 10; i++) {
+      iterator.onNext(result(i));
+    }
+    // Over the byte limit: nothing more is requested until the consumer drains below it.
+    iterator.next();
+    iterator.next();
+    Assert.assertEquals(10, subscription.requested);
+    for (int i = 3; i <= 9; i++) {
+      iterator.next();
+    }
+    Assert.assertEquals(19, subscription.requested);
+  }
+
+  @Test
+  public void testErrorIsReportedAfterBufferedValues() throws Exception {
+    FakeSubscription subscription = new FakeSubscription();
+    PublisherStreamIterator<QueryResult> iterator = new PublisherStreamIterator<>(2, 0);
+    iterator.onSubscribe(subscription);
+    iterator.onNext(result(1));
+    SQLException error = new SQLTransientException("unavailable");
+    iterator.onError(error);
+
+    Assert.assertEquals(1, iterator.next().getRowsAffected());
+    try {
+      iterator.hasNext();
+      Assert.fail("no exception thrown after stream error");
+    } catch (SQLException exc) {
+      Assert.assertSame(error, exc);
+    }
+  }
+
+  @Test
+  public void testCloseDrainsStream() throws Exception {
+    FakeSubscription subscription = new FakeSubscription();
+    PublisherStreamIterator<QueryResult> iterator = new PublisherStreamIterator<>(2, 0);
+    iterator.onSubscribe(subscription);
+    iterator.onNext(result(1));
+    iterator.onNext(result(2));
+    iterator.close();
+    Assert.assertEquals(Long.MAX_VALUE, subscription.lastRequest);
+    Assert.assertFalse(subscription.cancelled);
+    // Late values are discarded.
+    iterator.onNext(result(3));
+    iterator.onComplete();
+    Assert.assertFalse(iterator.hasNext());
+  }
+
+  @Test
+  public void testSecondSubscriptionIsCancelled() throws Exception {
+    PublisherStreamIterator<QueryResult> iterator = new PublisherStreamIterator<>(2, 0);
+    iterator.onSubscribe(new FakeSubscription());
+    FakeSubscription second = new FakeSubscription();
+    iterator.onSubscribe(second);
+    Assert.assertTrue(second.cancelled);
+    Assert.assertEquals(0, second.requested);
+  }
+
+  private static QueryResult result(long id) {
+    return QueryResult.newBuilder().setRowsAffected(id).build();
+  }
+
+  /**
+   * Records the demand that {@link PublisherStreamIterator} signals.
+   */
+  private static class FakeSubscription implements Subscription {
+
+    private long requested;
+    private long lastRequest;
+    private boolean cancelled;
+
+    @Override
+    public void request(long count) {
+      requested += count;
+      lastRequest = count;
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+    }
+  }
+}
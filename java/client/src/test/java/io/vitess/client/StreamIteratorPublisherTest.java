@@ -0,0 +1,164 @@
+/*
+ * Copyright 2019 The Vitess Authors.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vitess.client;
+
+import com.google.common.util.concurrent.MoreExecutors;
+
+import io.vitess.proto.Query.QueryResult;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+
+@RunWith(JUnit4.class)
+public class StreamIteratorPublisherTest {
+
+  @Test
+  public void testPublishesAsRequested() throws Exception {
+    ListStreamIterator stream = new ListStreamIterator(result(1), result(2), result(3));
+    StreamIteratorPublisher<QueryResult> publisher = new StreamIteratorPublisher<>(
+        opener(stream), MoreExecutors.directExecutor());
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    publisher.subscribe(subscriber);
+    Assert.assertTrue(subscriber.values.isEmpty());
+
+    subscriber.subscription.request(2);
+    Assert.assertEquals(2, subscriber.values.size());
+    Assert.assertFalse(subscriber.completed);
+
+    subscriber.subscription.request(2);
+    Assert.assertEquals(3, subscriber.values.size());
+    Assert.assertEquals(3, subscriber.values.get(2).getRowsAffected());
+    Assert.assertTrue(subscriber.completed);
+    Assert.assertTrue(stream.closed);
+  }
+
+  @Test
+  public void testBlockingIteratorOnTop() throws Exception {
+    ListStreamIterator stream = new ListStreamIterator(result(1), result(2), result(3));
+    PublisherStreamIterator<QueryResult> iterator = new PublisherStreamIterator<>(1, 0);
+    new StreamIteratorPublisher<>(opener(stream), MoreExecutors.directExecutor())
+        .subscribe(iterator);
+    for (int i = 1; i <= 3; i++) {
+      Assert.assertTrue(iterator.hasNext());
+      Assert.assertEquals(i, iterator.next().getRowsAffected());
+    }
+    Assert.assertFalse(iterator.hasNext());
+  }
+
+  @Test
+  public void testCancelClosesStream() throws Exception {
+    ListStreamIterator stream = new ListStreamIterator(result(1), result(2));
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    new StreamIteratorPublisher<>(opener(stream), MoreExecutors.directExecutor())
+        .subscribe(subscriber);
+    subscriber.subscription.request(1);
+    subscriber.subscription.cancel();
+    subscriber.subscription.request(1);
+    Assert.assertEquals(1, subscriber.values.size());
+    Assert.assertTrue(stream.closed);
+    Assert.assertFalse(subscriber.completed);
+    Assert.assertNull(subscriber.error);
+  }
+
+  @Test
+  public void testAcceptsSingleSubscriber() throws Exception {
+    StreamIteratorPublisher<QueryResult> publisher = new StreamIteratorPublisher<>(
+        opener(new ListStreamIterator()), MoreExecutors.directExecutor());
+    publisher.subscribe(new RecordingSubscriber());
+    RecordingSubscriber second = new RecordingSubscriber();
+    publisher.subscribe(second);
+    Assert.assertTrue(second.error instanceof IllegalStateException);
+  }
+
+  private static Callable<StreamIterator<QueryResult>> opener(
+      final StreamIterator<QueryResult> stream) {
+    return new Callable<StreamIterator<QueryResult>>() {
+      @Override
+      public StreamIterator<QueryResult> call() {
+        return stream;
+      }
+    };
+  }
+
+  private static QueryResult result(int rowsAffected) {
+    return QueryResult.newBuilder().setRowsAffected(rowsAffected).build();
+  }
+
+  private static class ListStreamIterator implements StreamIterator<QueryResult> {
+
+    private final Iterator<QueryResult> values;
+    private boolean closed = false;
+
+    ListStreamIterator(QueryResult... values) {
+      this.values = Arrays.asList(values).iterator();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return values.hasNext();
+    }
+
+    @Override
+    public QueryResult next() throws NoSuchElementException {
+      return values.next();
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+  }
+
+  private static class RecordingSubscriber implements Subscriber<QueryResult> {
+
+    private final List<QueryResult> values = new ArrayList<>();
+    private Subscription subscription;
+    private boolean completed = false;
+    private Throwable error;
+
+    @Override
+    public void onSubscribe(Subscription subscription) {
+      this.subscription = subscription;
+    }
+
+    @Override
+    public void onNext(QueryResult value) {
+      values.add(value);
+    }
+
+    @Override
+    public void onError(Throwable error) {
+      this.error = error;
+    }
+
+    @Override
+    public void onComplete() {
+      completed = true;
+    }
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2019 The Vitess Authors.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vitess.client;
+
+import com.google.common.util.concurrent.SettableFuture;
+
+import io.vitess.proto.Query;
+import io.vitess.proto.Vtgate;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class VTSessionTest {
+
+  @Test
+  public void testCallsDoNotOverlapByDefault() {
+    VTSession session = new VTSession("@replica", Query.ExecuteOptions.getDefaultInstance());
+    SettableFuture<Object> pending = SettableFuture.create();
+    session.startCall("execute");
+    session.setLastCall(new SQLFuture<>(pending));
+    try {
+      session.startCall("execute");
+      Assert.fail("overlapping call was allowed");
+    } catch (IllegalStateException expected) {
+      // expected
+    }
+
+    pending.set(null);
+    session.startCall("execute");
+  }
+
+  @Test
+  public void testPipelinedCallsOverlapInAutocommit() {
+    VTSession session = new VTSession("@replica", Query.ExecuteOptions.getDefaultInstance());
+    session.setPipelined(true);
+    SettableFuture<Object> first = SettableFuture.create();
+    session.setLastCall(new SQLFuture<>(first));
+    session.setLastCall(new SQLFuture<>(SettableFuture.create()));
+    session.startCall("execute");
+
+    // Outside autocommit, calls are serialized again.
+    session.setAutoCommit(false);
+    try {
+      session.startCall("execute");
+      Assert.fail("overlapping call was allowed outside autocommit");
+    } catch (IllegalStateException expected) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testLatestStartedCallWins() {
+    VTSession session = new VTSession("@replica", Query.ExecuteOptions.getDefaultInstance());
+    session.setPipelined(true);
+    long first = session.startCall("execute");
+    long second = session.startCall("execute");
+    Assert.assertTrue(second > first);
+
+    Vtgate.Session fromSecond = session.getSession().toBuilder().setTargetString("second").build();
+    Vtgate.Session fromFirst = session.getSession().toBuilder().setTargetString("first").build();
+    session.setSession(fromSecond, second);
+    // The older response arrives late, and is ignored.
+    session.setSession(fromFirst, first);
+    Assert.assertEquals("second", session.getSession().getTargetString());
+  }
+
+  @Test
+  public void testResetRestoresInitialSession() {
+    VTSession session = new VTSession("@replica", Query.ExecuteOptions.getDefaultInstance());
+    Vtgate.Session initial = session.getSession();
+    long call = session.startCall("execute");
+    session.setAutoCommit(false);
+    session.setTransactionIsolation(Query.ExecuteOptions.TransactionIsolation.SERIALIZABLE);
+
+    session.reset();
+    Assert.assertEquals(initial, session.getSession());
+    // A response to a call started before the reset doesn't bring the old state back.
+    session.setSession(initial.toBuilder().setAutocommit(false).build(), call);
+    Assert.assertTrue(session.isAutoCommit());
+  }
+}
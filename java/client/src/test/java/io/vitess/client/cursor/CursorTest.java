@@ -19,6 +19,7 @@ package io.vitess.client.cursor;
 import com.google.common.primitives.UnsignedLong;
 import com.google.protobuf.ByteString;
 
+import io.vitess.client.StreamIterator;
 import io.vitess.proto.Query;
 import io.vitess.proto.Query.Field;
 import io.vitess.proto.Query.QueryResult;
@@ -30,7 +31,9 @@ import java.sql.SQLDataException;
 import java.sql.Time;
 import java.sql.Timestamp;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Calendar;
+import java.util.Iterator;
 import java.util.List;
 import java.util.TimeZone;
 
@@ -381,6 +384,159 @@ public class CursorTest {
     }
   }
 
+  @Test
+  public void testPackedValuesWithNulls() throws Exception {
+    try (Cursor cursor = new SimpleCursor(QueryResult.newBuilder()
+        .addFields(Field.newBuilder().setName("col1").setType(Query.Type.VARCHAR).build())
+        .addFields(Field.newBuilder().setName("null1").setType(Query.Type.VARCHAR).build())
+        .addFields(Field.newBuilder().setName("empty").setType(Query.Type.VARCHAR).build())
+        .addFields(Field.newBuilder().setName("col4").setType(Query.Type.VARCHAR).build())
+        .addFields(Field.newBuilder().setName("null2").setType(Query.Type.VARCHAR).build())
+        .addRows(Query.Row.newBuilder().addLengths(3).addLengths(-1).addLengths(0).addLengths(2)
+            .addLengths(-1)
+            .setValues(ByteString.copyFromUtf8("abcde")))
+        .build())) {
+      Row row = cursor.next();
+      Assert.assertNotNull(row);
+      Assert.assertEquals(5, row.size());
+      Assert.assertEquals(ByteString.copyFromUtf8("de"), row.getRawValue("col4"));
+      Assert.assertFalse(row.wasNull());
+      Assert.assertTrue(row.isNull(2));
+      Assert.assertTrue(row.wasNull());
+      Assert.assertFalse(row.isNull(3));
+      Assert.assertFalse(row.wasNull());
+      Assert.assertEquals(ByteString.EMPTY, row.getRawValue("empty"));
+      Assert.assertEquals(ByteString.copyFromUtf8("abc"), row.getRawValue("col1"));
+      Assert.assertNull(row.getRawValue("null2"));
+      Assert.assertTrue(row.wasNull());
+      try {
+        row.getRawValue(6);
+        Assert.fail("no exception thrown for out of range columnIndex");
+      } catch (SQLDataException expected) {
+        // expected
+      }
+    }
+  }
+
+  @Test
+  public void testNumericGettersWithPackedValues() throws Exception {
+    try (Cursor cursor = new SimpleCursor(QueryResult.newBuilder()
+        .addFields(Field.newBuilder().setName("i16").setType(Query.Type.INT16).build())
+        .addFields(Field.newBuilder().setName("null").setType(Query.Type.INT64).build())
+        .addFields(Field.newBuilder().setName("f32").setType(Query.Type.FLOAT32).build())
+        .addFields(Field.newBuilder().setName("u64").setType(Query.Type.UINT64).build())
+        .addFields(Field.newBuilder().setName("dec").setType(Query.Type.DECIMAL).build())
+        .addRows(Query.Row.newBuilder().addLengths(4).addLengths(-1).addLengths(5)
+            .addLengths(20).addLengths(5)
+            .setValues(ByteString.copyFromUtf8("-12324.5218446744073709551615-1.50")))
+        .build())) {
+      Row row = cursor.next();
+      Assert.assertNotNull(row);
+      // Narrower integer types are widened, like ResultSet.
+      Assert.assertEquals(-123, row.getShort("i16"));
+      Assert.assertEquals(-123, row.getInt("i16"));
+      Assert.assertEquals(-123L, row.getLong("i16"));
+      Assert.assertFalse(row.wasNull());
+      Assert.assertEquals(0L, row.getLong("null"));
+      Assert.assertTrue(row.wasNull());
+      Assert.assertEquals(24.52f, row.getFloat("f32"), 0.0f);
+      Assert.assertEquals(24.52, row.getDouble("f32"), 0.0);
+      Assert.assertEquals(UnsignedLong.fromLongBits(-1L), row.getULong("u64"));
+      Assert.assertEquals(new BigDecimal("-1.50"), row.getBigDecimal("dec"));
+      Assert.assertFalse(row.wasNull());
+      try {
+        row.getInt("dec");
+        Assert.fail("no exception thrown for type mismatch");
+      } catch (SQLDataException expected) {
+        // expected
+      }
+    }
+  }
+
+  @Test
+  public void testColumnBatch() throws Exception {
+    try (SimpleCursor cursor = new SimpleCursor(QueryResult.newBuilder()
+        .addFields(Field.newBuilder().setName("id").setType(Query.Type.INT64).build())
+        .addFields(Field.newBuilder().setName("price").setType(Query.Type.DECIMAL).build())
+        .addFields(Field.newBuilder().setName("name").setType(Query.Type.VARCHAR).build())
+        .addRows(Query.Row.newBuilder().addLengths(1).addLengths(4).addLengths(3)
+            .setValues(ByteString.copyFromUtf8("11.25abc")))
+        .addRows(Query.Row.newBuilder().addLengths(2).addLengths(-1).addLengths(0)
+            .setValues(ByteString.copyFromUtf8("-2")))
+        .addRows(Query.Row.newBuilder().addLengths(1).addLengths(3).addLengths(-1)
+            .setValues(ByteString.copyFromUtf8("30.5")))
+        .build())) {
+      // nextBatch() returns the rows that next() hasn't.
+      Assert.assertEquals(1L, cursor.next().getLong("id"));
+      ColumnBatch batch = cursor.nextBatch();
+      Assert.assertNotNull(batch);
+      Assert.assertNull(cursor.nextBatch());
+      Assert.assertNull(cursor.next());
+
+      Assert.assertEquals(2, batch.getRowCount());
+      Assert.assertEquals(3, batch.getColumnCount());
+      Assert.assertArrayEquals(new long[]{-2, 3}, batch.getLongs(batch.findColumn("id")));
+      Assert.assertArrayEquals(new double[]{0, 0.5}, batch.getDoubles(2), 0.0);
+      BitSet nulls = batch.getNulls(2);
+      Assert.assertTrue(nulls.get(0));
+      Assert.assertFalse(nulls.get(1));
+
+      ColumnBatch.BinaryColumn names = batch.getBinary(3);
+      Assert.assertArrayEquals(new int[]{0, 0, 0}, names.getOffsets());
+      Assert.assertEquals(0, names.getLength(0));
+      Assert.assertEquals(0, names.getData().length);
+      Assert.assertEquals(1, batch.getNulls(3).nextSetBit(0));
+
+      ColumnBatch.BinaryColumn prices = batch.getBinary(2);
+      Assert.assertEquals("0.5", new String(prices.getData(), 0, prices.getLength(1), "UTF-8"));
+      Assert.assertEquals(new BigDecimal("0.5"), batch.getRow(1).getBigDecimal("price"));
+      try {
+        batch.getLongs(3);
+        Assert.fail("no exception thrown for type mismatch");
+      } catch (SQLDataException expected) {
+        // expected
+      }
+    }
+  }
+
+  @Test
+  public void testStreamCursorBatches() throws Exception {
+    final Iterator<QueryResult> results = Arrays.asList(
+        QueryResult.newBuilder()
+            .addFields(Field.newBuilder().setName("col1").setType(Query.Type.INT32).build())
+            .build(),
+        QueryResult.newBuilder()
+            .addRows(Query.Row.newBuilder().addLengths(1).setValues(ByteString.copyFromUtf8("1")))
+            .addRows(Query.Row.newBuilder().addLengths(1).setValues(ByteString.copyFromUtf8("2")))
+            .build(),
+        QueryResult.getDefaultInstance(),
+        QueryResult.newBuilder()
+            .addRows(Query.Row.newBuilder().addLengths(1).setValues(ByteString.copyFromUtf8("3")))
+            .build()).iterator();
+    try (StreamCursor cursor = new StreamCursor(new StreamIterator<QueryResult>() {
+      @Override
+      public boolean hasNext() {
+        return results.hasNext();
+      }
+
+      @Override
+      public QueryResult next() {
+        return results.next();
+      }
+
+      @Override
+      public void close() {
+      }
+    })) {
+      Assert.assertEquals(1, cursor.next().getInt("col1"));
+      Assert.assertArrayEquals(new long[]{2}, cursor.nextBatch().getLongs(1));
+      // The empty QueryResult is skipped.
+      Assert.assertArrayEquals(new long[]{3}, cursor.nextBatch().getLongs(1));
+      Assert.assertNull(cursor.nextBatch());
+      Assert.assertNull(cursor.next());
+    }
+  }
+
   @Test
   public void testGetBinaryInputStream() throws Exception {
     ByteString travel = ByteString.copyFromUtf8("მოგზაურობა");
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2019 The Vitess Authors.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vitess.mysql;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import com.google.common.collect.ImmutableList;
+import com.google.protobuf.ByteString;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class NumbersTest {
+
+  private static final List<String> INTEGERS = ImmutableList.of(
+      "0", "7", "-7", "+7", "-0", "00012", "2147483647", "-2147483648", "2147483648",
+      "9223372036854775807", "-9223372036854775808");
+
+  private static final List<String> BAD_INTEGERS = ImmutableList.of(
+      "", "-", "+", " 1", "1 ", "1.0", "1e3", "abc", "9223372036854775808",
+      "-9223372036854775809", "99999999999999999999");
+
+  private static final List<String> DECIMALS = ImmutableList.of(
+      "0", "-0", "1", "-1", "0.1", "-0.1", "3.14159", "24.52", "1.", ".5", "-.5", "100.000",
+      "123456789012345", "1234567890123456", "0.30000000000000004", "1.7976931348623157E308",
+      "1e-7", "4.9E-324", "NaN", "-Infinity", "99999999999999999999.99", "0.000000000000000000001");
+
+  /**
+   * Embeds the value in a larger buffer, to check that parsing honors the range bounds.
+   */
+  private static ByteString wrap(String value) {
+    return ByteString.copyFromUtf8("99" + value + "99");
+  }
+
+  private static int end(String value) {
+    return 2 + value.length();
+  }
+
+  @Test
+  public void testParseLong() throws Exception {
+    for (String value : INTEGERS) {
+      assertEquals(value, Long.parseLong(value), Numbers.parseLong(wrap(value), 2, end(value)));
+    }
+    for (String value : BAD_INTEGERS) {
+      try {
+        Numbers.parseLong(wrap(value), 2, end(value));
+        fail("NumberFormatException not thrown for: " + value);
+      } catch (NumberFormatException exc) {
+        // expected
+      }
+    }
+  }
+
+  @Test
+  public void testParseIntAndShort() throws Exception {
+    assertEquals(-2147483648, Numbers.parseInt(wrap("-2147483648"), 2, 13));
+    assertEquals(2017, Numbers.parseShort(wrap("2017"), 2, 6));
+    for (String value : ImmutableList.of("2147483648", "-2147483649")) {
+      try {
+        Numbers.parseInt(wrap(value), 2, end(value));
+        fail("NumberFormatException not thrown for: " + value);
+      } catch (NumberFormatException exc) {
+        // expected
+      }
+    }
+    try {
+      Numbers.parseShort(wrap("32768"), 2, 7);
+      fail("NumberFormatException not thrown");
+    } catch (NumberFormatException exc) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testParseUnsignedLong() throws Exception {
+    for (String value : ImmutableList.of("0", "1", "9223372036854775808", "18446744073709551615")) {
+      assertEquals(value, Long.parseUnsignedLong(value),
+          Numbers.parseUnsignedLong(wrap(value), 2, end(value)));
+    }
+    for (String value : ImmutableList.of("", "-1", "18446744073709551616", "1x")) {
+      try {
+        Numbers.parseUnsignedLong(wrap(value), 2, end(value));
+        fail("NumberFormatException not thrown for: " + value);
+      } catch (NumberFormatException exc) {
+        // expected
+      }
+    }
+  }
+
+  @Test
+  public void testParseDoubleAndFloat() throws Exception {
+    for (String value : DECIMALS) {
+      assertEquals(value, Double.doubleToLongBits(Double.parseDouble(value)),
+          Double.doubleToLongBits(Numbers.parseDouble(wrap(value), 2, end(value))));
+      assertEquals(value, Float.floatToIntBits(Float.parseFloat(value)),
+          Float.floatToIntBits(Numbers.parseFloat(wrap(value), 2, end(value))));
+    }
+    for (String value : ImmutableList.of("", "-", ".", "1.2.3", "abc")) {
+      try {
+        Numbers.parseDouble(wrap(value), 2, end(value));
+        fail("NumberFormatException not thrown for: " + value);
+      } catch (NumberFormatException exc) {
+        // expected
+      }
+    }
+  }
+
+  @Test
+  public void testParseBigDecimal() throws Exception {
+    for (String value : DECIMALS) {
+      if (value.equals("NaN") || value.endsWith("Infinity")) {
+        continue;
+      }
+      // assertEquals() uses BigDecimal.equals(), which also compares the scale.
+      assertEquals(value, new BigDecimal(value),
+          Numbers.parseBigDecimal(wrap(value), 2, end(value)));
+    }
+    try {
+      Numbers.parseBigDecimal(wrap("1.2.3"), 2, 7);
+      fail("NumberFormatException not thrown");
+    } catch (NumberFormatException exc) {
+      // expected
+    }
+  }
+}
@@ -0,0 +1,260 @@
+/*
+ * Copyright 2019 The Vitess Authors.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vitess.client.grpc;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import io.grpc.CallOptions;
+import io.grpc.ClientCall;
+import io.grpc.ConnectivityState;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link ManagedChannel} that spreads calls over several channels to the same target.
+ *
+ * <p>A single channel multiplexes all its calls over one HTTP/2 connection, so it is limited by
+ * the server's {@code MAX_CONCURRENT_STREAMS} and by the one event loop that serves the
+ * connection. Each call goes to the channel with the fewest calls in flight; ties are broken
+ * round-robin so that idle channels take turns.
+ */
+class ChannelPool extends ManagedChannel {
+
+  private final ManagedChannel[] channels;
+  private final AtomicInteger[] outstanding;
+  private final AtomicInteger next = new AtomicInteger();
+
+  ChannelPool(ManagedChannel... channels) {
+    checkArgument(channels.length > 0, "a channel pool needs at least one channel");
+    this.channels = channels.clone();
+    this.outstanding = new AtomicInteger[channels.length];
+    for (int i = 0; i < channels.length; i++) {
+      outstanding[i] = new AtomicInteger();
+    }
+  }
+
+  @Override
+  public <RequestT, ResponseT> ClientCall<RequestT, ResponseT> newCall(
+      MethodDescriptor<RequestT, ResponseT> methodDescriptor, CallOptions callOptions) {
+    int index = pick();
+    return new CountingCall<>(channels[index].newCall(methodDescriptor, callOptions),
+        outstanding[index]);
+  }
+
+  /**
+   * Returns the index of the channel with the fewest calls in flight.
+   */
+  private int pick() {
+    int start = (next.getAndIncrement() & Integer.MAX_VALUE) % channels.length;
+    int best = start;
+    int bestOutstanding = outstanding[start].get();
+    for (int i = 1; i < channels.length && bestOutstanding > 0; i++) {
+      int index = (start + i) % channels.length;
+      int count = outstanding[index].get();
+      if (count < bestOutstanding) {
+        best = index;
+        bestOutstanding = count;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Returns the number of calls in flight on each channel.
+   */
+  int[] getOutstandingCalls() {
+    int[] counts = new int[channels.length];
+    for (int i = 0; i < channels.length; i++) {
+      counts[i] = outstanding[i].get();
+    }
+    return counts;
+  }
+
+  @Override
+  public String authority() {
+    return channels[0].authority();
+  }
+
+  @Override
+  public ChannelPool shutdown() {
+    for (ManagedChannel channel : channels) {
+      channel.shutdown();
+    }
+    return this;
+  }
+
+  @Override
+  public ChannelPool shutdownNow() {
+    for (ManagedChannel channel : channels) {
+      channel.shutdownNow();
+    }
+    return this;
+  }
+
+  @Override
+  public boolean isShutdown() {
+    for (ManagedChannel channel : channels) {
+      if (!channel.isShutdown()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public boolean isTerminated() {
+    for (ManagedChannel channel : channels) {
+      if (!channel.isTerminated()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    for (ManagedChannel channel : channels) {
+      if (!channel.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the best state of any of the channels: the pool can serve calls if one of them can.
+   */
+  @Override
+  public ConnectivityState getState(boolean requestConnection) {
+    ConnectivityState best = ConnectivityState.SHUTDOWN;
+    for (ManagedChannel channel : channels) {
+      ConnectivityState state = channel.getState(requestConnection);
+      if (rank(state) < rank(best)) {
+        best = state;
+      }
+    }
+    return best;
+  }
+
+  private static int rank(ConnectivityState state) {
+    switch (state) {
+      case READY:
+        return 0;
+      case CONNECTING:
+        return 1;
+      case IDLE:
+        return 2;
+      case TRANSIENT_FAILURE:
+        return 3;
+      default:
+        return 4;
+    }
+  }
+
+  /**
+   * Runs {@code callback} once, right away if the pool is no longer in {@code source}, or else as
+   * soon as any of the channels leaves the state it's in now, since that's when the state of the
+   * pool may change.
+   */
+  @Override
+  public void notifyWhenStateChanged(ConnectivityState source, final Runnable callback) {
+    if (getState(false) != source) {
+      callback.run();
+      return;
+    }
+    final AtomicBoolean notified = new AtomicBoolean();
+    Runnable once = new Runnable() {
+      @Override
+      public void run() {
+        if (notified.compareAndSet(false, true)) {
+          callback.run();
+        }
+      }
+    };
+    for (ManagedChannel channel : channels) {
+      channel.notifyWhenStateChanged(channel.getState(false), once);
+    }
+  }
+
+  @Override
+  public void resetConnectBackoff() {
+    for (ManagedChannel channel : channels) {
+      channel.resetConnectBackoff();
+    }
+  }
+
+  @Override
+  public void enterIdle() {
+    for (ManagedChannel channel : channels) {
+      channel.enterIdle();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "ChannelPool{channels=" + channels.length + ", authority=" + authority() + "}";
+  }
+
+  /**
+   * Counts a call as in flight from the time it starts until it closes.
+   */
+  private static class CountingCall<RequestT, ResponseT>
+      extends ForwardingClientCall.SimpleForwardingClientCall<RequestT, ResponseT> {
+
+    private final AtomicInteger outstanding;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    CountingCall(ClientCall<RequestT, ResponseT> delegate, AtomicInteger outstanding) {
+      super(delegate);
+      this.outstanding = outstanding;
+    }
+
+    @Override
+    public void start(Listener<ResponseT> responseListener, Metadata headers) {
+      outstanding.incrementAndGet();
+      try {
+        super.start(new ForwardingClientCallListener
+            .SimpleForwardingClientCallListener<ResponseT>(responseListener) {
+          @Override
+          public void onClose(Status status, Metadata trailers) {
+            release();
+            super.onClose(status, trailers);
+          }
+        }, headers);
+      } catch (RuntimeException exc) {
+        release();
+        throw exc;
+      }
+    }
+
+    private void release() {
+      if (released.compareAndSet(false, true)) {
+        outstanding.decrementAndGet();
+      }
+    }
+  }
+}
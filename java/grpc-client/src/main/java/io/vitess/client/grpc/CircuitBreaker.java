@@ -0,0 +1,111 @@
+/*
+ * Copyright 2019 The Vitess Authors.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vitess.client.grpc;
+
+import com.google.common.base.Ticker;
+
+import io.grpc.Status;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Stops calls to a target after several consecutive {@link Status.Code#UNAVAILABLE} failures.
+ *
+ * <p>Once {@code failureThreshold} calls in a row have failed, the breaker opens and rejects
+ * calls for {@code openTime}. Then it lets a single call through: if that call succeeds the
+ * breaker closes, and if it fails the breaker stays open for another {@code openTime}.
+ */
+@ThreadSafe
+class CircuitBreaker {
+
+  private final int failureThreshold;
+  private final long openNanos;
+  private final Ticker ticker;
+
+  private int consecutiveFailures;
+  private long openUntilNanos;
+  private boolean probing;
+
+  CircuitBreaker(int failureThreshold, long openTime, TimeUnit unit, Ticker ticker) {
+    this.failureThreshold = failureThreshold;
+    this.openNanos = unit.toNanos(openTime);
+    this.ticker = ticker;
+  }
+
+  /**
+   * What {@link #tryAcquire()} allows.
+   */
+  enum Permit {
+    /**
+     * The breaker is open, so the call must fail right away.
+     */
+    REJECTED,
+    /**
+     * The breaker is closed.
+     */
+    ALLOWED,
+    /**
+     * The breaker is open, and this call checks whether the target has recovered.
+     */
+    PROBE,
+  }
+
+  /**
+   * Returns whether a call may be sent. If so, its outcome must be reported to {@link
+   * #onClose(Permit, Status)}.
+   */
+  synchronized Permit tryAcquire() {
+    if (consecutiveFailures < failureThreshold) {
+      return Permit.ALLOWED;
+    }
+    if (probing || ticker.read() - openUntilNanos < 0) {
+      return Permit.REJECTED;
+    }
+    probing = true;
+    return Permit.PROBE;
+  }
+
+  /**
+   * Records the outcome of a call, and returns true if that opened the breaker.
+   */
+  synchronized boolean onClose(Permit permit, Status status) {
+    boolean probe = permit == Permit.PROBE;
+    if (probe) {
+      probing = false;
+    }
+    switch (status.getCode()) {
+      case UNAVAILABLE:
+        consecutiveFailures++;
+        if (consecutiveFailures == failureThreshold
+            || (probe && consecutiveFailures > failureThreshold)) {
+          openUntilNanos = ticker.read() + openNanos;
+          return true;
+        }
+        return false;
+      case CANCELLED: // fall through
+      case DEADLINE_EXCEEDED:
+        // Says nothing about the target, which may just be slow to answer this query.
+        return false;
+      default:
+        consecutiveFailures = 0;
+        return false;
+    }
+  }
+}
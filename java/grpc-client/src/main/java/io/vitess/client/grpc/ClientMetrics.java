@@ -0,0 +1,94 @@
+/*
+ * Copyright 2019 The Vitess Authors.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vitess.client.grpc;
+
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+
+/**
+ * Receives what the {@link MetricsInterceptor} measures about each RPC, to be bridged to a
+ * metrics library such as Micrometer or Prometheus.
+ *
+ * <p>{@link #forMethod(MethodDescriptor)} is called once per gRPC method and client, so the
+ * implementation can resolve its meters and labels there. The {@link MethodMetrics} it returns
+ * is then called for every call, from any thread, and should not allocate or block.
+ *
+ * <p>{@link HistogramClientMetrics} records into HdrHistograms, and {@link #NO_OP} records
+ * nothing.
+ */
+public interface ClientMetrics {
+
+  /**
+   * Records nothing. This is the default.
+   */
+  ClientMetrics NO_OP = new ClientMetrics() {
+    @Override
+    public MethodMetrics forMethod(MethodDescriptor<?, ?> method) {
+      return NO_OP_METHOD;
+    }
+  };
+
+  /**
+   * Records nothing about the calls to one method.
+   */
+  MethodMetrics NO_OP_METHOD = new MethodMetrics() {
+    @Override
+    public void callStarted() {
+    }
+
+    @Override
+    public void callRetried() {
+    }
+
+    @Override
+    public void callEnded(Status.Code code, long latencyNanos, long requestBytes,
+        long responseBytes) {
+    }
+  };
+
+  /**
+   * Returns where to record the calls to {@code method}, e.g. {@code
+   * vtgateservice.Vitess/Execute}.
+   */
+  MethodMetrics forMethod(MethodDescriptor<?, ?> method);
+
+  /**
+   * Records the calls to one gRPC method.
+   */
+  interface MethodMetrics {
+
+    /**
+     * A call was started. Each call that starts also ends.
+     */
+    void callStarted();
+
+    /**
+     * A call failed and was sent again by the {@link RetryingInterceptor}.
+     */
+    void callRetried();
+
+    /**
+     * A call ended.
+     *
+     * @param code the status of the call
+     * @param latencyNanos the time from the start of the call to its end, including retries
+     * @param requestBytes the serialized size of the request messages
+     * @param responseBytes the serialized size of the response messages
+     */
+    void callEnded(Status.Code code, long latencyNanos, long requestBytes, long responseBytes);
+  }
+}
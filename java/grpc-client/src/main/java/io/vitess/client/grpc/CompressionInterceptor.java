@@ -0,0 +1,110 @@
+/*
+ * Copyright 2019 The Vitess Authors.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vitess.client.grpc;
+
+import com.google.protobuf.MessageLite;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.Codec;
+import io.grpc.ForwardingClientCall;
+import io.grpc.MethodDescriptor;
+
+import javax.annotation.Nullable;
+
+/**
+ * CompressionInterceptor makes calls use a compressor, such as {@code gzip}.
+ *
+ * <p>A call with a compressor advertises it to VTGate, which then compresses its responses with
+ * it too. Requests are only compressed once they are at least {@code minMessageBytes}, since small
+ * ones don't gain enough to pay for it.
+ *
+ * <p>The compressor of a call can be set with {@link #COMPRESSION} in its {@link CallOptions},
+ * with {@link Codec.Identity#NONE}'s name to send it uncompressed. Otherwise the default of the
+ * interceptor applies.
+ */
+public class CompressionInterceptor implements ClientInterceptor {
+
+  /**
+   * The name of the compressor for a call, which overrides the interceptor's default.
+   */
+  public static final CallOptions.Key<String> COMPRESSION =
+      CallOptions.Key.create("vitess-compression");
+
+  private final String defaultCompressor;
+  private final int minMessageBytes;
+
+  /**
+   * Creates an interceptor which compresses calls with {@code defaultCompressor}, or none if it's
+   * null.
+   *
+   * @param minMessageBytes the size from which request messages are compressed, or 0 to
+   *     compress them all
+   */
+  public CompressionInterceptor(@Nullable String defaultCompressor, int minMessageBytes) {
+    if (minMessageBytes < 0) {
+      throw new IllegalArgumentException("minMessageBytes must not be negative: "
+          + minMessageBytes);
+    }
+    this.defaultCompressor = defaultCompressor;
+    this.minMessageBytes = minMessageBytes;
+  }
+
+  @Override
+  public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+      MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next) {
+    String compressor = callOptions.getOption(COMPRESSION);
+    if (compressor == null) {
+      compressor = callOptions.getCompressor() != null
+          ? callOptions.getCompressor() : defaultCompressor;
+    }
+    if (compressor == null || compressor.equals(Codec.Identity.NONE.getMessageEncoding())) {
+      return next.newCall(method, callOptions);
+    }
+    ClientCall<ReqT, RespT> call = next.newCall(method, callOptions.withCompression(compressor));
+    if (minMessageBytes == 0) {
+      return call;
+    }
+    return new ThresholdCall<ReqT, RespT>(call, minMessageBytes);
+  }
+
+  /**
+   * Only compresses the request messages of at least {@code minMessageBytes}.
+   */
+  private static class ThresholdCall<ReqT, RespT>
+      extends ForwardingClientCall.SimpleForwardingClientCall<ReqT, RespT> {
+
+    private final int minMessageBytes;
+
+    ThresholdCall(ClientCall<ReqT, RespT> delegate, int minMessageBytes) {
+      super(delegate);
+      this.minMessageBytes = minMessageBytes;
+    }
+
+    @Override
+    public void sendMessage(ReqT message) {
+      // Messages we can't size are left to the call's default, which is to compress them.
+      if (message instanceof MessageLite) {
+        super.setMessageCompression(
+            ((MessageLite) message).getSerializedSize() >= minMessageBytes);
+      }
+      super.sendMessage(message);
+    }
+  }
+}
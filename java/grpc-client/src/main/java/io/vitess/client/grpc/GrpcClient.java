@@ -22,17 +22,22 @@ import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.MoreExecutors;
 
 import io.grpc.CallCredentials;
+import io.grpc.ConnectivityState;
 import io.grpc.InternalWithLogId;
 import io.grpc.ManagedChannel;
 import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ClientResponseObserver;
 import io.vitess.client.Context;
 import io.vitess.client.Proto;
+import io.vitess.client.PublisherStreamIterator;
 import io.vitess.client.RpcClient;
 import io.vitess.client.StreamIterator;
 import io.vitess.proto.Query.QueryResult;
 import io.vitess.proto.Vtgate;
 import io.vitess.proto.Vtgate.ExecuteRequest;
 import io.vitess.proto.Vtgate.ExecuteResponse;
+import io.vitess.proto.Vtgate.PrepareRequest;
+import io.vitess.proto.Vtgate.PrepareResponse;
 import io.vitess.proto.Vtgate.StreamExecuteRequest;
 import io.vitess.proto.Vtgate.StreamExecuteResponse;
 import io.vitess.proto.Vtgate.VStreamResponse;
@@ -41,6 +46,7 @@ import io.vitess.proto.grpc.VitessGrpc.VitessFutureStub;
 import io.vitess.proto.grpc.VitessGrpc.VitessStub;
 
 import org.joda.time.Duration;
+import org.reactivestreams.Publisher;
 
 import java.io.IOException;
 import java.sql.SQLException;
@@ -51,6 +57,7 @@ import java.sql.SQLRecoverableException;
 import java.sql.SQLSyntaxErrorException;
 import java.sql.SQLTimeoutException;
 import java.sql.SQLTransientException;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -108,6 +115,32 @@ public class GrpcClient implements RpcClient {
 
   }
 
+  /**
+   * Asks the channel to connect, and waits until it's READY, shut down, or {@code timeout} has
+   * elapsed. The channel keeps trying to connect after a timeout.
+   */
+  @Override
+  public boolean awaitReady(long timeout, TimeUnit unit) throws InterruptedException {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    ConnectivityState state = channel.getState(true);
+    while (state != ConnectivityState.READY) {
+      long remaining = deadline - System.nanoTime();
+      if (state == ConnectivityState.SHUTDOWN || remaining <= 0) {
+        return false;
+      }
+      final CountDownLatch changed = new CountDownLatch(1);
+      channel.notifyWhenStateChanged(state, new Runnable() {
+        @Override
+        public void run() {
+          changed.countDown();
+        }
+      });
+      changed.await(remaining, TimeUnit.NANOSECONDS);
+      state = channel.getState(true);
+    }
+    return true;
+  }
+
   @Override
   public ListenableFuture<ExecuteResponse> execute(Context ctx, ExecuteRequest request)
       throws SQLException {
@@ -122,33 +155,86 @@ public class GrpcClient implements RpcClient {
         new ExceptionConverter<Vtgate.ExecuteBatchResponse>(), MoreExecutors.directExecutor());
   }
 
+  @Override
+  public ListenableFuture<PrepareResponse> prepare(Context ctx, PrepareRequest request)
+      throws SQLException {
+    return Futures.catchingAsync(getFutureStub(ctx).prepare(request), Exception.class,
+        new ExceptionConverter<PrepareResponse>(), MoreExecutors.directExecutor());
+  }
+
   @Override
   public StreamIterator<QueryResult> streamExecute(Context ctx, StreamExecuteRequest request)
       throws SQLException {
-    GrpcStreamAdapter<StreamExecuteResponse, QueryResult> adapter =
-        new GrpcStreamAdapter<StreamExecuteResponse, QueryResult>() {
-          @Override
-          QueryResult getResult(StreamExecuteResponse response) throws SQLException {
-            return response.getResult();
-          }
-        };
-    getAsyncStub(ctx).streamExecute(request, adapter);
-    return adapter;
+    return PublisherStreamIterator.subscribe(streamExecuteAsync(ctx, request), ctx);
+  }
+
+  @Override
+  public Publisher<QueryResult> streamExecuteAsync(final Context ctx,
+      final StreamExecuteRequest request) {
+    return new GrpcStreamPublisher<StreamExecuteResponse, QueryResult>() {
+      @Override
+      void start(ClientResponseObserver<Object, StreamExecuteResponse> observer) {
+        VitessStub stub = getAsyncStub(ctx);
+        if (isRetryableStream(request)) {
+          stub = stub.withOption(RetryingInterceptor.RETRY_STREAM, true);
+        }
+        stub.streamExecute(request, observer);
+      }
+
+      @Override
+      QueryResult getResult(StreamExecuteResponse response) throws SQLException {
+        return response.getResult();
+      }
+    };
   }
 
   @Override
   public StreamIterator<Vtgate.VStreamResponse> getVStream(Context ctx,
       Vtgate.VStreamRequest vstreamRequest) {
-    GrpcStreamAdapter<VStreamResponse, VStreamResponse> adapter =
-        new GrpcStreamAdapter<VStreamResponse, VStreamResponse>() {
-          @Override
-          VStreamResponse getResult(VStreamResponse response) {
-            return response;
-          }
-        };
+    return PublisherStreamIterator.subscribe(getVStreamAsync(ctx, vstreamRequest), ctx);
+  }
+
+  @Override
+  public Publisher<VStreamResponse> getVStreamAsync(final Context ctx,
+      final Vtgate.VStreamRequest vstreamRequest) {
+    return new GrpcStreamPublisher<VStreamResponse, VStreamResponse>() {
+      @Override
+      void start(ClientResponseObserver<Object, VStreamResponse> observer) {
+        getAsyncStub(ctx).vStream(vstreamRequest, observer);
+      }
+
+      @Override
+      VStreamResponse getResult(VStreamResponse response) {
+        return response;
+      }
+    };
+  }
 
-    getAsyncStub(ctx).vStream(vstreamRequest, adapter);
-    return adapter;
+  /**
+   * Returns whether a stream can be sent again if it fails before returning any rows, which is
+   * the case for a SELECT outside a transaction.
+   */
+  static boolean isRetryableStream(StreamExecuteRequest request) {
+    if (request.getSession().getInTransaction()) {
+      return false;
+    }
+    String sql = request.getQuery().getSql();
+    int pos = 0;
+    while (pos < sql.length()) {
+      char ch = sql.charAt(pos);
+      if (Character.isWhitespace(ch) || ch == '(') {
+        pos++;
+      } else if (sql.startsWith("/*", pos)) {
+        int end = sql.indexOf("*/", pos + 2);
+        if (end < 0) {
+          return false;
+        }
+        pos = end + 2;
+      } else {
+        break;
+      }
+    }
+    return sql.regionMatches(true, pos, "select", 0, 6);
   }
 
   /**
@@ -197,19 +283,27 @@ public class GrpcClient implements RpcClient {
   }
 
   private VitessStub getAsyncStub(Context ctx) {
+    VitessStub stub = asyncStub;
+    if (ctx.getCompression() != null) {
+      stub = stub.withOption(CompressionInterceptor.COMPRESSION, ctx.getCompression());
+    }
     Duration timeout = ctx.getTimeout();
     if (timeout == null) {
-      return asyncStub;
+      return stub;
     }
-    return asyncStub.withDeadlineAfter(timeout.getMillis(), TimeUnit.MILLISECONDS);
+    return stub.withDeadlineAfter(timeout.getMillis(), TimeUnit.MILLISECONDS);
   }
 
   private VitessFutureStub getFutureStub(Context ctx) {
+    VitessFutureStub stub = futureStub;
+    if (ctx.getCompression() != null) {
+      stub = stub.withOption(CompressionInterceptor.COMPRESSION, ctx.getCompression());
+    }
     Duration timeout = ctx.getTimeout();
     if (timeout == null) {
-      return futureStub;
+      return stub;
     }
-    return futureStub.withDeadlineAfter(timeout.getMillis(), TimeUnit.MILLISECONDS);
+    return stub.withDeadlineAfter(timeout.getMillis(), TimeUnit.MILLISECONDS);
   }
 
   @Override
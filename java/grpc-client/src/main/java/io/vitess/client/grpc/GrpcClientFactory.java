@@ -18,9 +18,13 @@ package io.vitess.client.grpc;
 
 import io.grpc.CallCredentials;
 import io.grpc.ClientInterceptor;
+import io.grpc.Codec;
+import io.grpc.CompressorRegistry;
+import io.grpc.DecompressorRegistry;
 import io.grpc.LoadBalancer;
 import io.grpc.LoadBalancerProvider;
 import io.grpc.LoadBalancerRegistry;
+import io.grpc.ManagedChannel;
 import io.grpc.NameResolver;
 import io.grpc.netty.GrpcSslContexts;
 import io.grpc.netty.NegotiationType;
@@ -46,6 +50,8 @@ import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 import java.util.Arrays;
 import java.util.Enumeration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 import javax.net.ssl.SSLException;
 
@@ -59,6 +65,19 @@ public class GrpcClientFactory implements RpcClientFactory {
   private CallCredentials callCredentials;
   private String loadBalancerPolicy;
   private NameResolver.Factory nameResolverFactory;
+  private int channelsPerHost = 1;
+  private ClientMetrics clientMetrics = ClientMetrics.NO_OP;
+  private int eventLoopThreads = -1;
+  private boolean nativeTransport;
+  private Executor executor;
+  private String compression;
+  private int compressionMinBytes;
+  private CompressorRegistry compressorRegistry;
+  private DecompressorRegistry decompressorRegistry;
+  private long keepAliveTimeMillis;
+  private long keepAliveTimeoutMillis;
+  private boolean keepAliveWithoutCalls;
+  private long idleTimeoutMillis;
 
   public GrpcClientFactory() {
     this(RetryingInterceptorConfig.noOpConfig(), true);
@@ -88,6 +107,144 @@ public class GrpcClientFactory implements RpcClientFactory {
     return this;
   }
 
+  /**
+   * Sets how many channels, and so HTTP/2 connections, each client opens to its target.
+   *
+   * <p>With more than one, calls go to the channel with the fewest calls in flight. This avoids
+   * queueing on the server's concurrent stream limit and spreads the work over more event loop
+   * threads when a client is shared by many threads.
+   */
+  public GrpcClientFactory setChannelsPerHost(int value) {
+    if (value < 1) {
+      throw new IllegalArgumentException("channelsPerHost must be at least 1: " + value);
+    }
+    channelsPerHost = value;
+    return this;
+  }
+
+  /**
+   * Sets where to report the latency, message sizes, status and retries of each call, per gRPC
+   * method. By default nothing is recorded.
+   */
+  public GrpcClientFactory setClientMetrics(ClientMetrics value) {
+    clientMetrics = value;
+    return this;
+  }
+
+  /**
+   * Makes the channels use an event loop group shared by all the factories in the JVM with the
+   * same settings, of the given number of threads, or 0 for twice the number of cores.
+   *
+   * <p>Without this, channels use gRPC's default NIO event loop group, unless {@link
+   * #setNativeTransport(boolean)} is set.
+   */
+  public GrpcClientFactory setEventLoopThreads(int value) {
+    if (value < 0) {
+      throw new IllegalArgumentException("eventLoopThreads must not be negative: " + value);
+    }
+    eventLoopThreads = value;
+    return this;
+  }
+
+  /**
+   * Sets whether the channels should use the native epoll transport when it's available, on
+   * Linux, with a shared event loop group as with {@link #setEventLoopThreads(int)}. They fall
+   * back to NIO otherwise.
+   */
+  public GrpcClientFactory setNativeTransport(boolean value) {
+    nativeTransport = value;
+    return this;
+  }
+
+  /**
+   * Sets the executor to run the callbacks of the calls on, instead of gRPC's default cached
+   * thread pool. This can be {@link #sharedExecutor()}, or {@link
+   * com.google.common.util.concurrent.MoreExecutors#directExecutor()} to run them on the event
+   * loop threads, which is fastest but only safe if the callbacks never block.
+   */
+  public GrpcClientFactory setExecutor(Executor value) {
+    executor = value;
+    return this;
+  }
+
+  /**
+   * Sets the compressor for the calls, such as {@code "gzip"}, or {@code "identity"} or null for
+   * none. VTGate compresses its responses with it too, which pays off for large results over a
+   * slow or metered network. A {@link Context#withCompression(String) Context} can override it for
+   * a single call.
+   *
+   * @param minMessageBytes request messages smaller than this are sent uncompressed, as the CPU
+   *     spent isn't worth the bytes saved
+   */
+  public GrpcClientFactory setCompression(String name, int minMessageBytes) {
+    if (minMessageBytes < 0) {
+      throw new IllegalArgumentException("minMessageBytes must not be negative: "
+          + minMessageBytes);
+    }
+    compression = name;
+    compressionMinBytes = minMessageBytes;
+    return this;
+  }
+
+  /**
+   * Registers a codec other than gzip, such as zstd, so that it can be used as the compressor of
+   * the calls by its {@link Codec#getMessageEncoding() message encoding}, and is advertised to
+   * VTGate for the responses. VTGate must support it too.
+   */
+  public GrpcClientFactory addCodec(Codec codec) {
+    if (compressorRegistry == null) {
+      compressorRegistry = CompressorRegistry.newEmptyInstance();
+      compressorRegistry.register(new Codec.Gzip());
+      compressorRegistry.register(Codec.Identity.NONE);
+      decompressorRegistry = DecompressorRegistry.getDefaultInstance();
+    }
+    compressorRegistry.register(codec);
+    decompressorRegistry = decompressorRegistry.with(codec, true);
+    return this;
+  }
+
+  /**
+   * Makes the channels ping VTGate when they haven't received anything for {@code timeMillis},
+   * and close the connection if the ping isn't acknowledged within {@code timeoutMillis}. This
+   * finds dead connections, and keeps idle ones from being dropped by load balancers and NAT,
+   * if {@code withoutCalls} is set to ping them even while no call is in flight.
+   *
+   * <p>VTGate must allow pings this often, or it closes the connection. A {@code timeoutMillis}
+   * of 0 keeps gRPC's default of 20 seconds.
+   */
+  public GrpcClientFactory setKeepAlive(long timeMillis, long timeoutMillis,
+      boolean withoutCalls) {
+    if (timeMillis <= 0 || timeoutMillis < 0) {
+      throw new IllegalArgumentException(
+          "keepalive time must be positive and timeout not negative: " + timeMillis + ", "
+              + timeoutMillis);
+    }
+    keepAliveTimeMillis = timeMillis;
+    keepAliveTimeoutMillis = timeoutMillis;
+    keepAliveWithoutCalls = withoutCalls;
+    return this;
+  }
+
+  /**
+   * Sets after how long without calls the channels close their connection, instead of gRPC's
+   * default of 30 minutes. The next call connects again.
+   */
+  public GrpcClientFactory setIdleTimeout(long millis) {
+    if (millis <= 0) {
+      throw new IllegalArgumentException("idleTimeout must be positive: " + millis);
+    }
+    idleTimeoutMillis = millis;
+    return this;
+  }
+
+  /**
+   * Returns an executor with one thread per core, shared by all the channels in the JVM which
+   * {@link #setExecutor(Executor) use it}.
+   */
+  public static Executor sharedExecutor() {
+    return SharedNettyResources.getExecutor();
+  }
+
   /**
    * Factory method to construct a gRPC client connection with no transport-layer security.
    *
@@ -99,7 +256,7 @@ public class GrpcClientFactory implements RpcClientFactory {
   @Override
   public RpcClient create(Context ctx, String target) {
     ClientInterceptor[] interceptors = getClientInterceptors();
-    NettyChannelBuilder channel = channelBuilder(target)
+    NettyChannelBuilder channel = configure(channelBuilder(target))
         .negotiationType(NegotiationType.PLAINTEXT)
         .intercept(interceptors);
     if (loadBalancerPolicy != null) {
@@ -109,18 +266,59 @@ public class GrpcClientFactory implements RpcClientFactory {
       channel.nameResolverFactory(nameResolverFactory);
     }
     return callCredentials != null
-        ? new GrpcClient(channel.build(), callCredentials, ctx)
-        : new GrpcClient(channel.build(), ctx);
+        ? new GrpcClient(build(channel), callCredentials, ctx)
+        : new GrpcClient(build(channel), ctx);
+  }
+
+  private ManagedChannel build(NettyChannelBuilder builder) {
+    if (channelsPerHost == 1) {
+      return builder.build();
+    }
+    ManagedChannel[] channels = new ManagedChannel[channelsPerHost];
+    for (int i = 0; i < channelsPerHost; i++) {
+      channels[i] = builder.build();
+    }
+    return new ChannelPool(channels);
+  }
+
+  private NettyChannelBuilder configure(NettyChannelBuilder builder) {
+    if (eventLoopThreads >= 0 || nativeTransport) {
+      SharedNettyResources.useEventLoopGroup(builder, Math.max(eventLoopThreads, 0),
+          nativeTransport);
+    }
+    if (executor != null) {
+      builder.executor(executor);
+    }
+    if (keepAliveTimeMillis > 0) {
+      builder.keepAliveTime(keepAliveTimeMillis, TimeUnit.MILLISECONDS)
+          .keepAliveWithoutCalls(keepAliveWithoutCalls);
+      if (keepAliveTimeoutMillis > 0) {
+        builder.keepAliveTimeout(keepAliveTimeoutMillis, TimeUnit.MILLISECONDS);
+      }
+    }
+    if (idleTimeoutMillis > 0) {
+      builder.idleTimeout(idleTimeoutMillis, TimeUnit.MILLISECONDS);
+    }
+    if (compressorRegistry != null) {
+      builder.compressorRegistry(compressorRegistry).decompressorRegistry(decompressorRegistry);
+    }
+    return builder;
   }
 
   private ClientInterceptor[] getClientInterceptors() {
-    RetryingInterceptor retryingInterceptor = new RetryingInterceptor(config);
+    // The last interceptor runs first, so metrics see the whole call, including retries.
+    MetricsInterceptor metricsInterceptor = new MetricsInterceptor(clientMetrics);
+    RetryingInterceptor retryingInterceptor = new RetryingInterceptor(config, metricsInterceptor);
+    CompressionInterceptor compressionInterceptor =
+        new CompressionInterceptor(compression, compressionMinBytes);
     ClientInterceptor[] interceptors;
     if (useTracing) {
       ClientTracingInterceptor tracingInterceptor = new ClientTracingInterceptor();
-      interceptors = new ClientInterceptor[]{retryingInterceptor, tracingInterceptor};
+      interceptors = new ClientInterceptor[]{compressionInterceptor, retryingInterceptor,
+          tracingInterceptor, metricsInterceptor};
     } else {
-      interceptors = new ClientInterceptor[]{retryingInterceptor};
+      interceptors = new ClientInterceptor[]{compressionInterceptor, retryingInterceptor,
+          metricsInterceptor};
     }
     return interceptors;
   }
@@ -128,15 +326,17 @@ public class GrpcClientFactory implements RpcClientFactory {
   /**
    * <p>This method constructs NettyChannelBuilder object that will be used to create
    * RpcClient.</p>
-   * <p>Subclasses may override this method to make adjustments to the builder
+   * <p>The event loop group, transport and executor can be set with {@link
+   * #setEventLoopThreads(int)}, {@link #setNativeTransport(boolean)} and {@link
+   * #setExecutor(Executor)}, which are applied to the builder returned here.
+   * Subclasses may override this method to make other adjustments to the builder
    * for example:</p>
    *
    * <code>
    *     {@literal @}Override
    *     protected NettyChannelBuilder channelBuilder(String target) {
    *       return super.channelBuilder(target)
-   *               .eventLoopGroup(new EpollEventLoopGroup())
-   *               .withOption(EpollChannelOption.TCP_USER_TIMEOUT,30);
+   *               .withOption(ChannelOption.TCP_NODELAY, true);
    *     }
    * </code>
    *
@@ -206,8 +406,8 @@ public class GrpcClientFactory implements RpcClientFactory {
     ClientInterceptor[] interceptors = getClientInterceptors();
 
     return new GrpcClient(
-        channelBuilder(target).negotiationType(NegotiationType.TLS).sslContext(sslContext)
-            .intercept(interceptors).build(), ctx);
+        build(configure(channelBuilder(target)).negotiationType(NegotiationType.TLS)
+            .sslContext(sslContext).intercept(interceptors)), ctx);
   }
 
   /**
@@ -0,0 +1,266 @@
+/*
+ * Copyright 2019 The Vitess Authors.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vitess.client.grpc;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A {@link Publisher} of the results of a gRPC server-streaming call.
+ *
+ * <p>The call is started when a {@link Subscriber} subscribes, and subscriber demand is mapped
+ * directly onto gRPC manual flow control: {@link Subscription#request(long)} becomes {@link
+ * ClientCallStreamObserver#request(int)}, so the server only sends what the subscriber asked for
+ * and no thread ever blocks waiting for the consumer. {@link Subscription#cancel()} cancels the
+ * call. Each publisher runs its call once, so it accepts only one subscriber.
+ *
+ * <p>This class is abstract because it needs to be told how to start the call and how to extract
+ * the result (e.g. {@link io.vitess.proto.Query.QueryResult QueryResult}) from a given RPC
+ * response (e.g. {@link io.vitess.proto.Vtgate.StreamExecuteResponse StreamExecuteResponse}).
+ *
+ * @param <V> The type of RPC response.
+ * @param <E> The type of value to publish.
+ */
+abstract class GrpcStreamPublisher<V, E> implements Publisher<E> {
+
+  private final AtomicBoolean subscribed = new AtomicBoolean();
+
+  /**
+   * start must be implemented to issue the RPC, with {@code observer} receiving the responses.
+   */
+  abstract void start(ClientResponseObserver<Object, V> observer);
+
+  /**
+   * getResult must be implemented to tell the publisher how to convert from the RPC response type
+   * (V) to the published type (E). Before converting, getResult() should check for
+   * application-level errors in the RPC response and throw the appropriate SQLException, which
+   * ends the stream.
+   *
+   * @param value The RPC response object.
+   * @return The result object to pass to the subscriber.
+   * @throws SQLException For errors originating within the Vitess server.
+   */
+  abstract E getResult(V value) throws SQLException;
+
+  @Override
+  public void subscribe(Subscriber<? super E> subscriber) {
+    checkNotNull(subscriber);
+    if (!subscribed.compareAndSet(false, true)) {
+      subscriber.onSubscribe(new Subscription() {
+        @Override
+        public void request(long count) {
+        }
+
+        @Override
+        public void cancel() {
+        }
+      });
+      subscriber.onError(new IllegalStateException("stream already has a subscriber"));
+      return;
+    }
+    CallSubscription subscription = new CallSubscription(subscriber);
+    subscriber.onSubscribe(subscription);
+    subscription.start();
+  }
+
+  /**
+   * Connects one subscriber to one gRPC call.
+   *
+   * <p>Signals to the subscriber come from the gRPC callbacks, which gRPC already serializes.
+   * The lock only guards the flow control state, and is never held while calling the subscriber,
+   * so that the subscriber may call back into {@link #request(long)} from any thread.
+   */
+  private class CallSubscription implements Subscription, ClientResponseObserver<Object, V> {
+
+    private final Subscriber<? super E> subscriber;
+
+    private ClientCallStreamObserver<Object> requestStream;
+    /**
+     * Whether the call has been started, so {@link #requestStream} accepts requests.
+     */
+    private boolean started = false;
+    /**
+     * Whether no more signals should reach the subscriber, because the stream ended or the
+     * subscription was cancelled.
+     */
+    private boolean done = false;
+    /**
+     * Values the subscriber has asked for and not received yet; {@link Long#MAX_VALUE} means
+     * unbounded.
+     */
+    private long demand;
+    /**
+     * Responses requested from gRPC that haven't arrived in {@link #onNext} yet.
+     */
+    private int outstanding;
+
+    private CallSubscription(Subscriber<? super E> subscriber) {
+      this.subscriber = subscriber;
+    }
+
+    private void start() {
+      synchronized (this) {
+        if (done) {
+          return;
+        }
+      }
+      try {
+        GrpcStreamPublisher.this.start(this);
+      } catch (RuntimeException exc) {
+        terminate(GrpcClient.convertGrpcError(exc));
+        return;
+      }
+      synchronized (this) {
+        started = true;
+        if (done) {
+          requestStream.cancel("subscription cancelled", null);
+        } else {
+          requestMore();
+        }
+      }
+    }
+
+    @Override
+    public void beforeStart(ClientCallStreamObserver<Object> requestStream) {
+      synchronized (this) {
+        this.requestStream = requestStream;
+        requestStream.disableAutoRequestWithInitial(0);
+      }
+    }
+
+    @Override
+    public void request(long count) {
+      if (count <= 0) {
+        // Rule 3.9 of the Reactive Streams specification.
+        fail(new IllegalArgumentException("non-positive request: " + count));
+        return;
+      }
+      synchronized (this) {
+        if (done) {
+          return;
+        }
+        demand += count;
+        if (demand < 0) {
+          demand = Long.MAX_VALUE;
+        }
+        requestMore();
+      }
+    }
+
+    @Override
+    public synchronized void cancel() {
+      if (done) {
+        return;
+      }
+      done = true;
+      if (started) {
+        requestStream.cancel("subscription cancelled", null);
+      }
+    }
+
+    @Override
+    public void onNext(V value) {
+      synchronized (this) {
+        if (done) {
+          return;
+        }
+        outstanding--;
+        if (demand != Long.MAX_VALUE) {
+          demand--;
+        }
+      }
+      E result;
+      try {
+        result = getResult(value);
+      } catch (SQLException exc) {
+        fail(exc);
+        return;
+      }
+      subscriber.onNext(result);
+      synchronized (this) {
+        requestMore();
+      }
+    }
+
+    @Override
+    public void onCompleted() {
+      synchronized (this) {
+        if (done) {
+          return;
+        }
+        done = true;
+      }
+      subscriber.onComplete();
+    }
+
+    @Override
+    public void onError(Throwable error) {
+      terminate(GrpcClient.convertGrpcError(error));
+    }
+
+    private void terminate(Throwable error) {
+      synchronized (this) {
+        if (done) {
+          return;
+        }
+        done = true;
+      }
+      subscriber.onError(error);
+    }
+
+    /**
+     * Ends the stream from the client side: cancels the call and reports {@code error}.
+     */
+    private void fail(Throwable error) {
+      synchronized (this) {
+        if (done) {
+          return;
+        }
+        done = true;
+        if (started) {
+          requestStream.cancel("stream failed", error);
+        }
+      }
+      subscriber.onError(error);
+    }
+
+    /**
+     * Passes the subscriber's demand on to gRPC. Must be called with the lock held, which also
+     * keeps calls into {@link #requestStream} from different threads serialized.
+     */
+    private void requestMore() {
+      if (!started || done) {
+        return;
+      }
+      long count = Math.min(demand, Integer.MAX_VALUE) - outstanding;
+      if (count > 0) {
+        outstanding += count;
+        requestStream.request((int) count);
+      }
+    }
+  }
+}
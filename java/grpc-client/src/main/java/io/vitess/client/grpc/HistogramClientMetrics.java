@@ -0,0 +1,149 @@
+/*
+ * Copyright 2019 The Vitess Authors.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vitess.client.grpc;
+
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A {@link ClientMetrics} which keeps, for each gRPC method, an HdrHistogram of the latencies in
+ * microseconds along with counters, to be read by a reporter.
+ *
+ * <p>One instance can be shared by several clients, whose calls are then added up.
+ */
+@ThreadSafe
+public class HistogramClientMetrics implements ClientMetrics {
+
+  private static final long MAX_LATENCY_MICROS = TimeUnit.HOURS.toMicros(1);
+  private static final int SIGNIFICANT_DIGITS = 3;
+
+  private final ConcurrentHashMap<String, MethodStats> methods = new ConcurrentHashMap<>();
+
+  @Override
+  public MethodMetrics forMethod(MethodDescriptor<?, ?> method) {
+    MethodStats stats = methods.get(method.getFullMethodName());
+    if (stats == null) {
+      methods.putIfAbsent(method.getFullMethodName(), new MethodStats());
+      stats = methods.get(method.getFullMethodName());
+    }
+    return stats;
+  }
+
+  /**
+   * Returns the stats of each method that was called, by full method name.
+   */
+  public Map<String, MethodStats> getMethodStats() {
+    return Collections.unmodifiableMap(methods);
+  }
+
+  /**
+   * Returns the stats of a method, e.g. {@code vtgateservice.Vitess/Execute}, or null if it
+   * hasn't been called.
+   */
+  @Nullable
+  public MethodStats getMethodStats(String fullMethodName) {
+    return methods.get(fullMethodName);
+  }
+
+  /**
+   * The stats of the calls to one gRPC method.
+   */
+  @ThreadSafe
+  public static class MethodStats implements MethodMetrics {
+
+    private final Recorder latencyMicros = new Recorder(MAX_LATENCY_MICROS, SIGNIFICANT_DIGITS);
+    private final AtomicLong inFlight = new AtomicLong();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder requestBytes = new LongAdder();
+    private final LongAdder responseBytes = new LongAdder();
+    private final LongAdder[] statusCodes = new LongAdder[Status.Code.values().length];
+
+    MethodStats() {
+      for (int i = 0; i < statusCodes.length; i++) {
+        statusCodes[i] = new LongAdder();
+      }
+    }
+
+    @Override
+    public void callStarted() {
+      inFlight.incrementAndGet();
+    }
+
+    @Override
+    public void callRetried() {
+      retries.increment();
+    }
+
+    @Override
+    public void callEnded(Status.Code code, long latencyNanos, long requestBytes,
+        long responseBytes) {
+      inFlight.decrementAndGet();
+      latencyMicros.recordValue(
+          Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), MAX_LATENCY_MICROS));
+      this.requestBytes.add(requestBytes);
+      this.responseBytes.add(responseBytes);
+      statusCodes[code.ordinal()].increment();
+    }
+
+    /**
+     * Returns the latencies in microseconds recorded since the previous call, see {@link
+     * Recorder#getIntervalHistogram()}.
+     */
+    public Histogram getIntervalLatencyHistogram() {
+      return latencyMicros.getIntervalHistogram();
+    }
+
+    /**
+     * Returns how many calls have started and not ended yet.
+     */
+    public long getInFlight() {
+      return inFlight.get();
+    }
+
+    public long getRetries() {
+      return retries.sum();
+    }
+
+    public long getRequestBytes() {
+      return requestBytes.sum();
+    }
+
+    public long getResponseBytes() {
+      return responseBytes.sum();
+    }
+
+    /**
+     * Returns how many calls ended with the given status.
+     */
+    public long getStatusCount(Status.Code code) {
+      return statusCodes[code.ordinal()].sum();
+    }
+  }
+}
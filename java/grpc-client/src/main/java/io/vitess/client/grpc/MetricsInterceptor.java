@@ -0,0 +1,134 @@
+/*
+ * Copyright 2019 The Vitess Authors.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vitess.client.grpc;
+
+import com.google.protobuf.MessageLite;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * MetricsInterceptor reports the latency, message sizes and status of each call to a {@link
+ * ClientMetrics}, along with the retries made by a {@link RetryingInterceptor}.
+ *
+ * <p>It should be the outermost interceptor, so that the latency is the one seen by the
+ * application. Apart from the wrapper around each call, recording doesn't allocate, and with
+ * {@link ClientMetrics#NO_OP} calls are not wrapped at all.
+ */
+public class MetricsInterceptor implements ClientInterceptor {
+
+  private final ClientMetrics metrics;
+  private final ConcurrentHashMap<String, ClientMetrics.MethodMetrics> methodMetrics =
+      new ConcurrentHashMap<>();
+
+  public MetricsInterceptor(ClientMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  @Override
+  public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+      MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next) {
+    if (metrics == ClientMetrics.NO_OP) {
+      return next.newCall(method, callOptions);
+    }
+    return new MetricsCall<ReqT, RespT>(next.newCall(method, callOptions), forMethod(method));
+  }
+
+  /**
+   * Records that a call to {@code method} was sent again.
+   */
+  void recordRetry(MethodDescriptor<?, ?> method) {
+    if (metrics != ClientMetrics.NO_OP) {
+      forMethod(method).callRetried();
+    }
+  }
+
+  private ClientMetrics.MethodMetrics forMethod(MethodDescriptor<?, ?> method) {
+    ClientMetrics.MethodMetrics result = methodMetrics.get(method.getFullMethodName());
+    if (result == null) {
+      methodMetrics.putIfAbsent(method.getFullMethodName(), metrics.forMethod(method));
+      result = methodMetrics.get(method.getFullMethodName());
+    }
+    return result;
+  }
+
+  private static long serializedSize(Object message) {
+    return message instanceof MessageLite ? ((MessageLite) message).getSerializedSize() : 0;
+  }
+
+  private static class MetricsCall<ReqT, RespT>
+      extends ForwardingClientCall.SimpleForwardingClientCall<ReqT, RespT> {
+
+    private final ClientMetrics.MethodMetrics metrics;
+    private long startNanos;
+    private volatile long requestBytes;
+    private volatile long responseBytes;
+
+    MetricsCall(ClientCall<ReqT, RespT> delegate, ClientMetrics.MethodMetrics metrics) {
+      super(delegate);
+      this.metrics = metrics;
+    }
+
+    @Override
+    public void start(Listener<RespT> responseListener, Metadata headers) {
+      startNanos = System.nanoTime();
+      metrics.callStarted();
+      try {
+        super.start(new MetricsListener(responseListener), headers);
+      } catch (RuntimeException exc) {
+        metrics.callEnded(Status.Code.INTERNAL, System.nanoTime() - startNanos, 0, 0);
+        throw exc;
+      }
+    }
+
+    @Override
+    public void sendMessage(ReqT message) {
+      requestBytes += serializedSize(message);
+      super.sendMessage(message);
+    }
+
+    private class MetricsListener
+        extends ForwardingClientCallListener.SimpleForwardingClientCallListener<RespT> {
+
+      MetricsListener(Listener<RespT> delegate) {
+        super(delegate);
+      }
+
+      @Override
+      public void onMessage(RespT message) {
+        responseBytes += serializedSize(message);
+        super.onMessage(message);
+      }
+
+      @Override
+      public void onClose(Status status, Metadata trailers) {
+        metrics.callEnded(status.getCode(), System.nanoTime() - startNanos, requestBytes,
+            responseBytes);
+        super.onClose(status, trailers);
+      }
+    }
+  }
+}
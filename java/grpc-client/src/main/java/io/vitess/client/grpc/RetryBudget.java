@@ -0,0 +1,59 @@
+/*
+ * Copyright 2019 The Vitess Authors.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vitess.client.grpc;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A token bucket that limits retries to a fraction of the requests.
+ *
+ * <p>Each request adds {@code ratio} tokens and each retry takes one, so that in the long run
+ * there are at most {@code ratio} retries per request. The bucket starts full and holds at most
+ * {@code maxTokens}, which allows a burst of retries after a quiet period.
+ */
+@ThreadSafe
+class RetryBudget {
+
+  private final double ratio;
+  private final double maxTokens;
+  private double tokens;
+
+  RetryBudget(double ratio, int maxTokens) {
+    this.ratio = ratio;
+    this.maxTokens = maxTokens;
+    this.tokens = maxTokens;
+  }
+
+  /**
+   * Records a request that may be retried.
+   */
+  synchronized void deposit() {
+    tokens = Math.min(maxTokens, tokens + ratio);
+  }
+
+  /**
+   * Takes a token for a retry, and returns false if there are none left.
+   */
+  synchronized boolean tryWithdraw() {
+    if (tokens < 1) {
+      return false;
+    }
+    tokens -= 1;
+    return true;
+  }
+}
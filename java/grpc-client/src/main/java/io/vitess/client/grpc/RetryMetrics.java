@@ -0,0 +1,87 @@
+/*
+ * Copyright 2019 The Vitess Authors.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vitess.client.grpc;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Counts what the {@link RetryingInterceptor}s built from one {@link RetryingInterceptorConfig}
+ * did, see {@link RetryingInterceptorConfig#getMetrics()}. One instance can be shared by several
+ * configs, see {@link RetryingInterceptorConfig#withMetrics(RetryMetrics)}.
+ */
+@ThreadSafe
+public class RetryMetrics {
+
+  private final AtomicLong retries = new AtomicLong();
+  private final AtomicLong retriesThrottled = new AtomicLong();
+  private final AtomicLong circuitBreakerOpens = new AtomicLong();
+  private final AtomicLong callsRejected = new AtomicLong();
+
+  /**
+   * Returns how many times a failed call was sent again.
+   */
+  public long getRetries() {
+    return retries.get();
+  }
+
+  /**
+   * Returns how many times a failed call wasn't sent again because the retry budget was spent.
+   */
+  public long getRetriesThrottled() {
+    return retriesThrottled.get();
+  }
+
+  /**
+   * Returns how many times a circuit breaker opened.
+   */
+  public long getCircuitBreakerOpens() {
+    return circuitBreakerOpens.get();
+  }
+
+  /**
+   * Returns how many calls failed right away because their target's circuit breaker was open.
+   */
+  public long getCallsRejected() {
+    return callsRejected.get();
+  }
+
+  void recordRetry() {
+    retries.incrementAndGet();
+  }
+
+  void recordRetryThrottled() {
+    retriesThrottled.incrementAndGet();
+  }
+
+  void recordCircuitBreakerOpen() {
+    circuitBreakerOpens.incrementAndGet();
+  }
+
+  void recordCallRejected() {
+    callsRejected.incrementAndGet();
+  }
+
+  @Override
+  public String toString() {
+    return "RetryMetrics{retries=" + retries + ", retriesThrottled=" + retriesThrottled
+        + ", circuitBreakerOpens=" + circuitBreakerOpens + ", callsRejected=" + callsRejected
+        + "}";
+  }
+}
@@ -19,17 +19,22 @@ package io.vitess.client.grpc;
 import static com.google.common.base.Preconditions.checkState;
 import static io.grpc.internal.GrpcUtil.TIMER_SERVICE;
 
+import com.google.common.base.Ticker;
+
 import io.grpc.CallOptions;
 import io.grpc.Channel;
 import io.grpc.ClientCall;
 import io.grpc.ClientInterceptor;
 import io.grpc.Context;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
 import io.grpc.Metadata;
 import io.grpc.MethodDescriptor;
 import io.grpc.Status;
 import io.grpc.internal.SharedResourceHolder;
 
 import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
@@ -47,21 +52,110 @@ import javax.annotation.Nullable;
  * When enabled, this interceptor will retry valid requests with an exponentially increasing backoff
  * time up to the maximum time defined by the {@link io.grpc.Deadline} in the call's {@link
  * CallOptions}.
+ *
+ * {@link MethodDescriptor.MethodType.SERVER_STREAMING} requests are retried the same way if their
+ * {@link CallOptions} have {@link #RETRY_STREAM} set, but only as long as no response has been
+ * received, and only until the backoff reaches its maximum.
+ *
+ * Retries of all the calls going through one interceptor can be limited by a retry budget, and
+ * each target can have a circuit breaker that fails calls right away after consecutive failures,
+ * see {@link RetryingInterceptorConfig}.
  */
 public class RetryingInterceptor implements ClientInterceptor {
 
+  /**
+   * Marks a server-streaming call as safe to send again, e.g. a read outside a transaction.
+   */
+  static final CallOptions.Key<Boolean> RETRY_STREAM =
+      CallOptions.Key.createWithDefault("vitess-retry-stream", false);
+
   private final RetryingInterceptorConfig config;
+  private final Ticker ticker;
+  private final MetricsInterceptor metricsInterceptor;
+  @Nullable
+  private final RetryBudget retryBudget;
+  private final ConcurrentHashMap<String, CircuitBreaker> circuitBreakers =
+      new ConcurrentHashMap<>();
 
   RetryingInterceptor(RetryingInterceptorConfig config) {
+    this(config, new MetricsInterceptor(ClientMetrics.NO_OP));
+  }
+
+  /**
+   * Creates an interceptor which also reports each retry to {@code metricsInterceptor}.
+   */
+  RetryingInterceptor(RetryingInterceptorConfig config, MetricsInterceptor metricsInterceptor) {
+    this(config, metricsInterceptor, Ticker.systemTicker());
+  }
+
+  RetryingInterceptor(RetryingInterceptorConfig config, Ticker ticker) {
+    this(config, new MetricsInterceptor(ClientMetrics.NO_OP), ticker);
+  }
+
+  private RetryingInterceptor(RetryingInterceptorConfig config,
+      MetricsInterceptor metricsInterceptor, Ticker ticker) {
     this.config = config;
+    this.ticker = ticker;
+    this.metricsInterceptor = metricsInterceptor;
+    this.retryBudget = config.hasRetryBudget()
+        ? new RetryBudget(config.getRetryBudgetRatio(), config.getRetryBudgetMaxTokens())
+        : null;
   }
 
   @Override
   public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
       MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next) {
+    if (!config.hasCircuitBreaker()) {
+      return newCall(method, callOptions, next);
+    }
 
-    // Only UNARY calls can be retried, streaming call errors should be handled by user.
-    if (method.getType() != MethodDescriptor.MethodType.UNARY || config.isDisabled()) {
+    CircuitBreaker circuitBreaker = getCircuitBreaker(next.authority());
+    CircuitBreaker.Permit permit = circuitBreaker.tryAcquire();
+    if (permit == CircuitBreaker.Permit.REJECTED) {
+      config.getMetrics().recordCallRejected();
+      return new RejectedCall<ReqT, RespT>(Status.UNAVAILABLE.withDescription(
+          "circuit breaker open for " + next.authority()));
+    }
+    return new CircuitBreakerCall<ReqT, RespT>(newCall(method, callOptions, next),
+        circuitBreaker, permit);
+  }
+
+  private CircuitBreaker getCircuitBreaker(String authority) {
+    CircuitBreaker circuitBreaker = circuitBreakers.get(authority);
+    if (circuitBreaker == null) {
+      circuitBreakers.putIfAbsent(authority,
+          new CircuitBreaker(config.getCircuitBreakerFailures(),
+              config.getCircuitBreakerOpenMillis(), TimeUnit.MILLISECONDS, ticker));
+      circuitBreaker = circuitBreakers.get(authority);
+    }
+    return circuitBreaker;
+  }
+
+  /**
+   * Returns whether a failed call may be sent again under the retry budget, and counts it.
+   */
+  private boolean acquireRetry(MethodDescriptor<?, ?> method) {
+    if (retryBudget != null && !retryBudget.tryWithdraw()) {
+      config.getMetrics().recordRetryThrottled();
+      return false;
+    }
+    config.getMetrics().recordRetry();
+    metricsInterceptor.recordRetry(method);
+    return true;
+  }
+
+  private <ReqT, RespT> ClientCall<ReqT, RespT> newCall(
+      MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next) {
+    if (config.isDisabled()) {
+      return next.newCall(method, callOptions);
+    }
+    if (method.getType() == MethodDescriptor.MethodType.SERVER_STREAMING
+        && callOptions.getOption(RETRY_STREAM)) {
+      return new RetryingStreamCall<ReqT, RespT>(method, callOptions, next, Context.current(),
+          config);
+    }
+    // Other streaming call errors should be handled by user.
+    if (method.getType() != MethodDescriptor.MethodType.UNARY) {
       return next.newCall(method, callOptions);
     }
 
@@ -99,6 +193,9 @@ public class RetryingInterceptor implements ClientInterceptor {
       this.maxBackoffMillis = config.getMaxBackoffMillis();
       this.backoffMultiplier = config.getBackoffMultiplier();
       this.scheduledExecutor = SharedResourceHolder.get(TIMER_SERVICE);
+      if (retryBudget != null) {
+        retryBudget.deposit();
+      }
     }
 
     @Override
@@ -182,6 +279,11 @@ public class RetryingInterceptor implements ClientInterceptor {
         return;
       }
 
+      if (!acquireRetry(method)) {
+        useResponse(attempt);
+        return;
+      }
+
       latestResponse = attempt;
       retryTask = scheduledExecutor.schedule(context.wrap(new Runnable() {
         @Override
@@ -248,4 +350,314 @@ public class RetryingInterceptor implements ClientInterceptor {
     }
   }
 
+  /**
+   * Retries a server-streaming call that fails with {@link Status.Code#UNAVAILABLE} before any
+   * response has arrived. The first response commits the call to its attempt, and later failures
+   * are passed on, since the responses already delivered can't be taken back.
+   */
+  private class RetryingStreamCall<ReqT, RespT> extends ClientCall<ReqT, RespT> {
+
+    private final MethodDescriptor<ReqT, RespT> method;
+    private final CallOptions callOptions;
+    private final Channel channel;
+    private final Context context;
+    private final ScheduledExecutorService scheduledExecutor;
+    private final long maxBackoffMillis;
+    private final double backoffMultiplier;
+    private long nextBackoffMillis;
+
+    private Listener<RespT> responseListener;
+    private Metadata requestHeaders;
+    private ReqT requestMessage;
+    private boolean halfClosed;
+    private Boolean compressionEnabled;
+    /**
+     * Responses requested so far, which a new attempt has to request again.
+     */
+    private int requested;
+    private ClientCall<ReqT, RespT> currentCall;
+    private boolean committed;
+    private boolean cancelled;
+    private String cancelMessage;
+    private Throwable cancelCause;
+    /**
+     * Whether an attempt failed and the next one hasn't started yet.
+     */
+    private boolean waiting;
+    private ScheduledFuture<?> retryTask;
+
+    RetryingStreamCall(MethodDescriptor<ReqT, RespT> method, CallOptions callOptions,
+        Channel channel, Context context, RetryingInterceptorConfig config) {
+      this.method = method;
+      this.callOptions = callOptions;
+      this.channel = channel;
+      this.context = context;
+      this.nextBackoffMillis = config.getInitialBackoffMillis();
+      this.maxBackoffMillis = config.getMaxBackoffMillis();
+      this.backoffMultiplier = config.getBackoffMultiplier();
+      this.scheduledExecutor = SharedResourceHolder.get(TIMER_SERVICE);
+      if (retryBudget != null) {
+        retryBudget.deposit();
+      }
+    }
+
+    @Override
+    public void start(Listener<RespT> listener, Metadata headers) {
+      checkState(responseListener == null);
+      responseListener = listener;
+      requestHeaders = headers;
+      startAttempt();
+    }
+
+    private void startAttempt() {
+      synchronized (this) {
+        if (cancelled) {
+          return;
+        }
+        waiting = false;
+      }
+      ClientCall<ReqT, RespT> call = channel.newCall(method, callOptions);
+      call.start(new AttemptListener(call), requestHeaders);
+      int count;
+      boolean cancelCall;
+      synchronized (this) {
+        if (compressionEnabled != null) {
+          call.setMessageCompression(compressionEnabled);
+        }
+        if (requestMessage != null) {
+          call.sendMessage(requestMessage);
+        }
+        if (halfClosed) {
+          call.halfClose();
+        }
+        currentCall = call;
+        count = requested;
+        // A cancel() since the first block saw neither a waiting listener nor this call.
+        cancelCall = cancelled;
+      }
+      if (cancelCall) {
+        call.cancel(cancelMessage, cancelCause);
+      } else if (count > 0) {
+        call.request(count);
+      }
+    }
+
+    @Override
+    public void request(int numMessages) {
+      ClientCall<ReqT, RespT> call;
+      synchronized (this) {
+        requested = (int) Math.min((long) requested + numMessages, Integer.MAX_VALUE);
+        call = currentCall;
+      }
+      if (call != null) {
+        call.request(numMessages);
+      }
+    }
+
+    @Override
+    public void cancel(@Nullable String message, @Nullable Throwable cause) {
+      ClientCall<ReqT, RespT> call;
+      boolean closeListener;
+      synchronized (this) {
+        if (cancelled) {
+          return;
+        }
+        cancelled = true;
+        cancelMessage = message;
+        cancelCause = cause;
+        call = currentCall;
+        closeListener = waiting;
+        if (retryTask != null) {
+          retryTask.cancel(false);
+        }
+      }
+      if (closeListener) {
+        // The last attempt is already closed, so nothing else will close the listener.
+        responseListener.onClose(Status.CANCELLED.withDescription(message).withCause(cause),
+            new Metadata());
+      } else if (call != null) {
+        call.cancel(message, cause);
+      }
+    }
+
+    @Override
+    public synchronized void halfClose() {
+      halfClosed = true;
+      currentCall.halfClose();
+    }
+
+    @Override
+    public synchronized void sendMessage(ReqT message) {
+      checkState(requestMessage == null);
+      requestMessage = message;
+      currentCall.sendMessage(message);
+    }
+
+    @Override
+    public synchronized boolean isReady() {
+      return currentCall != null && currentCall.isReady();
+    }
+
+    @Override
+    public synchronized void setMessageCompression(boolean enabled) {
+      compressionEnabled = enabled;
+      currentCall.setMessageCompression(enabled);
+    }
+
+    /**
+     * Schedules another attempt, if the call may still be retried. Must be called with the lock
+     * held.
+     */
+    private boolean maybeScheduleRetry(Status status) {
+      if (committed || cancelled || status.getCode() != Status.Code.UNAVAILABLE
+          || nextBackoffMillis > maxBackoffMillis) {
+        return false;
+      }
+      long backoffMillis = nextBackoffMillis;
+      if (callOptions.getDeadline() != null
+          && callOptions.getDeadline().timeRemaining(TimeUnit.MILLISECONDS) < backoffMillis) {
+        return false;
+      }
+      if (!acquireRetry(method)) {
+        return false;
+      }
+      nextBackoffMillis = (long) (backoffMillis * backoffMultiplier);
+      waiting = true;
+      retryTask = scheduledExecutor.schedule(context.wrap(new Runnable() {
+        @Override
+        public void run() {
+          startAttempt();
+        }
+      }), backoffMillis, TimeUnit.MILLISECONDS);
+      return true;
+    }
+
+    private class AttemptListener extends ClientCall.Listener<RespT> {
+
+      final ClientCall<ReqT, RespT> call;
+      Metadata responseHeaders;
+
+      AttemptListener(ClientCall<ReqT, RespT> call) {
+        this.call = call;
+      }
+
+      @Override
+      public void onHeaders(Metadata headers) {
+        boolean forward;
+        synchronized (RetryingStreamCall.this) {
+          forward = committed;
+        }
+        if (forward) {
+          responseListener.onHeaders(headers);
+        } else {
+          responseHeaders = headers;
+        }
+      }
+
+      @Override
+      public void onMessage(RespT message) {
+        boolean first;
+        synchronized (RetryingStreamCall.this) {
+          first = !committed;
+          committed = true;
+        }
+        if (first && responseHeaders != null) {
+          responseListener.onHeaders(responseHeaders);
+        }
+        responseListener.onMessage(message);
+      }
+
+      @Override
+      public void onClose(Status status, Metadata trailers) {
+        boolean forwardHeaders;
+        synchronized (RetryingStreamCall.this) {
+          if (maybeScheduleRetry(status)) {
+            return;
+          }
+          forwardHeaders = !committed;
+        }
+        if (forwardHeaders && responseHeaders != null) {
+          responseListener.onHeaders(responseHeaders);
+        }
+        responseListener.onClose(status, trailers);
+      }
+
+      @Override
+      public void onReady() {
+        responseListener.onReady();
+      }
+    }
+  }
+
+  /**
+   * Reports the outcome of a call to its target's circuit breaker.
+   */
+  private class CircuitBreakerCall<ReqT, RespT>
+      extends ForwardingClientCall.SimpleForwardingClientCall<ReqT, RespT> {
+
+    private final CircuitBreaker circuitBreaker;
+    private final CircuitBreaker.Permit permit;
+
+    CircuitBreakerCall(ClientCall<ReqT, RespT> delegate, CircuitBreaker circuitBreaker,
+        CircuitBreaker.Permit permit) {
+      super(delegate);
+      this.circuitBreaker = circuitBreaker;
+      this.permit = permit;
+    }
+
+    @Override
+    public void start(Listener<RespT> responseListener, Metadata headers) {
+      try {
+        super.start(
+            new ForwardingClientCallListener.SimpleForwardingClientCallListener<RespT>(
+                responseListener) {
+              @Override
+              public void onClose(Status status, Metadata trailers) {
+                if (circuitBreaker.onClose(permit, status)) {
+                  config.getMetrics().recordCircuitBreakerOpen();
+                }
+                super.onClose(status, trailers);
+              }
+            }, headers);
+      } catch (RuntimeException exc) {
+        // Release the permit, without counting the call for or against the target.
+        circuitBreaker.onClose(permit, Status.CANCELLED);
+        throw exc;
+      }
+    }
+  }
+
+  /**
+   * A call that fails with the given status as soon as it starts.
+   */
+  private static class RejectedCall<ReqT, RespT> extends ClientCall<ReqT, RespT> {
+
+    private final Status status;
+
+    RejectedCall(Status status) {
+      this.status = status;
+    }
+
+    @Override
+    public void start(Listener<RespT> responseListener, Metadata headers) {
+      responseListener.onClose(status, new Metadata());
+    }
+
+    @Override
+    public void request(int numMessages) {
+    }
+
+    @Override
+    public void cancel(@Nullable String message, @Nullable Throwable cause) {
+    }
+
+    @Override
+    public void halfClose() {
+    }
+
+    @Override
+    public void sendMessage(ReqT message) {
+    }
+  }
+
 }
@@ -19,6 +19,10 @@ package io.vitess.client.grpc;
 /**
  * This class defines what level of exponential backoff to apply in the {@link RetryingInterceptor}.
  * It can be disabled with the {@link #noOpConfig()}.
+ *
+ * <p>Retries can also be limited with a retry budget, see {@link #withRetryBudget(double, int)},
+ * and calls to a failing target can be stopped with a circuit breaker, see {@link
+ * #withCircuitBreaker(int, long)}. What these did is counted in {@link #getMetrics()}.
  */
 public class RetryingInterceptorConfig {
 
@@ -27,12 +31,29 @@ public class RetryingInterceptorConfig {
   private final long initialBackoffMillis;
   private final long maxBackoffMillis;
   private final double backoffMultiplier;
+  private final double retryBudgetRatio;
+  private final int retryBudgetMaxTokens;
+  private final int circuitBreakerFailures;
+  private final long circuitBreakerOpenMillis;
+  private final RetryMetrics metrics;
 
   private RetryingInterceptorConfig(long initialBackoffMillis, long maxBackoffMillis,
       double backoffMultiplier) {
+    this(initialBackoffMillis, maxBackoffMillis, backoffMultiplier, 0, 0, 0, 0,
+        new RetryMetrics());
+  }
+
+  private RetryingInterceptorConfig(long initialBackoffMillis, long maxBackoffMillis,
+      double backoffMultiplier, double retryBudgetRatio, int retryBudgetMaxTokens,
+      int circuitBreakerFailures, long circuitBreakerOpenMillis, RetryMetrics metrics) {
     this.initialBackoffMillis = initialBackoffMillis;
     this.maxBackoffMillis = maxBackoffMillis;
     this.backoffMultiplier = backoffMultiplier;
+    this.retryBudgetRatio = retryBudgetRatio;
+    this.retryBudgetMaxTokens = retryBudgetMaxTokens;
+    this.circuitBreakerFailures = circuitBreakerFailures;
+    this.circuitBreakerOpenMillis = circuitBreakerOpenMillis;
+    this.metrics = metrics;
   }
 
   /**
@@ -56,6 +77,69 @@ public class RetryingInterceptorConfig {
     return new RetryingInterceptorConfig(initialBackoffMillis, maxBackoffMillis, backoffMultiplier);
   }
 
+  /**
+   * Returns a copy of this config which limits retries to a fraction of the requests, so that
+   * clients don't multiply the load on a degraded VTGate pool.
+   *
+   * <p>Each client keeps a budget of tokens: each request adds {@code ratio} tokens, and each
+   * retry takes one. Once there are no tokens left, failures are returned without retrying.
+   *
+   * @param ratio how many retries to allow per request, e.g. 0.1 for at most 10%, or 0 for no
+   *     limit
+   * @param maxTokens how many tokens the budget starts with and can hold, which allows a burst
+   *     of retries when there have been few requests
+   */
+  public RetryingInterceptorConfig withRetryBudget(double ratio, int maxTokens) {
+    if (ratio < 0 || maxTokens < 1) {
+      throw new IllegalArgumentException(
+          "invalid retry budget: ratio=" + ratio + ", maxTokens=" + maxTokens);
+    }
+    return new RetryingInterceptorConfig(initialBackoffMillis, maxBackoffMillis,
+        backoffMultiplier, ratio, maxTokens, circuitBreakerFailures, circuitBreakerOpenMillis,
+        metrics);
+  }
+
+  /**
+   * Returns a copy of this config with a circuit breaker for each target.
+   *
+   * <p>After {@code failures} consecutive calls to a target failed with {@link
+   * io.grpc.Status.Code#UNAVAILABLE}, calls to it fail right away with the same status for
+   * {@code openMillis}. Then one call is let through, which closes the breaker if it succeeds.
+   * Such failures surface as {@link java.sql.SQLTransientException}.
+   *
+   * @param failures how many consecutive failures open the breaker, or 0 for no breaker
+   * @param openMillis how long the breaker stays open before letting a call through
+   */
+  public RetryingInterceptorConfig withCircuitBreaker(int failures, long openMillis) {
+    if (failures < 0 || openMillis < 0) {
+      throw new IllegalArgumentException(
+          "invalid circuit breaker: failures=" + failures + ", openMillis=" + openMillis);
+    }
+    return new RetryingInterceptorConfig(initialBackoffMillis, maxBackoffMillis,
+        backoffMultiplier, retryBudgetRatio, retryBudgetMaxTokens, failures, openMillis, metrics);
+  }
+
+  /**
+   * Returns a copy of this config which counts into {@code metrics}, e.g. to add up what the
+   * clients built from several configs did.
+   */
+  public RetryingInterceptorConfig withMetrics(RetryMetrics metrics) {
+    if (metrics == null) {
+      throw new NullPointerException("metrics");
+    }
+    return new RetryingInterceptorConfig(initialBackoffMillis, maxBackoffMillis,
+        backoffMultiplier, retryBudgetRatio, retryBudgetMaxTokens, circuitBreakerFailures,
+        circuitBreakerOpenMillis, metrics);
+  }
+
+  /**
+   * Returns the counters of retries and circuit breaker activity, shared by this config and the
+   * copies made from it.
+   */
+  public RetryMetrics getMetrics() {
+    return metrics;
+  }
+
   boolean isDisabled() {
     return initialBackoffMillis == DISABLED || maxBackoffMillis == DISABLED;
   }
@@ -71,4 +155,28 @@ public class RetryingInterceptorConfig {
   double getBackoffMultiplier() {
     return backoffMultiplier;
   }
+
+  boolean hasRetryBudget() {
+    return retryBudgetRatio > 0;
+  }
+
+  double getRetryBudgetRatio() {
+    return retryBudgetRatio;
+  }
+
+  int getRetryBudgetMaxTokens() {
+    return retryBudgetMaxTokens;
+  }
+
+  boolean hasCircuitBreaker() {
+    return circuitBreakerFailures > 0;
+  }
+
+  int getCircuitBreakerFailures() {
+    return circuitBreakerFailures;
+  }
+
+  long getCircuitBreakerOpenMillis() {
+    return circuitBreakerOpenMillis;
+  }
 }
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2019 The Vitess Authors.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vitess.client.grpc;
+
+import io.grpc.netty.NettyChannelBuilder;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The Netty event loop groups and the callback executor shared by the channels of all {@link
+ * GrpcClientFactory}s in the JVM.
+ *
+ * <p>There is one event loop group per transport and size, so that all the channels configured
+ * the same way use the same threads. These live as long as the JVM, and use daemon threads.
+ */
+final class SharedNettyResources {
+
+  private static final ConcurrentHashMap<String, EventLoopGroup> eventLoopGroups =
+      new ConcurrentHashMap<>();
+  private static volatile ExecutorService executor;
+
+  private SharedNettyResources() {
+  }
+
+  /**
+   * Makes {@code builder} use a shared event loop group of {@code threads} threads, or Netty's
+   * default of twice the number of cores if 0, with the epoll transport if {@code nativeTransport}
+   * is set and it's available, or else with NIO.
+   */
+  static void useEventLoopGroup(NettyChannelBuilder builder, int threads,
+      boolean nativeTransport) {
+    boolean epoll = nativeTransport && Epoll.isAvailable();
+    builder.eventLoopGroup(getEventLoopGroup(epoll, threads))
+        .channelType(epoll ? EpollSocketChannel.class : NioSocketChannel.class);
+  }
+
+  private static EventLoopGroup getEventLoopGroup(boolean epoll, int threads) {
+    String key = (epoll ? "epoll-" : "nio-") + threads;
+    EventLoopGroup group = eventLoopGroups.get(key);
+    if (group == null) {
+      synchronized (eventLoopGroups) {
+        group = eventLoopGroups.get(key);
+        if (group == null) {
+          DefaultThreadFactory threadFactory =
+              new DefaultThreadFactory("vitess-grpc-" + key, true);
+          group = epoll
+              ? new EpollEventLoopGroup(threads, threadFactory)
+              : new NioEventLoopGroup(threads, threadFactory);
+          eventLoopGroups.put(key, group);
+        }
+      }
+    }
+    return group;
+  }
+
+  /**
+   * Returns an executor with one daemon thread per core, to run the callbacks of all calls.
+   */
+  static Executor getExecutor() {
+    ExecutorService result = executor;
+    if (result == null) {
+      synchronized (SharedNettyResources.class) {
+        result = executor;
+        if (result == null) {
+          result = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+              new DefaultThreadFactory("vitess-grpc-executor", true));
+          executor = result;
+        }
+      }
+    }
+    return result;
+  }
+}
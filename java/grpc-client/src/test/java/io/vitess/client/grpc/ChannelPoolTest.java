@@ -0,0 +1,246 @@
+/*
+ * Copyright 2019 The Vitess Authors.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vitess.client.grpc;
+
+import io.grpc.CallOptions;
+import io.grpc.ClientCall;
+import io.grpc.ConnectivityState;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.vitess.proto.grpc.VitessGrpc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nullable;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ChannelPoolTest {
+
+  @Test
+  public void testSpreadsCallsOverIdleChannels() {
+    FakeChannel[] channels = {new FakeChannel(), new FakeChannel(), new FakeChannel()};
+    ChannelPool pool = new ChannelPool(channels);
+    for (int i = 0; i < 6; i++) {
+      startCall(pool);
+    }
+    Assert.assertArrayEquals(new int[]{2, 2, 2}, pool.getOutstandingCalls());
+    for (FakeChannel channel : channels) {
+      Assert.assertEquals(2, channel.calls.size());
+    }
+  }
+
+  @Test
+  public void testPicksLeastOutstandingChannel() {
+    FakeChannel[] channels = {new FakeChannel(), new FakeChannel(), new FakeChannel()};
+    ChannelPool pool = new ChannelPool(channels);
+    for (int i = 0; i < 6; i++) {
+      startCall(pool);
+    }
+    channels[1].calls.get(0).close(Status.OK);
+    channels[1].calls.get(1).close(Status.CANCELLED);
+    Assert.assertArrayEquals(new int[]{2, 0, 2}, pool.getOutstandingCalls());
+
+    startCall(pool);
+    startCall(pool);
+    Assert.assertArrayEquals(new int[]{2, 2, 2}, pool.getOutstandingCalls());
+    Assert.assertEquals(4, channels[1].calls.size());
+  }
+
+  @Test
+  public void testCallThatFailsToStartIsNotCounted() {
+    FakeChannel channel = new FakeChannel();
+    channel.failStart = true;
+    ChannelPool pool = new ChannelPool(channel);
+    try {
+      startCall(pool);
+      Assert.fail("Should have thrown");
+    } catch (IllegalStateException exc) {
+      // expected
+    }
+    Assert.assertArrayEquals(new int[]{0}, pool.getOutstandingCalls());
+  }
+
+  @Test
+  public void testLifecycleAppliesToAllChannels() throws InterruptedException {
+    FakeChannel[] channels = {new FakeChannel(), new FakeChannel()};
+    channels[1].state = ConnectivityState.READY;
+    ChannelPool pool = new ChannelPool(channels);
+    Assert.assertEquals(ConnectivityState.READY, pool.getState(false));
+
+    pool.shutdown();
+    Assert.assertTrue(pool.isShutdown());
+    Assert.assertTrue(pool.awaitTermination(1, TimeUnit.SECONDS));
+    Assert.assertTrue(pool.isTerminated());
+  }
+
+  @Test
+  public void testNotifiesOnceWhenAnyChannelChangesState() {
+    FakeChannel[] channels = {new FakeChannel(), new FakeChannel()};
+    ChannelPool pool = new ChannelPool(channels);
+    final AtomicInteger notified = new AtomicInteger();
+    pool.notifyWhenStateChanged(ConnectivityState.IDLE, new Runnable() {
+      @Override
+      public void run() {
+        notified.incrementAndGet();
+      }
+    });
+    Assert.assertEquals(0, notified.get());
+
+    channels[1].state = ConnectivityState.CONNECTING;
+    channels[1].stateChanged();
+    channels[0].state = ConnectivityState.CONNECTING;
+    channels[0].stateChanged();
+    Assert.assertEquals(1, notified.get());
+  }
+
+  @Test
+  public void testNotifiesRightAwayWhenStateAlreadyChanged() {
+    FakeChannel[] channels = {new FakeChannel(), new FakeChannel()};
+    channels[0].state = ConnectivityState.READY;
+    ChannelPool pool = new ChannelPool(channels);
+    final AtomicInteger notified = new AtomicInteger();
+    pool.notifyWhenStateChanged(ConnectivityState.CONNECTING, new Runnable() {
+      @Override
+      public void run() {
+        notified.incrementAndGet();
+      }
+    });
+    Assert.assertEquals(1, notified.get());
+
+    channels[1].state = ConnectivityState.READY;
+    channels[1].stateChanged();
+    Assert.assertEquals(1, notified.get());
+  }
+
+  private static void startCall(ChannelPool pool) {
+    ClientCall<Object, Object> call = pool.newCall(
+        (MethodDescriptor) VitessGrpc.getExecuteMethod(), CallOptions.DEFAULT);
+    call.start(new ClientCall.Listener<Object>() {
+    }, new Metadata());
+  }
+
+  private static class FakeChannel extends ManagedChannel {
+
+    final List<FakeCall> calls = new ArrayList<>();
+    boolean failStart;
+    ConnectivityState state = ConnectivityState.IDLE;
+    final List<Runnable> stateCallbacks = new ArrayList<>();
+    boolean shutdown;
+
+    void stateChanged() {
+      for (Runnable callback : stateCallbacks) {
+        callback.run();
+      }
+      stateCallbacks.clear();
+    }
+
+    @Override
+    public <RequestT, ResponseT> ClientCall<RequestT, ResponseT> newCall(
+        MethodDescriptor<RequestT, ResponseT> methodDescriptor, CallOptions callOptions) {
+      FakeCall call = new FakeCall(failStart);
+      calls.add(call);
+      return (ClientCall<RequestT, ResponseT>) call;
+    }
+
+    @Override
+    public String authority() {
+      return "fake";
+    }
+
+    @Override
+    public ManagedChannel shutdown() {
+      shutdown = true;
+      return this;
+    }
+
+    @Override
+    public boolean isShutdown() {
+      return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+      return shutdown;
+    }
+
+    @Override
+    public ManagedChannel shutdownNow() {
+      return shutdown();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) {
+      return shutdown;
+    }
+
+    @Override
+    public ConnectivityState getState(boolean requestConnection) {
+      return state;
+    }
+
+    @Override
+    public void notifyWhenStateChanged(ConnectivityState source, Runnable callback) {
+      stateCallbacks.add(callback);
+    }
+  }
+
+  private static class FakeCall extends ClientCall<Object, Object> {
+
+    private final boolean failStart;
+    private Listener<Object> listener;
+
+    FakeCall(boolean failStart) {
+      this.failStart = failStart;
+    }
+
+    @Override
+    public void start(Listener<Object> responseListener, Metadata headers) {
+      if (failStart) {
+        throw new IllegalStateException("start failed");
+      }
+      listener = responseListener;
+    }
+
+    void close(Status status) {
+      listener.onClose(status, new Metadata());
+    }
+
+    @Override
+    public void request(int numMessages) {
+    }
+
+    @Override
+    public void cancel(@Nullable String message, @Nullable Throwable cause) {
+    }
+
+    @Override
+    public void halfClose() {
+    }
+
+    @Override
+    public void sendMessage(Object message) {
+    }
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2019 The Vitess Authors.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vitess.client.grpc;
+
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.Server;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.ServerInterceptors;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import io.vitess.proto.Query;
+import io.vitess.proto.Vtgate;
+import io.vitess.proto.grpc.VitessGrpc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CompressionInterceptorTest {
+
+  private static final Metadata.Key<String> MESSAGE_ENCODING =
+      Metadata.Key.of("grpc-encoding", Metadata.ASCII_STRING_MARSHALLER);
+
+  @Test
+  public void testDefaultAndPerCallCompression() throws Exception {
+    final List<String> encodings = new ArrayList<>();
+    String name = InProcessServerBuilder.generateName();
+    VitessGrpc.VitessImplBase service = new VitessGrpc.VitessImplBase() {
+      @Override
+      public void execute(Vtgate.ExecuteRequest request,
+          StreamObserver<Vtgate.ExecuteResponse> responseObserver) {
+        responseObserver.onNext(Vtgate.ExecuteResponse.getDefaultInstance());
+        responseObserver.onCompleted();
+      }
+    };
+    ServerInterceptor recorder = new ServerInterceptor() {
+      @Override
+      public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call,
+          Metadata headers, ServerCallHandler<ReqT, RespT> next) {
+        encodings.add(headers.get(MESSAGE_ENCODING));
+        return next.startCall(call, headers);
+      }
+    };
+    Server server = InProcessServerBuilder.forName(name).directExecutor()
+        .addService(ServerInterceptors.intercept(service, recorder)).build().start();
+    ManagedChannel channel = InProcessChannelBuilder.forName(name).directExecutor()
+        .intercept(new CompressionInterceptor("gzip", 1024))
+        .build();
+    Vtgate.ExecuteRequest request = Vtgate.ExecuteRequest.newBuilder()
+        .setQuery(Query.BoundQuery.newBuilder().setSql("select 1"))
+        .build();
+    try {
+      VitessGrpc.newBlockingStub(channel).execute(request);
+      VitessGrpc.newBlockingStub(channel)
+          .withOption(CompressionInterceptor.COMPRESSION, "identity")
+          .execute(request);
+    } finally {
+      channel.shutdownNow();
+      server.shutdownNow();
+    }
+
+    Assert.assertEquals(2, encodings.size());
+    Assert.assertEquals("gzip", encodings.get(0));
+    Assert.assertNull(encodings.get(1));
+  }
+}
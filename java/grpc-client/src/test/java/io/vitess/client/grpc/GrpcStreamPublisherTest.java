@@ -0,0 +1,255 @@
+/*
+ * Copyright 2019 The Vitess Authors.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vitess.client.grpc;
+
+import io.grpc.Status;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import io.vitess.proto.Query.QueryResult;
+import io.vitess.proto.Vtgate.StreamExecuteResponse;
+
+import java.sql.SQLDataException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+public class GrpcStreamPublisherTest {
+
+  @Test
+  public void testDemandIsPassedToGrpc() throws Exception {
+    FakePublisher publisher = new FakePublisher();
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    publisher.subscribe(subscriber);
+    // Nothing is read from the server before the subscriber asks.
+    Assert.assertEquals(0, publisher.requestStream.requested);
+
+    subscriber.subscription.request(2);
+    Assert.assertEquals(2, publisher.requestStream.requested);
+    publisher.observer.onNext(response(1));
+    publisher.observer.onNext(response(2));
+    Assert.assertEquals(2, subscriber.values.size());
+    Assert.assertEquals(2, publisher.requestStream.requested);
+
+    subscriber.subscription.request(1);
+    Assert.assertEquals(3, publisher.requestStream.requested);
+    publisher.observer.onNext(response(3));
+    publisher.observer.onCompleted();
+    Assert.assertEquals(3, subscriber.values.get(2).getRowsAffected());
+    Assert.assertTrue(subscriber.completed);
+  }
+
+  @Test
+  public void testDemandBeforeStartIsKept() throws Exception {
+    FakePublisher publisher = new FakePublisher();
+    publisher.subscribe(new RecordingSubscriber() {
+      @Override
+      public void onSubscribe(Subscription subscription) {
+        super.onSubscribe(subscription);
+        subscription.request(5);
+      }
+    });
+    Assert.assertEquals(5, publisher.requestStream.requested);
+  }
+
+  @Test
+  public void testUnboundedDemand() throws Exception {
+    FakePublisher publisher = new FakePublisher();
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    publisher.subscribe(subscriber);
+    subscriber.subscription.request(Long.MAX_VALUE);
+    subscriber.subscription.request(Long.MAX_VALUE);
+    Assert.assertEquals(Integer.MAX_VALUE, publisher.requestStream.requested);
+    publisher.observer.onNext(response(1));
+    // gRPC counts requests in an int, so they are topped up as values arrive.
+    Assert.assertEquals(Integer.MAX_VALUE + 1L, publisher.requestStream.requested);
+  }
+
+  @Test
+  public void testCancelCancelsCall() throws Exception {
+    FakePublisher publisher = new FakePublisher();
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    publisher.subscribe(subscriber);
+    subscriber.subscription.request(1);
+    subscriber.subscription.cancel();
+    Assert.assertTrue(publisher.requestStream.cancelled);
+
+    // gRPC reports the cancellation, which the subscriber no longer hears about.
+    publisher.observer.onError(Status.CANCELLED.asRuntimeException());
+    Assert.assertNull(subscriber.error);
+  }
+
+  @Test
+  public void testErrorsAreConverted() throws Exception {
+    FakePublisher publisher = new FakePublisher();
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    publisher.subscribe(subscriber);
+    publisher.observer.onError(Status.INVALID_ARGUMENT.asRuntimeException());
+    Assert.assertTrue(subscriber.error instanceof SQLException);
+  }
+
+  @Test
+  public void testResultErrorCancelsCall() throws Exception {
+    FakePublisher publisher = new FakePublisher();
+    publisher.failResults = true;
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    publisher.subscribe(subscriber);
+    subscriber.subscription.request(1);
+    publisher.observer.onNext(response(1));
+    Assert.assertTrue(subscriber.error instanceof SQLDataException);
+    Assert.assertTrue(publisher.requestStream.cancelled);
+    Assert.assertTrue(subscriber.values.isEmpty());
+  }
+
+  @Test
+  public void testNonPositiveRequestFails() throws Exception {
+    FakePublisher publisher = new FakePublisher();
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    publisher.subscribe(subscriber);
+    subscriber.subscription.request(0);
+    Assert.assertTrue(subscriber.error instanceof IllegalArgumentException);
+    Assert.assertTrue(publisher.requestStream.cancelled);
+  }
+
+  @Test
+  public void testSecondSubscriberIsRejected() throws Exception {
+    FakePublisher publisher = new FakePublisher();
+    publisher.subscribe(new RecordingSubscriber());
+    RecordingSubscriber second = new RecordingSubscriber();
+    publisher.subscribe(second);
+    Assert.assertNotNull(second.subscription);
+    Assert.assertTrue(second.error instanceof IllegalStateException);
+  }
+
+  private static StreamExecuteResponse response(long id) {
+    return StreamExecuteResponse.newBuilder()
+        .setResult(QueryResult.newBuilder().setRowsAffected(id)).build();
+  }
+
+  /**
+   * Hands the observer to the test instead of starting a real call.
+   */
+  private static class FakePublisher
+      extends GrpcStreamPublisher<StreamExecuteResponse, QueryResult> {
+
+    private final FakeRequestStream requestStream = new FakeRequestStream();
+    private ClientResponseObserver<Object, StreamExecuteResponse> observer;
+    private boolean failResults;
+
+    @Override
+    void start(ClientResponseObserver<Object, StreamExecuteResponse> observer) {
+      this.observer = observer;
+      observer.beforeStart(requestStream);
+    }
+
+    @Override
+    QueryResult getResult(StreamExecuteResponse response) throws SQLException {
+      if (failResults) {
+        throw new SQLDataException("bad result");
+      }
+      return response.getResult();
+    }
+  }
+
+  private static class RecordingSubscriber implements Subscriber<QueryResult> {
+
+    private final List<QueryResult> values = new ArrayList<>();
+    private Subscription subscription;
+    private Throwable error;
+    private boolean completed;
+
+    @Override
+    public void onSubscribe(Subscription subscription) {
+      this.subscription = subscription;
+    }
+
+    @Override
+    public void onNext(QueryResult value) {
+      values.add(value);
+    }
+
+    @Override
+    public void onError(Throwable error) {
+      this.error = error;
+    }
+
+    @Override
+    public void onComplete() {
+      completed = true;
+    }
+  }
+
+  /**
+   * Records the flow control calls that {@link GrpcStreamPublisher} makes.
+   */
+  private static class FakeRequestStream extends ClientCallStreamObserver<Object> {
+
+    private long requested;
+    private boolean cancelled;
+
+    @Override
+    public void disableAutoRequestWithInitial(int request) {
+      requested += request;
+    }
+
+    @Override
+    public void request(int count) {
+      requested += count;
+    }
+
+    @Override
+    public void cancel(@Nullable String message, @Nullable Throwable cause) {
+      cancelled = true;
+    }
+
+    @Override
+    public boolean isReady() {
+      return true;
+    }
+
+    @Override
+    public void setOnReadyHandler(Runnable onReadyHandler) {
+    }
+
+    @Override
+    public void disableAutoInboundFlowControl() {
+    }
+
+    @Override
+    public void setMessageCompression(boolean enable) {
+    }
+
+    @Override
+    public void onNext(Object value) {
+    }
+
+    @Override
+    public void onError(Throwable error) {
+    }
+
+    @Override
+    public void onCompleted() {
+    }
+  }
+}
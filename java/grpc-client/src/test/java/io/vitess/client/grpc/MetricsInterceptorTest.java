@@ -0,0 +1,84 @@
+/*
+ * Copyright 2019 The Vitess Authors.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vitess.client.grpc;
+
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import io.vitess.proto.Query;
+import io.vitess.proto.Vtgate;
+import io.vitess.proto.grpc.VitessGrpc;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MetricsInterceptorTest {
+
+  @Test
+  public void testRecordsCallsAndRetries() throws Exception {
+    final AtomicInteger calls = new AtomicInteger();
+    final Vtgate.ExecuteResponse response = Vtgate.ExecuteResponse.newBuilder()
+        .setResult(Query.QueryResult.newBuilder().setRowsAffected(3))
+        .build();
+    String name = InProcessServerBuilder.generateName();
+    Server server = InProcessServerBuilder.forName(name).directExecutor()
+        .addService(new VitessGrpc.VitessImplBase() {
+          @Override
+          public void execute(Vtgate.ExecuteRequest request,
+              StreamObserver<Vtgate.ExecuteResponse> responseObserver) {
+            if (calls.incrementAndGet() == 1) {
+              responseObserver.onError(Status.UNAVAILABLE.asRuntimeException());
+              return;
+            }
+            responseObserver.onNext(response);
+            responseObserver.onCompleted();
+          }
+        }).build().start();
+
+    HistogramClientMetrics metrics = new HistogramClientMetrics();
+    MetricsInterceptor metricsInterceptor = new MetricsInterceptor(metrics);
+    ManagedChannel channel = InProcessChannelBuilder.forName(name).directExecutor()
+        .intercept(new RetryingInterceptor(RetryingInterceptorConfig.exponentialConfig(1, 10, 1),
+            metricsInterceptor), metricsInterceptor)
+        .build();
+    Vtgate.ExecuteRequest request = Vtgate.ExecuteRequest.newBuilder()
+        .setQuery(Query.BoundQuery.newBuilder().setSql("select 1"))
+        .build();
+    try {
+      VitessGrpc.newBlockingStub(channel).execute(request);
+    } finally {
+      channel.shutdownNow();
+      server.shutdownNow();
+    }
+
+    HistogramClientMetrics.MethodStats stats =
+        metrics.getMethodStats(VitessGrpc.getExecuteMethod().getFullMethodName());
+    Assert.assertNotNull(stats);
+    Assert.assertEquals(1, stats.getStatusCount(Status.Code.OK));
+    Assert.assertEquals(0, stats.getStatusCount(Status.Code.UNAVAILABLE));
+    Assert.assertEquals(1, stats.getRetries());
+    Assert.assertEquals(0, stats.getInFlight());
+    Assert.assertEquals(request.getSerializedSize(), stats.getRequestBytes());
+    Assert.assertEquals(response.getSerializedSize(), stats.getResponseBytes());
+    Assert.assertEquals(1, stats.getIntervalLatencyHistogram().getTotalCount());
+  }
+}
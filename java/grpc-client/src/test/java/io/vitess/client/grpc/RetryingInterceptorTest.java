@@ -16,6 +16,7 @@
 
 package io.vitess.client.grpc;
 
+import com.google.common.base.Ticker;
 import com.google.common.util.concurrent.ListenableFuture;
 
 import io.grpc.CallOptions;
@@ -25,13 +26,22 @@ import io.grpc.ClientInterceptor;
 import io.grpc.ManagedChannel;
 import io.grpc.Metadata;
 import io.grpc.MethodDescriptor;
+import io.grpc.Server;
 import io.grpc.Status;
 import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import io.vitess.client.Context;
+import io.vitess.client.StreamIterator;
+import io.vitess.proto.Query;
 import io.vitess.proto.Vtgate;
 import io.vitess.proto.grpc.VitessGrpc;
 
+import java.sql.SQLException;
+import java.sql.SQLTransientException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.annotation.Nullable;
 
@@ -98,6 +108,197 @@ public class RetryingInterceptorTest {
     }
   }
 
+  @Test
+  public void testRetryBudgetLimitsRetries() throws Exception {
+    ForceRetryNTimesInterceptor forceRetryNTimesInterceptor = new ForceRetryNTimesInterceptor(100);
+    RetryingInterceptorConfig retryingInterceptorConfig = RetryingInterceptorConfig
+        .exponentialConfig(1, 10, 1).withRetryBudget(0.1, 2);
+    ManagedChannel channel = InProcessChannelBuilder.forName("foo")
+        .intercept(forceRetryNTimesInterceptor, new RetryingInterceptor(retryingInterceptorConfig))
+        .build();
+    VitessGrpc.VitessFutureStub stub = VitessGrpc.newFutureStub(channel);
+    try {
+      stub.execute(Vtgate.ExecuteRequest.getDefaultInstance()).get();
+      Assert.fail("Should have failed");
+    } catch (ExecutionException e) {
+      Assert.assertEquals(Status.Code.UNAVAILABLE, Status.fromThrowable(e).getCode());
+    }
+    // The budget starts with 2 tokens, so only 2 retries are made.
+    Assert.assertEquals(3, forceRetryNTimesInterceptor.getNumRetryableFailures());
+    RetryMetrics metrics = retryingInterceptorConfig.getMetrics();
+    Assert.assertEquals(2, metrics.getRetries());
+    Assert.assertEquals(1, metrics.getRetriesThrottled());
+  }
+
+  @Test
+  public void testCircuitBreaker() throws Exception {
+    ForceRetryNTimesInterceptor forceRetryNTimesInterceptor = new ForceRetryNTimesInterceptor(2);
+    RetryingInterceptorConfig retryingInterceptorConfig = RetryingInterceptorConfig
+        .noOpConfig().withCircuitBreaker(2, 1000);
+    FakeTicker ticker = new FakeTicker();
+    ManagedChannel channel = InProcessChannelBuilder.forName("foo")
+        .intercept(forceRetryNTimesInterceptor,
+            new RetryingInterceptor(retryingInterceptorConfig, ticker))
+        .build();
+    VitessGrpc.VitessFutureStub stub = VitessGrpc.newFutureStub(channel);
+    RetryMetrics metrics = retryingInterceptorConfig.getMetrics();
+
+    assertFailsWith(Status.Code.UNAVAILABLE, stub);
+    Assert.assertEquals(0, metrics.getCircuitBreakerOpens());
+    assertFailsWith(Status.Code.UNAVAILABLE, stub);
+    Assert.assertEquals(1, metrics.getCircuitBreakerOpens());
+
+    // While open, calls fail without reaching the target.
+    assertFailsWith(Status.Code.UNAVAILABLE, stub);
+    Assert.assertEquals(2, forceRetryNTimesInterceptor.getNumRetryableFailures());
+    Assert.assertEquals(1, metrics.getCallsRejected());
+
+    // Later, one call goes through, and its success closes the breaker.
+    ticker.advance(1, TimeUnit.SECONDS);
+    assertFailsWith(Status.Code.ABORTED, stub);
+    assertFailsWith(Status.Code.ABORTED, stub);
+    Assert.assertEquals(1, metrics.getCallsRejected());
+  }
+
+  @Test
+  public void testSharedMetrics() throws Exception {
+    RetryMetrics metrics = new RetryMetrics();
+    for (int i = 0; i < 2; i++) {
+      RetryingInterceptorConfig retryingInterceptorConfig = RetryingInterceptorConfig
+          .exponentialConfig(1, 10, 1).withMetrics(metrics);
+      Assert.assertSame(metrics, retryingInterceptorConfig.getMetrics());
+      ManagedChannel channel = InProcessChannelBuilder.forName("foo")
+          .intercept(new ForceRetryNTimesInterceptor(1),
+              new RetryingInterceptor(retryingInterceptorConfig))
+          .build();
+      // The call is retried once, then fails with a status that isn't retried.
+      assertFailsWith(Status.Code.ABORTED, VitessGrpc.newFutureStub(channel));
+    }
+    Assert.assertEquals(2, metrics.getRetries());
+  }
+
+  private static void assertFailsWith(Status.Code code, VitessGrpc.VitessFutureStub stub)
+      throws InterruptedException {
+    try {
+      stub.execute(Vtgate.ExecuteRequest.getDefaultInstance()).get();
+      Assert.fail("Should have failed");
+    } catch (ExecutionException e) {
+      Assert.assertEquals(code, Status.fromThrowable(e).getCode());
+    }
+  }
+
+  @Test
+  public void testStreamRetriedBeforeFirstResponse() throws Exception {
+    FlakyStreamService service = new FlakyStreamService(2, false);
+    Assert.assertEquals(2, readStream(service, "select * from t"));
+    Assert.assertEquals(3, service.calls.get());
+  }
+
+  @Test
+  public void testStreamNotRetriedAfterFirstResponse() throws Exception {
+    FlakyStreamService service = new FlakyStreamService(0, true);
+    try {
+      readStream(service, "select * from t");
+      Assert.fail("Should have failed after the first response");
+    } catch (SQLTransientException exc) {
+      Assert.assertEquals(1, service.calls.get());
+    }
+  }
+
+  @Test
+  public void testWriteStreamNotRetried() throws Exception {
+    FlakyStreamService service = new FlakyStreamService(1, false);
+    try {
+      readStream(service, "insert into t values (1)");
+      Assert.fail("Should have failed after 1 attempt");
+    } catch (SQLTransientException exc) {
+      Assert.assertEquals(1, service.calls.get());
+    }
+  }
+
+  @Test
+  public void testIsRetryableStream() {
+    Assert.assertTrue(GrpcClient.isRetryableStream(streamRequest(" (SELECT 1)", false)));
+    Assert.assertTrue(GrpcClient.isRetryableStream(streamRequest("/* hint */ select 1", false)));
+    Assert.assertFalse(GrpcClient.isRetryableStream(streamRequest("select 1", true)));
+    Assert.assertFalse(GrpcClient.isRetryableStream(streamRequest("update t set a = 1", false)));
+    Assert.assertFalse(GrpcClient.isRetryableStream(streamRequest("/* select", false)));
+  }
+
+  private static int readStream(FlakyStreamService service, String sql) throws Exception {
+    String name = InProcessServerBuilder.generateName();
+    Server server = InProcessServerBuilder.forName(name).directExecutor().addService(service)
+        .build().start();
+    ManagedChannel channel = InProcessChannelBuilder.forName(name).directExecutor()
+        .intercept(new RetryingInterceptor(RetryingInterceptorConfig.exponentialConfig(5, 60, 2)))
+        .build();
+    try (GrpcClient client = new GrpcClient(channel)) {
+      StreamIterator<Query.QueryResult> results =
+          client.streamExecute(Context.getDefault(), streamRequest(sql, false));
+      int count = 0;
+      while (results.hasNext()) {
+        results.next();
+        count++;
+      }
+      return count;
+    } finally {
+      server.shutdownNow();
+    }
+  }
+
+  private static Vtgate.StreamExecuteRequest streamRequest(String sql, boolean inTransaction) {
+    return Vtgate.StreamExecuteRequest.newBuilder()
+        .setQuery(Query.BoundQuery.newBuilder().setSql(sql))
+        .setSession(Vtgate.Session.newBuilder().setInTransaction(inTransaction))
+        .build();
+  }
+
+  /**
+   * Fails the first calls with UNAVAILABLE, then streams two results, optionally failing after
+   * the first one.
+   */
+  private static class FlakyStreamService extends VitessGrpc.VitessImplBase {
+
+    final AtomicInteger calls = new AtomicInteger();
+    private final int failures;
+    private final boolean failAfterFirstResponse;
+
+    FlakyStreamService(int failures, boolean failAfterFirstResponse) {
+      this.failures = failures;
+      this.failAfterFirstResponse = failAfterFirstResponse;
+    }
+
+    @Override
+    public void streamExecute(Vtgate.StreamExecuteRequest request,
+        StreamObserver<Vtgate.StreamExecuteResponse> responseObserver) {
+      if (calls.incrementAndGet() <= failures) {
+        responseObserver.onError(Status.UNAVAILABLE.asRuntimeException());
+        return;
+      }
+      responseObserver.onNext(Vtgate.StreamExecuteResponse.getDefaultInstance());
+      if (failAfterFirstResponse) {
+        responseObserver.onError(Status.UNAVAILABLE.asRuntimeException());
+        return;
+      }
+      responseObserver.onNext(Vtgate.StreamExecuteResponse.getDefaultInstance());
+      responseObserver.onCompleted();
+    }
+  }
+
+  private static class FakeTicker extends Ticker {
+
+    private long nanos;
+
+    @Override
+    public long read() {
+      return nanos;
+    }
+
+    void advance(long time, TimeUnit unit) {
+      nanos += unit.toNanos(time);
+    }
+  }
+
   public class ForceRetryNTimesInterceptor implements ClientInterceptor {
 
     private final int timesToForceRetry;
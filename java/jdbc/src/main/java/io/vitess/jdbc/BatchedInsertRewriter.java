@@ -0,0 +1,231 @@
+/*
+ * Copyright 2019 The Vitess Authors.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vitess.jdbc;
+
+import io.vitess.util.Constants;
+import io.vitess.util.StringUtils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rewrites a batch of single-row INSERT (or REPLACE) executions into multi-row INSERTs.
+ *
+ * <p>The statement is split around the tuple that follows {@code VALUES}: {@code INSERT INTO t
+ * (a, b) VALUES (?, ?) ON DUPLICATE KEY UPDATE b = VALUES(b)} becomes the prefix up to {@code
+ * VALUES}, the tuple {@code (?, ?)}, and the suffix after it. The tuple is then repeated once per
+ * batched row, and the bind variables of each row are renumbered to follow on from the previous
+ * row's, since VTGate numbers the {@code ?} placeholders in order.
+ *
+ * <p>Only statements whose placeholders all sit inside that single tuple can be rewritten; for
+ * anything else {@link #parse(String, int)} returns null and the batch is sent row by row.
+ */
+class BatchedInsertRewriter {
+
+  private static final String VALUES = "VALUES";
+  private static final String VALUE = "VALUE";
+
+  private final String prefix;
+  private final String tuple;
+  private final String suffix;
+  private final int parameterCount;
+
+  private BatchedInsertRewriter(String prefix, String tuple, String suffix, int parameterCount) {
+    this.prefix = prefix;
+    this.tuple = tuple;
+    this.suffix = suffix;
+    this.parameterCount = parameterCount;
+  }
+
+  /**
+   * Returns a rewriter for {@code sql}, or null if it isn't a single-row INSERT or REPLACE with
+   * all of its {@code parameterCount} placeholders in the VALUES tuple.
+   */
+  static BatchedInsertRewriter parse(String sql, int parameterCount) {
+    int start = StringUtils.findStartOfStatement(sql);
+    if (!StringUtils.startsWithIgnoreCaseAndWs(sql, "INSERT", start)
+        && !StringUtils.startsWithIgnoreCaseAndWs(sql, "REPLACE", start)) {
+      return null;
+    }
+
+    int tupleStart = -1;
+    int tupleEnd = -1;
+    int placeholders = 0;
+    int tuplePlaceholders = 0;
+    int depth = 0;
+    int length = sql.length();
+    for (int pos = start; pos < length; pos++) {
+      char ch = sql.charAt(pos);
+      if (ch == '\'' || ch == '"' || ch == '`') {
+        pos = skipQuoted(sql, pos, ch);
+        if (pos < 0) {
+          return null;
+        }
+      } else if (ch == '#' || (ch == '-' && sql.startsWith("--", pos))) {
+        int eol = sql.indexOf('\n', pos);
+        pos = eol < 0 ? length : eol;
+      } else if (ch == '/' && sql.startsWith("/*", pos)) {
+        int end = sql.indexOf("*/", pos + 2);
+        if (end < 0) {
+          return null;
+        }
+        pos = end + 1;
+      } else if (ch == '?') {
+        placeholders++;
+        if (tupleStart >= 0 && tupleEnd < 0) {
+          tuplePlaceholders++;
+        }
+      } else if (ch == '(') {
+        depth++;
+      } else if (ch == ')') {
+        depth--;
+        if (depth == 0 && tupleStart >= 0 && tupleEnd < 0) {
+          tupleEnd = pos + 1;
+          if (nextNonWhitespace(sql, tupleEnd) == ',') {
+            // Already a multi-row insert.
+            return null;
+          }
+        }
+      } else if (depth == 0 && tupleStart < 0 && isKeywordAt(sql, pos)) {
+        int afterKeyword = pos + (sql.regionMatches(true, pos, VALUES, 0, VALUES.length())
+            ? VALUES.length() : VALUE.length());
+        int open = skipWhitespace(sql, afterKeyword);
+        if (open >= length || sql.charAt(open) != '(') {
+          // INSERT ... SELECT, or VALUES used as an identifier.
+          return null;
+        }
+        tupleStart = open;
+        pos = open - 1;
+      }
+    }
+
+    if (tupleEnd < 0 || placeholders != parameterCount || tuplePlaceholders != parameterCount) {
+      return null;
+    }
+    return new BatchedInsertRewriter(sql.substring(0, tupleStart),
+        sql.substring(tupleStart, tupleEnd), sql.substring(tupleEnd), parameterCount);
+  }
+
+  /**
+   * Returns the SQL inserting {@code rows} rows.
+   */
+  String getSql(int rows) {
+    StringBuilder sql = new StringBuilder(
+        prefix.length() + rows * (tuple.length() + 1) + suffix.length());
+    sql.append(prefix);
+    for (int i = 0; i < rows; i++) {
+      if (i > 0) {
+        sql.append(',');
+      }
+      sql.append(tuple);
+    }
+    return sql.append(suffix).toString();
+  }
+
+  /**
+   * Returns the bind variables for the rows {@code from} (inclusive) to {@code to} (exclusive) of
+   * {@code batchedArgs}, renumbered to match {@link #getSql(int)}.
+   */
+  Map<String, Object> getBindVariables(List<Map<String, ?>> batchedArgs, int from, int to) {
+    Map<String, Object> bindVariables = new HashMap<>((to - from) * parameterCount * 4 / 3 + 1);
+    for (int row = from; row < to; row++) {
+      Map<String, ?> args = batchedArgs.get(row);
+      int offset = (row - from) * parameterCount;
+      for (int i = 1; i <= parameterCount; i++) {
+        String name = Constants.LITERAL_V + i;
+        if (args.containsKey(name)) {
+          bindVariables.put(Constants.LITERAL_V + (offset + i), args.get(name));
+        }
+      }
+    }
+    return bindVariables;
+  }
+
+  /**
+   * Returns the size of one row of the statement, for chunking a batch to fit a packet size.
+   *
+   * <p>This is an upper bound rather than an exact size: strings are counted as if every character
+   * took the longest UTF-8 encoding.
+   */
+  int estimateRowSize(Map<String, ?> args) {
+    int size = tuple.length() + 1;
+    for (Object value : args.values()) {
+      if (value instanceof String) {
+        size += ((String) value).length() * 3;
+      } else if (value instanceof byte[]) {
+        size += ((byte[]) value).length;
+      } else {
+        size += 32;
+      }
+    }
+    return size;
+  }
+
+  int getFixedSize() {
+    return prefix.length() + suffix.length();
+  }
+
+  private static boolean isKeywordAt(String sql, int pos) {
+    int end;
+    if (sql.regionMatches(true, pos, VALUES, 0, VALUES.length())) {
+      end = pos + VALUES.length();
+    } else if (sql.regionMatches(true, pos, VALUE, 0, VALUE.length())) {
+      end = pos + VALUE.length();
+    } else {
+      return false;
+    }
+    return (pos == 0 || !isIdentifierChar(sql.charAt(pos - 1)))
+        && (end == sql.length() || !isIdentifierChar(sql.charAt(end)));
+  }
+
+  private static boolean isIdentifierChar(char ch) {
+    return Character.isLetterOrDigit(ch) || ch == '_' || ch == '$';
+  }
+
+  /**
+   * Returns the position of the quote closing the one at {@code start}, or -1 if there's none.
+   */
+  private static int skipQuoted(String sql, int start, char quote) {
+    for (int pos = start + 1; pos < sql.length(); pos++) {
+      char ch = sql.charAt(pos);
+      if (ch == '\\' && quote != '`') {
+        pos++;
+      } else if (ch == quote) {
+        if (pos + 1 < sql.length() && sql.charAt(pos + 1) == quote) {
+          pos++;
+        } else {
+          return pos;
+        }
+      }
+    }
+    return -1;
+  }
+
+  private static int skipWhitespace(String sql, int pos) {
+    while (pos < sql.length() && Character.isWhitespace(sql.charAt(pos))) {
+      pos++;
+    }
+    return pos;
+  }
+
+  private static char nextNonWhitespace(String sql, int pos) {
+    int next = skipWhitespace(sql, pos);
+    return next < sql.length() ? sql.charAt(next) : 0;
+  }
+}
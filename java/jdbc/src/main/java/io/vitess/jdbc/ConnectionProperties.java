@@ -183,6 +183,107 @@ public class ConnectionProperties {
       "If grpcRetriesEnabled is set, what multiplier should be used to increase exponential "
           + "backoff on each retry.",
       1.6);
+  private DoubleConnectionProperty grpcRetryBudgetRatio = new DoubleConnectionProperty(
+      "grpcRetriesBudgetRatio",
+      "If grpcRetriesEnabled is set, how many retries to allow per request to a VTGate, e.g. 0.1 "
+          + "for at most 10%, so that retries don't overload a degraded VTGate pool. 0 means no "
+          + "limit.",
+      0.1);
+  private LongConnectionProperty grpcCircuitBreakerFailures = new LongConnectionProperty(
+      "grpcCircuitBreakerFailures",
+      "After how many consecutive UNAVAILABLE errors calls to a VTGate fail right away, for "
+          + "grpcCircuitBreakerOpenMillis. 0 disables the circuit breaker.",
+      0);
+  private LongConnectionProperty grpcCircuitBreakerOpenMillis = new LongConnectionProperty(
+      "grpcCircuitBreakerOpenMillis",
+      "If grpcCircuitBreakerFailures is set, for how long in milliseconds calls to a failing "
+          + "VTGate fail right away before one is let through to check it.",
+      5000);
+  private LongConnectionProperty grpcChannelsPerHost = new LongConnectionProperty(
+      "grpcChannelsPerHost",
+      "How many gRPC channels, each with its own HTTP/2 connection, to open to each VTGate host. "
+          + "Calls go to the channel with the fewest calls in flight.",
+      1);
+  private LongConnectionProperty grpcEventLoopThreads = new LongConnectionProperty(
+      "grpcEventLoopThreads",
+      "If more than 0, the gRPC channels to all VTGates use one event loop group of this many "
+          + "threads, shared across the JVM. 0 uses gRPC's default event loop group.",
+      0);
+  private BooleanConnectionProperty grpcNativeTransport = new BooleanConnectionProperty(
+      "grpcNativeTransport",
+      "Should the gRPC channels use Netty's native epoll transport when it's available, with a "
+          + "shared event loop group? They fall back to NIO otherwise.",
+      false);
+  private StringConnectionProperty grpcExecutor = new StringConnectionProperty(
+      "grpcExecutor",
+      "Where the gRPC channels run the callbacks of calls: default (gRPC's cached thread pool), "
+          + "direct (on the event loop threads, which saves a thread hop), or shared (one thread "
+          + "per core, shared across the JVM).",
+      "default",
+      new String[]{"default", "direct", "shared"});
+  private StringConnectionProperty grpcCompression = new StringConnectionProperty(
+      "grpcCompression",
+      "How to compress gRPC calls and their results: none, gzip, or the name of a class "
+          + "implementing io.grpc.Codec, such as zstd, which VTGate must support too. Compression "
+          + "saves network bandwidth on large results at the cost of CPU on both sides.",
+      "none", null);
+  private LongConnectionProperty grpcCompressionMinBytes = new LongConnectionProperty(
+      "grpcCompressionMinBytes",
+      "If grpcCompression is set, requests smaller than this many bytes are sent uncompressed.",
+      1024);
+  private LongConnectionProperty grpcKeepAliveTimeMillis = new LongConnectionProperty(
+      "grpcKeepAliveTimeMillis",
+      "If more than 0, after how many milliseconds without reading anything the gRPC channels "
+          + "ping VTGate to check the connection. VTGate must allow pings this often.",
+      0);
+  private LongConnectionProperty grpcKeepAliveTimeoutMillis = new LongConnectionProperty(
+      "grpcKeepAliveTimeoutMillis",
+      "If grpcKeepAliveTimeMillis is set, how long in milliseconds to wait for a ping to be "
+          + "acknowledged before closing the connection. 0 uses gRPC's default of 20 seconds.",
+      TimeUnit.SECONDS.toMillis(20));
+  private BooleanConnectionProperty grpcKeepAliveWithoutCalls = new BooleanConnectionProperty(
+      "grpcKeepAliveWithoutCalls",
+      "If grpcKeepAliveTimeMillis is set, should idle connections be pinged too, so that load "
+          + "balancers and NAT don't drop them?",
+      false);
+  private LongConnectionProperty grpcIdleTimeoutMillis = new LongConnectionProperty(
+      "grpcIdleTimeoutMillis",
+      "If more than 0, after how many milliseconds without calls the gRPC channels close their "
+          + "connection to VTGate. 0 uses gRPC's default of 30 minutes.",
+      0);
+  private LongConnectionProperty grpcWarmUpTimeoutMillis = new LongConnectionProperty(
+      "grpcWarmUpTimeoutMillis",
+      "If more than 0, the first connection to a VTGate host connects right away, and waits up to "
+          + "this many milliseconds for the channel to be ready, instead of connecting on the "
+          + "first query.",
+      0);
+  private StringConnectionProperty vtgateSelector = new StringConnectionProperty(
+      "vtgateSelector",
+      "How to pick the VTGate for each call when the URL has several hosts: roundRobin, "
+          + "peakEwma (least loaded of two random VTGates, by latency and calls in flight), or "
+          + "the name of a class implementing io.vitess.jdbc.VTGateSelector.",
+      "roundRobin", null);
+  private LongConnectionProperty vtgateEjectionMillis = new LongConnectionProperty(
+      "vtgateEjectionMillis",
+      "If vtgateSelector is peakEwma, for how long a VTGate isn't picked after a call to it "
+          + "failed with a transport error or timeout.",
+      VTGateSelector.PeakEwma.DEFAULT_EJECTION_MILLIS);
+  private BooleanConnectionProperty hedgeReads = new BooleanConnectionProperty(
+      "hedgeReads",
+      "If enabled, and the URL has several hosts, a read against replica or rdonly tablets "
+          + "outside a transaction is sent again to another VTGate when the first one is slow to "
+          + "answer. The first response is used.",
+      false);
+  private DoubleConnectionProperty hedgeDelayPercentile = new DoubleConnectionProperty(
+      "hedgeDelayPercentile",
+      "If hedgeReads is set, after which percentile of the recent response times a read is sent "
+          + "to a second VTGate.",
+      95);
+  private LongConnectionProperty hedgeMinDelayMillis = new LongConnectionProperty(
+      "hedgeMinDelayMillis",
+      "If hedgeReads is set, the minimum time in milliseconds to wait for a response before "
+          + "sending a read to a second VTGate.",
+      5);
   // TLS-related configs
   private BooleanConnectionProperty useSSL = new BooleanConnectionProperty(
       Constants.Property.USE_SSL, "Whether this connection should use transport-layer security",
@@ -254,6 +355,79 @@ public class ConnectionProperties {
       "off",
       new String[]{"off", "opentracing"});
 
+  private LongConnectionProperty streamPrefetchResults = new LongConnectionProperty(
+      "streamPrefetchResults",
+      "How many results of a streaming query the driver reads ahead of the application. 0 uses "
+          + "the default of the gRPC client.",
+      0);
+  private LongConnectionProperty streamPrefetchBytes = new LongConnectionProperty(
+      "streamPrefetchBytes",
+      "Stop reading ahead on a streaming query once the buffered results add up to this many "
+          + "bytes. 0 means only streamPrefetchResults applies.",
+      0);
+
+  private BooleanConnectionProperty cachePrepStmts = new BooleanConnectionProperty(
+      "cachePrepStmts",
+      "Should the driver cache the parsed form and result metadata of prepared statements, "
+          + "per connection?",
+      false);
+  private LongConnectionProperty prepStmtCacheSize = new LongConnectionProperty(
+      "prepStmtCacheSize",
+      "If prepared statement caching is enabled, how many prepared statements should be cached?",
+      25);
+  private LongConnectionProperty prepStmtCacheSqlLimit = new LongConnectionProperty(
+      "prepStmtCacheSqlLimit",
+      "If prepared statement caching is enabled, what's the largest SQL the driver will cache "
+          + "the parsing for?",
+      256);
+
+  private BooleanConnectionProperty rewriteBatchedStatements = new BooleanConnectionProperty(
+      "rewriteBatchedStatements",
+      "Should the driver rewrite a batch of single-row INSERT or REPLACE prepared statements into "
+          + "multi-row statements?",
+      false);
+  private LongConnectionProperty maxAllowedPacket = new LongConnectionProperty(
+      "maxAllowedPacket",
+      "If batched statements are rewritten, the largest size in bytes of each rewritten "
+          + "statement. Larger batches are split into several statements.",
+      4 * 1024 * 1024);
+
+  private BooleanConnectionProperty collectExecutionStats = new BooleanConnectionProperty(
+      "collectExecutionStats",
+      "Should the driver time the bind, RPC, field decoding and row reading phases of each "
+          + "statement, for VitessStatement.getLastExecutionStats()?",
+      false);
+  private LongConnectionProperty slowQueryThresholdMillis = new LongConnectionProperty(
+      "slowQueryThresholdMillis",
+      "Log the timing of each statement on which the driver spent at least this many "
+          + "milliseconds, which implies collectExecutionStats. 0 disables the log.",
+      0);
+  private LongConnectionProperty metadataCacheTtlMillis = new LongConnectionProperty(
+      "metadataCacheTtlMillis",
+      "If more than 0, the results of the SHOW statements behind DatabaseMetaData are cached for "
+          + "this many milliseconds, and shared by the connections with the same VTGate hosts, "
+          + "user and target.",
+      0);
+  private BooleanConnectionProperty metadataBulkFetch = new BooleanConnectionProperty(
+      "metadataBulkFetch",
+      "Should DatabaseMetaData read tables, columns, keys and indexes from information_schema, "
+          + "with one streaming query per call instead of a SHOW statement per table? With "
+          + "metadataCacheTtlMillis set, the calls for single tables share one query per keyspace.",
+      false);
+  private BooleanConnectionProperty metadataCacheInvalidateOnDdl = new BooleanConnectionProperty(
+      "metadataCacheInvalidateOnDdl",
+      "If metadataCacheTtlMillis is set, should the cached metadata be dropped whenever a "
+          + "connection to the same target executes a CREATE, ALTER, DROP, RENAME or TRUNCATE "
+          + "statement?",
+      true);
+  private LongConnectionProperty dbPropertiesRefreshMillis = new LongConnectionProperty(
+      "dbPropertiesRefreshMillis",
+      "If more than 0, the server variables behind DatabaseMetaData are loaded once for the "
+          + "connections with the same VTGate hosts, user and target, and refreshed in the "
+          + "background when they are older than this many milliseconds. 0 loads them for each "
+          + "connection.",
+      TimeUnit.MINUTES.toMillis(5));
+
   // Caching of some hot properties to avoid casting over and over
   private Topodata.TabletType tabletTypeCache;
   private Query.ExecuteOptions.IncludedFields includedFieldsCache;
@@ -276,6 +450,28 @@ public class ConnectionProperties {
     }
     postInitialization();
     checkConfiguredEncodingSupport();
+    checkStreamPrefetch();
+    checkHedgeDelayPercentile();
+    checkGrpcKeepAlive();
+  }
+
+  /**
+   * Returns a copy of the current values of these properties, which later changes to either
+   * don't affect. Unlike a {@link VitessConnection}, it can be kept without keeping the
+   * connection's session and statements around.
+   */
+  ConnectionProperties copyProperties() {
+    ConnectionProperties copy = new ConnectionProperties();
+    for (Field propertyField : PROPERTY_LIST) {
+      try {
+        ((ConnectionProperty) propertyField.get(copy)).valueAsObject =
+            ((ConnectionProperty) propertyField.get(this)).valueAsObject;
+      } catch (IllegalAccessException iae) {
+        throw new IllegalStateException("Unable to copy driver properties", iae);
+      }
+    }
+    copy.postInitialization();
+    return copy;
   }
 
   private void postInitialization() {
@@ -308,6 +504,47 @@ public class ConnectionProperties {
     }
   }
 
+  /**
+   * Bail out if the stream prefetch limits are negative, rather than on every statement
+   *
+   * @throws SQLException if streamPrefetchResults or streamPrefetchBytes is negative
+   */
+  private void checkStreamPrefetch() throws SQLException {
+    if (getStreamPrefetchResults() < 0) {
+      throw new SQLException("streamPrefetchResults must not be negative: "
+          + getStreamPrefetchResults());
+    }
+    if (getStreamPrefetchBytes() < 0) {
+      throw new SQLException("streamPrefetchBytes must not be negative: "
+          + getStreamPrefetchBytes());
+    }
+  }
+
+  /**
+   * Bail out if the hedge delay percentile can't be used, rather than when the VTGate connections
+   * are opened
+   *
+   * @throws SQLException if hedgeDelayPercentile isn't in (0, 100)
+   */
+  private void checkHedgeDelayPercentile() throws SQLException {
+    double percentile = getHedgeDelayPercentile();
+    if (!(percentile > 0 && percentile < 100)) {
+      throw new SQLException("hedgeDelayPercentile must be in (0, 100): " + percentile);
+    }
+  }
+
+  /**
+   * Bail out if the keepalive timeout is negative, rather than when the gRPC channels are built
+   *
+   * @throws SQLException if grpcKeepAliveTimeoutMillis is negative
+   */
+  private void checkGrpcKeepAlive() throws SQLException {
+    if (getGrpcKeepAliveTimeoutMillis() < 0) {
+      throw new SQLException("grpcKeepAliveTimeoutMillis must not be negative: "
+          + getGrpcKeepAliveTimeoutMillis());
+    }
+  }
+
   static DriverPropertyInfo[] exposeAsDriverPropertyInfo(Properties info, int slotsToReserve)
       throws SQLException {
     return new ConnectionProperties().exposeAsDriverPropertyInfoInternal(info, slotsToReserve);
@@ -511,6 +748,158 @@ public class ConnectionProperties {
     this.grpcRetryBackoffMultiplier = grpcRetryBackoffMultiplier;
   }
 
+  public Double getGrpcRetryBudgetRatio() {
+    return grpcRetryBudgetRatio.getValueAsDouble();
+  }
+
+  public void setGrpcRetryBudgetRatio(double grpcRetryBudgetRatio) {
+    this.grpcRetryBudgetRatio.setValue(grpcRetryBudgetRatio);
+  }
+
+  public long getGrpcCircuitBreakerFailures() {
+    return grpcCircuitBreakerFailures.getValueAsLong();
+  }
+
+  public void setGrpcCircuitBreakerFailures(long grpcCircuitBreakerFailures) {
+    this.grpcCircuitBreakerFailures.setValue(grpcCircuitBreakerFailures);
+  }
+
+  public long getGrpcCircuitBreakerOpenMillis() {
+    return grpcCircuitBreakerOpenMillis.getValueAsLong();
+  }
+
+  public void setGrpcCircuitBreakerOpenMillis(long grpcCircuitBreakerOpenMillis) {
+    this.grpcCircuitBreakerOpenMillis.setValue(grpcCircuitBreakerOpenMillis);
+  }
+
+  public long getGrpcChannelsPerHost() {
+    return grpcChannelsPerHost.getValueAsLong();
+  }
+
+  public void setGrpcChannelsPerHost(long grpcChannelsPerHost) {
+    this.grpcChannelsPerHost.setValue(grpcChannelsPerHost);
+  }
+
+  public long getGrpcEventLoopThreads() {
+    return grpcEventLoopThreads.getValueAsLong();
+  }
+
+  public void setGrpcEventLoopThreads(long grpcEventLoopThreads) {
+    this.grpcEventLoopThreads.setValue(grpcEventLoopThreads);
+  }
+
+  public boolean getGrpcNativeTransport() {
+    return grpcNativeTransport.getValueAsBoolean();
+  }
+
+  public void setGrpcNativeTransport(boolean grpcNativeTransport) {
+    this.grpcNativeTransport.setValue(grpcNativeTransport);
+  }
+
+  public String getGrpcExecutor() {
+    return grpcExecutor.getValueAsString();
+  }
+
+  public void setGrpcExecutor(String grpcExecutor) {
+    this.grpcExecutor.setValue(grpcExecutor);
+  }
+
+  public String getGrpcCompression() {
+    return grpcCompression.getValueAsString();
+  }
+
+  public void setGrpcCompression(String grpcCompression) {
+    this.grpcCompression.setValue(grpcCompression);
+  }
+
+  public long getGrpcCompressionMinBytes() {
+    return grpcCompressionMinBytes.getValueAsLong();
+  }
+
+  public void setGrpcCompressionMinBytes(long grpcCompressionMinBytes) {
+    this.grpcCompressionMinBytes.setValue(grpcCompressionMinBytes);
+  }
+
+  public long getGrpcKeepAliveTimeMillis() {
+    return grpcKeepAliveTimeMillis.getValueAsLong();
+  }
+
+  public void setGrpcKeepAliveTimeMillis(long grpcKeepAliveTimeMillis) {
+    this.grpcKeepAliveTimeMillis.setValue(grpcKeepAliveTimeMillis);
+  }
+
+  public long getGrpcKeepAliveTimeoutMillis() {
+    return grpcKeepAliveTimeoutMillis.getValueAsLong();
+  }
+
+  public void setGrpcKeepAliveTimeoutMillis(long grpcKeepAliveTimeoutMillis) {
+    this.grpcKeepAliveTimeoutMillis.setValue(grpcKeepAliveTimeoutMillis);
+  }
+
+  public boolean getGrpcKeepAliveWithoutCalls() {
+    return grpcKeepAliveWithoutCalls.getValueAsBoolean();
+  }
+
+  public void setGrpcKeepAliveWithoutCalls(boolean grpcKeepAliveWithoutCalls) {
+    this.grpcKeepAliveWithoutCalls.setValue(grpcKeepAliveWithoutCalls);
+  }
+
+  public long getGrpcIdleTimeoutMillis() {
+    return grpcIdleTimeoutMillis.getValueAsLong();
+  }
+
+  public void setGrpcIdleTimeoutMillis(long grpcIdleTimeoutMillis) {
+    this.grpcIdleTimeoutMillis.setValue(grpcIdleTimeoutMillis);
+  }
+
+  public long getGrpcWarmUpTimeoutMillis() {
+    return grpcWarmUpTimeoutMillis.getValueAsLong();
+  }
+
+  public void setGrpcWarmUpTimeoutMillis(long grpcWarmUpTimeoutMillis) {
+    this.grpcWarmUpTimeoutMillis.setValue(grpcWarmUpTimeoutMillis);
+  }
+
+  public String getVtgateSelector() {
+    return vtgateSelector.getValueAsString();
+  }
+
+  public void setVtgateSelector(String vtgateSelector) {
+    this.vtgateSelector.setValue(vtgateSelector);
+  }
+
+  public long getVtgateEjectionMillis() {
+    return vtgateEjectionMillis.getValueAsLong();
+  }
+
+  public void setVtgateEjectionMillis(long vtgateEjectionMillis) {
+    this.vtgateEjectionMillis.setValue(vtgateEjectionMillis);
+  }
+
+  public boolean getHedgeReads() {
+    return hedgeReads.getValueAsBoolean();
+  }
+
+  public void setHedgeReads(boolean hedgeReads) {
+    this.hedgeReads.setValue(hedgeReads);
+  }
+
+  public double getHedgeDelayPercentile() {
+    return hedgeDelayPercentile.getValueAsDouble();
+  }
+
+  public void setHedgeDelayPercentile(double hedgeDelayPercentile) {
+    this.hedgeDelayPercentile.setValue(hedgeDelayPercentile);
+  }
+
+  public long getHedgeMinDelayMillis() {
+    return hedgeMinDelayMillis.getValueAsLong();
+  }
+
+  public void setHedgeMinDelayMillis(long hedgeMinDelayMillis) {
+    this.hedgeMinDelayMillis.setValue(hedgeMinDelayMillis);
+  }
+
   public boolean getUseSSL() {
     return useSSL.getValueAsBoolean();
   }
@@ -591,6 +980,110 @@ public class ConnectionProperties {
     this.timeout.setValue(timeout);
   }
 
+  public long getStreamPrefetchResults() {
+    return streamPrefetchResults.getValueAsLong();
+  }
+
+  public void setStreamPrefetchResults(long streamPrefetchResults) {
+    this.streamPrefetchResults.setValue(streamPrefetchResults);
+  }
+
+  public long getStreamPrefetchBytes() {
+    return streamPrefetchBytes.getValueAsLong();
+  }
+
+  public void setStreamPrefetchBytes(long streamPrefetchBytes) {
+    this.streamPrefetchBytes.setValue(streamPrefetchBytes);
+  }
+
+  public boolean getCachePrepStmts() {
+    return cachePrepStmts.getValueAsBoolean();
+  }
+
+  public void setCachePrepStmts(boolean cachePrepStmts) {
+    this.cachePrepStmts.setValue(cachePrepStmts);
+  }
+
+  public long getPrepStmtCacheSize() {
+    return prepStmtCacheSize.getValueAsLong();
+  }
+
+  public void setPrepStmtCacheSize(long prepStmtCacheSize) {
+    this.prepStmtCacheSize.setValue(prepStmtCacheSize);
+  }
+
+  public long getPrepStmtCacheSqlLimit() {
+    return prepStmtCacheSqlLimit.getValueAsLong();
+  }
+
+  public void setPrepStmtCacheSqlLimit(long prepStmtCacheSqlLimit) {
+    this.prepStmtCacheSqlLimit.setValue(prepStmtCacheSqlLimit);
+  }
+
+  public boolean getRewriteBatchedStatements() {
+    return rewriteBatchedStatements.getValueAsBoolean();
+  }
+
+  public void setRewriteBatchedStatements(boolean rewriteBatchedStatements) {
+    this.rewriteBatchedStatements.setValue(rewriteBatchedStatements);
+  }
+
+  public long getMaxAllowedPacket() {
+    return maxAllowedPacket.getValueAsLong();
+  }
+
+  public void setMaxAllowedPacket(long maxAllowedPacket) {
+    this.maxAllowedPacket.setValue(maxAllowedPacket);
+  }
+
+  public boolean getCollectExecutionStats() {
+    return collectExecutionStats.getValueAsBoolean();
+  }
+
+  public void setCollectExecutionStats(boolean collectExecutionStats) {
+    this.collectExecutionStats.setValue(collectExecutionStats);
+  }
+
+  public long getSlowQueryThresholdMillis() {
+    return slowQueryThresholdMillis.getValueAsLong();
+  }
+
+  public void setSlowQueryThresholdMillis(long slowQueryThresholdMillis) {
+    this.slowQueryThresholdMillis.setValue(slowQueryThresholdMillis);
+  }
+
+  public long getMetadataCacheTtlMillis() {
+    return metadataCacheTtlMillis.getValueAsLong();
+  }
+
+  public void setMetadataCacheTtlMillis(long metadataCacheTtlMillis) {
+    this.metadataCacheTtlMillis.setValue(metadataCacheTtlMillis);
+  }
+
+  public boolean getMetadataBulkFetch() {
+    return metadataBulkFetch.getValueAsBoolean();
+  }
+
+  public void setMetadataBulkFetch(boolean metadataBulkFetch) {
+    this.metadataBulkFetch.setValue(metadataBulkFetch);
+  }
+
+  public boolean getMetadataCacheInvalidateOnDdl() {
+    return metadataCacheInvalidateOnDdl.getValueAsBoolean();
+  }
+
+  public void setMetadataCacheInvalidateOnDdl(boolean metadataCacheInvalidateOnDdl) {
+    this.metadataCacheInvalidateOnDdl.setValue(metadataCacheInvalidateOnDdl);
+  }
+
+  public long getDbPropertiesRefreshMillis() {
+    return dbPropertiesRefreshMillis.getValueAsLong();
+  }
+
+  public void setDbPropertiesRefreshMillis(long dbPropertiesRefreshMillis) {
+    this.dbPropertiesRefreshMillis.setValue(dbPropertiesRefreshMillis);
+  }
+
   public boolean getUseTracing() {
     return useTracing.getValueAsString().equalsIgnoreCase("opentracing");
   }
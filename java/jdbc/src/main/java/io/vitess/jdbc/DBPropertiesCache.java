@@ -0,0 +1,175 @@
+/*
+ * Copyright 2019 The Vitess Authors.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vitess.jdbc;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import io.vitess.client.VTSession;
+import io.vitess.client.cursor.Cursor;
+import io.vitess.client.cursor.Row;
+import io.vitess.util.MysqlDefs;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The {@link DBProperties} of a VTGate target, shared by the connections to it, see {@link
+ * VitessVTGateManager.VTGateConnections}.
+ *
+ * <p>Once loaded, they are refreshed in the background when a connection finds them older than
+ * its dbPropertiesRefreshMillis, so that only the first connection to the target waits for
+ * them. The refresh runs on a session of its own, so it doesn't interfere with the connection
+ * that started it.
+ */
+class DBPropertiesCache {
+
+  static final String QUERY =
+      "SHOW VARIABLES WHERE VARIABLE_NAME IN (\'tx_isolation\',\'INNODB_VERSION\', "
+          + "\'lower_case_table_names\')";
+
+  private static final Logger logger = LogManager.getLogger(DBPropertiesCache.class);
+
+  private volatile Snapshot snapshot;
+  private final AtomicBoolean refreshing = new AtomicBoolean();
+
+  /**
+   * Returns the cached properties, or null if they weren't loaded yet. Starts loading them in
+   * the background if they are missing or older than the connection's refresh interval.
+   */
+  Snapshot get(VitessConnection connection) {
+    Snapshot current = snapshot;
+    if (null == current || System.nanoTime() - current.loadedNanos >= TimeUnit.MILLISECONDS
+        .toNanos(connection.getDbPropertiesRefreshMillis())) {
+      refreshAsync(connection);
+    }
+    return current;
+  }
+
+  /**
+   * Caches properties that a connection loaded itself, because there were none yet.
+   */
+  void set(Snapshot loaded) {
+    snapshot = loaded;
+  }
+
+  private void refreshAsync(VitessConnection connection) {
+    if (!refreshing.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      VTSession vtSession = new VTSession(connection.getTarget(), connection.getExecuteOptions());
+      Futures.addCallback(connection.getVtGateConn()
+          .execute(connection.createContext(connection.getTimeout()), QUERY, null, vtSession),
+          new FutureCallback<Cursor>() {
+            @Override
+            public void onSuccess(Cursor cursor) {
+              Map<String, String> variables = new HashMap<>();
+              try (Cursor rows = cursor) {
+                for (Row row = rows.next(); null != row; row = rows.next()) {
+                  variables.put(row.getString(1), row.getString(2));
+                }
+                snapshot = fromVariables(variables);
+              } catch (Exception exc) {
+                onFailure(exc);
+                return;
+              }
+              refreshing.set(false);
+            }
+
+            @Override
+            public void onFailure(Throwable exc) {
+              logger.debug("failed to refresh the database properties", exc);
+              // Keep the ones we have for another interval rather than retry on every call.
+              Snapshot current = snapshot;
+              if (null != current) {
+                snapshot = new Snapshot(current.dbProperties, current.dbEngine, System.nanoTime());
+              }
+              refreshing.set(false);
+            }
+          }, MoreExecutors.directExecutor());
+    } catch (RuntimeException | SQLException exc) {
+      logger.debug("failed to refresh the database properties", exc);
+      refreshing.set(false);
+    }
+  }
+
+  /**
+   * Returns the properties described by the variables of {@link #QUERY}.
+   */
+  static Snapshot fromVariables(Map<String, String> variables) {
+    String versionValue = variables.get("innodb_version");
+    String transactionIsolation = variables.get("tx_isolation");
+    String lowerCaseTables = variables.get("lower_case_table_names");
+    String dbEngine = null;
+    String productVersion = "";
+    String majorVersion = "";
+    String minorVersion = "";
+    int isolationLevel = 0;
+    if (MysqlDefs.mysqlConnectionTransactionMapping.containsKey(transactionIsolation)) {
+      isolationLevel = MysqlDefs.mysqlConnectionTransactionMapping.get(transactionIsolation);
+    }
+    if (null != versionValue) {
+      if (versionValue.toLowerCase().contains("mariadb")) {
+        dbEngine = "mariadb";
+      } else {
+        dbEngine = "mysql";
+      }
+      if (versionValue.contains("-")) {
+        String[] versions = versionValue.split("-");
+        productVersion = versions[0];
+      } else {
+        productVersion = versionValue;
+      }
+      String[] dbVersions = productVersion.split("\\.", 3);
+      majorVersion = dbVersions[0];
+      minorVersion = dbVersions[1];
+    }
+    return new Snapshot(new DBProperties(productVersion, majorVersion, minorVersion,
+        isolationLevel, lowerCaseTables), dbEngine, System.nanoTime());
+  }
+
+  /**
+   * The properties as loaded at one time, and the engine they tell, "mysql" or "mariadb".
+   */
+  static final class Snapshot {
+
+    private final DBProperties dbProperties;
+    private final String dbEngine;
+    private final long loadedNanos;
+
+    Snapshot(DBProperties dbProperties, String dbEngine, long loadedNanos) {
+      this.dbProperties = dbProperties;
+      this.dbEngine = dbEngine;
+      this.loadedNanos = loadedNanos;
+    }
+
+    DBProperties getDbProperties() {
+      return dbProperties;
+    }
+
+    String getDbEngine() {
+      return dbEngine;
+    }
+  }
+}
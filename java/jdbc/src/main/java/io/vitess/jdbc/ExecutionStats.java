@@ -0,0 +1,146 @@
+/*
+ * Copyright 2019 The Vitess Authors.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vitess.jdbc;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Where the driver spent its time executing one statement, if the connection has {@code
+ * collectExecutionStats} or {@code slowQueryThresholdMillis} set.
+ *
+ * <p>The phases are building the bound query, the RPC to VTGate, turning the result fields into
+ * {@link FieldWithMetadata}, and reading the rows through {@link VitessResultSet#next()}. For a
+ * streaming query the RPC only covers starting the stream, and the rows include waiting for the
+ * results to arrive. Time the application spends between calls to the driver isn't counted.
+ *
+ * <p>The stats of the latest execution are returned by {@link
+ * VitessStatement#getLastExecutionStats()}. Once the result set has been closed, or right away
+ * for a statement without one, they are also passed to the connection's {@link
+ * ExecutionStatsListener}.
+ */
+public final class ExecutionStats {
+
+  private final String sql;
+  private final ExecutionStatsListener listener;
+  private long lapStartNanos;
+  private long bindNanos;
+  private long rpcNanos;
+  private long fieldsNanos;
+  private long rowsNanos;
+  private long rowCount;
+  private boolean finished;
+
+  ExecutionStats(String sql, ExecutionStatsListener listener) {
+    this.sql = sql;
+    this.listener = listener;
+    this.lapStartNanos = System.nanoTime();
+  }
+
+  /**
+   * Returns the SQL that was executed, before binding.
+   */
+  public String getSql() {
+    return sql;
+  }
+
+  public long getBindNanos() {
+    return bindNanos;
+  }
+
+  public long getRpcNanos() {
+    return rpcNanos;
+  }
+
+  public long getFieldsNanos() {
+    return fieldsNanos;
+  }
+
+  public long getRowsNanos() {
+    return rowsNanos;
+  }
+
+  /**
+   * Returns how many rows the application has read so far.
+   */
+  public long getRowCount() {
+    return rowCount;
+  }
+
+  /**
+   * Returns the time spent in all phases so far.
+   */
+  public long getTotalNanos() {
+    return bindNanos + rpcNanos + fieldsNanos + rowsNanos;
+  }
+
+  /**
+   * Returns whether all phases are over, so the stats won't change anymore.
+   */
+  public boolean isFinished() {
+    return finished;
+  }
+
+  void bindDone() {
+    bindNanos = lap();
+  }
+
+  void rpcDone() {
+    rpcNanos = lap();
+  }
+
+  void fieldsDone() {
+    fieldsNanos = lap();
+  }
+
+  void rowRead(long nanos, boolean found) {
+    rowsNanos += nanos;
+    if (found) {
+      rowCount++;
+    }
+  }
+
+  /**
+   * Marks the stats as complete and passes them to the listener, the first time it's called.
+   */
+  void finish() {
+    if (finished) {
+      return;
+    }
+    finished = true;
+    if (listener != null) {
+      listener.executionFinished(this);
+    }
+  }
+
+  private long lap() {
+    long now = System.nanoTime();
+    long elapsed = now - lapStartNanos;
+    lapStartNanos = now;
+    return elapsed;
+  }
+
+  @Override
+  public String toString() {
+    return "ExecutionStats{bindMicros=" + TimeUnit.NANOSECONDS.toMicros(bindNanos)
+        + ", rpcMicros=" + TimeUnit.NANOSECONDS.toMicros(rpcNanos)
+        + ", fieldsMicros=" + TimeUnit.NANOSECONDS.toMicros(fieldsNanos)
+        + ", rowsMicros=" + TimeUnit.NANOSECONDS.toMicros(rowsNanos)
+        + ", rows=" + rowCount
+        + ", sql=" + sql + "}";
+  }
+}
@@ -0,0 +1,30 @@
+/*
+ * Copyright 2019 The Vitess Authors.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vitess.jdbc;
+
+/**
+ * Receives the {@link ExecutionStats} of each statement executed on a connection, see {@link
+ * VitessConnection#setExecutionStatsListener(ExecutionStatsListener)}.
+ *
+ * <p>It's called on the thread which closed the result set or executed the statement, so it
+ * should return quickly.
+ */
+public interface ExecutionStatsListener {
+
+  void executionFinished(ExecutionStats stats);
+}
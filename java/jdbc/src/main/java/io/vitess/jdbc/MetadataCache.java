@@ -0,0 +1,123 @@
+/*
+ * Copyright 2019 The Vitess Authors.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vitess.jdbc;
+
+import io.vitess.proto.Query;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The results of the statements behind {@link VitessMySQLDatabaseMetadata}, shared by the
+ * connections to the same VTGate target, see {@link VitessVTGateManager.VTGateConnections}. A
+ * result is a {@link Query.QueryResult}, or whatever the metadata built from it to look it up by
+ * table.
+ *
+ * <p>Entries are keyed by the catalog and the SQL text. Each lookup says how old an entry it
+ * accepts, since the connections sharing the cache may have different TTLs. {@link
+ * #invalidate()} drops them all when the schema changed. A result that was being read while the
+ * cache was invalidated isn't stored, since it may describe the old schema.
+ */
+class MetadataCache {
+
+  /*
+  Expired entries are only purged once there are this many, so that lookups never scan
+  */
+  private static final int PURGE_THRESHOLD = 10000;
+
+  private final ConcurrentHashMap<String, Entry> results = new ConcurrentHashMap<>();
+  private final AtomicLong version = new AtomicLong();
+
+  static String key(String catalog, String sql) {
+    return catalog + '\0' + sql;
+  }
+
+  /**
+   * Returns the cached result for {@code key}, or null if there is none or it is older than
+   * {@code ttlMillis}. The result is of the type it was put with.
+   */
+  @SuppressWarnings("unchecked")
+  <T> T get(String key, long ttlMillis) {
+    Entry entry = results.get(key);
+    if (entry == null) {
+      return null;
+    }
+    if (System.nanoTime() - entry.loadedNanos >= TimeUnit.MILLISECONDS.toNanos(ttlMillis)) {
+      results.remove(key, entry);
+      return null;
+    }
+    return (T) entry.result;
+  }
+
+  /**
+   * Returns the version to pass to {@link #put}, to be read before the statement is executed.
+   */
+  long getVersion() {
+    return version.get();
+  }
+
+  /**
+   * Caches {@code result}, unless the cache was invalidated since {@code loadedVersion}. Entries
+   * older than {@code ttlMillis} may be purged meanwhile.
+   */
+  void put(String key, long loadedVersion, Object result, long ttlMillis) {
+    if (results.size() >= PURGE_THRESHOLD) {
+      purgeExpired(TimeUnit.MILLISECONDS.toNanos(ttlMillis));
+    }
+    Entry entry = new Entry(result, System.nanoTime());
+    results.put(key, entry);
+    // Invalidated meanwhile: the entry may or may not have been cleared with the rest.
+    if (version.get() != loadedVersion) {
+      results.remove(key, entry);
+    }
+  }
+
+  /**
+   * Drops all entries, e.g. because a DDL statement changed the schema.
+   */
+  void invalidate() {
+    version.incrementAndGet();
+    results.clear();
+  }
+
+  int size() {
+    return results.size();
+  }
+
+  private void purgeExpired(long ttlNanos) {
+    long now = System.nanoTime();
+    Iterator<Entry> entries = results.values().iterator();
+    while (entries.hasNext()) {
+      if (now - entries.next().loadedNanos >= ttlNanos) {
+        entries.remove();
+      }
+    }
+  }
+
+  private static final class Entry {
+
+    private final Object result;
+    private final long loadedNanos;
+
+    Entry(Object result, long loadedNanos) {
+      this.result = result;
+      this.loadedNanos = loadedNanos;
+    }
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2019 The Vitess Authors.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vitess.jdbc;
+
+import com.google.protobuf.ByteString;
+
+import io.vitess.client.Proto;
+import io.vitess.proto.Query;
+
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A per-connection LRU cache of what {@link VitessPreparedStatement} works out about its SQL.
+ *
+ * <p>Entries are keyed by the SQL text, and hold the parameter count, a {@link Query.BoundQuery}
+ * template with the SQL already encoded, and the result fields once a statement has asked VTGate
+ * to prepare it. Preparing the same SQL again on the connection then skips all of that work.
+ */
+class PreparedStatementCache {
+
+  private final int maxSqlLength;
+  private final Map<String, CachedStatement> statements;
+
+  /**
+   * @param maxSize maximum number of statements to keep
+   * @param maxSqlLength SQL longer than this many characters isn't cached
+   */
+  PreparedStatementCache(final int maxSize, int maxSqlLength) {
+    this.maxSqlLength = maxSqlLength;
+    this.statements = new LinkedHashMap<String, CachedStatement>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+        return size() > maxSize;
+      }
+    };
+  }
+
+  /**
+   * Returns the cached statement for {@code sql}, creating it if needed, or null if {@code sql}
+   * is too long to be cached.
+   */
+  synchronized CachedStatement get(String sql) throws SQLException {
+    if (sql.length() > maxSqlLength) {
+      return null;
+    }
+    CachedStatement statement = statements.get(sql);
+    if (statement == null) {
+      statement = new CachedStatement(sql);
+      statements.put(sql, statement);
+    }
+    return statement;
+  }
+
+  synchronized int size() {
+    return statements.size();
+  }
+
+  /**
+   * Drops all entries, e.g. because their result fields may no longer be accurate.
+   */
+  synchronized void clear() {
+    statements.clear();
+  }
+
+  static class CachedStatement {
+
+    private final int parameterCount;
+    private final Query.BoundQuery template;
+    private volatile List<Query.Field> fields;
+
+    private CachedStatement(String sql) throws SQLException {
+      this.parameterCount = VitessPreparedStatement.calculateParameterCount(sql);
+      this.template = Query.BoundQuery.newBuilder().setSqlBytes(ByteString.copyFromUtf8(sql))
+          .build();
+    }
+
+    int getParameterCount() {
+      return parameterCount;
+    }
+
+    /**
+     * Returns the query to send for one execution of the statement.
+     */
+    Query.BoundQuery bind(Map<String, ?> bindVariables) {
+      return Proto.bindQuery(template, bindVariables);
+    }
+
+    /**
+     * Returns the result fields reported by VTGate when the statement was prepared, or null if it
+     * hasn't been prepared yet.
+     */
+    List<Query.Field> getFields() {
+      return fields;
+    }
+
+    void setFields(List<Query.Field> fields) {
+      this.fields = fields;
+    }
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2019 The Vitess Authors.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vitess.jdbc;
+
+import io.vitess.client.CallStats;
+import io.vitess.client.VTGateConnection;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Picks the VTGate that each call of a {@link VitessConnection} goes to, among the hosts of its
+ * JDBC URL.
+ *
+ * <p>The implementation is chosen with the {@code vtgateSelector} connection property: {@code
+ * roundRobin} (the default), {@code peakEwma}, or the name of a class implementing this
+ * interface with a public no-argument constructor. Implementations must be thread-safe.
+ */
+public interface VTGateSelector {
+
+  /**
+   * Returns one of {@code connections}, which is never empty.
+   */
+  VTGateConnection select(List<VTGateConnection> connections);
+
+  /**
+   * Cycles through the VTGates in order, starting from a random one.
+   */
+  class RoundRobin implements VTGateSelector {
+
+    private final AtomicInteger counter = new AtomicInteger(ThreadLocalRandom.current().nextInt());
+
+    @Override
+    public VTGateConnection select(List<VTGateConnection> connections) {
+      return connections.get((counter.incrementAndGet() & Integer.MAX_VALUE) % connections.size());
+    }
+  }
+
+  /**
+   * Sends each call to the less loaded of two VTGates picked at random ("power of two choices"),
+   * where the load of a VTGate is the peak-EWMA of its latency times its calls in flight, see
+   * {@link CallStats}.
+   *
+   * <p>A VTGate whose last call failed with a transport error or timeout is ejected: it is not
+   * picked until {@code ejectionMillis} after that failure, unless every VTGate is ejected.
+   * Comparing two random choices rather than always taking the least loaded VTGate keeps many
+   * clients with the same view from all moving to the same one.
+   */
+  class PeakEwma implements VTGateSelector {
+
+    public static final long DEFAULT_EJECTION_MILLIS = 5000;
+
+    /**
+     * Cost of a VTGate with calls in flight but no latency yet, so that a new VTGate doesn't get
+     * every call until its first one completes.
+     */
+    private static final double PENALTY = Long.MAX_VALUE >> 16;
+
+    private final long ejectionNanos;
+
+    public PeakEwma() {
+      this(DEFAULT_EJECTION_MILLIS);
+    }
+
+    public PeakEwma(long ejectionMillis) {
+      this.ejectionNanos = TimeUnit.MILLISECONDS.toNanos(ejectionMillis);
+    }
+
+    @Override
+    public VTGateConnection select(List<VTGateConnection> connections) {
+      int size = connections.size();
+      if (size == 1) {
+        return connections.get(0);
+      }
+
+      // Pick among the VTGates that aren't ejected, or among all of them if they all are.
+      int[] candidates = new int[size];
+      int count = 0;
+      for (int i = 0; i < size; i++) {
+        if (!isEjected(connections.get(i).getCallStats())) {
+          candidates[count++] = i;
+        }
+      }
+      if (count == 0) {
+        for (int i = 0; i < size; i++) {
+          candidates[i] = i;
+        }
+        count = size;
+      }
+      if (count == 1) {
+        return connections.get(candidates[0]);
+      }
+
+      ThreadLocalRandom random = ThreadLocalRandom.current();
+      int first = random.nextInt(count);
+      int second = random.nextInt(count - 1);
+      if (second >= first) {
+        second++;
+      }
+      VTGateConnection firstConnection = connections.get(candidates[first]);
+      VTGateConnection secondConnection = connections.get(candidates[second]);
+      return cost(firstConnection.getCallStats()) <= cost(secondConnection.getCallStats())
+          ? firstConnection : secondConnection;
+    }
+
+    private boolean isEjected(CallStats stats) {
+      return stats.getConsecutiveFailures() > 0
+          && stats.getNanosSinceLastFailure() < ejectionNanos;
+    }
+
+    private static double cost(CallStats stats) {
+      double latency = stats.getLatencyNanos();
+      int inFlight = stats.getInFlight();
+      if (latency == 0 && inFlight > 0) {
+        return PENALTY + inFlight;
+      }
+      return latency * (inFlight + 1);
+    }
+  }
+}
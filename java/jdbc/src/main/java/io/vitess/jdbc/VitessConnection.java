@@ -16,13 +16,19 @@
 
 package io.vitess.jdbc;
 
+import com.google.common.primitives.Ints;
+
 import io.vitess.client.Context;
+import io.vitess.client.HedgePolicy;
 import io.vitess.client.VTGateConnection;
 import io.vitess.client.VTSession;
+import io.vitess.client.cursor.Cursor;
 import io.vitess.proto.Query;
 import io.vitess.util.CommonUtils;
 import io.vitess.util.Constants;
-import io.vitess.util.MysqlDefs;
+import io.vitess.util.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 import java.sql.Array;
 import java.sql.Blob;
@@ -46,17 +52,19 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Created by harshit.gangal on 23/01/16.
  */
 public class VitessConnection extends ConnectionProperties implements Connection {
 
-  /* Get actual class name to be printed on */
-  private static DatabaseMetaData databaseMetaData = null;
+  private static Logger logger = LogManager.getLogger(VitessConnection.class);
+  private static final String VALIDATION_QUERY = "select 1";
 
   /**
    * A Map of currently open statements
@@ -66,9 +74,26 @@ public class VitessConnection extends ConnectionProperties implements Connection
   private boolean closed = true;
   private boolean readOnly = false;
   private DBProperties dbProperties;
+  private volatile DatabaseMetaData databaseMetaData;
+  private PreparedStatementCache preparedStatementCache;
   private final VitessJDBCUrl vitessJDBCUrl;
   private final VTSession vtSession;
-
+  private final String initialCatalog;
+  private volatile ExecutionStatsListener executionStatsListener;
+  private final ExecutionStatsListener executionStatsDispatcher = new ExecutionStatsListener() {
+    @Override
+    public void executionFinished(ExecutionStats stats) {
+      long thresholdMillis = getSlowQueryThresholdMillis();
+      if (thresholdMillis > 0
+          && stats.getTotalNanos() >= TimeUnit.MILLISECONDS.toNanos(thresholdMillis)) {
+        logger.warn("slow query: {}", stats);
+      }
+      ExecutionStatsListener listener = executionStatsListener;
+      if (listener != null) {
+        listener.executionFinished(stats);
+      }
+    }
+  };
 
   /**
    * Constructor to Create Connection Object
@@ -83,6 +108,7 @@ public class VitessConnection extends ConnectionProperties implements Connection
       this.dbProperties = null;
       initializeProperties(vitessJDBCUrl.getProperties());
       this.vtSession = new VTSession(this.getTarget(), this.getExecuteOptions());
+      this.initialCatalog = super.getCatalog();
     } catch (Exception exc) {
       throw new SQLException(
           Constants.SQLExceptionMessages.CONN_INIT_ERROR + " - " + exc.getMessage(), exc);
@@ -91,6 +117,11 @@ public class VitessConnection extends ConnectionProperties implements Connection
 
   public void connect() {
     this.vtGateConnections = new VitessVTGateManager.VTGateConnections(this);
+    DBPropertiesCache cache = vtGateConnections.getDbPropertiesCache();
+    if (null != cache) {
+      // Starts loading them in the background for the first connection to the target.
+      cache.get(this);
+    }
   }
 
   /**
@@ -213,28 +244,25 @@ public class VitessConnection extends ConnectionProperties implements Connection
     return this.closed;
   }
 
+  /**
+   * Returns the metadata of this connection. The server variables it's based on are shared with
+   * the other connections to the same target, unless the dbPropertiesRefreshMillis property is 0,
+   * so only the first connection to a target waits for them.
+   */
   public DatabaseMetaData getMetaData() throws SQLException {
     checkOpen();
-    if (!metadataNullOrClosed()) {
-      return databaseMetaData;
-    } else {
-      synchronized (VitessConnection.class) {
-        if (metadataNullOrClosed()) {
-          String dbEngine = initializeDBProperties();
-          if (dbEngine.equals("mariadb")) {
-            databaseMetaData = new VitessMariaDBDatabaseMetadata(this);
-          } else {
-            databaseMetaData = new VitessMySQLDatabaseMetadata(this);
-          }
-        }
+    DatabaseMetaData metaData = databaseMetaData;
+    if (null == metaData) {
+      // Racing threads build equivalent metadata, so whichever is kept doesn't matter.
+      String dbEngine = initializeDBProperties();
+      if ("mariadb".equals(dbEngine)) {
+        metaData = new VitessMariaDBDatabaseMetadata(this);
+      } else {
+        metaData = new VitessMySQLDatabaseMetadata(this);
       }
-      return databaseMetaData;
+      databaseMetaData = metaData;
     }
-  }
-
-  private boolean metadataNullOrClosed() throws SQLException {
-    return null == databaseMetaData || null == databaseMetaData.getConnection() || databaseMetaData
-        .getConnection().isClosed();
+    return metaData;
   }
 
   public boolean isReadOnly() throws SQLException {
@@ -276,6 +304,47 @@ public class VitessConnection extends ConnectionProperties implements Connection
   public void setCatalog(String catalog) throws SQLException {
     checkOpen();
     super.setCatalog(catalog); //Ignoring any affect
+    synchronized (this) {
+      // Cached result fields were resolved against the old catalog.
+      if (preparedStatementCache != null) {
+        preparedStatementCache.clear();
+      }
+    }
+  }
+
+  /**
+   * Returns the cache shared by this connection's prepared statements, or null if the
+   * cachePrepStmts property is off.
+   */
+  synchronized PreparedStatementCache getPreparedStatementCache() {
+    if (!getCachePrepStmts()) {
+      return null;
+    }
+    if (preparedStatementCache == null) {
+      preparedStatementCache = new PreparedStatementCache(
+          Ints.saturatedCast(getPrepStmtCacheSize()),
+          Ints.saturatedCast(getPrepStmtCacheSqlLimit()));
+    }
+    return preparedStatementCache;
+  }
+
+  /**
+   * Sets a listener to receive the {@link ExecutionStats} of each statement executed on this
+   * connection, or null to remove it. Setting one turns on the collection of the stats.
+   */
+  public void setExecutionStatsListener(ExecutionStatsListener listener) {
+    this.executionStatsListener = listener;
+  }
+
+  /**
+   * Returns the stats to fill in for an execution of {@code sql}, or null if none are collected.
+   */
+  ExecutionStats newExecutionStats(String sql) {
+    if (!getCollectExecutionStats() && getSlowQueryThresholdMillis() <= 0
+        && executionStatsListener == null) {
+      return null;
+    }
+    return new ExecutionStats(sql, executionStatsDispatcher);
   }
 
   /**
@@ -419,13 +488,36 @@ public class VitessConnection extends ConnectionProperties implements Connection
   }
 
   /**
-   * TODO : This method should actually validate the connection.
+   * Checks that VTGate answers a trivial query within {@code timeout} seconds, or the connection's
+   * timeout if 0. The query runs in a session of its own, so that it neither joins nor disturbs
+   * this connection's transaction.
+   *
+   * @param timeout - Time in seconds to wait for the check
    */
   public boolean isValid(int timeout) throws SQLException {
     if (timeout < 0) {
       throw new SQLException(Constants.SQLExceptionMessages.TIMEOUT_NEGATIVE);
     }
-    return closed ? Boolean.FALSE : Boolean.TRUE;
+    if (closed || vtGateConnections == null) {
+      return false;
+    }
+    long timeoutMillis = timeout == 0 ? getTimeout() : TimeUnit.SECONDS.toMillis(timeout);
+    VTSession validationSession = new VTSession(getTarget(), getExecuteOptions());
+    Cursor cursor;
+    try {
+      cursor = getVtGateConn()
+          .execute(createContext(timeoutMillis), VALIDATION_QUERY, null, validationSession)
+          .checkedGet();
+    } catch (SQLException exc) {
+      logger.debug("connection failed validation", exc);
+      return false;
+    }
+    try {
+      cursor.close();
+    } catch (Exception exc) {
+      logger.debug("failed to close the validation cursor", exc);
+    }
+    return true;
   }
 
   /**
@@ -557,6 +649,28 @@ public class VitessConnection extends ConnectionProperties implements Connection
 
   //Methods created for this class
 
+  /**
+   * Puts the connection back the way it was opened so that a pool can hand it out again: ends
+   * any transaction, closes the open statements, and resets the session and the catalog. The
+   * channels to VTGate and the prepared statement cache are kept.
+   */
+  void reset() throws SQLException {
+    checkOpen();
+    try {
+      if (isInTransaction()) {
+        rollbackTx();
+      }
+      closeAllOpenStatements();
+    } finally {
+      vtSession.reset();
+      readOnly = false;
+      executionStatsListener = null;
+      if (!Objects.equals(initialCatalog, super.getCatalog())) {
+        setCatalog(initialCatalog);
+      }
+    }
+  }
+
   private void checkOpen() throws SQLException {
     if (this.closed) {
       throw new SQLException(Constants.SQLExceptionMessages.CONN_CLOSED);
@@ -577,6 +691,46 @@ public class VitessConnection extends ConnectionProperties implements Connection
     return vtGateConnections.getVtGateConnInstance();
   }
 
+  /**
+   * Returns a VTGate other than {@code primary} to hedge reads on, or null if reads aren't hedged.
+   */
+  public VTGateConnection getHedgeVtGateConn(VTGateConnection primary) {
+    return vtGateConnections.getHedgeConnInstance(primary);
+  }
+
+  public HedgePolicy getHedgePolicy() {
+    return vtGateConnections.getHedgePolicy();
+  }
+
+  /**
+   * Returns the DatabaseMetaData cache shared with the other connections to the same target, or
+   * null if the metadataCacheTtlMillis property is off.
+   */
+  MetadataCache getMetadataCache() {
+    return null == vtGateConnections ? null : vtGateConnections.getMetadataCache();
+  }
+
+  /**
+   * Drops the cached DatabaseMetaData of this connection's target, e.g. when a VStream reported a
+   * DDL event, or the schema was changed by another client.
+   */
+  public void invalidateMetadataCache() {
+    MetadataCache cache = getMetadataCache();
+    if (null != cache) {
+      cache.invalidate();
+    }
+  }
+
+  /**
+   * Drops the cached DatabaseMetaData of this connection's target if {@code sql}, which was just
+   * executed, may have changed the schema.
+   */
+  void schemaMaybeChanged(String sql) {
+    if (getMetadataCacheInvalidateOnDdl() && null != getMetadataCache() && StringUtils.isDdl(sql)) {
+      invalidateMetadataCache();
+    }
+  }
+
   public VTSession getVtSession() {
     return this.vtSession;
   }
@@ -749,58 +903,43 @@ public class VitessConnection extends ConnectionProperties implements Connection
   }
 
   private String initializeDBProperties() throws SQLException {
-    HashMap<String, String> dbVariables = new HashMap<>();
-    String dbEngine = null;
-
-    if (metadataNullOrClosed()) {
-      String versionValue;
-
+    DBPropertiesCache cache = getDbPropertiesCache();
+    DBPropertiesCache.Snapshot snapshot = null == cache ? null : cache.get(this);
+    if (null == snapshot) {
+      HashMap<String, String> dbVariables = new HashMap<>();
       try (VitessStatement vitessStatement = new VitessStatement(
-          this); ResultSet resultSet = vitessStatement.executeQuery(
-          "SHOW VARIABLES WHERE VARIABLE_NAME IN (\'tx_isolation\',\'INNODB_VERSION\', "
-              + "\'lower_case_table_names\')")) {
+          this); ResultSet resultSet = vitessStatement.executeQuery(DBPropertiesCache.QUERY)) {
         while (resultSet.next()) {
           dbVariables.put(resultSet.getString(1), resultSet.getString(2));
         }
-        versionValue = dbVariables.get("innodb_version");
-        String transactionIsolation = dbVariables.get("tx_isolation");
-        String lowerCaseTables = dbVariables.get("lower_case_table_names");
-        String productVersion = "";
-        String majorVersion = "";
-        String minorVersion = "";
-        int isolationLevel = 0;
-        if (MysqlDefs.mysqlConnectionTransactionMapping.containsKey(transactionIsolation)) {
-          isolationLevel = MysqlDefs.mysqlConnectionTransactionMapping.get(transactionIsolation);
-        }
-        if (null != versionValue) {
-          if (versionValue.toLowerCase().contains("mariadb")) {
-            dbEngine = "mariadb";
-          } else {
-            dbEngine = "mysql";
-          }
-          if (versionValue.contains("-")) {
-            String[] versions = versionValue.split("-");
-            productVersion = versions[0];
-          } else {
-            productVersion = versionValue;
-          }
-          String[] dbVersions = productVersion.split("\\.", 3);
-          majorVersion = dbVersions[0];
-          minorVersion = dbVersions[1];
-        }
-        this.dbProperties = new DBProperties(productVersion, majorVersion, minorVersion,
-            isolationLevel, lowerCaseTables);
+      }
+      snapshot = DBPropertiesCache.fromVariables(dbVariables);
+      if (null != cache) {
+        cache.set(snapshot);
       }
     }
-    return dbEngine;
+    this.dbProperties = snapshot.getDbProperties();
+    return snapshot.getDbEngine();
   }
 
+  /**
+   * Returns the properties of the database, as last refreshed for this connection's target, or
+   * null if they weren't loaded yet, see {@link #getMetaData()}.
+   */
   public DBProperties getDbProperties() {
-    return this.dbProperties;
+    DBPropertiesCache cache = getDbPropertiesCache();
+    DBPropertiesCache.Snapshot snapshot = null == cache ? null : cache.get(this);
+    return null == snapshot ? this.dbProperties : snapshot.getDbProperties();
+  }
+
+  private DBPropertiesCache getDbPropertiesCache() {
+    return null == vtGateConnections ? null : vtGateConnections.getDbPropertiesCache();
   }
 
   public Context createContext(long deadlineAfter) {
-    return CommonUtils.createContext(getUsername(), deadlineAfter);
+    return CommonUtils.createContext(getUsername(), deadlineAfter)
+        .withStreamPrefetch(Ints.saturatedCast(getStreamPrefetchResults()),
+            getStreamPrefetchBytes());
   }
 
 }
@@ -0,0 +1,323 @@
+/*
+ * Copyright 2019 The Vitess Authors.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vitess.jdbc;
+
+import io.vitess.util.Constants;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.ConnectionEvent;
+import javax.sql.ConnectionEventListener;
+import javax.sql.ConnectionPoolDataSource;
+import javax.sql.DataSource;
+import javax.sql.PooledConnection;
+
+/**
+ * A {@link DataSource} which pools {@link VitessConnection}s, and a {@link
+ * ConnectionPoolDataSource} for the application server's pool to use instead.
+ *
+ * <p>{@link #getConnection()} hands out the most recently returned idle connection, or opens a
+ * new one if there are fewer than {@link #setMaxPoolSize(int) maxPoolSize}, or else waits for one
+ * to be returned for up to {@link #setLoginTimeout(int) loginTimeout} seconds. Taking and
+ * returning a connection only takes a CAS in the common case.
+ *
+ * <p>Closing a connection resets it for its next user, see {@link VitessPooledConnection}. The
+ * connections share their channels to VTGate, which reconnect on their own, so idle connections
+ * aren't validated when they are taken from the pool.
+ *
+ * <p>The settings must be made before the first connection is taken.
+ */
+public class VitessDataSource implements DataSource, ConnectionPoolDataSource, Closeable {
+
+  private static final Logger logger = LogManager.getLogger(VitessDataSource.class);
+  private static final int DEFAULT_MAX_POOL_SIZE = 10;
+
+  private String url;
+  private final Properties properties = new Properties();
+  private int maxPoolSize = DEFAULT_MAX_POOL_SIZE;
+  private volatile int loginTimeout;
+  private volatile PrintWriter logWriter;
+  private volatile Pool pool;
+  private volatile boolean closed;
+
+  /**
+   * Sets the JDBC URL of the connections, as accepted by {@link VitessDriver}.
+   */
+  public void setUrl(String url) {
+    this.url = url;
+  }
+
+  public String getUrl() {
+    return url;
+  }
+
+  /**
+   * Sets a connection property, as it would be passed to {@link VitessDriver#connect(String,
+   * Properties)}.
+   */
+  public void setProperty(String name, String value) {
+    properties.setProperty(name, value);
+  }
+
+  /**
+   * Sets the user the queries are executed as, like the {@code userName} property.
+   */
+  public void setUser(String user) {
+    setProperty(Constants.Property.USERNAME, user);
+  }
+
+  /**
+   * Sets how many connections the pool opens at most, 10 by default.
+   */
+  public void setMaxPoolSize(int maxPoolSize) {
+    if (maxPoolSize < 1) {
+      throw new IllegalArgumentException("maxPoolSize must be at least 1: " + maxPoolSize);
+    }
+    this.maxPoolSize = maxPoolSize;
+  }
+
+  public int getMaxPoolSize() {
+    return maxPoolSize;
+  }
+
+  /**
+   * Returns a pooled connection; closing it returns it to the pool.
+   */
+  @Override
+  public Connection getConnection() throws SQLException {
+    return getPool().take();
+  }
+
+  /**
+   * Returns a connection as another user, which isn't pooled.
+   */
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    checkOpen();
+    return openConnection(username);
+  }
+
+  /**
+   * Returns a new pooled connection, which isn't part of this data source's pool, for another
+   * connection pool to manage.
+   */
+  @Override
+  public PooledConnection getPooledConnection() throws SQLException {
+    checkOpen();
+    return new VitessPooledConnection(openConnection(null));
+  }
+
+  @Override
+  public PooledConnection getPooledConnection(String user, String password) throws SQLException {
+    checkOpen();
+    return new VitessPooledConnection(openConnection(user));
+  }
+
+  /**
+   * Closes the idle connections, and stops handing out connections. The connections in use are
+   * closed when they are returned.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    Pool current = pool;
+    if (current != null) {
+      current.closeIdle();
+    }
+  }
+
+  public boolean isClosed() {
+    return closed;
+  }
+
+  @Override
+  public PrintWriter getLogWriter() {
+    return logWriter;
+  }
+
+  @Override
+  public void setLogWriter(PrintWriter out) {
+    logWriter = out;
+  }
+
+  /**
+   * Sets for how long {@link #getConnection()} waits for a connection when the pool is
+   * exhausted, in seconds, or 0 for the default of 30 seconds.
+   */
+  @Override
+  public void setLoginTimeout(int seconds) {
+    loginTimeout = seconds;
+  }
+
+  @Override
+  public int getLoginTimeout() {
+    return loginTimeout;
+  }
+
+  @Override
+  public java.util.logging.Logger getParentLogger() throws SQLFeatureNotSupportedException {
+    throw new SQLFeatureNotSupportedException(
+        Constants.SQLExceptionMessages.SQL_FEATURE_NOT_SUPPORTED);
+  }
+
+  @Override
+  public <T> T unwrap(Class<T> iface) throws SQLException {
+    try {
+      return iface.cast(this);
+    } catch (ClassCastException ccexc) {
+      throw new SQLException(Constants.SQLExceptionMessages.CLASS_CAST_EXCEPTION + iface.toString(),
+          ccexc);
+    }
+  }
+
+  @Override
+  public boolean isWrapperFor(Class<?> iface) {
+    return iface.isInstance(this);
+  }
+
+  private void checkOpen() throws SQLException {
+    if (closed) {
+      throw new SQLException(Constants.SQLExceptionMessages.DATA_SOURCE_CLOSED);
+    }
+  }
+
+  private Pool getPool() throws SQLException {
+    checkOpen();
+    Pool result = pool;
+    if (result == null) {
+      synchronized (this) {
+        result = pool;
+        if (result == null) {
+          result = new Pool(maxPoolSize);
+          pool = result;
+        }
+      }
+    }
+    return result;
+  }
+
+  private VitessConnection openConnection(String user) throws SQLException {
+    if (url == null) {
+      throw new SQLException(Constants.SQLExceptionMessages.INVALID_CONN_URL + " : " + url);
+    }
+    Properties info = new Properties();
+    info.putAll(properties);
+    if (user != null) {
+      info.setProperty(Constants.Property.USERNAME, user);
+    }
+    VitessConnection connection = new VitessConnection(url, info);
+    connection.connect();
+    return connection;
+  }
+
+  /**
+   * The idle connections, most recently returned first so that the same few stay warm, and a
+   * permit for each connection that may still be opened or handed out.
+   */
+  private class Pool implements ConnectionEventListener {
+
+    private final ConcurrentLinkedDeque<VitessPooledConnection> idle =
+        new ConcurrentLinkedDeque<>();
+    private final Semaphore permits;
+
+    Pool(int maxSize) {
+      permits = new Semaphore(maxSize);
+    }
+
+    Connection take() throws SQLException {
+      acquire();
+      try {
+        VitessPooledConnection pooled = idle.pollFirst();
+        while (pooled != null && pooled.getPhysicalConnection().isClosed()) {
+          pooled = idle.pollFirst();
+        }
+        if (pooled == null) {
+          pooled = new VitessPooledConnection(openConnection(null));
+          pooled.addConnectionEventListener(this);
+        }
+        return pooled.getConnection();
+      } catch (SQLException | RuntimeException exc) {
+        permits.release();
+        throw exc;
+      }
+    }
+
+    private void acquire() throws SQLException {
+      if (permits.tryAcquire()) {
+        return;
+      }
+      long timeoutMillis = loginTimeout > 0 ? TimeUnit.SECONDS.toMillis(loginTimeout)
+          : Constants.DEFAULT_TIMEOUT;
+      try {
+        if (permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+          return;
+        }
+      } catch (InterruptedException exc) {
+        Thread.currentThread().interrupt();
+        throw new SQLException(Constants.SQLExceptionMessages.CONN_UNAVAILABLE, exc);
+      }
+      throw new SQLTransientConnectionException(Constants.SQLExceptionMessages.CONN_UNAVAILABLE
+          + ": all " + maxPoolSize + " connections are in use");
+    }
+
+    @Override
+    public void connectionClosed(ConnectionEvent event) {
+      VitessPooledConnection pooled = (VitessPooledConnection) event.getSource();
+      idle.offerFirst(pooled);
+      // Close it if the data source was closed meanwhile, unless someone else took it already.
+      if (closed && idle.remove(pooled)) {
+        closeQuietly(pooled);
+      }
+      permits.release();
+    }
+
+    @Override
+    public void connectionErrorOccurred(ConnectionEvent event) {
+      VitessPooledConnection pooled = (VitessPooledConnection) event.getSource();
+      logger.warn("discarding pooled connection that failed to reset", event.getSQLException());
+      closeQuietly(pooled);
+      permits.release();
+    }
+
+    void closeIdle() {
+      for (VitessPooledConnection pooled = idle.pollFirst(); pooled != null;
+          pooled = idle.pollFirst()) {
+        closeQuietly(pooled);
+      }
+    }
+
+    private void closeQuietly(VitessPooledConnection pooled) {
+      try {
+        pooled.close();
+      } catch (SQLException exc) {
+        logger.warn("error closing pooled connection", exc);
+      }
+    }
+  }
+}
@@ -18,6 +18,7 @@ package io.vitess.jdbc;
 
 import com.google.common.annotations.VisibleForTesting;
 
+import io.vitess.client.cursor.SimpleCursor;
 import io.vitess.proto.Query;
 import io.vitess.util.Constants;
 import io.vitess.util.MysqlDefs;
@@ -35,12 +36,14 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.SortedMap;
 import java.util.StringTokenizer;
 import java.util.TreeMap;
+import java.util.regex.Pattern;
 
 /**
  * Created by ashudeep.sharma on 15/02/16.
@@ -49,6 +52,10 @@ public class VitessMySQLDatabaseMetadata extends VitessDatabaseMetaData implemen
     DatabaseMetaData {
 
   private static final String DRIVER_NAME = "Vitess MySQL JDBC Driver";
+  /*
+  Any fetch size makes the statements of bulk mode stream their query outside of a transaction
+  */
+  private static final int BULK_FETCH_SIZE = 1000;
   private static String mysqlKeywordsThatArentSQL92;
 
   static {
@@ -314,9 +321,15 @@ public class VitessMySQLDatabaseMetadata extends VitessDatabaseMetaData implemen
     ArrayList<ArrayList<String>> data = new ArrayList<>();
     try {
       vitessStatement = new VitessStatement(this.connection);
-      resultSet = vitessStatement.executeQuery(
-          "SHOW FULL TABLES FROM " + this.quotedId + catalog + this.quotedId + " LIKE \'"
-              + tableNamePattern + "\'");
+      if (getMetadataBulkFetch(this.connection)) {
+        resultSet = executeBulkQuery(this.connection, vitessStatement,
+            "SELECT TABLE_NAME, TABLE_TYPE FROM information_schema.TABLES WHERE TABLE_SCHEMA = "
+                + quoteLiteral(catalog), "TABLE_NAME", tableNamePattern, " ORDER BY TABLE_NAME");
+      } else {
+        resultSet = executeMetadataQuery(this.connection, vitessStatement,
+            "SHOW FULL TABLES FROM " + this.quotedId + catalog + this.quotedId + " LIKE \'"
+                + tableNamePattern + "\'");
+      }
 
       if (null == types || types.length == 0) {
         reportTables = reportViews = reportSystemTables = reportSystemViews =
@@ -464,7 +477,7 @@ public class VitessMySQLDatabaseMetadata extends VitessDatabaseMetaData implemen
     String getCatalogQB = "SHOW DATABASES";
 
     vitessStatement = new VitessStatement(this.connection);
-    resultSet = vitessStatement.executeQuery(getCatalogQB);
+    resultSet = executeMetadataQuery(this.connection, vitessStatement, getCatalogQB);
 
     ArrayList<String> row = new ArrayList<>();
     ArrayList<ArrayList<String>> data = new ArrayList<>();
@@ -509,7 +522,10 @@ public class VitessMySQLDatabaseMetadata extends VitessDatabaseMetaData implemen
     try {
       ArrayList<String> tableList = new ArrayList<>();
       ResultSet tables = null;
-      if (null == tableNamePattern) {
+      if (getMetadataBulkFetch(this.connection)) {
+        addColumnsInBulk(this.connection, data, vitessStatement, catalog,
+            null == tableNamePattern ? "%" : tableNamePattern, columnNamePattern);
+      } else if (null == tableNamePattern) {
         try {
           tables = getTables(catalog, schemaPattern, "%", new String[0]);
           while (tables.next()) {
@@ -547,7 +563,7 @@ public class VitessMySQLDatabaseMetadata extends VitessDatabaseMetaData implemen
           if (!columnNamePattern.equals("%")) {
             fixUpOrdinalsRequired = true;
             vitessStatement = new VitessStatement(this.connection);
-            resultSet = vitessStatement.executeQuery(
+            resultSet = executeMetadataQuery(this.connection, vitessStatement,
                 "SHOW FULL COLUMNS FROM " + this.quotedId + tableName + this.quotedId + " FROM "
                     + this.quotedId + catalog + this.quotedId);
             ordinalFixUpMap = new HashMap<>();
@@ -558,7 +574,7 @@ public class VitessMySQLDatabaseMetadata extends VitessDatabaseMetaData implemen
               ordinalFixUpMap.put(fullOrdColName, fullOrdinalPos++);
             }
           }
-          resultSet = vitessStatement.executeQuery(
+          resultSet = executeMetadataQuery(this.connection, vitessStatement,
               "SHOW FULL COLUMNS FROM " + this.quotedId + tableName + this.quotedId + " FROM "
                   + this.quotedId + catalog + this.quotedId + " LIKE "
                   + Constants.LITERAL_SINGLE_QUOTE + columnNamePattern
@@ -566,93 +582,22 @@ public class VitessMySQLDatabaseMetadata extends VitessDatabaseMetaData implemen
           int ordPos = 1;
 
           while (resultSet.next()) {
-            ArrayList<String> row = new ArrayList<>();
-            row.add(0, catalog);
-            row.add(1, null);
-            row.add(2, tableName);
-            row.add(3, resultSet.getString("Field"));
-            TypeDescriptor typeDesc = new TypeDescriptor(resultSet.getString("Type"),
-                resultSet.getString("Null"));
-
-            row.add(4, Short.toString(typeDesc.dataType));
-
-            // DATA_TYPE (jdbc)
-            row.add(5, typeDesc.typeName); // TYPE_NAME
-            // (native)
-            if (null == typeDesc.columnSize) {
-              row.add(6, null);
-            } else {
-              String collation = resultSet.getString("Collation");
-              int mbminlen = 1;
-              if (collation != null && ("TEXT".equals(typeDesc.typeName) || "TINYTEXT"
-                  .equals(typeDesc.typeName) || "MEDIUMTEXT".equals(typeDesc.typeName))) {
-                if (collation.indexOf("ucs2") > -1 || collation.indexOf("utf16") > -1) {
-                  mbminlen = 2;
-                } else if (collation.indexOf("utf32") > -1) {
-                  mbminlen = 4;
-                }
-              }
-              row.add(6, mbminlen == 1 ? typeDesc.columnSize.toString()
-                  : Integer.toString(typeDesc.columnSize / mbminlen));
-            }
-            row.add(7, Integer.toString(typeDesc.bufferLength));
-            row.add(8, typeDesc.decimalDigits == null ? null : typeDesc.decimalDigits.toString());
-            row.add(9, Integer.toString(typeDesc.numPrecRadix));
-            row.add(10, Integer.toString(typeDesc.nullability));
-
-            //
-            // Doesn't always have this field, depending on version
-            //
-            //
-            // REMARK column
-            //
-            row.add(11, "Comment");
-
-            // COLUMN_DEF
-            row.add(12,
-                resultSet.getString("Default") == null ? null : resultSet.getString("Default"));
-
-            row.add(13, Integer.toString(0));// SQL_DATA_TYPE
-            row.add(14, Integer.toString(0));// SQL_DATE_TIME_SUB
-
-            if (StringUtils.indexOfIgnoreCase(typeDesc.typeName, "CHAR") != -1
-                || StringUtils.indexOfIgnoreCase(typeDesc.typeName, "BLOB") != -1
-                || StringUtils.indexOfIgnoreCase(typeDesc.typeName, "TEXT") != -1
-                || StringUtils.indexOfIgnoreCase(typeDesc.typeName, "BINARY") != -1) {
-              row.add(15, row.get(6)); // CHAR_OCTET_LENGTH
-            } else {
-              row.add(15, Integer.toString(0));
-            }
-
             // ORDINAL_POSITION
+            String ordinalPosition;
             if (!fixUpOrdinalsRequired) {
-              row.add(16, Integer.toString(ordPos++));
+              ordinalPosition = Integer.toString(ordPos++);
             } else {
               String origColName = resultSet.getString("Field");
               Integer realOrdinal = ordinalFixUpMap.get(origColName);
 
               if (realOrdinal != null) {
-                row.add(16, realOrdinal.toString());
+                ordinalPosition = realOrdinal.toString();
               } else {
                 throw new SQLException(
                     "Can not find column in full column list to determine true ordinal position.");
               }
             }
-
-            row.add(17, typeDesc.isNullable);
-
-            // We don't support REF or DISTINCT types
-            row.add(18, null);
-            row.add(19, null);
-            row.add(20, null);
-            row.add(21, null);
-            String extra = resultSet.getString("Extra");
-            if (null != extra) {
-              row.add(22,
-                  StringUtils.indexOfIgnoreCase(extra, "auto_increment") != -1 ? "YES" : "NO");
-              row.add(23, StringUtils.indexOfIgnoreCase(extra, "generated") != -1 ? "YES" : "NO");
-            }
-            data.add(row);
+            data.add(getColumnRow(catalog, tableName, resultSet, ordinalPosition));
           }
         } finally {
           if (null != resultSet) {
@@ -683,6 +628,114 @@ public class VitessMySQLDatabaseMetadata extends VitessDatabaseMetaData implemen
     return new VitessResultSet(columnNames, columnType, data, this.connection);
   }
 
+  /**
+   * Returns the row for getColumns of the column at the current row of {@code resultSet}, which
+   * has the columns of SHOW FULL COLUMNS.
+   */
+  private static ArrayList<String> getColumnRow(String catalog, String tableName,
+      ResultSet resultSet, String ordinalPosition) throws SQLException {
+    ArrayList<String> row = new ArrayList<>();
+    row.add(0, catalog);
+    row.add(1, null);
+    row.add(2, tableName);
+    row.add(3, resultSet.getString("Field"));
+    TypeDescriptor typeDesc = new TypeDescriptor(resultSet.getString("Type"),
+        resultSet.getString("Null"));
+
+    row.add(4, Short.toString(typeDesc.dataType));
+
+    // DATA_TYPE (jdbc)
+    row.add(5, typeDesc.typeName); // TYPE_NAME
+    // (native)
+    if (null == typeDesc.columnSize) {
+      row.add(6, null);
+    } else {
+      String collation = resultSet.getString("Collation");
+      int mbminlen = 1;
+      if (collation != null && ("TEXT".equals(typeDesc.typeName) || "TINYTEXT"
+          .equals(typeDesc.typeName) || "MEDIUMTEXT".equals(typeDesc.typeName))) {
+        if (collation.indexOf("ucs2") > -1 || collation.indexOf("utf16") > -1) {
+          mbminlen = 2;
+        } else if (collation.indexOf("utf32") > -1) {
+          mbminlen = 4;
+        }
+      }
+      row.add(6, mbminlen == 1 ? typeDesc.columnSize.toString()
+          : Integer.toString(typeDesc.columnSize / mbminlen));
+    }
+    row.add(7, Integer.toString(typeDesc.bufferLength));
+    row.add(8, typeDesc.decimalDigits == null ? null : typeDesc.decimalDigits.toString());
+    row.add(9, Integer.toString(typeDesc.numPrecRadix));
+    row.add(10, Integer.toString(typeDesc.nullability));
+
+    //
+    // Doesn't always have this field, depending on version
+    //
+    //
+    // REMARK column
+    //
+    row.add(11, "Comment");
+
+    // COLUMN_DEF
+    row.add(12,
+        resultSet.getString("Default") == null ? null : resultSet.getString("Default"));
+
+    row.add(13, Integer.toString(0));// SQL_DATA_TYPE
+    row.add(14, Integer.toString(0));// SQL_DATE_TIME_SUB
+
+    if (StringUtils.indexOfIgnoreCase(typeDesc.typeName, "CHAR") != -1
+        || StringUtils.indexOfIgnoreCase(typeDesc.typeName, "BLOB") != -1
+        || StringUtils.indexOfIgnoreCase(typeDesc.typeName, "TEXT") != -1
+        || StringUtils.indexOfIgnoreCase(typeDesc.typeName, "BINARY") != -1) {
+      row.add(15, row.get(6)); // CHAR_OCTET_LENGTH
+    } else {
+      row.add(15, Integer.toString(0));
+    }
+
+    row.add(16, ordinalPosition); // ORDINAL_POSITION
+
+    row.add(17, typeDesc.isNullable);
+
+    // We don't support REF or DISTINCT types
+    row.add(18, null);
+    row.add(19, null);
+    row.add(20, null);
+    row.add(21, null);
+    String extra = resultSet.getString("Extra");
+    if (null != extra) {
+      row.add(22,
+          StringUtils.indexOfIgnoreCase(extra, "auto_increment") != -1 ? "YES" : "NO");
+      row.add(23, StringUtils.indexOfIgnoreCase(extra, "generated") != -1 ? "YES" : "NO");
+    }
+    return row;
+  }
+
+  /**
+   * Adds the rows for getColumns in bulk mode, read from information_schema.COLUMNS.
+   */
+  private static void addColumnsInBulk(VitessConnection connection,
+      List<ArrayList<String>> data, VitessStatement vitessStatement, String catalog,
+      String tableNamePattern, String columnNamePattern) throws SQLException {
+    Pattern columnNameRegex = "%".equals(columnNamePattern) ? null : likeRegex(columnNamePattern);
+    ResultSet resultSet = executeBulkQuery(connection, vitessStatement,
+        "SELECT TABLE_NAME, COLUMN_NAME AS Field, COLUMN_TYPE AS Type, IS_NULLABLE AS `Null`, "
+            + "COLLATION_NAME AS Collation, COLUMN_DEFAULT AS `Default`, EXTRA AS Extra, "
+            + "ORDINAL_POSITION FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = "
+            + quoteLiteral(catalog), "TABLE_NAME", tableNamePattern,
+        " ORDER BY TABLE_NAME, ORDINAL_POSITION");
+    try {
+      while (resultSet.next()) {
+        if (null == columnNameRegex
+            || columnNameRegex.matcher(resultSet.getString("Field")).matches()) {
+          data.add(getColumnRow(catalog, resultSet.getString(1), resultSet,
+              resultSet.getString("ORDINAL_POSITION")));
+        }
+      }
+    } finally {
+      resultSet.close();
+    }
+  }
+
   public ResultSet getColumnPrivileges(String catalog, String schema, String table,
       String columnNamePattern) throws SQLException {
     throw new SQLFeatureNotSupportedException(
@@ -714,7 +767,7 @@ public class VitessMySQLDatabaseMetadata extends VitessDatabaseMetaData implemen
     ArrayList<ArrayList<String>> data = new ArrayList<>();
 
     try {
-      resultSet = vitessStatement.executeQuery(
+      resultSet = executeMetadataQuery(this.connection, vitessStatement,
           "SHOW COLUMNS FROM " + this.quotedId + table + this.quotedId + "" + " FROM "
               + this.quotedId + catalog + this.quotedId);
 
@@ -791,7 +844,8 @@ public class VitessMySQLDatabaseMetadata extends VitessDatabaseMetaData implemen
 
     try {
       vitessStatement = new VitessStatement(this.connection);
-      resultSet = vitessStatement.executeQuery(getVersionColumnsQB.toString());
+      resultSet = executeMetadataQuery(this.connection, vitessStatement,
+          getVersionColumnsQB.toString());
       ArrayList<String> row;
       while (resultSet.next()) {
         row = new ArrayList<>();
@@ -832,9 +886,13 @@ public class VitessMySQLDatabaseMetadata extends VitessDatabaseMetaData implemen
     ArrayList<ArrayList<String>> sortedData = new ArrayList<>();
     try {
 
-      resultSet = vitessStatement.executeQuery(
-          "SHOW KEYS FROM " + this.quotedId + table + this.quotedId + " " + "FROM " + this.quotedId
-              + catalog + this.quotedId);
+      if (getMetadataBulkFetch(this.connection)) {
+        resultSet = executeBulkIndexQuery(this.connection, vitessStatement, catalog, table);
+      } else {
+        resultSet = executeMetadataQuery(this.connection, vitessStatement,
+            "SHOW KEYS FROM " + this.quotedId + table + this.quotedId + " " + "FROM "
+                + this.quotedId + catalog + this.quotedId);
+      }
 
       TreeMap<String, ArrayList<String>> sortMap = new TreeMap<>();
 
@@ -884,10 +942,14 @@ public class VitessMySQLDatabaseMetadata extends VitessDatabaseMetaData implemen
     VitessStatement vitessStatement = new VitessStatement(this.connection);
     ArrayList<ArrayList<String>> rows = new ArrayList<>();
     try {
-      resultSet = vitessStatement
-          .executeQuery("SHOW CREATE TABLE " + this.quotedId + table + this.quotedId);
-      while (resultSet.next()) {
-        extractForeignKeyForTable(rows, resultSet.getString(2), catalog, table);
+      if (getMetadataBulkFetch(this.connection)) {
+        addImportedKeysInBulk(this.connection, rows, vitessStatement, catalog, table);
+      } else {
+        resultSet = executeMetadataQuery(this.connection, vitessStatement,
+            "SHOW CREATE TABLE " + this.quotedId + table + this.quotedId);
+        while (resultSet.next()) {
+          extractForeignKeyForTable(rows, resultSet.getString(2), catalog, table);
+        }
       }
     } finally {
       if (resultSet != null) {
@@ -904,6 +966,56 @@ public class VitessMySQLDatabaseMetadata extends VitessDatabaseMetaData implemen
     return new VitessResultSet(columnNames, columnType, rows, this.connection);
   }
 
+  /**
+   * Adds the rows for getImportedKeys in bulk mode, read from information_schema instead of
+   * parsed from SHOW CREATE TABLE.
+   */
+  private static void addImportedKeysInBulk(VitessConnection connection,
+      List<ArrayList<String>> rows, VitessStatement vitessStatement, String catalog,
+      String table) throws SQLException {
+    if (null == catalog || catalog.length() == 0) {
+      catalog = connection.getCatalog();
+    }
+    ResultSet resultSet = executeBulkQuery(connection, vitessStatement,
+        "SELECT k.TABLE_NAME, k.TABLE_SCHEMA, k.CONSTRAINT_NAME, k.COLUMN_NAME, "
+            + "k.ORDINAL_POSITION, k.REFERENCED_TABLE_SCHEMA, k.REFERENCED_TABLE_NAME, "
+            + "k.REFERENCED_COLUMN_NAME, r.UPDATE_RULE, r.DELETE_RULE "
+            + "FROM information_schema.KEY_COLUMN_USAGE k "
+            + "JOIN information_schema.REFERENTIAL_CONSTRAINTS r "
+            + "ON r.CONSTRAINT_SCHEMA = k.CONSTRAINT_SCHEMA AND r.TABLE_NAME = k.TABLE_NAME "
+            + "AND r.CONSTRAINT_NAME = k.CONSTRAINT_NAME WHERE k.TABLE_SCHEMA = "
+            + quoteLiteral(catalog) + " AND k.REFERENCED_TABLE_NAME IS NOT NULL", "k.TABLE_NAME",
+        escapeLike(table), " ORDER BY k.TABLE_NAME, k.CONSTRAINT_NAME, k.ORDINAL_POSITION");
+    try {
+      while (resultSet.next()) {
+        // VTGate may report the schema of the tablets' database rather than the keyspace
+        String referencedCatalog = resultSet.getString("REFERENCED_TABLE_SCHEMA");
+        if (resultSet.getString("TABLE_SCHEMA").equals(referencedCatalog)) {
+          referencedCatalog = catalog;
+        }
+        ArrayList<String> row = new ArrayList<>(14);
+        row.add(referencedCatalog); // PKTABLE_CAT
+        row.add(null); // PKTABLE_SCHEM
+        row.add(resultSet.getString("REFERENCED_TABLE_NAME")); // PKTABLE_NAME
+        row.add(resultSet.getString("REFERENCED_COLUMN_NAME")); // PKCOLUMN_NAME
+        row.add(catalog); // FKTABLE_CAT
+        row.add(null); // FKTABLE_SCHEM
+        row.add(resultSet.getString(1)); // FKTABLE_NAME
+        row.add(resultSet.getString("COLUMN_NAME")); // FKCOLUMN_NAME
+        row.add(resultSet.getString("ORDINAL_POSITION")); // KEY_SEQ
+        row.add(Integer.toString(getForeignKeyRule(resultSet.getString("UPDATE_RULE"))));
+        row.add(Integer.toString(getForeignKeyRule(resultSet.getString("DELETE_RULE"))));
+        row.add(resultSet.getString("CONSTRAINT_NAME")); // FK_NAME
+        row.add(null); // PK_NAME
+        row.add(Integer
+            .toString(java.sql.DatabaseMetaData.importedKeyNotDeferrable)); // DEFERRABILITY
+        rows.add(row);
+      }
+    } finally {
+      resultSet.close();
+    }
+  }
+
   @VisibleForTesting
   void extractForeignKeyForTable(List<ArrayList<String>> rows, String createTableString,
       String catalog, String table) throws SQLException {
@@ -1089,6 +1201,169 @@ public class VitessMySQLDatabaseMetadata extends VitessDatabaseMetaData implemen
     return java.sql.DatabaseMetaData.importedKeyNoAction;
   }
 
+  /**
+   * Returns the DBMD constant that represents an UPDATE_RULE or DELETE_RULE of
+   * information_schema.REFERENTIAL_CONSTRAINTS
+   *
+   * @param rule the rule, such as 'CASCADE'
+   * @return the DBMD constant that represents the rule
+   */
+  private static int getForeignKeyRule(String rule) {
+    if ("CASCADE".equalsIgnoreCase(rule)) {
+      return java.sql.DatabaseMetaData.importedKeyCascade;
+    } else if ("SET NULL".equalsIgnoreCase(rule)) {
+      return java.sql.DatabaseMetaData.importedKeySetNull;
+    } else if ("SET DEFAULT".equalsIgnoreCase(rule)) {
+      return java.sql.DatabaseMetaData.importedKeySetDefault;
+    } else if ("RESTRICT".equalsIgnoreCase(rule)) {
+      return java.sql.DatabaseMetaData.importedKeyRestrict;
+    }
+    return java.sql.DatabaseMetaData.importedKeyNoAction;
+  }
+
+  /**
+   * Returns whether the connection fetches metadata in bulk, see {@link
+   * ConnectionProperties#getMetadataBulkFetch()}.
+   */
+  private static boolean getMetadataBulkFetch(VitessConnection connection) {
+    return null != connection && connection.getMetadataBulkFetch();
+  }
+
+  /**
+   * Executes a SHOW statement on {@code vitessStatement}, or returns its result from the metadata
+   * cache of the connection's target, if there is one.
+   */
+  private static ResultSet executeMetadataQuery(VitessConnection connection,
+      VitessStatement vitessStatement, String sql) throws SQLException {
+    MetadataCache cache = null == connection ? null : connection.getMetadataCache();
+    if (null == cache) {
+      return vitessStatement.executeQuery(sql);
+    }
+    long ttlMillis = connection.getMetadataCacheTtlMillis();
+    String key = MetadataCache.key(connection.getCatalog(), sql);
+    Query.QueryResult result = cache.get(key, ttlMillis);
+    if (null == result) {
+      long version = cache.getVersion();
+      VitessResultSet resultSet = (VitessResultSet) vitessStatement.executeQuery(sql);
+      try {
+        result = resultSet.readRemaining();
+      } finally {
+        resultSet.close();
+      }
+      cache.put(key, version, result, ttlMillis);
+    }
+    return new VitessResultSet(new SimpleCursor(result), vitessStatement);
+  }
+
+  /**
+   * Runs {@code sql}, a query of information_schema for bulk mode, whose first column is the
+   * table name and which ends with its WHERE clause, for the tables matching {@code
+   * tableNamePattern}. The query is streamed.
+   *
+   * <p>If the connection caches metadata, the query covers the whole keyspace instead, and its
+   * rows are cached by table, so that the calls for single tables take one round trip per
+   * keyspace rather than one per table.
+   *
+   * @param tableColumn the table name column, for the condition on the table
+   */
+  private static ResultSet executeBulkQuery(VitessConnection connection,
+      VitessStatement vitessStatement, String sql, String tableColumn, String tableNamePattern,
+      String orderBy) throws SQLException {
+    vitessStatement.setFetchSize(BULK_FETCH_SIZE);
+    MetadataCache cache = connection.getMetadataCache();
+    if (null == cache) {
+      return vitessStatement.executeQuery(
+          sql + " AND " + tableColumn + " LIKE " + quoteLiteral(tableNamePattern) + orderBy);
+    }
+    long ttlMillis = connection.getMetadataCacheTtlMillis();
+    String keyspaceSql = sql + orderBy;
+    String key = MetadataCache.key(connection.getCatalog(), keyspaceSql);
+    RowsByTable rows = cache.get(key, ttlMillis);
+    if (null == rows) {
+      long version = cache.getVersion();
+      VitessResultSet resultSet = (VitessResultSet) vitessStatement.executeQuery(keyspaceSql);
+      try {
+        rows = new RowsByTable(resultSet.readRemaining());
+      } finally {
+        resultSet.close();
+      }
+      cache.put(key, version, rows, ttlMillis);
+    }
+    return new VitessResultSet(new SimpleCursor(rows.select(tableNamePattern)), vitessStatement);
+  }
+
+  /**
+   * Runs the query of information_schema.STATISTICS for getPrimaryKeys and getIndexInfo in bulk
+   * mode, whose columns are named like those of SHOW INDEX.
+   */
+  private static ResultSet executeBulkIndexQuery(VitessConnection connection,
+      VitessStatement vitessStatement, String catalog, String table) throws SQLException {
+    if (null == catalog || catalog.length() == 0) {
+      catalog = connection.getCatalog();
+    }
+    return executeBulkQuery(connection, vitessStatement,
+        "SELECT TABLE_NAME AS `Table`, NON_UNIQUE AS Non_unique, INDEX_NAME AS Key_name, "
+            + "SEQ_IN_INDEX AS Seq_in_index, COLUMN_NAME AS Column_name, COLLATION AS Collation, "
+            + "CARDINALITY AS Cardinality FROM information_schema.STATISTICS WHERE TABLE_SCHEMA = "
+            + quoteLiteral(catalog), "TABLE_NAME", escapeLike(table),
+        " ORDER BY TABLE_NAME, INDEX_NAME, SEQ_IN_INDEX");
+  }
+
+  /**
+   * Returns {@code value} as a string literal.
+   */
+  private static String quoteLiteral(String value) {
+    return Constants.LITERAL_SINGLE_QUOTE + value.replace("\\", "\\\\").replace("'", "''")
+        + Constants.LITERAL_SINGLE_QUOTE;
+  }
+
+  /**
+   * Returns a LIKE pattern that only matches {@code name}.
+   */
+  private static String escapeLike(String name) {
+    return name.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+  }
+
+  /**
+   * Returns the name a LIKE pattern matches, or null if it has wildcards.
+   */
+  private static String likeLiteral(String pattern) {
+    StringBuilder literal = new StringBuilder(pattern.length());
+    for (int i = 0; i < pattern.length(); i++) {
+      char c = pattern.charAt(i);
+      if (c == '%' || c == '_') {
+        return null;
+      }
+      if (c == '\\' && i + 1 < pattern.length()) {
+        c = pattern.charAt(++i);
+      }
+      literal.append(c);
+    }
+    return literal.toString();
+  }
+
+  /**
+   * Returns a regular expression that matches what a LIKE pattern matches, ignoring case.
+   */
+  private static Pattern likeRegex(String pattern) {
+    StringBuilder regex = new StringBuilder(pattern.length() + 8);
+    for (int i = 0; i < pattern.length(); i++) {
+      char c = pattern.charAt(i);
+      if (c == '%') {
+        regex.append(".*");
+      } else if (c == '_') {
+        regex.append('.');
+      } else {
+        if (c == '\\' && i + 1 < pattern.length()) {
+          c = pattern.charAt(++i);
+        }
+        regex.append(Pattern.quote(String.valueOf(c)));
+      }
+    }
+    return Pattern.compile(regex.toString(),
+        Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE | Pattern.DOTALL);
+  }
+
   public ResultSet getExportedKeys(String catalog, String schema, String table)
       throws SQLException {
     throw new SQLFeatureNotSupportedException(
@@ -1206,9 +1481,13 @@ public class VitessMySQLDatabaseMetadata extends VitessDatabaseMetaData implemen
     VitessStatement vitessStatement = new VitessStatement(this.connection);
     ResultSet resultSet = null;
     try {
-      resultSet = vitessStatement.executeQuery(
-          "SHOW INDEX FROM " + this.quotedId + table + this.quotedId + " " + "FROM " + this.quotedId
-              + catalog + this.quotedId);
+      if (getMetadataBulkFetch(this.connection)) {
+        resultSet = executeBulkIndexQuery(this.connection, vitessStatement, catalog, table);
+      } else {
+        resultSet = executeMetadataQuery(this.connection, vitessStatement,
+            "SHOW INDEX FROM " + this.quotedId + table + this.quotedId + " " + "FROM "
+                + this.quotedId + catalog + this.quotedId);
+      }
 
       while (resultSet.next()) {
         ArrayList<String> row = new ArrayList<>();
@@ -1391,6 +1670,58 @@ public class VitessMySQLDatabaseMetadata extends VitessDatabaseMetaData implemen
     return false;
   }
 
+  /**
+   * The rows of a keyspace-wide information_schema query in bulk mode, by the table in their
+   * first column, in the order of the query. Tables are told apart ignoring case, like the LIKE
+   * of the query they stand in for.
+   */
+  private static final class RowsByTable {
+
+    private final Query.QueryResult empty;
+    private final Map<String, Query.QueryResult> tables = new LinkedHashMap<>();
+
+    RowsByTable(Query.QueryResult result) {
+      this.empty = Query.QueryResult.newBuilder().addAllFields(result.getFieldsList()).build();
+      Map<String, Query.QueryResult.Builder> builders = new LinkedHashMap<>();
+      for (Query.Row row : result.getRowsList()) {
+        int length = (int) row.getLengths(0);
+        if (length < 0) {
+          continue;
+        }
+        String table = row.getValues().substring(0, length).toStringUtf8()
+            .toLowerCase(Locale.ROOT);
+        Query.QueryResult.Builder builder = builders.get(table);
+        if (null == builder) {
+          builder = this.empty.toBuilder();
+          builders.put(table, builder);
+        }
+        builder.addRows(row);
+      }
+      for (Map.Entry<String, Query.QueryResult.Builder> entry : builders.entrySet()) {
+        this.tables.put(entry.getKey(), entry.getValue().build());
+      }
+    }
+
+    /**
+     * Returns the rows of the tables matching {@code tableNamePattern}.
+     */
+    Query.QueryResult select(String tableNamePattern) {
+      String table = likeLiteral(tableNamePattern);
+      if (null != table) {
+        Query.QueryResult result = this.tables.get(table.toLowerCase(Locale.ROOT));
+        return null == result ? this.empty : result;
+      }
+      Pattern regex = likeRegex(tableNamePattern);
+      Query.QueryResult.Builder result = this.empty.toBuilder();
+      for (Map.Entry<String, Query.QueryResult> entry : this.tables.entrySet()) {
+        if (regex.matcher(entry.getKey()).matches()) {
+          result.addAllRows(entry.getValue().getRowsList());
+        }
+      }
+      return result.build();
+    }
+  }
+
   /**
    * Enumeration for Table Types
    */
@@ -1559,7 +1890,7 @@ public class VitessMySQLDatabaseMetadata extends VitessDatabaseMetaData implemen
   /**
    * Parses and represents common data type information used by various column/parameter methods.
    */
-  class TypeDescriptor {
+  static class TypeDescriptor {
 
     int bufferLength;
 
@@ -0,0 +1,230 @@
+/*
+ * Copyright 2019 The Vitess Authors.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vitess.jdbc;
+
+import io.vitess.util.Constants;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.sql.ConnectionEvent;
+import javax.sql.ConnectionEventListener;
+import javax.sql.PooledConnection;
+import javax.sql.StatementEventListener;
+
+/**
+ * A {@link VitessConnection} that can be handed out many times, as returned by {@link
+ * VitessDataSource#getPooledConnection()}.
+ *
+ * <p>Closing a connection returned by {@link #getConnection()} doesn't close the physical
+ * connection, but resets it, see {@link VitessConnection#reset()}, and notifies the listeners
+ * that it can be reused. The VTSession and the channels to VTGate are kept. If the reset fails,
+ * the listeners are told about the error instead, and should close this pooled connection.
+ *
+ * <p>The statements, metadata and result sets obtained through a logical connection lead back
+ * to it rather than to the physical connection, e.g. by {@link Statement#getConnection()}, so
+ * that the application can't close or keep using the physical connection after it was returned.
+ *
+ * <p>Statements aren't pooled, so no statement events are sent.
+ */
+public class VitessPooledConnection implements PooledConnection {
+
+  private final VitessConnection connection;
+  private final List<ConnectionEventListener> listeners = new CopyOnWriteArrayList<>();
+  private volatile Handle handle;
+
+  VitessPooledConnection(VitessConnection connection) {
+    this.connection = connection;
+  }
+
+  /**
+   * Returns a new logical connection to the physical connection. Any logical connection still
+   * open is closed first, without notifying the listeners.
+   */
+  @Override
+  public Connection getConnection() throws SQLException {
+    if (connection.isClosed()) {
+      throw new SQLException(Constants.SQLExceptionMessages.CONN_CLOSED);
+    }
+    Handle previous = handle;
+    if (previous != null && previous.closed.compareAndSet(false, true)) {
+      connection.reset();
+    }
+    Handle current = new Handle();
+    handle = current;
+    return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+        new Class<?>[]{Connection.class}, current);
+  }
+
+  @Override
+  public void close() throws SQLException {
+    Handle current = handle;
+    if (current != null) {
+      current.closed.set(true);
+    }
+    connection.close();
+  }
+
+  @Override
+  public void addConnectionEventListener(ConnectionEventListener listener) {
+    listeners.add(listener);
+  }
+
+  @Override
+  public void removeConnectionEventListener(ConnectionEventListener listener) {
+    listeners.remove(listener);
+  }
+
+  @Override
+  public void addStatementEventListener(StatementEventListener listener) {
+  }
+
+  @Override
+  public void removeStatementEventListener(StatementEventListener listener) {
+  }
+
+  VitessConnection getPhysicalConnection() {
+    return connection;
+  }
+
+  private void logicalClose(Handle closing) {
+    if (!closing.closed.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      connection.reset();
+    } catch (SQLException exc) {
+      ConnectionEvent event = new ConnectionEvent(this, exc);
+      for (ConnectionEventListener listener : listeners) {
+        listener.connectionErrorOccurred(event);
+      }
+      return;
+    }
+    ConnectionEvent event = new ConnectionEvent(this);
+    for (ConnectionEventListener listener : listeners) {
+      listener.connectionClosed(event);
+    }
+  }
+
+  /**
+   * A logical connection, which forwards to the physical one until it's closed.
+   */
+  private class Handle implements InvocationHandler {
+
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      switch (method.getName()) {
+        case "close":
+          logicalClose(this);
+          return null;
+        case "isClosed":
+          return closed.get() || connection.isClosed();
+        case "isValid":
+          if (closed.get()) {
+            return false;
+          }
+          break;
+        case "equals":
+          return proxy == args[0];
+        case "hashCode":
+          return System.identityHashCode(proxy);
+        case "toString":
+          return "VitessPooledConnection.Handle{closed=" + closed.get() + ", connection="
+              + connection + "}";
+        default:
+          if (closed.get()) {
+            throw new SQLException(Constants.SQLExceptionMessages.CONN_CLOSED);
+          }
+      }
+      return wrap(invokeOn(connection, method, args), method.getReturnType(), proxy, null);
+    }
+  }
+
+  /**
+   * A statement, metadata or result set obtained through a logical connection, which returns
+   * that connection, and the statement it came from, instead of the physical ones.
+   */
+  private static class Child implements InvocationHandler {
+
+    private final Object target;
+    private final Object logicalConnection;
+    private final Object parent;
+
+    Child(Object target, Object logicalConnection, Object parent) {
+      this.target = target;
+      this.logicalConnection = logicalConnection;
+      this.parent = parent;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      switch (method.getName()) {
+        case "getConnection":
+          return logicalConnection;
+        case "getStatement":
+          if (parent instanceof Statement) {
+            return parent;
+          }
+          break;
+        case "equals":
+          return proxy == args[0];
+        case "hashCode":
+          return System.identityHashCode(proxy);
+        case "toString":
+          return target.toString();
+        default:
+          break;
+      }
+      return wrap(invokeOn(target, method, args), method.getReturnType(), logicalConnection,
+          proxy);
+    }
+  }
+
+  private static Object invokeOn(Object target, Method method, Object[] args) throws Throwable {
+    try {
+      return method.invoke(target, args);
+    } catch (InvocationTargetException exc) {
+      throw exc.getCause();
+    }
+  }
+
+  /**
+   * Returns {@code result} of a call on the logical connection or one of its children, wrapped
+   * in a {@link Child} if it's a statement, metadata or result set.
+   */
+  private static Object wrap(Object result, Class<?> type, Object logicalConnection,
+      Object parent) {
+    if (null == result || !type.isInterface() || !(result instanceof Statement
+        || result instanceof DatabaseMetaData || result instanceof ResultSet)) {
+      return result;
+    }
+    return Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{type},
+        new Child(result, logicalConnection, parent));
+  }
+}
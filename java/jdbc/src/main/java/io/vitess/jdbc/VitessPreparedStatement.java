@@ -17,10 +17,14 @@
 package io.vitess.jdbc;
 
 import io.vitess.client.Context;
+import io.vitess.client.Proto;
+import io.vitess.client.SQLFuture;
 import io.vitess.client.VTGateConnection;
 import io.vitess.client.cursor.Cursor;
 import io.vitess.client.cursor.CursorWithError;
 import io.vitess.mysql.DateTime;
+import io.vitess.proto.Query;
+import io.vitess.proto.Vtrpc;
 import io.vitess.util.Constants;
 import io.vitess.util.StringUtils;
 
@@ -30,6 +34,7 @@ import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.net.URL;
 import java.sql.Array;
+import java.sql.BatchUpdateException;
 import java.sql.Blob;
 import java.sql.Clob;
 import java.sql.Date;
@@ -51,6 +56,7 @@ import java.text.DateFormat;
 import java.text.ParsePosition;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.HashMap;
 import java.util.List;
@@ -75,6 +81,12 @@ public class VitessPreparedStatement extends VitessStatement implements Prepared
    */
   private final List<Map<String, ?>> batchedArgs;
   private VitessParameterMetaData parameterMetadata;
+  /**
+   * What the connection's cache knows about {@link #sql}, or null if caching is off.
+   */
+  private final PreparedStatementCache.CachedStatement cachedStatement;
+  private BatchedInsertRewriter batchedInsertRewriter;
+  private boolean batchedInsertRewriterParsed;
 
   public VitessPreparedStatement(VitessConnection vitessConnection, String sql)
       throws SQLException {
@@ -101,6 +113,8 @@ public class VitessPreparedStatement extends VitessStatement implements Prepared
     this.generatedId = -1;
     this.retrieveGeneratedKeys = (autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS);
     this.batchedArgs = new ArrayList<>();
+    PreparedStatementCache cache = vitessConnection.getPreparedStatementCache();
+    this.cachedStatement = cache == null ? null : cache.get(sql);
   }
 
   public ResultSet executeQuery() throws SQLException {
@@ -113,24 +127,27 @@ public class VitessPreparedStatement extends VitessStatement implements Prepared
     VTGateConnection vtGateConn = this.vitessConnection.getVtGateConn();
 
     Cursor cursor;
+    ExecutionStats stats;
     try {
       if (vitessConnection.isSimpleExecute() && this.fetchSize == 0) {
         checkAndBeginTransaction();
         Context context = this.vitessConnection.createContext(this.queryTimeoutInMillis);
-        cursor = vtGateConn
-            .execute(context, this.sql, this.bindVariables, vitessConnection.getVtSession())
-            .checkedGet();
+        VTGateConnection hedgeConn = vitessConnection.getHedgeVtGateConn(vtGateConn);
+        stats = startExecutionStats(this.sql);
+        cursor = hedgeConn == null
+            ? executeOnVtGate(vtGateConn, context, stats).checkedGet()
+            : hedgeOnVtGates(vtGateConn, hedgeConn, context, stats).checkedGet();
       } else {
         Context context = this.vitessConnection.createContext(this.queryTimeoutInMillis);
-        cursor = vtGateConn
-            .streamExecute(context, this.sql, this.bindVariables, vitessConnection.getVtSession());
+        stats = startExecutionStats(this.sql);
+        cursor = streamExecuteOnVtGate(vtGateConn, context, stats);
       }
 
       if (null == cursor) {
         throw new SQLException(Constants.SQLExceptionMessages.METHOD_CALL_FAILED);
       }
 
-      this.vitessResultSet = new VitessResultSet(cursor, this);
+      this.vitessResultSet = newResultSet(cursor, stats);
     } finally {
       this.bindVariables.clear();
     }
@@ -149,9 +166,9 @@ public class VitessPreparedStatement extends VitessStatement implements Prepared
     try {
       checkAndBeginTransaction();
       Context context = this.vitessConnection.createContext(this.queryTimeoutInMillis);
-      cursor = vtGateConn
-          .execute(context, this.sql, this.bindVariables, vitessConnection.getVtSession())
-          .checkedGet();
+      ExecutionStats stats = startExecutionStats(this.sql);
+      cursor = executeOnVtGate(vtGateConn, context, stats).checkedGet();
+      finishExecutionStats(stats);
 
       if (null == cursor) {
         throw new SQLException(Constants.SQLExceptionMessages.METHOD_CALL_FAILED);
@@ -166,6 +183,7 @@ public class VitessPreparedStatement extends VitessStatement implements Prepared
       }
 
       this.resultCount = cursor.getRowsAffected();
+      this.vitessConnection.schemaMaybeChanged(this.sql);
 
       if (this.resultCount > Integer.MAX_VALUE) {
         truncatedUpdateCount = Integer.MAX_VALUE;
@@ -178,6 +196,40 @@ public class VitessPreparedStatement extends VitessStatement implements Prepared
     return truncatedUpdateCount;
   }
 
+  private SQLFuture<Cursor> executeOnVtGate(VTGateConnection vtGateConn, Context context,
+      ExecutionStats stats) throws SQLException {
+    if (cachedStatement != null || stats != null) {
+      return vtGateConn.execute(context, bindQuery(stats), vitessConnection.getVtSession());
+    }
+    return vtGateConn.execute(context, this.sql, this.bindVariables,
+        vitessConnection.getVtSession());
+  }
+
+  private SQLFuture<Cursor> hedgeOnVtGates(VTGateConnection vtGateConn,
+      VTGateConnection hedgeConn, Context context, ExecutionStats stats) throws SQLException {
+    return vtGateConn.execute(context, bindQuery(stats), vitessConnection.getVtSession(),
+        hedgeConn, vitessConnection.getHedgePolicy());
+  }
+
+  private Cursor streamExecuteOnVtGate(VTGateConnection vtGateConn, Context context,
+      ExecutionStats stats) throws SQLException {
+    if (cachedStatement != null || stats != null) {
+      return vtGateConn.streamExecute(context, bindQuery(stats), vitessConnection.getVtSession());
+    }
+    return vtGateConn.streamExecute(context, this.sql, this.bindVariables,
+        vitessConnection.getVtSession());
+  }
+
+  private Query.BoundQuery bindQuery(ExecutionStats stats) {
+    Query.BoundQuery query = cachedStatement != null
+        ? cachedStatement.bind(this.bindVariables)
+        : Proto.bindQuery(this.sql, this.bindVariables);
+    if (stats != null) {
+      stats.bindDone();
+    }
+    return query;
+  }
+
   public boolean execute() throws SQLException {
     checkOpen();
     closeOpenResultSetAndResetCount();
@@ -388,6 +440,10 @@ public class VitessPreparedStatement extends VitessStatement implements Prepared
       vtGateConn = this.vitessConnection.getVtGateConn();
 
       this.retrieveGeneratedKeys = true; // mimicking mysql-connector-j
+      BatchedInsertRewriter rewriter = getBatchedInsertRewriter();
+      if (rewriter != null && batchedArgs.size() > 1) {
+        return executeRewrittenBatch(vtGateConn, rewriter);
+      }
       /*
        * Current api does not support single query and multiple bindVariables list.
        * So, List of the query is created to match the bindVariables list.
@@ -414,12 +470,109 @@ public class VitessPreparedStatement extends VitessStatement implements Prepared
 
   }
 
+  /**
+   * Returns the rewriter for {@link #sql} if {@code rewriteBatchedStatements} is on and the
+   * statement can be rewritten, or null otherwise.
+   */
+  private BatchedInsertRewriter getBatchedInsertRewriter() throws SQLException {
+    if (!this.vitessConnection.getRewriteBatchedStatements()) {
+      return null;
+    }
+    if (!this.batchedInsertRewriterParsed) {
+      int parameterCount = cachedStatement != null
+          ? cachedStatement.getParameterCount() : calculateParameterCount(this.sql);
+      this.batchedInsertRewriter =
+          parameterCount > 0 ? BatchedInsertRewriter.parse(this.sql, parameterCount) : null;
+      this.batchedInsertRewriterParsed = true;
+    }
+    return this.batchedInsertRewriter;
+  }
+
+  /**
+   * Sends the batch as multi-row statements, each no larger than {@code maxAllowedPacket}, in a
+   * single ExecuteBatch call.
+   *
+   * <p>The server only reports the rows affected by each rewritten statement, so a row's update
+   * count is 1 if its statement affected exactly one row per batched row, and {@link
+   * Statement#SUCCESS_NO_INFO} otherwise. Generated keys are reconstructed per statement, as for
+   * a batch that isn't rewritten.
+   */
+  private int[] executeRewrittenBatch(VTGateConnection vtGateConn,
+      BatchedInsertRewriter rewriter) throws SQLException {
+    long maxAllowedPacket = this.vitessConnection.getMaxAllowedPacket();
+    List<String> queries = new ArrayList<>();
+    List<Map<String, ?>> queryArgs = new ArrayList<>();
+    List<Integer> rowsPerQuery = new ArrayList<>();
+    int from = 0;
+    while (from < batchedArgs.size()) {
+      long size = rewriter.getFixedSize() + rewriter.estimateRowSize(batchedArgs.get(from));
+      int to = from + 1;
+      while (to < batchedArgs.size()) {
+        size += rewriter.estimateRowSize(batchedArgs.get(to));
+        if (size > maxAllowedPacket) {
+          break;
+        }
+        to++;
+      }
+      queries.add(rewriter.getSql(to - from));
+      queryArgs.add(rewriter.getBindVariables(batchedArgs, from, to));
+      rowsPerQuery.add(to - from);
+      from = to;
+    }
+
+    checkAndBeginTransaction();
+    Context context = this.vitessConnection.createContext(this.queryTimeoutInMillis);
+    List<CursorWithError> cursorWithErrorList = vtGateConn
+        .executeBatch(context, queries, queryArgs, vitessConnection.getVtSession())
+        .checkedGet();
+    if (null == cursorWithErrorList) {
+      throw new SQLException(Constants.SQLExceptionMessages.METHOD_CALL_FAILED);
+    }
+
+    boolean upsert = sqlIsUpsert(this.sql);
+    int[] updateCounts = new int[batchedArgs.size()];
+    List<long[]> generatedKeys = new ArrayList<>();
+    Vtrpc.RPCError rpcError = null;
+    int row = 0;
+    for (int i = 0; i < cursorWithErrorList.size(); i++) {
+      CursorWithError cursorWithError = cursorWithErrorList.get(i);
+      int rows = rowsPerQuery.get(i);
+      int updateCount = Statement.SUCCESS_NO_INFO;
+      if (null == cursorWithError.getError()) {
+        long rowsAffected = cursorWithError.getCursor().getRowsAffected();
+        long insertId = cursorWithError.getCursor().getInsertId();
+        if (rowsAffected == rows) {
+          updateCount = 1;
+        }
+        // On an upsert, updated rows don't get a new id, so the ids are only consecutive if
+        // every row was inserted.
+        if (!upsert || (rowsAffected == rows && insertId > 0)) {
+          generatedKeys.add(new long[]{insertId, rowsAffected});
+        }
+      } else {
+        rpcError = cursorWithError.getError();
+        updateCount = Statement.EXECUTE_FAILED;
+      }
+      Arrays.fill(updateCounts, row, row + rows, updateCount);
+      row += rows;
+    }
+
+    if (null != rpcError) {
+      int errno = Proto.getErrno(rpcError.getMessage());
+      String sqlState = Proto.getSQLState(rpcError.getMessage());
+      throw new BatchUpdateException(rpcError.toString(), sqlState, errno, updateCounts);
+    }
+    this.batchGeneratedKeys = generatedKeys.toArray(new long[generatedKeys.size()][2]);
+    return updateCounts;
+  }
+
   //Methods which are currently not supported
 
   public ParameterMetaData getParameterMetaData() throws SQLException {
     checkOpen();
     if (this.parameterMetadata == null) {
-      this.parameterMetadata = new VitessParameterMetaData(calculateParameterCount());
+      this.parameterMetadata = new VitessParameterMetaData(cachedStatement != null
+          ? cachedStatement.getParameterCount() : calculateParameterCount(this.sql));
     }
 
     return this.parameterMetadata;
@@ -429,7 +582,7 @@ public class VitessPreparedStatement extends VitessStatement implements Prepared
    * This function was ported from mysql-connector-java ParseInfo object and greatly simplified to
    * just the parts for counting parameters
    */
-  private int calculateParameterCount() throws SQLException {
+  static int calculateParameterCount(String sql) throws SQLException {
     if (sql == null) {
       throw new SQLException(Constants.SQLExceptionMessages.ILLEGAL_VALUE_FOR + ": sql null");
     }
@@ -705,9 +858,39 @@ public class VitessPreparedStatement extends VitessStatement implements Prepared
         Constants.SQLExceptionMessages.SQL_FEATURE_NOT_SUPPORTED);
   }
 
+  /**
+   * Returns the metadata of the result set this statement would produce, or null if it doesn't
+   * produce one.
+   *
+   * <p>The statement doesn't need to have been executed: VTGate is asked to prepare it, and the
+   * answer is kept in the connection's prepared statement cache if that is enabled.
+   */
   public ResultSetMetaData getMetaData() throws SQLException {
-    throw new SQLFeatureNotSupportedException(
-        Constants.SQLExceptionMessages.SQL_FEATURE_NOT_SUPPORTED);
+    checkOpen();
+    List<Query.Field> fields = cachedStatement == null ? null : cachedStatement.getFields();
+    if (fields == null) {
+      Context context = this.vitessConnection.createContext(this.queryTimeoutInMillis);
+      try {
+        fields = this.vitessConnection.getVtGateConn()
+            .prepare(context, this.sql, this.bindVariables, vitessConnection.getVtSession())
+            .checkedGet();
+      } catch (UnsupportedOperationException exc) {
+        // The RpcClient doesn't implement prepare.
+        throw new SQLFeatureNotSupportedException(
+            Constants.SQLExceptionMessages.SQL_FEATURE_NOT_SUPPORTED, exc);
+      }
+      if (cachedStatement != null) {
+        cachedStatement.setFields(fields);
+      }
+    }
+    if (fields.isEmpty()) {
+      return null;
+    }
+    List<FieldWithMetadata> fieldsWithMetadata = new ArrayList<>(fields.size());
+    for (Query.Field field : fields) {
+      fieldsWithMetadata.add(new FieldWithMetadata(this.vitessConnection, field));
+    }
+    return new VitessResultSetMetaData(fieldsWithMetadata);
   }
 
   public void setURL(int parameterIndex, URL ignored) throws SQLException {
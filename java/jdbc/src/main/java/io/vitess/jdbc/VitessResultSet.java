@@ -22,6 +22,7 @@ import com.google.protobuf.ByteString;
 import io.vitess.client.cursor.Cursor;
 import io.vitess.client.cursor.Row;
 import io.vitess.client.cursor.SimpleCursor;
+import io.vitess.mysql.Numbers;
 import io.vitess.proto.Query;
 import io.vitess.util.Constants;
 import io.vitess.util.StringUtils;
@@ -74,6 +75,10 @@ public class VitessResultSet implements ResultSet {
    * Last column name index read
    */
   private int lastIndexRead = -1;
+  /**
+   * Where to add the time spent reading rows, or null if it isn't collected
+   */
+  private ExecutionStats executionStats;
 
   public VitessResultSet(Cursor cursor) throws SQLException {
     this(cursor, null);
@@ -193,12 +198,37 @@ public class VitessResultSet implements ResultSet {
       return false;
     }
 
-    this.row = this.cursor.next();
+    if (this.executionStats == null) {
+      this.row = this.cursor.next();
+    } else {
+      long startNanos = System.nanoTime();
+      this.row = this.cursor.next();
+      this.executionStats.rowRead(System.nanoTime() - startNanos, this.row != null);
+    }
     ++this.currentRow;
 
     return row != null;
   }
 
+  void setExecutionStats(ExecutionStats executionStats) {
+    this.executionStats = executionStats;
+  }
+
+  /**
+   * Reads the rows this result set hasn't returned yet into a QueryResult, e.g. to cache them.
+   * There are no rows left afterwards.
+   */
+  Query.QueryResult readRemaining() throws SQLException {
+    checkOpen();
+    Query.QueryResult.Builder result = Query.QueryResult.newBuilder()
+        .addAllFields(this.cursor.getFields());
+    for (Row next = this.cursor.next(); null != next; next = this.cursor.next()) {
+      result.addRows(next.getRowProto());
+    }
+    this.row = null;
+    return result.build();
+  }
+
   public void close() throws SQLException {
     if (!this.closed) {
       try {
@@ -206,6 +236,10 @@ public class VitessResultSet implements ResultSet {
       } catch (Exception exc) {
         throw new SQLException(Constants.SQLExceptionMessages.VITESS_CURSOR_CLOSE_ERROR);
       } finally {
+        if (null != this.executionStats) {
+          this.executionStats.finish();
+          this.executionStats = null;
+        }
         //Dereferencing all the objects
         this.closed = true;
         this.cursor = null;
@@ -262,6 +296,16 @@ public class VitessResultSet implements ResultSet {
       return byteArrayToBoolean(columnIndex);
     }
 
+    if (isIntegralType(columnIndex)) {
+      // Values beyond the int range aren't true, as when they were parsed with Integer.valueOf.
+      try {
+        long value = this.row.getLong(columnIndex);
+        return value > 0 && value <= Integer.MAX_VALUE;
+      } catch (NumberFormatException nfe) {
+        return false;
+      }
+    }
+
     int bool;
     String boolString = this.getString(columnIndex);
     try {
@@ -278,6 +322,10 @@ public class VitessResultSet implements ResultSet {
       return 0;
     }
 
+    if (isIntegralType(columnIndex)) {
+      return (byte) getIntegralValue(columnIndex, Byte.MIN_VALUE, Byte.MAX_VALUE);
+    }
+
     //If the return column type is of byte,
     // return byte otherwise typecast
     Object object = this.row.getObject(columnIndex);
@@ -297,7 +345,6 @@ public class VitessResultSet implements ResultSet {
   }
 
   public short getShort(int columnIndex) throws SQLException {
-    String shortString;
     short value;
 
     preAccessor(columnIndex);
@@ -306,7 +353,11 @@ public class VitessResultSet implements ResultSet {
       return 0;
     }
 
-    shortString = this.getString(columnIndex);
+    if (isIntegralType(columnIndex)) {
+      return (short) getIntegralValue(columnIndex, Short.MIN_VALUE, Short.MAX_VALUE);
+    }
+
+    String shortString = this.getString(columnIndex);
 
     try {
       value = Short.parseShort(shortString);
@@ -318,7 +369,6 @@ public class VitessResultSet implements ResultSet {
   }
 
   public int getInt(int columnIndex) throws SQLException {
-    String intString;
     int value;
 
     preAccessor(columnIndex);
@@ -327,7 +377,11 @@ public class VitessResultSet implements ResultSet {
       return 0;
     }
 
-    intString = this.getString(columnIndex);
+    if (isIntegralType(columnIndex)) {
+      return (int) getIntegralValue(columnIndex, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    String intString = this.getString(columnIndex);
 
     try {
       value = Integer.parseInt(intString);
@@ -339,7 +393,6 @@ public class VitessResultSet implements ResultSet {
   }
 
   public long getLong(int columnIndex) throws SQLException {
-    String longString;
     long value;
 
     preAccessor(columnIndex);
@@ -348,7 +401,11 @@ public class VitessResultSet implements ResultSet {
       return 0;
     }
 
-    longString = this.getString(columnIndex);
+    if (isIntegralType(columnIndex)) {
+      return getIntegralValue(columnIndex, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    String longString = this.getString(columnIndex);
 
     try {
       value = Long.parseLong(longString);
@@ -360,7 +417,6 @@ public class VitessResultSet implements ResultSet {
   }
 
   public float getFloat(int columnIndex) throws SQLException {
-    String floatString;
     float value;
 
     preAccessor(columnIndex);
@@ -369,7 +425,24 @@ public class VitessResultSet implements ResultSet {
       return 0;
     }
 
-    floatString = this.getString(columnIndex);
+    try {
+      switch (this.fields.get(columnIndex - 1).getVitessTypeValue()) {
+        case Query.Type.FLOAT32_VALUE:
+          return this.row.getFloat(columnIndex);
+        case Query.Type.FLOAT64_VALUE:
+          // Rounding the double again could differ from parsing the value as a float.
+          ByteString cell = this.row.getRawValue(columnIndex);
+          return Numbers.parseFloat(cell, 0, cell.size());
+        default:
+          if (isIntegralType(columnIndex)) {
+            return this.row.getLong(columnIndex);
+          }
+      }
+    } catch (NumberFormatException nfe) {
+      throw new SQLException(nfe);
+    }
+
+    String floatString = this.getString(columnIndex);
 
     try {
       value = Float.parseFloat(floatString);
@@ -381,7 +454,6 @@ public class VitessResultSet implements ResultSet {
   }
 
   public double getDouble(int columnIndex) throws SQLException {
-    String doubleString;
     double value;
 
     preAccessor(columnIndex);
@@ -390,7 +462,21 @@ public class VitessResultSet implements ResultSet {
       return 0;
     }
 
-    doubleString = this.getString(columnIndex);
+    try {
+      switch (this.fields.get(columnIndex - 1).getVitessTypeValue()) {
+        case Query.Type.FLOAT32_VALUE: // fall through
+        case Query.Type.FLOAT64_VALUE:
+          return this.row.getDouble(columnIndex);
+        default:
+          if (isIntegralType(columnIndex)) {
+            return this.row.getLong(columnIndex);
+          }
+      }
+    } catch (NumberFormatException nfe) {
+      throw new SQLException(nfe);
+    }
+
+    String doubleString = this.getString(columnIndex);
 
     try {
       value = Double.parseDouble(doubleString);
@@ -402,7 +488,6 @@ public class VitessResultSet implements ResultSet {
   }
 
   public BigDecimal getBigDecimal(int columnIndex, int scale) throws SQLException {
-    String bigDecimalString;
     BigDecimal value;
 
     preAccessor(columnIndex);
@@ -411,7 +496,12 @@ public class VitessResultSet implements ResultSet {
       return null;
     }
 
-    bigDecimalString = this.getString(columnIndex);
+    value = getNumericBigDecimal(columnIndex);
+    if (value != null) {
+      return value.setScale(scale, BigDecimal.ROUND_HALF_UP);
+    }
+
+    String bigDecimalString = this.getString(columnIndex);
 
     try {
       value = new BigDecimal(bigDecimalString);
@@ -641,7 +731,6 @@ public class VitessResultSet implements ResultSet {
   }
 
   public BigDecimal getBigDecimal(int columnIndex) throws SQLException {
-    String bigDecimalString;
     BigDecimal value;
 
     preAccessor(columnIndex);
@@ -650,7 +739,12 @@ public class VitessResultSet implements ResultSet {
       return null;
     }
 
-    bigDecimalString = this.getString(columnIndex);
+    value = getNumericBigDecimal(columnIndex);
+    if (value != null) {
+      return value;
+    }
+
+    String bigDecimalString = this.getString(columnIndex);
 
     try {
       value = new BigDecimal(bigDecimalString);
@@ -858,8 +952,67 @@ public class VitessResultSet implements ResultSet {
     return this.row.getRawValue(columnIndex).startsWith(Constants.ZERO_DATE_TIME_PREFIX);
   }
 
+  /**
+   * Whether the column holds a MySQL integer type, which {@link Row#getLong(int)} parses directly
+   * from the row buffer.
+   */
+  private boolean isIntegralType(int columnIndex) {
+    switch (this.fields.get(columnIndex - 1).getVitessTypeValue()) {
+      case Query.Type.INT8_VALUE: // fall through
+      case Query.Type.UINT8_VALUE: // fall through
+      case Query.Type.INT16_VALUE: // fall through
+      case Query.Type.UINT16_VALUE: // fall through
+      case Query.Type.INT24_VALUE: // fall through
+      case Query.Type.UINT24_VALUE: // fall through
+      case Query.Type.INT32_VALUE: // fall through
+      case Query.Type.UINT32_VALUE: // fall through
+      case Query.Type.INT64_VALUE: // fall through
+      case Query.Type.YEAR_VALUE:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Reads an integer column without going through {@link #getString(int)}, failing the same way
+   * the {@code parseXxx()} calls on the string path would if the value is out of range.
+   */
+  private long getIntegralValue(int columnIndex, long min, long max) throws SQLException {
+    long value;
+    try {
+      value = this.row.getLong(columnIndex);
+    } catch (NumberFormatException nfe) {
+      throw new SQLException(nfe);
+    }
+    if (value < min || value > max) {
+      throw new SQLException(new NumberFormatException("Value out of range: " + value));
+    }
+    return value;
+  }
+
+  /**
+   * Reads a DECIMAL or integer column without going through {@link #getString(int)}.
+   *
+   * @return the value, or null if the column type needs the string conversion path
+   */
+  private BigDecimal getNumericBigDecimal(int columnIndex) throws SQLException {
+    try {
+      if (this.fields.get(columnIndex - 1).getVitessTypeValue() == Query.Type.DECIMAL_VALUE) {
+        return this.row.getBigDecimal(columnIndex);
+      }
+      if (isIntegralType(columnIndex)) {
+        return BigDecimal.valueOf(this.row.getLong(columnIndex));
+      }
+    } catch (NumberFormatException nfe) {
+      throw new SQLException(nfe);
+    }
+    return null;
+  }
+
   private boolean isNull(int columnIndex) throws SQLException {
-    return null == this.row.getObject(columnIndex);
+    return this.row.isNull(columnIndex)
+        || this.fields.get(columnIndex - 1).getVitessTypeValue() == Query.Type.NULL_TYPE_VALUE;
   }
 
   //Unsupported Methods
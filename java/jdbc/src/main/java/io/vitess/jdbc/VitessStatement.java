@@ -61,6 +61,10 @@ public class VitessStatement implements Statement {
   protected boolean retrieveGeneratedKeys = false;
   protected long generatedId = -1;
   protected long[][] batchGeneratedKeys;
+  /**
+   * The stats of the latest execution, or null if the connection doesn't collect them.
+   */
+  protected ExecutionStats lastExecutionStats;
   /**
    * Holds batched commands
    */
@@ -107,21 +111,38 @@ public class VitessStatement implements Statement {
     VTGateConnection vtGateConn = this.vitessConnection.getVtGateConn();
 
     Cursor cursor;
+    ExecutionStats stats;
     if ((vitessConnection.isSimpleExecute() && this.fetchSize == 0) || vitessConnection
         .isInTransaction()) {
       checkAndBeginTransaction();
       Context context = this.vitessConnection.createContext(this.queryTimeoutInMillis);
-      cursor = vtGateConn.execute(context, sql, null, vitessConnection.getVtSession()).checkedGet();
+      VTGateConnection hedgeConn = vitessConnection.getHedgeVtGateConn(vtGateConn);
+      stats = startExecutionStats(sql);
+      if (hedgeConn == null && stats == null) {
+        cursor = vtGateConn.execute(context, sql, null, vitessConnection.getVtSession())
+            .checkedGet();
+      } else if (hedgeConn == null) {
+        cursor = vtGateConn.execute(context, bindQuery(stats, sql),
+            vitessConnection.getVtSession()).checkedGet();
+      } else {
+        cursor = vtGateConn.execute(context, bindQuery(stats, sql),
+            vitessConnection.getVtSession(), hedgeConn, vitessConnection.getHedgePolicy())
+            .checkedGet();
+      }
     } else {
       /* Stream query is not suppose to run in a txn. */
       Context context = this.vitessConnection.createContext(this.queryTimeoutInMillis);
-      cursor = vtGateConn.streamExecute(context, sql, null, vitessConnection.getVtSession());
+      stats = startExecutionStats(sql);
+      cursor = stats == null
+          ? vtGateConn.streamExecute(context, sql, null, vitessConnection.getVtSession())
+          : vtGateConn.streamExecute(context, bindQuery(stats, sql),
+              vitessConnection.getVtSession());
     }
 
     if (null == cursor) {
       throw new SQLException(Constants.SQLExceptionMessages.METHOD_CALL_FAILED);
     }
-    this.vitessResultSet = new VitessResultSet(cursor, this);
+    this.vitessResultSet = newResultSet(cursor, stats);
     return this.vitessResultSet;
   }
 
@@ -304,6 +325,60 @@ public class VitessStatement implements Statement {
     return this.closed;
   }
 
+  /**
+   * Returns where the driver spent its time on the latest execution of this statement, or null if
+   * the connection doesn't collect {@link ExecutionStats}. Batches are not covered.
+   *
+   * <p>While the result set of a query is open, the time spent reading its rows keeps growing.
+   */
+  public ExecutionStats getLastExecutionStats() {
+    return lastExecutionStats;
+  }
+
+  /**
+   * Starts timing an execution of {@code sql}, and returns the stats to fill in, or null if the
+   * connection doesn't collect them.
+   */
+  protected ExecutionStats startExecutionStats(String sql) {
+    this.lastExecutionStats = this.vitessConnection.newExecutionStats(sql);
+    return this.lastExecutionStats;
+  }
+
+  /**
+   * Ends the RPC phase of an execution which returns no result set, and reports its stats.
+   */
+  protected static void finishExecutionStats(ExecutionStats stats) {
+    if (stats != null) {
+      stats.rpcDone();
+      stats.finish();
+    }
+  }
+
+  /**
+   * Ends the RPC phase of a query, and creates its result set, timing the field decoding.
+   */
+  protected VitessResultSet newResultSet(Cursor cursor, ExecutionStats stats)
+      throws SQLException {
+    if (stats == null) {
+      return new VitessResultSet(cursor, this);
+    }
+    // A streaming cursor waits for the first response to know its fields, which is RPC time.
+    cursor.getFields();
+    stats.rpcDone();
+    VitessResultSet resultSet = new VitessResultSet(cursor, this);
+    stats.fieldsDone();
+    resultSet.setExecutionStats(stats);
+    return resultSet;
+  }
+
+  private static Query.BoundQuery bindQuery(ExecutionStats stats, String sql) {
+    Query.BoundQuery query = Proto.bindQuery(sql, null);
+    if (stats != null) {
+      stats.bindDone();
+    }
+    return query;
+  }
+
   /**
    * Unwrap a class
    *
@@ -397,8 +472,12 @@ public class VitessStatement implements Statement {
 
     checkAndBeginTransaction();
     Context context = this.vitessConnection.createContext(this.queryTimeoutInMillis);
-    Cursor cursor = vtGateConn.execute(context, sql, null, vitessConnection.getVtSession())
-        .checkedGet();
+    ExecutionStats stats = startExecutionStats(sql);
+    Cursor cursor = stats == null
+        ? vtGateConn.execute(context, sql, null, vitessConnection.getVtSession()).checkedGet()
+        : vtGateConn.execute(context, bindQuery(stats, sql), vitessConnection.getVtSession())
+            .checkedGet();
+    finishExecutionStats(stats);
 
     if (null == cursor) {
       throw new SQLException(Constants.SQLExceptionMessages.METHOD_CALL_FAILED);
@@ -417,6 +496,7 @@ public class VitessStatement implements Statement {
     }
 
     this.resultCount = cursor.getRowsAffected();
+    this.vitessConnection.schemaMaybeChanged(sql);
 
     int truncatedUpdateCount;
     if (this.resultCount > Integer.MAX_VALUE) {
@@ -507,6 +587,9 @@ public class VitessStatement implements Statement {
       if (null == cursorWithErrorList) {
         throw new SQLException(Constants.SQLExceptionMessages.METHOD_CALL_FAILED);
       }
+      for (String sql : batchedArgs) {
+        this.vitessConnection.schemaMaybeChanged(sql);
+      }
 
       this.retrieveGeneratedKeys = true;// mimicking mysql-connector-j
       return this.generateBatchUpdateResult(cursorWithErrorList, batchedArgs);
@@ -620,7 +703,7 @@ public class VitessStatement implements Statement {
     return updateCounts;
   }
 
-  private boolean sqlIsUpsert(String sql) {
+  protected boolean sqlIsUpsert(String sql) {
     return StringUtils.indexOfIgnoreCase(0, sql, ON_DUPLICATE_KEY_UPDATE_CLAUSE, "\"'`", "\"'`",
         StringUtils.SEARCH_MODE__ALL) != -1;
   }
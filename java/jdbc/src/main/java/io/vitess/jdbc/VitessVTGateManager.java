@@ -18,13 +18,22 @@ package io.vitess.jdbc;
 
 import static java.lang.System.getProperty;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import io.grpc.Codec;
 import io.vitess.client.Context;
+import io.vitess.client.HedgePolicy;
 import io.vitess.client.RefreshableVTGateConnection;
 import io.vitess.client.RpcClient;
 import io.vitess.client.VTGateConnection;
+import io.vitess.client.grpc.ClientMetrics;
 import io.vitess.client.grpc.GrpcClientFactory;
+import io.vitess.client.grpc.RetryMetrics;
 import io.vitess.client.grpc.RetryingInterceptorConfig;
 import io.vitess.client.grpc.tls.TlsOptions;
+import io.vitess.util.CommonUtils;
 import io.vitess.util.Constants.Property;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -32,13 +41,15 @@ import org.apache.logging.log4j.Logger;
 import java.io.IOException;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-import java.util.Random;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Created by naveen.nahata on 24/02/16.
@@ -47,126 +58,381 @@ public class VitessVTGateManager {
 
   private static Logger logger = LogManager.getLogger(VitessVTGateManager.class);
   /*
+  How many retries each VTGate connection can make in a burst, on top of grpcRetriesBudgetRatio
+  */
+  private static final int RETRY_BUDGET_MAX_TOKENS = 10;
+  /*
   Current implementation have one VTGateConnection for ip-port-username combination
   */
-  private static ConcurrentHashMap<String, VTGateConnection> vtGateConnHashMap =
+  private static final ConcurrentHashMap<String, VTGateHost> vtGateConnHashMap =
+      new ConcurrentHashMap<>();
+  /*
+  Bumped after connections in vtGateConnHashMap are replaced, so that the VTGateConnections
+  rebuild their snapshot of them
+  */
+  private static final AtomicLong generation = new AtomicLong();
+  /*
+  Hedge policies, shared by the connections to the same set of VTGates with the same settings
+  */
+  private static ConcurrentHashMap<String, HedgePolicy> hedgePolicies = new ConcurrentHashMap<>();
+  /*
+  DatabaseMetaData caches, shared by the connections to the same set of VTGates as the same user
+  and target
+  */
+  private static final ConcurrentHashMap<String, MetadataCache> metadataCaches =
+      new ConcurrentHashMap<>();
+  /*
+  DBProperties, shared by the connections to the same set of VTGates as the same user and target
+  */
+  private static final ConcurrentHashMap<String, DBPropertiesCache> dbPropertiesCaches =
       new ConcurrentHashMap<>();
-  private static Timer vtgateConnRefreshTimer = null;
-  private static Timer vtgateClosureTimer = null;
-  private static long vtgateClosureDelaySeconds = 0L;
+  /*
+  What the retrying interceptors of all the VTGate connections did
+  */
+  private static final RetryMetrics retryMetrics = new RetryMetrics();
+  /*
+  Where the gRPC channels of the VTGate connections opened from now on record their calls
+  */
+  private static volatile ClientMetrics clientMetrics = ClientMetrics.NO_OP;
+  private static final AtomicBoolean vtgateConnRefreshStarted = new AtomicBoolean();
+  private static final AtomicReference<ClosureTimer> vtgateClosureTimer =
+      new AtomicReference<>();
 
   /**
-   * VTGateConnections object consist of vtGateIdentifire list and return vtGate object in round
-   * robin.
+   * VTGateConnections object consist of vtGateIdentifire list and return vtGate object picked by
+   * the connection's {@link VTGateSelector}.
+   *
+   * <p>Nothing here takes a lock: the hosts are shared through {@link
+   * ConcurrentHashMap#putIfAbsent}, and calls pick from an immutable snapshot of their
+   * connections, which is rebuilt after a keystore refresh replaced some of them.
    */
   public static class VTGateConnections {
 
-    private List<String> vtGateIdentifiers = new ArrayList<>();
-    int counter;
+    private final List<String> vtGateIdentifiers;
+    private final List<VTGateHost> hosts;
+    private final VTGateSelector selector;
+    private final HedgePolicy hedgePolicy;
+    private final MetadataCache metadataCache;
+    private final DBPropertiesCache dbPropertiesCache;
+    private volatile Snapshot snapshot;
 
     /**
      * Constructor
      */
     public VTGateConnections(final VitessConnection connection) {
       maybeStartClosureTimer(connection);
-      for (final VitessJDBCUrl.HostInfo hostInfo : connection.getUrl().getHostInfos()) {
+      List<String> identifiers = new ArrayList<>();
+      List<VTGateHost> hosts = new ArrayList<>();
+      ConnectionProperties settings = null;
+      for (VitessJDBCUrl.HostInfo hostInfo : connection.getUrl().getHostInfos()) {
         String identifier = getIdentifer(hostInfo.getHostname(), hostInfo.getPort(),
             connection.getUsername(), connection.getTarget());
-        synchronized (VitessVTGateManager.class) {
-          if (!vtGateConnHashMap.containsKey(identifier)) {
-            updateVtGateConnHashMap(identifier, hostInfo, connection);
+        VTGateHost host = vtGateConnHashMap.get(identifier);
+        if (host == null) {
+          if (settings == null) {
+            settings = connection.copyProperties();
           }
-          if (connection.getUseSSL() && connection.getRefreshConnection()
-              && vtgateConnRefreshTimer == null) {
-            logger.info(
-                "ssl vtgate connection detected -- installing connection refresh based on ssl "
-                    + "keystore modification");
-            vtgateConnRefreshTimer = new Timer("ssl-refresh-vtgate-conn", true);
-            vtgateConnRefreshTimer.scheduleAtFixedRate(new TimerTask() {
-                  @Override
-                  public void run() {
-                    refreshUpdatedSSLConnections(hostInfo, connection);
-                  }
-                }, TimeUnit.SECONDS.toMillis(connection.getRefreshSeconds()),
-                TimeUnit.SECONDS.toMillis(connection.getRefreshSeconds()));
+          // The channel is built outside of the map, so that other hosts aren't held up by it.
+          VTGateHost created = new VTGateHost(hostInfo, settings);
+          host = vtGateConnHashMap.putIfAbsent(identifier, created);
+          if (host == null) {
+            host = created;
+            if (connection.getGrpcWarmUpTimeoutMillis() > 0) {
+              warmUp(hostInfo, host.connection, connection.getGrpcWarmUpTimeoutMillis());
+            }
+          } else {
+            // Another connection registered this host first.
+            closeUnusedConnection(created.connection);
           }
         }
-        vtGateIdentifiers.add(identifier);
+        identifiers.add(identifier);
+        hosts.add(host);
       }
-      Random random = new Random();
-      counter = random.nextInt(vtGateIdentifiers.size());
+      maybeStartRefreshTimer(connection);
+      this.vtGateIdentifiers = Collections.unmodifiableList(identifiers);
+      this.hosts = Collections.unmodifiableList(hosts);
+      selector = createSelector(connection);
+      hedgePolicy = connection.getHedgeReads() && vtGateIdentifiers.size() > 1
+          ? createHedgePolicy(vtGateIdentifiers, connection) : null;
+      metadataCache = connection.getMetadataCacheTtlMillis() > 0
+          ? VitessVTGateManager.getMetadataCache(vtGateIdentifiers) : null;
+      dbPropertiesCache = connection.getDbPropertiesRefreshMillis() > 0
+          ? VitessVTGateManager.getDbPropertiesCache(vtGateIdentifiers) : null;
     }
 
     /**
      * Return VTGate Instance object.
      */
     public VTGateConnection getVtGateConnInstance() {
-      counter++;
-      counter = counter % vtGateIdentifiers.size();
-      return vtGateConnHashMap.get(vtGateIdentifiers.get(counter));
+      List<VTGateConnection> connections = getConnections();
+      return connections.size() == 1 ? connections.get(0) : selector.select(connections);
     }
 
-  }
+    /**
+     * Return a VTGate other than {@code primary} to send hedged reads to, or null if reads
+     * shouldn't be hedged.
+     */
+    public VTGateConnection getHedgeConnInstance(VTGateConnection primary) {
+      if (hedgePolicy == null) {
+        return null;
+      }
+      List<VTGateConnection> all = getConnections();
+      List<VTGateConnection> connections = new ArrayList<>(all.size());
+      for (VTGateConnection connection : all) {
+        if (connection != primary) {
+          connections.add(connection);
+        }
+      }
+      return connections.isEmpty() ? null : selector.select(connections);
+    }
 
-  private static void maybeStartClosureTimer(VitessConnection connection) {
-    if (connection.getRefreshClosureDelayed() && vtgateClosureTimer == null) {
-      synchronized (VitessVTGateManager.class) {
-        if (vtgateClosureTimer == null) {
-          vtgateClosureTimer = new Timer("vtgate-conn-closure", true);
-          vtgateClosureDelaySeconds = connection.getRefreshClosureDelaySeconds();
+    /**
+     * Return the policy for hedged reads, or null if reads shouldn't be hedged.
+     */
+    public HedgePolicy getHedgePolicy() {
+      return hedgePolicy;
+    }
+
+    /**
+     * Return the DatabaseMetaData cache of these VTGates, or null if metadata isn't cached.
+     */
+    MetadataCache getMetadataCache() {
+      return metadataCache;
+    }
+
+    /**
+     * Return the DBProperties cache of these VTGates, or null if each connection loads its own.
+     */
+    DBPropertiesCache getDbPropertiesCache() {
+      return dbPropertiesCache;
+    }
+
+    private List<VTGateConnection> getConnections() {
+      Snapshot current = snapshot;
+      long currentGeneration = generation.get();
+      if (current == null || current.generation != currentGeneration) {
+        // Racing threads build equal snapshots, so whichever is kept doesn't matter.
+        List<VTGateConnection> connections = new ArrayList<>(hosts.size());
+        for (VTGateHost host : hosts) {
+          connections.add(host.connection);
         }
+        current = new Snapshot(currentGeneration, Collections.unmodifiableList(connections));
+        snapshot = current;
       }
+      return current.connections;
     }
   }
 
-  private static String getIdentifer(String hostname, int port, String userIdentifer,
-      String keyspace) {
-    return (hostname + port + userIdentifer + keyspace);
+  /**
+   * The connections of the hosts of a {@link VTGateConnections}, as of a generation.
+   */
+  private static final class Snapshot {
+
+    private final long generation;
+    private final List<VTGateConnection> connections;
+
+    Snapshot(long generation, List<VTGateConnection> connections) {
+      this.generation = generation;
+      this.connections = connections;
+    }
   }
 
   /**
-   * Create {@link VTGateConnection} and update vtGateConnHashMap.
+   * The connection to one VTGate shared by all the {@link VitessConnection}s with the same
+   * identifier, and the host and settings to create it again with after a keystore update. The
+   * settings are a copy of the properties of the connection which opened it, so that connection
+   * can still be garbage collected.
    */
-  private static void updateVtGateConnHashMap(String identifier, VitessJDBCUrl.HostInfo hostInfo,
-      VitessConnection connection) {
-    vtGateConnHashMap.put(identifier, getVtGateConn(hostInfo, connection));
+  private static final class VTGateHost {
+
+    private final VitessJDBCUrl.HostInfo hostInfo;
+    private final ConnectionProperties settings;
+    /*
+    Only replaced by the keystore refresh, followed by a bump of the generation
+    */
+    private volatile VTGateConnection connection;
+
+    VTGateHost(VitessJDBCUrl.HostInfo hostInfo, ConnectionProperties settings) {
+      this.hostInfo = hostInfo;
+      this.settings = settings;
+      this.connection = getVtGateConn(hostInfo, settings);
+    }
+  }
+
+  private static final class ClosureTimer {
+
+    private final Timer timer;
+    private final long delaySeconds;
+
+    ClosureTimer(Timer timer, long delaySeconds) {
+      this.timer = timer;
+      this.delaySeconds = delaySeconds;
+    }
+  }
+
+  /**
+   * Connects to a new VTGate right away, so that the first query doesn't pay for DNS, TCP and TLS.
+   * The query still goes ahead if it isn't ready in time.
+   */
+  private static void warmUp(VitessJDBCUrl.HostInfo hostInfo, VTGateConnection vtGateConnection,
+      long timeoutMillis) {
+    long start = System.nanoTime();
+    try {
+      if (vtGateConnection.awaitReady(timeoutMillis, TimeUnit.MILLISECONDS)) {
+        logger.debug("connected to vtgate {} in {} ms", hostInfo,
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+      } else {
+        logger.warn("vtgate {} wasn't ready after {} ms", hostInfo, timeoutMillis);
+      }
+    } catch (InterruptedException exc) {
+      Thread.currentThread().interrupt();
+    }
   }
 
-  private static void refreshUpdatedSSLConnections(VitessJDBCUrl.HostInfo hostInfo,
+  private static HedgePolicy createHedgePolicy(List<String> identifiers,
       VitessConnection connection) {
-    synchronized (VitessVTGateManager.class) {
-      int updatedCount = 0;
-      for (Map.Entry<String, VTGateConnection> entry : vtGateConnHashMap.entrySet()) {
-        if (entry.getValue() instanceof RefreshableVTGateConnection) {
-          RefreshableVTGateConnection existing = (RefreshableVTGateConnection) entry.getValue();
-          if (existing.checkKeystoreUpdates()) {
-            updatedCount++;
-            VTGateConnection old = vtGateConnHashMap
-                .replace(entry.getKey(), getVtGateConn(hostInfo, connection));
-            closeRefreshedConnection(old);
-          }
+    final double percentile = connection.getHedgeDelayPercentile();
+    final long minDelayMillis = connection.getHedgeMinDelayMillis();
+    String key = identifiers + "," + percentile + "," + minDelayMillis;
+    HedgePolicy policy = hedgePolicies.get(key);
+    if (policy == null) {
+      policy = hedgePolicies.computeIfAbsent(key,
+          unused -> new HedgePolicy(percentile, minDelayMillis, TimeUnit.MILLISECONDS));
+    }
+    return policy;
+  }
+
+  private static MetadataCache getMetadataCache(List<String> identifiers) {
+    String key = identifiers.toString();
+    MetadataCache cache = metadataCaches.get(key);
+    if (cache == null) {
+      cache = metadataCaches.computeIfAbsent(key, unused -> new MetadataCache());
+    }
+    return cache;
+  }
+
+  private static DBPropertiesCache getDbPropertiesCache(List<String> identifiers) {
+    String key = identifiers.toString();
+    DBPropertiesCache cache = dbPropertiesCaches.get(key);
+    if (cache == null) {
+      cache = dbPropertiesCaches.computeIfAbsent(key, unused -> new DBPropertiesCache());
+    }
+    return cache;
+  }
+
+  private static VTGateSelector createSelector(VitessConnection connection) {
+    String name = connection.getVtgateSelector();
+    if (name == null || name.equalsIgnoreCase("roundRobin")) {
+      return new VTGateSelector.RoundRobin();
+    }
+    if (name.equalsIgnoreCase("peakEwma")) {
+      return new VTGateSelector.PeakEwma(connection.getVtgateEjectionMillis());
+    }
+    try {
+      return Class.forName(name).asSubclass(VTGateSelector.class).getConstructor().newInstance();
+    } catch (ReflectiveOperationException | ClassCastException exc) {
+      throw new IllegalArgumentException("invalid vtgateSelector: " + name, exc);
+    }
+  }
+
+  private static void configureCompression(GrpcClientFactory grpcClientFactory,
+      ConnectionProperties connection) {
+    String name = connection.getGrpcCompression();
+    if (name == null || name.equalsIgnoreCase("none")) {
+      return;
+    }
+    int minBytes = Ints.saturatedCast(connection.getGrpcCompressionMinBytes());
+    if (name.equalsIgnoreCase("gzip")) {
+      grpcClientFactory.setCompression("gzip", minBytes);
+      return;
+    }
+    Codec codec;
+    try {
+      codec = Class.forName(name).asSubclass(Codec.class).getConstructor().newInstance();
+    } catch (ReflectiveOperationException | ClassCastException exc) {
+      throw new IllegalArgumentException("invalid grpcCompression: " + name, exc);
+    }
+    grpcClientFactory.addCodec(codec).setCompression(codec.getMessageEncoding(), minBytes);
+  }
+
+  private static void maybeStartClosureTimer(VitessConnection connection) {
+    if (connection.getRefreshClosureDelayed() && vtgateClosureTimer.get() == null) {
+      ClosureTimer closureTimer = new ClosureTimer(new Timer("vtgate-conn-closure", true),
+          connection.getRefreshClosureDelaySeconds());
+      if (!vtgateClosureTimer.compareAndSet(null, closureTimer)) {
+        // Another connection started one first.
+        closureTimer.timer.cancel();
+      }
+    }
+  }
+
+  private static void maybeStartRefreshTimer(VitessConnection connection) {
+    if (connection.getUseSSL() && connection.getRefreshConnection()
+        && vtgateConnRefreshStarted.compareAndSet(false, true)) {
+      logger.info("ssl vtgate connection detected -- installing connection refresh based on ssl "
+          + "keystore modification");
+      long periodMillis = TimeUnit.SECONDS.toMillis(connection.getRefreshSeconds());
+      new Timer("ssl-refresh-vtgate-conn", true).scheduleAtFixedRate(new TimerTask() {
+        @Override
+        public void run() {
+          refreshUpdatedSSLConnections();
         }
+      }, periodMillis, periodMillis);
+    }
+  }
+
+  private static String getIdentifer(String hostname, int port, String userIdentifer,
+      String keyspace) {
+    return (hostname + port + userIdentifer + keyspace);
+  }
+
+  /**
+   * Replaces the connections whose keystore changed, each created again for its own host. Only
+   * runs on the refresh timer's thread, so the hosts are never refreshed concurrently.
+   */
+  private static void refreshUpdatedSSLConnections() {
+    List<VTGateConnection> replaced = new ArrayList<>();
+    for (VTGateHost host : vtGateConnHashMap.values()) {
+      VTGateConnection existing = host.connection;
+      if (existing instanceof RefreshableVTGateConnection
+          && ((RefreshableVTGateConnection) existing).checkKeystoreUpdates()) {
+        host.connection = getVtGateConn(host.hostInfo, host.settings);
+        replaced.add(existing);
       }
-      if (updatedCount > 0) {
-        logger.info("refreshed {} vtgate connections due to keystore update", updatedCount);
+    }
+    if (!replaced.isEmpty()) {
+      // Only close the old connections once new calls can no longer pick them.
+      generation.incrementAndGet();
+      for (VTGateConnection old : replaced) {
+        closeRefreshedConnection(old);
       }
+      logger.info("refreshed {} vtgate connections due to keystore update", replaced.size());
     }
   }
 
   private static void closeRefreshedConnection(final VTGateConnection old) {
-    if (vtgateClosureTimer != null) {
-      logger.info("{} Closing connection with a {} second delay", old, vtgateClosureDelaySeconds);
-      vtgateClosureTimer.schedule(new TimerTask() {
+    final ClosureTimer closureTimer = vtgateClosureTimer.get();
+    if (closureTimer != null) {
+      logger.info("{} Closing connection with a {} second delay", old, closureTimer.delaySeconds);
+      closureTimer.timer.schedule(new TimerTask() {
         @Override
         public void run() {
           actuallyCloseRefreshedConnection(old);
         }
-      }, TimeUnit.SECONDS.toMillis(vtgateClosureDelaySeconds));
+      }, TimeUnit.SECONDS.toMillis(closureTimer.delaySeconds));
     } else {
       actuallyCloseRefreshedConnection(old);
     }
   }
 
+  private static void closeUnusedConnection(VTGateConnection unused) {
+    try {
+      unused.close();
+    } catch (IOException ioe) {
+      logger.warn("Error closing VTGateConnection {}", unused, ioe);
+    }
+  }
+
   private static void actuallyCloseRefreshedConnection(final VTGateConnection old) {
     try {
       logger.info("{} Closing connection because it had been refreshed", old);
@@ -188,11 +454,32 @@ public class VitessVTGateManager {
    * Create vtGateConn object with given identifier.
    */
   private static VTGateConnection getVtGateConn(VitessJDBCUrl.HostInfo hostInfo,
-                                                VitessConnection connection) {
-    final Context context = connection.createContext(connection.getTimeout());
+                                                ConnectionProperties connection) {
+    final Context context = CommonUtils.createContext(connection.getUsername(),
+        connection.getTimeout());
     RetryingInterceptorConfig retryingConfig = getRetryingInterceptorConfig(connection);
     GrpcClientFactory grpcClientFactory =
-        new GrpcClientFactory(retryingConfig, connection.getUseTracing());
+        new GrpcClientFactory(retryingConfig, connection.getUseTracing())
+            .setChannelsPerHost(Ints.saturatedCast(connection.getGrpcChannelsPerHost()))
+            .setNativeTransport(connection.getGrpcNativeTransport())
+            .setClientMetrics(clientMetrics);
+    if (connection.getGrpcEventLoopThreads() > 0) {
+      grpcClientFactory.setEventLoopThreads(
+          Ints.saturatedCast(connection.getGrpcEventLoopThreads()));
+    }
+    if ("direct".equals(connection.getGrpcExecutor())) {
+      grpcClientFactory.setExecutor(MoreExecutors.directExecutor());
+    } else if ("shared".equals(connection.getGrpcExecutor())) {
+      grpcClientFactory.setExecutor(GrpcClientFactory.sharedExecutor());
+    }
+    configureCompression(grpcClientFactory, connection);
+    if (connection.getGrpcKeepAliveTimeMillis() > 0) {
+      grpcClientFactory.setKeepAlive(connection.getGrpcKeepAliveTimeMillis(),
+          connection.getGrpcKeepAliveTimeoutMillis(), connection.getGrpcKeepAliveWithoutCalls());
+    }
+    if (connection.getGrpcIdleTimeoutMillis() > 0) {
+      grpcClientFactory.setIdleTimeout(connection.getGrpcIdleTimeoutMillis());
+    }
     if (connection.getUseSSL()) {
       TlsOptions tlsOptions = getTlsOptions(connection);
       RpcClient rpcClient = grpcClientFactory
@@ -206,7 +493,7 @@ public class VitessVTGateManager {
     }
   }
 
-  private static TlsOptions getTlsOptions(VitessConnection con) {
+  private static TlsOptions getTlsOptions(ConnectionProperties con) {
     String keyStorePath = nullIf(con.getKeyStore(), getProperty(Property.KEYSTORE_FULL));
     String keyStorePassword = nullIf(con.getKeyStorePassword(),
         getProperty(Property.KEYSTORE_PASSWORD_FULL));
@@ -228,26 +515,65 @@ public class VitessVTGateManager {
         .trustAlias(trustAlias);
   }
 
-  private static RetryingInterceptorConfig getRetryingInterceptorConfig(VitessConnection conn) {
+  @VisibleForTesting
+  static RetryingInterceptorConfig getRetryingInterceptorConfig(ConnectionProperties conn) {
+    RetryingInterceptorConfig config;
     if (!conn.getGrpcRetriesEnabled()) {
-      return RetryingInterceptorConfig.noOpConfig();
+      config = RetryingInterceptorConfig.noOpConfig();
+    } else {
+      config = RetryingInterceptorConfig.exponentialConfig(
+          conn.getGrpcRetryInitialBackoffMillis(), conn.getGrpcRetryMaxBackoffMillis(),
+          conn.getGrpcRetryBackoffMultiplier())
+          .withRetryBudget(conn.getGrpcRetryBudgetRatio(), RETRY_BUDGET_MAX_TOKENS);
     }
+    return config.withCircuitBreaker(Ints.saturatedCast(conn.getGrpcCircuitBreakerFailures()),
+        conn.getGrpcCircuitBreakerOpenMillis()).withMetrics(retryMetrics);
+  }
+
+  /**
+   * Returns how many calls the VTGate connections of this JVM retried, didn't retry because of
+   * the retry budget, or failed because a circuit breaker was open, see grpcRetriesEnabled and
+   * grpcCircuitBreakerFailures. The counts add up all the VTGates, and aren't reset by {@link
+   * #close()}.
+   */
+  public static RetryMetrics getRetryMetrics() {
+    return retryMetrics;
+  }
+
+  /**
+   * Sets where the gRPC channels of the VTGate connections opened from now on record the
+   * latency, status and size of their calls, e.g. a {@link
+   * io.vitess.client.grpc.HistogramClientMetrics} or a bridge to the application's metrics
+   * library. The connections already open keep recording where they did, so this is meant to
+   * be called at startup, before the first JDBC connection. {@link ClientMetrics#NO_OP}, the
+   * default, records nothing.
+   */
+  public static void setClientMetrics(ClientMetrics value) {
+    if (null == value) {
+      throw new NullPointerException("clientMetrics");
+    }
+    clientMetrics = value;
+  }
 
-    return RetryingInterceptorConfig.exponentialConfig(conn.getGrpcRetryInitialBackoffMillis(),
-        conn.getGrpcRetryMaxBackoffMillis(), conn.getGrpcRetryBackoffMultiplier());
+  public static ClientMetrics getClientMetrics() {
+    return clientMetrics;
   }
 
   public static void close() throws SQLException {
     SQLException exception = null;
 
-    for (VTGateConnection vtGateConn : vtGateConnHashMap.values()) {
+    for (VTGateHost host : vtGateConnHashMap.values()) {
       try {
-        vtGateConn.close();
+        host.connection.close();
       } catch (IOException ioe) {
         exception = new SQLException(ioe.getMessage(), ioe);
       }
     }
     vtGateConnHashMap.clear();
+    generation.incrementAndGet();
+    hedgePolicies.clear();
+    metadataCaches.clear();
+    dbPropertiesCaches.clear();
     if (null != exception) {
       throw exception;
     }
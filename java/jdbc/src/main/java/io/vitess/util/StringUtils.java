@@ -48,6 +48,7 @@ public class StringUtils {
       .of(SearchMode.SKIP_BETWEEN_MARKERS, SearchMode.SKIP_BLOCK_COMMENTS,
           SearchMode.SKIP_LINE_COMMENTS, SearchMode.SKIP_WHITE_SPACE));
   private static final String platformEncoding = System.getProperty("file.encoding");
+  private static final String[] DDL_KEYWORDS = {"ALTER", "CREATE", "DROP", "RENAME", "TRUNCATE"};
   private static final ConcurrentHashMap<String, Charset> charsetsByAlias =
       new ConcurrentHashMap<String, Charset>();
   // length of MySQL version reference in comments of type '/*![00000] */'
@@ -413,6 +414,26 @@ public class StringUtils {
     return 0;
   }
 
+  /**
+   * Determines whether the statement 'sql' is a DDL statement, which may change the schema, by its
+   * first keyword
+   *
+   * @param sql the statement
+   * @return true if the statement starts with ALTER, CREATE, DROP, RENAME or TRUNCATE
+   */
+  public static boolean isDdl(String sql) {
+    if (null == sql) {
+      return false;
+    }
+    int start = findStartOfStatement(sql);
+    for (String keyword : DDL_KEYWORDS) {
+      if (startsWithIgnoreCaseAndWs(sql, keyword, start)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   public static String toString(byte[] value, int offset, int length, String encoding)
       throws UnsupportedEncodingException {
     Charset cs = findCharset(encoding);
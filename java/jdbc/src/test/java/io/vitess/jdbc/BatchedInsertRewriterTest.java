@@ -0,0 +1,77 @@
+/*
+ * Copyright 2019 The Vitess Authors.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vitess.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class BatchedInsertRewriterTest {
+
+  @Test
+  public void testRewritesValuesTuple() {
+    BatchedInsertRewriter rewriter = BatchedInsertRewriter
+        .parse("insert into t (a, b) values (?, now()) on duplicate key update b = values(b)", 1);
+    assertNotNull(rewriter);
+    assertEquals("insert into t (a, b) values (?, now()) on duplicate key update b = values(b)",
+        rewriter.getSql(1));
+    assertEquals("insert into t (a, b) values (?, now()),(?, now()),(?, now())"
+        + " on duplicate key update b = values(b)", rewriter.getSql(3));
+  }
+
+  @Test
+  public void testRenumbersBindVariables() {
+    BatchedInsertRewriter rewriter = BatchedInsertRewriter
+        .parse("REPLACE INTO t VALUE (?, ?)", 2);
+    assertNotNull(rewriter);
+    List<Map<String, ?>> batchedArgs = ImmutableList.<Map<String, ?>>of(
+        ImmutableMap.of("v1", 1, "v2", "a"),
+        ImmutableMap.of("v1", 2, "v2", "b"),
+        ImmutableMap.of("v1", 3, "v2", "c"));
+    assertEquals(ImmutableMap.of("v1", 2, "v2", "b", "v3", 3, "v4", "c"),
+        rewriter.getBindVariables(batchedArgs, 1, 3));
+  }
+
+  @Test
+  public void testIgnoresQuotesAndComments() {
+    BatchedInsertRewriter rewriter = BatchedInsertRewriter.parse(
+        "/* values (?) */ insert into `values` (`a)`) values ('it''s ?', ?) # values (?)", 1);
+    assertNotNull(rewriter);
+    assertEquals("/* values (?) */ insert into `values` (`a)`) values ('it''s ?', ?),"
+        + "('it''s ?', ?) # values (?)", rewriter.getSql(2));
+  }
+
+  @Test
+  public void testRejectsOtherStatements() {
+    assertNull(BatchedInsertRewriter.parse("update t set a = ?", 1));
+    assertNull(BatchedInsertRewriter.parse("insert into t select * from u where a = ?", 1));
+    assertNull(BatchedInsertRewriter.parse("insert into t values (?), (?)", 2));
+    // Placeholders outside the tuple.
+    assertNull(BatchedInsertRewriter
+        .parse("insert into t values (?) on duplicate key update a = ?", 2));
+    assertNull(BatchedInsertRewriter.parse("insert into t values ('unterminated, ?)", 1));
+  }
+}
@@ -43,7 +43,7 @@ import org.mockito.Mockito;
 
 public class ConnectionPropertiesTest {
 
-  private static final int NUM_PROPS = 40;
+  private static final int NUM_PROPS = 72;
 
   @Test
   public void testReflection() throws Exception {
@@ -86,6 +86,27 @@ public class ConnectionPropertiesTest {
     assertEquals("refreshConnection", false, props.getRefreshConnection());
     assertEquals("refreshSeconds", 60, props.getRefreshSeconds());
     assertEquals("useTracing", false, props.getUseTracing());
+    assertEquals("streamPrefetchResults", 0, props.getStreamPrefetchResults());
+    assertEquals("streamPrefetchBytes", 0, props.getStreamPrefetchBytes());
+    assertEquals("cachePrepStmts", false, props.getCachePrepStmts());
+    assertEquals("prepStmtCacheSize", 25, props.getPrepStmtCacheSize());
+    assertEquals("prepStmtCacheSqlLimit", 256, props.getPrepStmtCacheSqlLimit());
+    assertEquals("grpcChannelsPerHost", 1, props.getGrpcChannelsPerHost());
+    assertEquals("grpcEventLoopThreads", 0, props.getGrpcEventLoopThreads());
+    assertEquals("grpcNativeTransport", false, props.getGrpcNativeTransport());
+    assertEquals("grpcExecutor", "default", props.getGrpcExecutor());
+    assertEquals("grpcRetriesBudgetRatio", 0.1, props.getGrpcRetryBudgetRatio(), 0);
+    assertEquals("grpcCircuitBreakerFailures", 0, props.getGrpcCircuitBreakerFailures());
+    assertEquals("grpcCircuitBreakerOpenMillis", 5000, props.getGrpcCircuitBreakerOpenMillis());
+    assertEquals("vtgateSelector", "roundRobin", props.getVtgateSelector());
+    assertEquals("vtgateEjectionMillis", 5000, props.getVtgateEjectionMillis());
+    assertEquals("hedgeReads", false, props.getHedgeReads());
+    assertEquals("hedgeDelayPercentile", 95, props.getHedgeDelayPercentile(), 0);
+    assertEquals("hedgeMinDelayMillis", 5, props.getHedgeMinDelayMillis());
+    assertEquals("rewriteBatchedStatements", false, props.getRewriteBatchedStatements());
+    assertEquals("maxAllowedPacket", 4 * 1024 * 1024, props.getMaxAllowedPacket());
+    assertEquals("collectExecutionStats", false, props.getCollectExecutionStats());
+    assertEquals("slowQueryThresholdMillis", 0, props.getSlowQueryThresholdMillis());
   }
 
   @Test
@@ -146,6 +167,69 @@ public class ConnectionPropertiesTest {
     }
   }
 
+  @Test
+  public void testStreamPrefetchValidation() {
+    for (String name : new String[]{"streamPrefetchResults", "streamPrefetchBytes"}) {
+      ConnectionProperties props = new ConnectionProperties();
+      Properties info = new Properties();
+      info.setProperty(name, "-1");
+      try {
+        props.initializeProperties(info);
+        fail("should have rejected " + name + "=-1");
+      } catch (SQLException e) {
+        assertEquals(name + " must not be negative: -1", e.getMessage());
+      }
+    }
+  }
+
+  @Test
+  public void testHedgeDelayPercentileValidation() {
+    for (String percentile : new String[]{"0", "100", "NaN"}) {
+      ConnectionProperties props = new ConnectionProperties();
+      Properties info = new Properties();
+      info.setProperty("hedgeDelayPercentile", percentile);
+      try {
+        props.initializeProperties(info);
+        fail("should have rejected hedgeDelayPercentile=" + percentile);
+      } catch (SQLException e) {
+        assertEquals("hedgeDelayPercentile must be in (0, 100): " + Double.valueOf(percentile),
+            e.getMessage());
+      }
+    }
+  }
+
+  @Test
+  public void testGrpcKeepAliveTimeoutValidation() throws SQLException {
+    ConnectionProperties props = new ConnectionProperties();
+    Properties info = new Properties();
+    info.setProperty("grpcKeepAliveTimeMillis", "10000");
+    info.setProperty("grpcKeepAliveTimeoutMillis", "0");
+    props.initializeProperties(info);
+    assertEquals(0, props.getGrpcKeepAliveTimeoutMillis());
+
+    info.setProperty("grpcKeepAliveTimeoutMillis", "-1");
+    try {
+      new ConnectionProperties().initializeProperties(info);
+      fail("should have rejected a negative grpcKeepAliveTimeoutMillis");
+    } catch (SQLException e) {
+      assertEquals("grpcKeepAliveTimeoutMillis must not be negative: -1", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testCopyProperties() throws SQLException {
+    ConnectionProperties props = new ConnectionProperties();
+    Properties info = new Properties();
+    info.setProperty("grpcKeepAliveTimeMillis", "10000");
+    info.setProperty("userName", "vt");
+    props.initializeProperties(info);
+
+    ConnectionProperties copy = props.copyProperties();
+    props.setGrpcKeepAliveTimeMillis(20000);
+    assertEquals(10000, copy.getGrpcKeepAliveTimeMillis());
+    assertEquals("vt", copy.getUsername());
+  }
+
   @Test
   public void testDriverPropertiesOutput() throws SQLException {
     Properties info = new Properties();
@@ -153,7 +237,7 @@ public class ConnectionPropertiesTest {
     assertEquals(NUM_PROPS, infos.length);
 
     // Test the expected fields for just 1
-    int indexForFullTest = 3;
+    int indexForFullTest = 6;
     assertEquals("executeType", infos[indexForFullTest].name);
     assertEquals("Query execution type: simple or stream", infos[indexForFullTest].description);
     assertEquals(false, infos[indexForFullTest].required);
@@ -165,17 +249,40 @@ public class ConnectionPropertiesTest {
     Assert.assertArrayEquals(allowed, infos[indexForFullTest].choices);
 
     // Test that name exists for the others, as a sanity check
-    assertEquals("dbName", infos[1].name);
-    assertEquals("characterEncoding", infos[2].name);
-    assertEquals("executeType", infos[3].name);
-    assertEquals("functionsNeverReturnBlobs", infos[4].name);
-    assertEquals("grpcRetriesEnabled", infos[5].name);
-    assertEquals("grpcRetriesBackoffMultiplier", infos[6].name);
-    assertEquals("grpcRetriesInitialBackoffMillis", infos[7].name);
-    assertEquals("grpcRetriesMaxBackoffMillis", infos[8].name);
-    assertEquals(Constants.Property.INCLUDED_FIELDS, infos[9].name);
-    assertEquals(Constants.Property.TABLET_TYPE, infos[21].name);
-    assertEquals(Constants.Property.TWOPC_ENABLED, infos[29].name);
+    assertEquals("cachePrepStmts", infos[1].name);
+    assertEquals("dbName", infos[2].name);
+    assertEquals("characterEncoding", infos[3].name);
+    assertEquals("collectExecutionStats", infos[4].name);
+    assertEquals("dbPropertiesRefreshMillis", infos[5].name);
+    assertEquals("executeType", infos[6].name);
+    assertEquals("functionsNeverReturnBlobs", infos[7].name);
+    assertEquals("grpcChannelsPerHost", infos[8].name);
+    assertEquals("grpcCircuitBreakerFailures", infos[9].name);
+    assertEquals("grpcCircuitBreakerOpenMillis", infos[10].name);
+    assertEquals("grpcCompression", infos[11].name);
+    assertEquals("grpcCompressionMinBytes", infos[12].name);
+    assertEquals("grpcEventLoopThreads", infos[13].name);
+    assertEquals("grpcExecutor", infos[14].name);
+    assertEquals("grpcIdleTimeoutMillis", infos[15].name);
+    assertEquals("grpcKeepAliveTimeMillis", infos[16].name);
+    assertEquals("grpcKeepAliveTimeoutMillis", infos[17].name);
+    assertEquals("grpcKeepAliveWithoutCalls", infos[18].name);
+    assertEquals("grpcNativeTransport", infos[19].name);
+    assertEquals("grpcRetriesEnabled", infos[20].name);
+    assertEquals("grpcRetriesBackoffMultiplier", infos[21].name);
+    assertEquals("grpcRetriesBudgetRatio", infos[22].name);
+    assertEquals("grpcRetriesInitialBackoffMillis", infos[23].name);
+    assertEquals("grpcRetriesMaxBackoffMillis", infos[24].name);
+    assertEquals("grpcWarmUpTimeoutMillis", infos[25].name);
+    assertEquals("hedgeDelayPercentile", infos[26].name);
+    assertEquals("hedgeMinDelayMillis", infos[27].name);
+    assertEquals("hedgeReads", infos[28].name);
+    assertEquals(Constants.Property.INCLUDED_FIELDS, infos[29].name);
+    assertEquals("metadataBulkFetch", infos[36].name);
+    assertEquals("metadataCacheInvalidateOnDdl", infos[37].name);
+    assertEquals("metadataCacheTtlMillis", infos[38].name);
+    assertEquals(Constants.Property.TABLET_TYPE, infos[51].name);
+    assertEquals(Constants.Property.TWOPC_ENABLED, infos[59].name);
   }
 
   @Test
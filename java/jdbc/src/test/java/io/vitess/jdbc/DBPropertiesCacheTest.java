@@ -0,0 +1,65 @@
+/*
+ * Copyright 2019 The Vitess Authors.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vitess.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class DBPropertiesCacheTest {
+
+  @Test
+  public void testFromVariables() {
+    Map<String, String> variables = new HashMap<>();
+    variables.put("innodb_version", "10.1.26-MariaDB");
+    variables.put("tx_isolation", "READ-COMMITTED");
+    variables.put("lower_case_table_names", "1");
+    DBPropertiesCache.Snapshot snapshot = DBPropertiesCache.fromVariables(variables);
+    assertEquals("mariadb", snapshot.getDbEngine());
+    assertEquals("10.1.26", snapshot.getDbProperties().getProductVersion());
+    assertEquals("10", snapshot.getDbProperties().getMajorVersion());
+    assertEquals("1", snapshot.getDbProperties().getMinorVersion());
+    assertEquals(Connection.TRANSACTION_READ_COMMITTED,
+        snapshot.getDbProperties().getIsolationLevel());
+    assertTrue(snapshot.getDbProperties().getStoresLowerCaseTableName());
+  }
+
+  @Test
+  public void testStaleSnapshotIsReturnedWhileRefreshing() throws Exception {
+    VitessConnection connection = new VitessConnection(
+        "jdbc:vitess://username@ip1:port1/keyspace", null);
+    DBPropertiesCache cache = new DBPropertiesCache();
+    assertNull(cache.get(connection));
+
+    DBPropertiesCache.Snapshot snapshot = DBPropertiesCache
+        .fromVariables(new HashMap<String, String>());
+    cache.set(snapshot);
+    assertSame(snapshot, cache.get(connection));
+
+    // The refresh can't reach VTGate, but the caller doesn't wait for it nor see it fail.
+    connection.setDbPropertiesRefreshMillis(1);
+    Thread.sleep(5);
+    assertSame(snapshot, cache.get(connection));
+  }
+}
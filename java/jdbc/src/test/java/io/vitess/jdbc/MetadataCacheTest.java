@@ -0,0 +1,60 @@
+/*
+ * Copyright 2019 The Vitess Authors.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vitess.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import io.vitess.proto.Query;
+
+import org.junit.Test;
+
+public class MetadataCacheTest {
+
+  private static final Query.QueryResult RESULT = Query.QueryResult.newBuilder()
+      .addFields(Query.Field.newBuilder().setName("Database").setType(Query.Type.VARCHAR))
+      .build();
+
+  @Test
+  public void testEntriesExpire() throws InterruptedException {
+    MetadataCache cache = new MetadataCache();
+    String key = MetadataCache.key("keyspace", "SHOW DATABASES");
+    cache.put(key, cache.getVersion(), RESULT, 60000);
+    assertSame(RESULT, cache.get(key, 60000));
+    assertNull(cache.get(MetadataCache.key("other", "SHOW DATABASES"), 60000));
+
+    Thread.sleep(5);
+    assertNull(cache.get(key, 1));
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void testInvalidate() {
+    MetadataCache cache = new MetadataCache();
+    String key = MetadataCache.key("keyspace", "SHOW DATABASES");
+    cache.put(key, cache.getVersion(), RESULT, 60000);
+    cache.invalidate();
+    assertNull(cache.get(key, 60000));
+
+    // A result read before the schema changed isn't kept.
+    long version = cache.getVersion();
+    cache.invalidate();
+    cache.put(key, version, RESULT, 60000);
+    assertNull(cache.get(key, 60000));
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2019 The Vitess Authors.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vitess.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import com.google.common.collect.ImmutableMap;
+
+import io.vitess.proto.Query;
+
+import java.sql.SQLException;
+
+import org.junit.Test;
+
+public class PreparedStatementCacheTest {
+
+  @Test
+  public void testLeastRecentlyUsedIsEvicted() throws SQLException {
+    PreparedStatementCache cache = new PreparedStatementCache(2, 256);
+    PreparedStatementCache.CachedStatement first = cache.get("select 1");
+    PreparedStatementCache.CachedStatement second = cache.get("select 2");
+    assertSame(first, cache.get("select 1"));
+
+    cache.get("select 3");
+    assertEquals(2, cache.size());
+    assertSame(first, cache.get("select 1"));
+    assertNotSame(second, cache.get("select 2"));
+  }
+
+  @Test
+  public void testLongSqlIsNotCached() throws SQLException {
+    PreparedStatementCache cache = new PreparedStatementCache(2, 10);
+    assertNull(cache.get("select * from t where a = ?"));
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void testBind() throws SQLException {
+    PreparedStatementCache cache = new PreparedStatementCache(2, 256);
+    PreparedStatementCache.CachedStatement statement =
+        cache.get("select * from t where a = ? and b = '?'");
+    assertEquals(1, statement.getParameterCount());
+
+    Query.BoundQuery query = statement.bind(ImmutableMap.of("v1", 7));
+    assertEquals("select * from t where a = ? and b = '?'", query.getSql());
+    assertEquals(Query.Type.INT64, query.getBindVariablesOrThrow("v1").getType());
+    // The template itself is left untouched.
+    assertEquals(0, statement.bind(null).getBindVariablesCount());
+  }
+}
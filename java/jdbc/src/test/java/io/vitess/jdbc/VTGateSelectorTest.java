@@ -0,0 +1,136 @@
+/*
+ * Copyright 2019 The Vitess Authors.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.vitess.jdbc;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.common.base.Ticker;
+
+import io.vitess.client.CallStats;
+import io.vitess.client.VTGateConnection;
+
+import java.sql.SQLTransientException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class VTGateSelectorTest {
+
+  private final FakeTicker ticker = new FakeTicker();
+
+  @Test
+  public void testRoundRobinCyclesThroughAll() {
+    List<VTGateConnection> connections =
+        Arrays.asList(connection(), connection(), connection());
+    VTGateSelector selector = new VTGateSelector.RoundRobin();
+    VTGateConnection first = selector.select(connections);
+    Set<VTGateConnection> selected = new HashSet<>();
+    selected.add(first);
+    selected.add(selector.select(connections));
+    selected.add(selector.select(connections));
+    Assert.assertEquals(3, selected.size());
+    Assert.assertSame(first, selector.select(connections));
+  }
+
+  @Test
+  public void testPeakEwmaPrefersFasterVTGate() {
+    VTGateConnection slow = connection();
+    VTGateConnection fast = connection();
+    call(slow, 100);
+    call(fast, 1);
+    List<VTGateConnection> connections = Arrays.asList(slow, fast);
+    VTGateSelector selector = new VTGateSelector.PeakEwma();
+    for (int i = 0; i < 20; i++) {
+      Assert.assertSame(fast, selector.select(connections));
+    }
+
+    // Enough calls in flight outweigh the latency difference.
+    for (int i = 0; i < 100; i++) {
+      fast.getCallStats().start();
+    }
+    Assert.assertSame(slow, selector.select(connections));
+  }
+
+  @Test
+  public void testPeakEwmaEjectsFailingVTGate() {
+    VTGateConnection failing = connection();
+    VTGateConnection other = connection();
+    VTGateConnection another = connection();
+    call(failing, 1);
+    call(other, 50);
+    call(another, 50);
+    CallStats stats = failing.getCallStats();
+    stats.finish(stats.start(), new SQLTransientException("unavailable"));
+
+    List<VTGateConnection> connections = Arrays.asList(failing, other, another);
+    VTGateSelector selector = new VTGateSelector.PeakEwma(1000);
+    for (int i = 0; i < 50; i++) {
+      Assert.assertNotSame(failing, selector.select(connections));
+    }
+
+    ticker.advance(1, TimeUnit.SECONDS);
+    Set<VTGateConnection> selected = new HashSet<>();
+    for (int i = 0; i < 50; i++) {
+      selected.add(selector.select(connections));
+    }
+    Assert.assertTrue(selected.contains(failing));
+  }
+
+  @Test
+  public void testPeakEwmaFallsBackWhenAllAreEjected() {
+    VTGateConnection first = connection();
+    VTGateConnection second = connection();
+    for (VTGateConnection connection : Arrays.asList(first, second)) {
+      CallStats stats = connection.getCallStats();
+      stats.finish(stats.start(), new SQLTransientException("unavailable"));
+    }
+    Assert.assertNotNull(new VTGateSelector.PeakEwma().select(Arrays.asList(first, second)));
+  }
+
+  private VTGateConnection connection() {
+    VTGateConnection connection = mock(VTGateConnection.class);
+    when(connection.getCallStats()).thenReturn(new CallStats(ticker, 10, TimeUnit.SECONDS));
+    return connection;
+  }
+
+  private void call(VTGateConnection connection, long millis) {
+    long start = connection.getCallStats().start();
+    ticker.advance(millis, TimeUnit.MILLISECONDS);
+    connection.getCallStats().finish(start, null);
+  }
+
+  private static class FakeTicker extends Ticker {
+
+    private long nanos;
+
+    @Override
+    public long read() {
+      return nanos;
+    }
+
+    void advance(long time, TimeUnit unit) {
+      nanos += unit.toNanos(time);
+    }
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2019 The Vitess Authors.
+
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.vitess.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+
+import org.junit.Test;
+
+public class VitessDataSourceTest extends BaseTest {
+
+  private VitessDataSource newDataSource(int maxPoolSize) {
+    VitessDataSource dataSource = new VitessDataSource();
+    dataSource.setUrl(dbURL);
+    dataSource.setMaxPoolSize(maxPoolSize);
+    dataSource.setLoginTimeout(1);
+    return dataSource;
+  }
+
+  @Test
+  public void testReusesAndResetsConnections() throws SQLException {
+    VitessDataSource dataSource = newDataSource(2);
+    Connection first = dataSource.getConnection();
+    VitessConnection physical = first.unwrap(VitessConnection.class);
+    first.setAutoCommit(false);
+    first.setCatalog("otherKeyspace");
+    first.close();
+    assertTrue(first.isClosed());
+    assertFalse(physical.isClosed());
+    try {
+      first.createStatement();
+      fail("expected a closed logical connection to fail");
+    } catch (SQLException exc) {
+      // expected
+    }
+
+    Connection second = dataSource.getConnection();
+    assertNotSame(first, second);
+    assertSame(physical, second.unwrap(VitessConnection.class));
+    assertTrue(second.getAutoCommit());
+    assertEquals("keyspace", second.getCatalog());
+    second.close();
+    dataSource.close();
+    assertTrue(physical.isClosed());
+  }
+
+  @Test
+  public void testStatementsLeadBackToLogicalConnection() throws SQLException {
+    VitessDataSource dataSource = newDataSource(1);
+    Connection connection = dataSource.getConnection();
+    VitessConnection physical = connection.unwrap(VitessConnection.class);
+    Statement statement = connection.createStatement();
+    PreparedStatement preparedStatement = connection.prepareStatement("select 1");
+    assertSame(connection, statement.getConnection());
+    assertSame(connection, preparedStatement.getConnection());
+
+    // Closing through a statement returns the connection rather than closing it.
+    statement.getConnection().close();
+    assertTrue(connection.isClosed());
+    assertFalse(physical.isClosed());
+    dataSource.getConnection().close();
+    dataSource.close();
+  }
+
+  @Test
+  public void testWaitsForFreeConnection() throws SQLException {
+    VitessDataSource dataSource = newDataSource(1);
+    Connection connection = dataSource.getConnection();
+    try {
+      dataSource.getConnection();
+      fail("expected the pool to be exhausted");
+    } catch (SQLTransientConnectionException exc) {
+      // expected
+    }
+    connection.close();
+    dataSource.getConnection().close();
+    dataSource.close();
+  }
+}
@@ -18,8 +18,13 @@ package io.vitess.jdbc;
 
 import com.google.common.base.Charsets;
 import com.google.common.io.CharStreams;
+import com.google.common.util.concurrent.Futures;
 import com.google.protobuf.ByteString;
 
+import io.vitess.client.Context;
+import io.vitess.client.SQLFuture;
+import io.vitess.client.VTGateConnection;
+import io.vitess.client.VTSession;
 import io.vitess.client.cursor.Cursor;
 import io.vitess.client.cursor.SimpleCursor;
 import io.vitess.proto.Query;
@@ -35,12 +40,14 @@ import java.sql.SQLException;
 import java.sql.Types;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Scanner;
 
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.Mockito;
 import org.powermock.api.mockito.PowerMockito;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
@@ -1356,6 +1363,314 @@ public class VitessDatabaseMetadataTest extends BaseTest {
     assertResultSetEquals(actualResultSet, expectedResultSet);
   }
 
+  @Test
+  public void getPrimaryKeysBulkFetchTest() throws Exception {
+    String sql = "SELECT TABLE_NAME AS `Table`, NON_UNIQUE AS Non_unique, INDEX_NAME AS Key_name, "
+        + "SEQ_IN_INDEX AS Seq_in_index, COLUMN_NAME AS Column_name, COLLATION AS Collation, "
+        + "CARDINALITY AS Cardinality FROM information_schema.STATISTICS "
+        + "WHERE TABLE_SCHEMA = 'vt' AND TABLE_NAME LIKE 'ship\\\\_ment' "
+        + "ORDER BY TABLE_NAME, INDEX_NAME, SEQ_IN_INDEX";
+    Query.QueryResult queryResult = Query.QueryResult.newBuilder()
+        .addFields(Query.Field.newBuilder().setName("Table").setType(Query.Type.VARCHAR))
+        .addFields(Query.Field.newBuilder().setName("Non_unique").setType(Query.Type.INT64))
+        .addFields(Query.Field.newBuilder().setName("Key_name").setType(Query.Type.VARCHAR))
+        .addFields(Query.Field.newBuilder().setName("Seq_in_index").setType(Query.Type.INT64))
+        .addFields(Query.Field.newBuilder().setName("Column_name").setType(Query.Type.VARCHAR))
+        .addFields(Query.Field.newBuilder().setName("Collation").setType(Query.Type.VARCHAR))
+        .addFields(Query.Field.newBuilder().setName("Cardinality").setType(Query.Type.INT64))
+        .addRows(Query.Row.newBuilder().addLengths("ship_ment".length()).addLengths("0".length())
+            .addLengths("PRIMARY".length()).addLengths("1".length())
+            .addLengths("shipmentid".length()).addLengths("A".length())
+            .addLengths("434880".length())
+            .setValues(ByteString.copyFromUtf8("ship_ment0PRIMARY1shipmentidA434880")))
+        .build();
+
+    Properties info = new Properties();
+    info.setProperty("metadataBulkFetch", "true");
+    VitessConnection vitessConnection = new VitessConnection(
+        "jdbc:vitess://username@ip1:port1/keyspace", info);
+    VitessStatement vitessStatement = PowerMockito.spy(new VitessStatement(vitessConnection));
+    PowerMockito.whenNew(VitessStatement.class).withAnyArguments().thenReturn(vitessStatement);
+    PowerMockito.doReturn(new VitessResultSet(new SimpleCursor(queryResult), vitessStatement))
+        .when(vitessStatement).executeQuery(sql);
+
+    ResultSet primaryKeys = new VitessMySQLDatabaseMetadata(vitessConnection)
+        .getPrimaryKeys("vt", null, "ship_ment");
+    Assert.assertTrue(primaryKeys.next());
+    Assert.assertEquals("vt", primaryKeys.getString("TABLE_CAT"));
+    Assert.assertEquals("ship_ment", primaryKeys.getString("TABLE_NAME"));
+    Assert.assertEquals("shipmentid", primaryKeys.getString("COLUMN_NAME"));
+    Assert.assertEquals(1, primaryKeys.getInt("KEY_SEQ"));
+    Assert.assertEquals("PRIMARY", primaryKeys.getString("PK_NAME"));
+    Assert.assertFalse(primaryKeys.next());
+  }
+
+  @Test
+  public void getTablesBulkFetchTest() throws Exception {
+    String sql = "SELECT TABLE_NAME, TABLE_TYPE FROM information_schema.TABLES "
+        + "WHERE TABLE_SCHEMA = 'vt' AND TABLE_NAME LIKE 'ship%' ORDER BY TABLE_NAME";
+    Query.QueryResult queryResult = Query.QueryResult.newBuilder()
+        .addFields(Query.Field.newBuilder().setName("TABLE_NAME").setType(Query.Type.VARCHAR))
+        .addFields(Query.Field.newBuilder().setName("TABLE_TYPE").setType(Query.Type.VARCHAR))
+        .addRows(bulkRow("ship_ment", "BASE TABLE"))
+        .addRows(bulkRow("ship_view", "VIEW"))
+        .build();
+    VitessConnection vitessConnection = bulkFetchConnection(new Properties());
+    stubBulkQuery(vitessConnection, sql, queryResult);
+
+    ResultSet tables = new VitessMySQLDatabaseMetadata(vitessConnection)
+        .getTables("vt", null, "ship%", null);
+    Assert.assertTrue(tables.next());
+    Assert.assertEquals("vt", tables.getString("TABLE_CAT"));
+    Assert.assertEquals("ship_ment", tables.getString("TABLE_NAME"));
+    Assert.assertEquals("TABLE", tables.getString("TABLE_TYPE"));
+    Assert.assertTrue(tables.next());
+    Assert.assertEquals("ship_view", tables.getString("TABLE_NAME"));
+    Assert.assertEquals("VIEW", tables.getString("TABLE_TYPE"));
+    Assert.assertFalse(tables.next());
+  }
+
+  @Test
+  public void getColumnsBulkFetchTest() throws Exception {
+    String sql = "SELECT TABLE_NAME, COLUMN_NAME AS Field, COLUMN_TYPE AS Type, "
+        + "IS_NULLABLE AS `Null`, COLLATION_NAME AS Collation, COLUMN_DEFAULT AS `Default`, "
+        + "EXTRA AS Extra, ORDINAL_POSITION FROM information_schema.COLUMNS "
+        + "WHERE TABLE_SCHEMA = 'vt' AND TABLE_NAME LIKE 'ship_ment' "
+        + "ORDER BY TABLE_NAME, ORDINAL_POSITION";
+    Query.QueryResult queryResult = Query.QueryResult.newBuilder()
+        .addFields(Query.Field.newBuilder().setName("TABLE_NAME").setType(Query.Type.VARCHAR))
+        .addFields(Query.Field.newBuilder().setName("Field").setType(Query.Type.VARCHAR))
+        .addFields(Query.Field.newBuilder().setName("Type").setType(Query.Type.VARCHAR))
+        .addFields(Query.Field.newBuilder().setName("Null").setType(Query.Type.VARCHAR))
+        .addFields(Query.Field.newBuilder().setName("Collation").setType(Query.Type.VARCHAR))
+        .addFields(Query.Field.newBuilder().setName("Default").setType(Query.Type.VARCHAR))
+        .addFields(Query.Field.newBuilder().setName("Extra").setType(Query.Type.VARCHAR))
+        .addFields(
+            Query.Field.newBuilder().setName("ORDINAL_POSITION").setType(Query.Type.UINT64))
+        .addRows(bulkRow("ship_ment", "shipmentid", "bigint(20)", "NO", null, null,
+            "auto_increment", "1"))
+        .addRows(bulkRow("ship_ment", "created", "datetime", "YES", null, null, "", "2"))
+        .addRows(bulkRow("ship_ment", "shipping_id", "int(11)", "YES", null, null, "", "3"))
+        .build();
+    VitessConnection vitessConnection = bulkFetchConnection(new Properties());
+    stubBulkQuery(vitessConnection, sql, queryResult);
+
+    // The column pattern is applied by the driver, ignoring case like LIKE.
+    ResultSet columns = new VitessMySQLDatabaseMetadata(vitessConnection)
+        .getColumns("vt", null, "ship_ment", "SHIP%");
+    Assert.assertTrue(columns.next());
+    Assert.assertEquals("ship_ment", columns.getString("TABLE_NAME"));
+    Assert.assertEquals("shipmentid", columns.getString("COLUMN_NAME"));
+    Assert.assertEquals(Types.BIGINT, columns.getInt("DATA_TYPE"));
+    Assert.assertEquals(1, columns.getInt("ORDINAL_POSITION"));
+    Assert.assertEquals("NO", columns.getString("IS_NULLABLE"));
+    Assert.assertEquals("YES", columns.getString("IS_AUTOINCREMENT"));
+    Assert.assertTrue(columns.next());
+    Assert.assertEquals("shipping_id", columns.getString("COLUMN_NAME"));
+    Assert.assertEquals(Types.INTEGER, columns.getInt("DATA_TYPE"));
+    Assert.assertEquals(3, columns.getInt("ORDINAL_POSITION"));
+    Assert.assertEquals("NO", columns.getString("IS_AUTOINCREMENT"));
+    Assert.assertFalse(columns.next());
+  }
+
+  @Test
+  public void getImportedKeysBulkFetchTest() throws Exception {
+    String sql = "SELECT k.TABLE_NAME, k.TABLE_SCHEMA, k.CONSTRAINT_NAME, k.COLUMN_NAME, "
+        + "k.ORDINAL_POSITION, k.REFERENCED_TABLE_SCHEMA, k.REFERENCED_TABLE_NAME, "
+        + "k.REFERENCED_COLUMN_NAME, r.UPDATE_RULE, r.DELETE_RULE "
+        + "FROM information_schema.KEY_COLUMN_USAGE k "
+        + "JOIN information_schema.REFERENTIAL_CONSTRAINTS r "
+        + "ON r.CONSTRAINT_SCHEMA = k.CONSTRAINT_SCHEMA AND r.TABLE_NAME = k.TABLE_NAME "
+        + "AND r.CONSTRAINT_NAME = k.CONSTRAINT_NAME WHERE k.TABLE_SCHEMA = 'vt' "
+        + "AND k.REFERENCED_TABLE_NAME IS NOT NULL AND k.TABLE_NAME LIKE 'ship\\\\_ment' "
+        + "ORDER BY k.TABLE_NAME, k.CONSTRAINT_NAME, k.ORDINAL_POSITION";
+    Query.QueryResult.Builder queryResult = Query.QueryResult.newBuilder();
+    for (String field : new String[]{"TABLE_NAME", "TABLE_SCHEMA", "CONSTRAINT_NAME",
+        "COLUMN_NAME", "ORDINAL_POSITION", "REFERENCED_TABLE_SCHEMA", "REFERENCED_TABLE_NAME",
+        "REFERENCED_COLUMN_NAME", "UPDATE_RULE", "DELETE_RULE"}) {
+      queryResult.addFields(Query.Field.newBuilder().setName(field).setType(Query.Type.VARCHAR));
+    }
+    // The tablets' database rather than the keyspace, as VTGate may report it.
+    queryResult.addRows(bulkRow("ship_ment", "vt_vt_0", "fk_order", "orderid", "1", "vt_vt_0",
+        "orders", "id", "CASCADE", "RESTRICT"));
+    VitessConnection vitessConnection = bulkFetchConnection(new Properties());
+    stubBulkQuery(vitessConnection, sql, queryResult.build());
+
+    ResultSet importedKeys = new VitessMySQLDatabaseMetadata(vitessConnection)
+        .getImportedKeys("vt", null, "ship_ment");
+    Assert.assertTrue(importedKeys.next());
+    Assert.assertEquals("vt", importedKeys.getString("PKTABLE_CAT"));
+    Assert.assertEquals("orders", importedKeys.getString("PKTABLE_NAME"));
+    Assert.assertEquals("id", importedKeys.getString("PKCOLUMN_NAME"));
+    Assert.assertEquals("vt", importedKeys.getString("FKTABLE_CAT"));
+    Assert.assertEquals("ship_ment", importedKeys.getString("FKTABLE_NAME"));
+    Assert.assertEquals("orderid", importedKeys.getString("FKCOLUMN_NAME"));
+    Assert.assertEquals(1, importedKeys.getInt("KEY_SEQ"));
+    Assert.assertEquals(java.sql.DatabaseMetaData.importedKeyCascade,
+        importedKeys.getInt("UPDATE_RULE"));
+    Assert.assertEquals(java.sql.DatabaseMetaData.importedKeyRestrict,
+        importedKeys.getInt("DELETE_RULE"));
+    Assert.assertEquals("fk_order", importedKeys.getString("FK_NAME"));
+    Assert.assertFalse(importedKeys.next());
+  }
+
+  @Test
+  public void getIndexInfoBulkFetchTest() throws Exception {
+    String sql = "SELECT TABLE_NAME AS `Table`, NON_UNIQUE AS Non_unique, INDEX_NAME AS Key_name, "
+        + "SEQ_IN_INDEX AS Seq_in_index, COLUMN_NAME AS Column_name, COLLATION AS Collation, "
+        + "CARDINALITY AS Cardinality FROM information_schema.STATISTICS "
+        + "WHERE TABLE_SCHEMA = 'vt' AND TABLE_NAME LIKE 'ship\\\\_ment' "
+        + "ORDER BY TABLE_NAME, INDEX_NAME, SEQ_IN_INDEX";
+    Query.QueryResult queryResult = statisticsResult()
+        .addRows(bulkRow("ship_ment", "1", "idx_order", "1", "orderid", "A", "1200"))
+        .addRows(bulkRow("ship_ment", "0", "PRIMARY", "1", "shipmentid", "A", "434880"))
+        .build();
+    VitessConnection vitessConnection = bulkFetchConnection(new Properties());
+    stubBulkQuery(vitessConnection, sql, queryResult);
+
+    ResultSet indexInfo = new VitessMySQLDatabaseMetadata(vitessConnection)
+        .getIndexInfo("vt", null, "ship_ment", false, false);
+    Assert.assertTrue(indexInfo.next());
+    Assert.assertEquals("ship_ment", indexInfo.getString("TABLE_NAME"));
+    Assert.assertEquals("PRIMARY", indexInfo.getString("INDEX_NAME"));
+    Assert.assertEquals("shipmentid", indexInfo.getString("COLUMN_NAME"));
+    Assert.assertEquals(434880, indexInfo.getInt("CARDINALITY"));
+    Assert.assertTrue(indexInfo.next());
+    Assert.assertEquals("idx_order", indexInfo.getString("INDEX_NAME"));
+    Assert.assertEquals("orderid", indexInfo.getString("COLUMN_NAME"));
+    Assert.assertEquals(1, indexInfo.getInt("ORDINAL_POSITION"));
+    Assert.assertEquals(1200, indexInfo.getInt("CARDINALITY"));
+    Assert.assertFalse(indexInfo.next());
+  }
+
+  @Test
+  public void getPrimaryKeysBulkFetchCachedTest() throws Exception {
+    String sql = "SELECT TABLE_NAME AS `Table`, NON_UNIQUE AS Non_unique, INDEX_NAME AS Key_name, "
+        + "SEQ_IN_INDEX AS Seq_in_index, COLUMN_NAME AS Column_name, COLLATION AS Collation, "
+        + "CARDINALITY AS Cardinality FROM information_schema.STATISTICS "
+        + "WHERE TABLE_SCHEMA = 'vt' ORDER BY TABLE_NAME, INDEX_NAME, SEQ_IN_INDEX";
+    Query.QueryResult queryResult = statisticsResult()
+        .addRows(bulkRow("orders", "0", "PRIMARY", "1", "id", "A", "1200"))
+        .addRows(bulkRow("ship_ment", "0", "PRIMARY", "1", "shipmentid", "A", "434880"))
+        .build();
+    Properties info = new Properties();
+    info.setProperty("metadataCacheTtlMillis", "60000");
+    VitessConnection vitessConnection = PowerMockito.spy(bulkFetchConnection(info));
+    PowerMockito.doReturn(new MetadataCache()).when(vitessConnection).getMetadataCache();
+    VitessStatement first = PowerMockito.spy(new VitessStatement(vitessConnection));
+    VitessStatement second = PowerMockito.spy(new VitessStatement(vitessConnection));
+    PowerMockito.whenNew(VitessStatement.class).withAnyArguments().thenReturn(first, second);
+    PowerMockito.doReturn(new VitessResultSet(new SimpleCursor(queryResult), first))
+        .when(first).executeQuery(sql);
+
+    VitessMySQLDatabaseMetadata metadata = new VitessMySQLDatabaseMetadata(vitessConnection);
+    ResultSet primaryKeys = metadata.getPrimaryKeys("vt", null, "ship_ment");
+    Assert.assertTrue(primaryKeys.next());
+    Assert.assertEquals("shipmentid", primaryKeys.getString("COLUMN_NAME"));
+    Assert.assertFalse(primaryKeys.next());
+
+    // Served from the keyspace-wide rows of the first call, and matched ignoring case like LIKE.
+    primaryKeys = metadata.getPrimaryKeys("vt", null, "ORDERS");
+    Assert.assertTrue(primaryKeys.next());
+    Assert.assertEquals("id", primaryKeys.getString("COLUMN_NAME"));
+    Assert.assertFalse(primaryKeys.next());
+    Mockito.verify(first, Mockito.times(1)).executeQuery(sql);
+    Mockito.verify(second, Mockito.never()).executeQuery(Mockito.anyString());
+  }
+
+  @Test
+  public void getPrimaryKeysCacheInvalidatedByAlterTest() throws Exception {
+    String sql = "SELECT TABLE_NAME AS `Table`, NON_UNIQUE AS Non_unique, INDEX_NAME AS Key_name, "
+        + "SEQ_IN_INDEX AS Seq_in_index, COLUMN_NAME AS Column_name, COLLATION AS Collation, "
+        + "CARDINALITY AS Cardinality FROM information_schema.STATISTICS "
+        + "WHERE TABLE_SCHEMA = 'vt' ORDER BY TABLE_NAME, INDEX_NAME, SEQ_IN_INDEX";
+    Query.QueryResult before = statisticsResult()
+        .addRows(bulkRow("orders", "0", "PRIMARY", "1", "id", "A", "1200"))
+        .build();
+    Query.QueryResult after = statisticsResult()
+        .addRows(bulkRow("orders", "0", "PRIMARY", "1", "id", "A", "1200"))
+        .addRows(bulkRow("orders", "0", "PRIMARY", "2", "region", "A", "1200"))
+        .build();
+    Properties info = new Properties();
+    info.setProperty("metadataCacheTtlMillis", "60000");
+    VitessConnection vitessConnection = PowerMockito.spy(bulkFetchConnection(info));
+    MetadataCache cache = new MetadataCache();
+    PowerMockito.doReturn(cache).when(vitessConnection).getMetadataCache();
+    VTGateConnection vtGateConn = Mockito.mock(VTGateConnection.class);
+    PowerMockito.doReturn(vtGateConn).when(vitessConnection).getVtGateConn();
+    Mockito.doReturn(new SQLFuture<Cursor>(Futures.<Cursor>immediateFuture(
+        new SimpleCursor(Query.QueryResult.getDefaultInstance()))))
+        .when(vtGateConn).execute(Mockito.nullable(Context.class), Mockito.anyString(),
+            Mockito.nullable(Map.class), Mockito.nullable(VTSession.class));
+    VitessStatement first = PowerMockito.spy(new VitessStatement(vitessConnection));
+    VitessStatement second = PowerMockito.spy(new VitessStatement(vitessConnection));
+    PowerMockito.whenNew(VitessStatement.class).withAnyArguments().thenReturn(first, second);
+    PowerMockito.doReturn(new VitessResultSet(new SimpleCursor(before), first))
+        .when(first).executeQuery(sql);
+    PowerMockito.doReturn(new VitessResultSet(new SimpleCursor(after), second))
+        .when(second).executeQuery(sql);
+
+    VitessMySQLDatabaseMetadata metadata = new VitessMySQLDatabaseMetadata(vitessConnection);
+    ResultSet primaryKeys = metadata.getPrimaryKeys("vt", null, "orders");
+    Assert.assertTrue(primaryKeys.next());
+    Assert.assertFalse(primaryKeys.next());
+    Assert.assertTrue(cache.size() > 0);
+
+    new VitessStatement(vitessConnection)
+        .executeUpdate("ALTER TABLE orders DROP PRIMARY KEY, ADD PRIMARY KEY (id, region)");
+    Assert.assertEquals(0, cache.size());
+
+    primaryKeys = metadata.getPrimaryKeys("vt", null, "orders");
+    Assert.assertTrue(primaryKeys.next());
+    Assert.assertEquals("id", primaryKeys.getString("COLUMN_NAME"));
+    Assert.assertTrue(primaryKeys.next());
+    Assert.assertEquals("region", primaryKeys.getString("COLUMN_NAME"));
+    Assert.assertFalse(primaryKeys.next());
+    Mockito.verify(first, Mockito.times(1)).executeQuery(sql);
+    Mockito.verify(second, Mockito.times(1)).executeQuery(sql);
+  }
+
+  private static VitessConnection bulkFetchConnection(Properties info) throws SQLException {
+    info.setProperty("metadataBulkFetch", "true");
+    return new VitessConnection("jdbc:vitess://username@ip1:port1/keyspace", info);
+  }
+
+  private static void stubBulkQuery(VitessConnection vitessConnection, String sql,
+      Query.QueryResult queryResult) throws Exception {
+    VitessStatement vitessStatement = PowerMockito.spy(new VitessStatement(vitessConnection));
+    PowerMockito.whenNew(VitessStatement.class).withAnyArguments().thenReturn(vitessStatement);
+    PowerMockito.doReturn(new VitessResultSet(new SimpleCursor(queryResult), vitessStatement))
+        .when(vitessStatement).executeQuery(sql);
+  }
+
+  private static Query.QueryResult.Builder statisticsResult() {
+    return Query.QueryResult.newBuilder()
+        .addFields(Query.Field.newBuilder().setName("Table").setType(Query.Type.VARCHAR))
+        .addFields(Query.Field.newBuilder().setName("Non_unique").setType(Query.Type.INT64))
+        .addFields(Query.Field.newBuilder().setName("Key_name").setType(Query.Type.VARCHAR))
+        .addFields(Query.Field.newBuilder().setName("Seq_in_index").setType(Query.Type.INT64))
+        .addFields(Query.Field.newBuilder().setName("Column_name").setType(Query.Type.VARCHAR))
+        .addFields(Query.Field.newBuilder().setName("Collation").setType(Query.Type.VARCHAR))
+        .addFields(Query.Field.newBuilder().setName("Cardinality").setType(Query.Type.INT64));
+  }
+
+  /**
+   * Returns a row of {@code values}, where null stands for NULL.
+   */
+  private static Query.Row bulkRow(String... values) {
+    Query.Row.Builder row = Query.Row.newBuilder();
+    StringBuilder concatenated = new StringBuilder();
+    for (String value : values) {
+      if (null == value) {
+        row.addLengths(-1);
+      } else {
+        row.addLengths(value.length());
+        concatenated.append(value);
+      }
+    }
+    return row.setValues(ByteString.copyFromUtf8(concatenated.toString())).build();
+  }
+
   private void assertResultSetEquals(ResultSet actualResultSet, ResultSet expectedResultSet)
       throws SQLException {
     ResultSetMetaData actualResultSetMetadata = actualResultSet.getMetaData();
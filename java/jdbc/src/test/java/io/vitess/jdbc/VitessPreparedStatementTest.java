@@ -45,12 +45,15 @@ import java.sql.BatchUpdateException;
 import java.sql.Date;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
 import java.sql.Statement;
 import java.sql.Time;
 import java.sql.Timestamp;
 import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.TimeZone;
@@ -60,6 +63,7 @@ import javax.sql.rowset.serial.SerialClob;
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Matchers;
 import org.mockito.Mockito;
 import org.powermock.api.mockito.PowerMockito;
@@ -747,4 +751,119 @@ public class VitessPreparedStatementTest {
           statement.getParameterMetaData().getParameterCount());
     }
   }
+
+  @Test
+  public void testPreparedStatementCache() throws SQLException {
+    VitessConnection mockConn = mock(VitessConnection.class);
+    VTGateConnection mockVtGateConn = mock(VTGateConnection.class);
+    Cursor mockCursor = mock(Cursor.class);
+    SQLFuture mockSqlFutureCursor = mock(SQLFuture.class);
+    SQLFuture mockSqlFutureFields = mock(SQLFuture.class);
+    PreparedStatementCache cache = new PreparedStatementCache(10, 256);
+
+    when(mockConn.getPreparedStatementCache()).thenReturn(cache);
+    when(mockConn.getVtGateConn()).thenReturn(mockVtGateConn);
+    when(mockConn.getAutoCommit()).thenReturn(true);
+    when(mockConn.isSimpleExecute()).thenReturn(true);
+    when(mockVtGateConn.execute(nullable(Context.class), any(Query.BoundQuery.class),
+        nullable(VTSession.class))).thenReturn(mockSqlFutureCursor);
+    when(mockSqlFutureCursor.checkedGet()).thenReturn(mockCursor);
+    when(mockVtGateConn.prepare(nullable(Context.class), nullable(String.class),
+        nullable(Map.class), nullable(VTSession.class))).thenReturn(mockSqlFutureFields);
+    when(mockSqlFutureFields.checkedGet()).thenReturn(Collections.singletonList(
+        Query.Field.newBuilder().setName("id").setType(Query.Type.INT64).build()));
+
+    String sql = "select id from test_table where id = ?";
+    VitessPreparedStatement first = new VitessPreparedStatement(mockConn, sql);
+    assertEquals(1, first.getParameterMetaData().getParameterCount());
+    // The metadata is available before execution.
+    assertEquals(1, first.getMetaData().getColumnCount());
+
+    first.setInt(1, 42);
+    first.executeQuery();
+    ArgumentCaptor<Query.BoundQuery> query = ArgumentCaptor.forClass(Query.BoundQuery.class);
+    Mockito.verify(mockVtGateConn)
+        .execute(nullable(Context.class), query.capture(), nullable(VTSession.class));
+    assertEquals(sql, query.getValue().getSql());
+    assertEquals("42", query.getValue().getBindVariablesOrThrow("v1").getValue().toStringUtf8());
+
+    // Another statement with the same SQL reuses what the first one learned.
+    VitessPreparedStatement second = new VitessPreparedStatement(mockConn, sql);
+    assertEquals("id", second.getMetaData().getColumnName(1));
+    Mockito.verify(mockVtGateConn, Mockito.times(1)).prepare(nullable(Context.class),
+        nullable(String.class), nullable(Map.class), nullable(VTSession.class));
+    assertEquals(1, cache.size());
+
+    // Statements that don't return a result set have no metadata.
+    when(mockSqlFutureFields.checkedGet()).thenReturn(Collections.<Query.Field>emptyList());
+    Assert.assertNull(new VitessPreparedStatement(mockConn, sqlUpdate).getMetaData());
+  }
+
+  @Test
+  public void testGetMetaDataWithoutPrepareSupport() throws SQLException {
+    VitessConnection mockConn = mock(VitessConnection.class);
+    VTGateConnection mockVtGateConn = mock(VTGateConnection.class);
+    when(mockConn.getVtGateConn()).thenReturn(mockVtGateConn);
+    when(mockVtGateConn.prepare(nullable(Context.class), nullable(String.class),
+        nullable(Map.class), nullable(VTSession.class)))
+        .thenThrow(new UnsupportedOperationException("prepare isn't supported"));
+
+    try {
+      new VitessPreparedStatement(mockConn, sqlSelect).getMetaData();
+      fail("should have thrown SQLFeatureNotSupportedException");
+    } catch (SQLFeatureNotSupportedException exc) {
+      Assert.assertTrue(exc.getCause() instanceof UnsupportedOperationException);
+    }
+  }
+
+  @Test
+  public void testRewriteBatchedStatements() throws SQLException {
+    VitessConnection mockConn = mock(VitessConnection.class);
+    VTGateConnection mockVtGateConn = mock(VTGateConnection.class);
+    SQLFuture mockSqlFutureCursor = mock(SQLFuture.class);
+    when(mockConn.getVtGateConn()).thenReturn(mockVtGateConn);
+    when(mockConn.getAutoCommit()).thenReturn(true);
+    when(mockConn.getRewriteBatchedStatements()).thenReturn(true);
+    // Room for the statement and two rows.
+    when(mockConn.getMaxAllowedPacket()).thenReturn(100L);
+    when(mockVtGateConn.executeBatch(nullable(Context.class), Matchers.anyList(),
+        Matchers.anyList(), nullable(VTSession.class))).thenReturn(mockSqlFutureCursor);
+
+    Cursor firstCursor = mock(Cursor.class);
+    when(firstCursor.getRowsAffected()).thenReturn(2L);
+    when(firstCursor.getInsertId()).thenReturn(10L);
+    CursorWithError first = mock(CursorWithError.class);
+    when(first.getCursor()).thenReturn(firstCursor);
+    Cursor secondCursor = mock(Cursor.class);
+    when(secondCursor.getRowsAffected()).thenReturn(1L);
+    when(secondCursor.getInsertId()).thenReturn(20L);
+    CursorWithError second = mock(CursorWithError.class);
+    when(second.getCursor()).thenReturn(secondCursor);
+    when(mockSqlFutureCursor.checkedGet()).thenReturn(Arrays.asList(first, second));
+
+    VitessPreparedStatement statement =
+        new VitessPreparedStatement(mockConn, "insert into t (a) values (?)");
+    for (int i = 1; i <= 3; i++) {
+      statement.setInt(1, i);
+      statement.addBatch();
+    }
+    int[] updateCounts = statement.executeBatch();
+    Assert.assertArrayEquals(new int[]{1, 1, 1}, updateCounts);
+
+    ArgumentCaptor<List> queries = ArgumentCaptor.forClass(List.class);
+    ArgumentCaptor<List> bindVariables = ArgumentCaptor.forClass(List.class);
+    Mockito.verify(mockVtGateConn).executeBatch(nullable(Context.class), queries.capture(),
+        bindVariables.capture(), nullable(VTSession.class));
+    assertEquals(Arrays.asList("insert into t (a) values (?),(?)", "insert into t (a) values (?)"),
+        queries.getValue());
+    assertEquals(Arrays.asList(ImmutableMap.of("v1", 1, "v2", 2), ImmutableMap.of("v1", 3)),
+        bindVariables.getValue());
+
+    ResultSet generatedKeys = statement.getGeneratedKeys();
+    for (long expected : new long[]{10, 11, 20}) {
+      Assert.assertTrue(generatedKeys.next());
+      assertEquals(expected, generatedKeys.getLong(1));
+    }
+    Assert.assertFalse(generatedKeys.next());
+  }
 }
@@ -308,6 +308,21 @@ public class VitessResultSetTest extends BaseTest {
     assertEquals(false, vitessResultSet.getBoolean(1));
   }
 
+  @Test
+  public void testgetBooleanOutsideIntRange() throws SQLException {
+    Cursor cursor = new SimpleCursor(Query.QueryResult.newBuilder()
+        .addFields(getField("col1", Query.Type.INT64))
+        .addFields(getField("col2", Query.Type.INT64))
+        .addRows(Query.Row.newBuilder().addLengths("2147483647".length())
+            .addLengths("2147483648".length())
+            .setValues(ByteString.copyFromUtf8("21474836472147483648")))
+        .build());
+    VitessResultSet vitessResultSet = new VitessResultSet(cursor, getVitessStatement());
+    vitessResultSet.next();
+    assertEquals(true, vitessResultSet.getBoolean(1));
+    assertEquals(false, vitessResultSet.getBoolean(2));
+  }
+
   @Test
   public void testgetByte() throws SQLException {
     Cursor cursor = getCursorWithRows();
@@ -347,6 +362,7 @@ public class VitessResultSetTest extends BaseTest {
     VitessResultSet vitessResultSet = new VitessResultSet(cursor, getVitessStatement());
     vitessResultSet.next();
     assertEquals(24.52f, vitessResultSet.getFloat(11), 0.001);
+    assertEquals(Float.parseFloat("100.43"), vitessResultSet.getFloat(12), 0.0);
   }
 
   @Test
@@ -32,12 +32,17 @@ import static org.powermock.api.mockito.PowerMockito.doReturn;
 import static org.powermock.api.mockito.PowerMockito.mock;
 import static org.powermock.api.mockito.PowerMockito.when;
 
+import com.google.protobuf.ByteString;
+
 import io.vitess.client.Context;
 import io.vitess.client.SQLFuture;
 import io.vitess.client.VTGateConnection;
+import io.vitess.client.StreamIterator;
 import io.vitess.client.VTSession;
 import io.vitess.client.cursor.Cursor;
 import io.vitess.client.cursor.CursorWithError;
+import io.vitess.client.cursor.SimpleCursor;
+import io.vitess.client.cursor.StreamCursor;
 import io.vitess.proto.Query;
 import io.vitess.proto.Vtrpc;
 import io.vitess.util.Constants;
@@ -50,6 +55,8 @@ import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -718,4 +725,102 @@ public class VitessStatementTest {
     ResultSet empty = noUpdate.getGeneratedKeys();
     assertFalse(empty.next());
   }
+
+  @Test
+  public void testLastExecutionStats() throws SQLException {
+    VitessConnection mockConn = mock(VitessConnection.class);
+    VTGateConnection mockVtGateConn = mock(VTGateConnection.class);
+    SQLFuture mockSqlFutureCursor = mock(SQLFuture.class);
+    final AtomicReference<ExecutionStats> reported = new AtomicReference<>();
+    ExecutionStatsListener listener = new ExecutionStatsListener() {
+      @Override
+      public void executionFinished(ExecutionStats stats) {
+        reported.set(stats);
+      }
+    };
+    Query.QueryResult result = Query.QueryResult.newBuilder()
+        .addFields(Query.Field.newBuilder().setName("col1").setType(Query.Type.INT64))
+        .addRows(Query.Row.newBuilder().addLengths(1).setValues(ByteString.copyFromUtf8("1")))
+        .addRows(Query.Row.newBuilder().addLengths(1).setValues(ByteString.copyFromUtf8("2")))
+        .build();
+
+    when(mockConn.getVtGateConn()).thenReturn(mockVtGateConn);
+    when(mockConn.isSimpleExecute()).thenReturn(true);
+    when(mockConn.newExecutionStats(sqlSelect))
+        .thenReturn(new ExecutionStats(sqlSelect, listener));
+    when(mockVtGateConn.execute(nullable(Context.class), any(Query.BoundQuery.class),
+        nullable(VTSession.class))).thenReturn(mockSqlFutureCursor);
+    when(mockSqlFutureCursor.checkedGet()).thenReturn(new SimpleCursor(result));
+
+    VitessStatement statement = new VitessStatement(mockConn);
+    assertNull(statement.getLastExecutionStats());
+    ResultSet rs = statement.executeQuery(sqlSelect);
+    ExecutionStats stats = statement.unwrap(VitessStatement.class).getLastExecutionStats();
+    assertNotNull(stats);
+    assertEquals(sqlSelect, stats.getSql());
+    assertFalse(stats.isFinished());
+
+    int rows = 0;
+    while (rs.next()) {
+      rows++;
+    }
+    assertEquals(2, rows);
+    assertEquals(2, stats.getRowCount());
+    assertNull(reported.get());
+    rs.close();
+    assertTrue(stats.isFinished());
+    assertEquals(stats, reported.get());
+    assertEquals(stats.getBindNanos() + stats.getRpcNanos() + stats.getFieldsNanos()
+        + stats.getRowsNanos(), stats.getTotalNanos());
+  }
+
+  @Test
+  public void testLastExecutionStatsCountsWaitForStreamAsRpc() throws SQLException {
+    VitessConnection mockConn = mock(VitessConnection.class);
+    VTGateConnection mockVtGateConn = mock(VTGateConnection.class);
+    final long delayMillis = 50;
+    final Query.QueryResult result = Query.QueryResult.newBuilder()
+        .addFields(Query.Field.newBuilder().setName("col1").setType(Query.Type.INT64))
+        .addRows(Query.Row.newBuilder().addLengths(1).setValues(ByteString.copyFromUtf8("1")))
+        .build();
+    StreamIterator<Query.QueryResult> stream = new StreamIterator<Query.QueryResult>() {
+      private boolean sent;
+
+      @Override
+      public boolean hasNext() throws SQLException {
+        if (sent) {
+          return false;
+        }
+        try {
+          // The first response of the stream takes a while to arrive.
+          Thread.sleep(delayMillis);
+        } catch (InterruptedException exc) {
+          throw new SQLException(exc);
+        }
+        return true;
+      }
+
+      @Override
+      public Query.QueryResult next() {
+        sent = true;
+        return result;
+      }
+
+      @Override
+      public void close() {
+      }
+    };
+
+    when(mockConn.getVtGateConn()).thenReturn(mockVtGateConn);
+    when(mockConn.isSimpleExecute()).thenReturn(false);
+    when(mockConn.newExecutionStats(sqlSelect)).thenReturn(new ExecutionStats(sqlSelect, null));
+    when(mockVtGateConn.streamExecute(nullable(Context.class), any(Query.BoundQuery.class),
+        nullable(VTSession.class))).thenReturn(new StreamCursor(stream));
+
+    VitessStatement statement = new VitessStatement(mockConn);
+    statement.executeQuery(sqlSelect);
+    ExecutionStats stats = statement.getLastExecutionStats();
+    assertTrue(stats.getRpcNanos() >= TimeUnit.MILLISECONDS.toNanos(delayMillis));
+    assertTrue(stats.getFieldsNanos() < TimeUnit.MILLISECONDS.toNanos(delayMillis));
+  }
 }
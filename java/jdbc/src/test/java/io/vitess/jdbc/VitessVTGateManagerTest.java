@@ -19,7 +19,9 @@ package io.vitess.jdbc;
 import io.vitess.client.Context;
 import io.vitess.client.RpcClient;
 import io.vitess.client.VTGateConnection;
+import io.vitess.client.grpc.ClientMetrics;
 import io.vitess.client.grpc.GrpcClientFactory;
+import io.vitess.client.grpc.HistogramClientMetrics;
 import io.vitess.proto.Vtrpc;
 
 import org.joda.time.Duration;
@@ -27,8 +29,13 @@ import org.joda.time.Duration;
 import java.io.IOException;
 import java.lang.reflect.Field;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -70,8 +77,7 @@ public class VitessVTGateManagerTest {
     Field privateMapField = VitessVTGateManager.class.
         getDeclaredField("vtGateConnHashMap");
     privateMapField.setAccessible(true);
-    ConcurrentHashMap<String, VTGateConnection> map = (ConcurrentHashMap<String,
-        VTGateConnection>) privateMapField
+    ConcurrentHashMap<String, ?> map = (ConcurrentHashMap<String, ?>) privateMapField
         .get(VitessVTGateManager.class);
     Assert.assertEquals(4, map.size());
     VitessVTGateManager.close();
@@ -95,11 +101,51 @@ public class VitessVTGateManagerTest {
     Field privateMapField = VitessVTGateManager.class.
         getDeclaredField("vtGateConnHashMap");
     privateMapField.setAccessible(true);
-    ConcurrentHashMap<String, VTGateConnection> map = (ConcurrentHashMap<String,
-        VTGateConnection>) privateMapField
+    ConcurrentHashMap<String, ?> map = (ConcurrentHashMap<String, ?>) privateMapField
         .get(VitessVTGateManager.class);
     Assert.assertEquals(3, map.size());
     VitessVTGateManager.close();
   }
 
+  @Test
+  public void testRetryMetricsAreSharedByAllVtGates() throws SQLException {
+    VitessConnection connection = new VitessConnection(
+        "jdbc:vitess://10.33.17.231:15991/shipment?grpcRetriesEnabled=true", new Properties());
+    VitessConnection connection1 = new VitessConnection(
+        "jdbc:vitess://10.33.17.232:15991/shipment?grpcRetriesEnabled=false", new Properties());
+    Assert.assertSame(VitessVTGateManager.getRetryMetrics(),
+        VitessVTGateManager.getRetryingInterceptorConfig(connection).getMetrics());
+    Assert.assertSame(VitessVTGateManager.getRetryMetrics(),
+        VitessVTGateManager.getRetryingInterceptorConfig(connection1).getMetrics());
+  }
+
+  @Test
+  public void testSetClientMetrics() {
+    Assert.assertSame(ClientMetrics.NO_OP, VitessVTGateManager.getClientMetrics());
+    HistogramClientMetrics metrics = new HistogramClientMetrics();
+    VitessVTGateManager.setClientMetrics(metrics);
+    try {
+      Assert.assertSame(metrics, VitessVTGateManager.getClientMetrics());
+    } finally {
+      VitessVTGateManager.setClientMetrics(ClientMetrics.NO_OP);
+    }
+  }
+
+  @Test
+  public void testConcurrentConnectionsShareVtGateConnection() throws Exception {
+    VitessVTGateManager.close();
+    final String url = "jdbc:vitess://10.33.17.231:15991/shipment/shipment?tabletType=primary";
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    List<Future<VTGateConnection>> futures = new ArrayList<>();
+    for (int i = 0; i < 32; i++) {
+      futures.add(executor.submit(() -> new VitessVTGateManager.VTGateConnections(
+          new VitessConnection(url, new Properties())).getVtGateConnInstance()));
+    }
+    VTGateConnection first = futures.get(0).get();
+    for (Future<VTGateConnection> future : futures) {
+      Assert.assertSame(first, future.get());
+    }
+    executor.shutdown();
+    VitessVTGateManager.close();
+  }
 }
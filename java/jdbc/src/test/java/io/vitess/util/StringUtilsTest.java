@@ -153,4 +153,17 @@ public class StringUtilsTest {
     Assert.assertEquals('S',
         StringUtils.firstAlphaCharUc("/* leading comment */ select * from table2 ", 22));
   }
+
+  @Test
+  public void isDdlTest() {
+    Assert.assertTrue(StringUtils.isDdl("ALTER TABLE t ADD COLUMN c INT"));
+    Assert.assertTrue(StringUtils.isDdl("  create index i on t (c)"));
+    Assert.assertTrue(StringUtils.isDdl("/* comment */ drop table t"));
+    Assert.assertTrue(StringUtils.isDdl("-- comment\nrename table t to u"));
+    Assert.assertTrue(StringUtils.isDdl("truncate t"));
+    Assert.assertFalse(StringUtils.isDdl("delete from t"));
+    Assert.assertFalse(StringUtils.isDdl("insert into drop_log values (1)"));
+    Assert.assertFalse(StringUtils.isDdl("/* create table */ update t set c = 1"));
+    Assert.assertFalse(StringUtils.isDdl(null));
+  }
 }